@@ -0,0 +1,24 @@
+package com.leave.engine.benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * The engine logs every scene change and load to System.out. Benchmarks swap in a stream that
+ * discards it, so the numbers measure the engine (including building those messages) rather
+ * than the console.
+ */
+final class EngineLogs {
+
+    private static final PrintStream ORIGINAL_OUT = System.out;
+
+    private EngineLogs() {}
+
+    static void silence() {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    static void restore() {
+        System.setOut(ORIGINAL_OUT);
+    }
+}
@@ -0,0 +1,85 @@
+package com.leave.engine.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.leave.engine.ChoiceData;
+import com.leave.engine.DialogueEntry;
+import com.leave.engine.GameManager;
+import com.leave.engine.SceneData;
+
+/**
+ * {@link GameManager#processText(String)} over every dialogue line and choice text in sao.json,
+ * with and without the player name placeholder, as the gameplay screen runs it per line.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ProcessTextBenchmark {
+
+    private GameManager gameManager;
+    private String[] texts;
+
+    @Setup
+    public void setUp() throws IOException {
+        EngineLogs.silence();
+        gameManager = GameManager.getInstance();
+        gameManager.loadStory("/com/leave/engine/data/sao.json");
+        gameManager.setCurrentPlayerCharacterName("Benchmark Player");
+
+        List<String> collected = new ArrayList<>();
+        for (SceneData scene : scenes()) {
+            if (scene.getDialogue() != null) {
+                for (DialogueEntry entry : scene.getDialogue()) {
+                    if (entry != null && entry.getLine() != null) collected.add(entry.getLine());
+                }
+            }
+            if (scene.getChoices() != null) {
+                for (ChoiceData choice : scene.getChoices()) {
+                    if (choice != null && choice.getText() != null) collected.add(choice.getText());
+                }
+            }
+        }
+        texts = collected.toArray(new String[0]);
+    }
+
+    private List<SceneData> scenes() {
+        List<SceneData> scenes = new ArrayList<>();
+        for (int i = 0; i < gameManager.getSceneGraph().getSceneCount(); i++) {
+            SceneData data = gameManager.getSceneGraph().getSceneNode(i).getData();
+            if (data != null) scenes.add(data);
+        }
+        return scenes;
+    }
+
+    @TearDown
+    public void tearDown() {
+        EngineLogs.restore();
+    }
+
+    /** Every line of the story once. */
+    @Benchmark
+    public void processAllText(Blackhole blackhole) {
+        for (String text : texts) {
+            blackhole.consume(gameManager.processText(text));
+        }
+    }
+}
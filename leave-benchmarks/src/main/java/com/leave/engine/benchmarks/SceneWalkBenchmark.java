@@ -0,0 +1,112 @@
+package com.leave.engine.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.leave.engine.ChoiceData;
+import com.leave.engine.GameManager;
+import com.leave.engine.OutcomeData;
+import com.leave.engine.SceneData;
+import com.leave.engine.SceneGraph;
+
+/**
+ * Scene-to-scene throughput of {@link GameManager}: random walks through sao.json the way a
+ * player moves (random choices, auto-transitions, outcomes, restarting at endings), and
+ * {@link GameManager#advanceToScene(String)} by ID over every scene.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SceneWalkBenchmark {
+
+    @Param({ "/com/leave/engine/data/sao.json", "/com/leave/engine/data/sao.story" })
+    public String storyPath;
+
+    /** Scene changes per random walk. */
+    @Param({ "64" })
+    public int steps;
+
+    private GameManager gameManager;
+    private Random random;
+    private String[] sceneIds;
+    private int nextScene;
+
+    @Setup
+    public void setUp() throws IOException {
+        EngineLogs.silence();
+        gameManager = GameManager.getInstance();
+        gameManager.loadStory(storyPath);
+        gameManager.startGame();
+        random = new Random(42); // Same walks on every run
+
+        SceneGraph graph = gameManager.getSceneGraph();
+        sceneIds = new String[graph.getSceneCount()];
+        for (int i = 0; i < sceneIds.length; i++) {
+            sceneIds[i] = graph.getSceneNode(i).getSceneId();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        EngineLogs.restore();
+    }
+
+    @Benchmark
+    public int randomWalk() {
+        gameManager.startGame();
+        for (int i = 0; i < steps; i++) {
+            if (!step()) {
+                gameManager.startGame(); // Reached an ending; play again
+            }
+        }
+        return gameManager.getCurrentSceneNode().getIndex();
+    }
+
+    // One player move; false at a dead end
+    private boolean step() {
+        if (gameManager.isGameOver()) {
+            OutcomeData outcome = gameManager.getCurrentOutcomeData();
+            if (outcome == null || outcome.getNextSceneId() == null) return false;
+            gameManager.followOutcomeTransition();
+            return true;
+        }
+        SceneData scene = gameManager.getCurrentSceneData();
+        if (scene == null) return false;
+        List<ChoiceData> choices = scene.getChoices();
+        if (choices != null && !choices.isEmpty()) {
+            gameManager.makeChoice(choices.get(random.nextInt(choices.size())));
+            return true;
+        }
+        if (scene.getAutoTransitionTo() != null) {
+            gameManager.followAutoTransition();
+            return true;
+        }
+        return false;
+    }
+
+    @Benchmark
+    public SceneData advanceToSceneById() {
+        gameManager.resetGameOver(); // An outcome scene would otherwise stop every later advance
+        gameManager.advanceToScene(sceneIds[nextScene]);
+        nextScene = (nextScene + 1) % sceneIds.length;
+        return gameManager.getCurrentSceneData();
+    }
+}
@@ -0,0 +1,88 @@
+package com.leave.engine.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.leave.engine.utils.AnimationScheduler;
+import com.leave.engine.utils.SpriteAtlas;
+import com.leave.engine.utils.SpriteSheetAnimator;
+
+import javafx.scene.image.ImageView;
+import javafx.scene.image.WritableImage;
+
+/**
+ * Cost of one animation pulse: the {@link AnimationScheduler} ticking every playing
+ * {@link SpriteSheetAnimator}, each stepping one frame on its ImageView. Pulses are driven
+ * directly (no FX toolkit) over a sheet laid out like hallwayexit.png, generated in memory,
+ * both as viewports on the sheet and as pre-sliced frames.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SpriteStepBenchmark {
+
+    private static final int FRAME_WIDTH = 700;
+    private static final int FRAME_HEIGHT = 500;
+    private static final int FRAMES = 10;
+    private static final double FPS = 12;
+
+    @Param({ "1", "16" })
+    public int animators;
+
+    @Param({ "false", "true" })
+    public boolean preSliced;
+
+    private AnimationScheduler scheduler;
+    private final List<SpriteSheetAnimator> playing = new ArrayList<>();
+    private long frameNanos;
+    private long now;
+
+    @Setup
+    public void setUp() {
+        EngineLogs.silence();
+        scheduler = AnimationScheduler.getInstance();
+        scheduler.setExternalPulse(true);
+        WritableImage sheet = new WritableImage(FRAME_WIDTH, FRAME_HEIGHT * FRAMES);
+        SpriteAtlas atlas = SpriteAtlas.fromImage("benchmark-sheet", sheet, FRAME_WIDTH, FRAME_HEIGHT, 1, FRAMES, preSliced);
+        for (int i = 0; i < animators; i++) {
+            SpriteSheetAnimator animator = new SpriteSheetAnimator(new ImageView(), atlas, FPS, true);
+            animator.play();
+            playing.add(animator);
+        }
+        frameNanos = (long) Math.ceil(1_000_000_000.0 / FPS); // Every pulse is due to step a frame
+        now = 0;
+        scheduler.pulse(now); // First pulse only starts the clock
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (SpriteSheetAnimator animator : playing) animator.stop();
+        playing.clear();
+        scheduler.setExternalPulse(false);
+        EngineLogs.restore();
+    }
+
+    @Benchmark
+    public long pulse() {
+        now += frameNanos;
+        scheduler.pulse(now);
+        return scheduler.now();
+    }
+}
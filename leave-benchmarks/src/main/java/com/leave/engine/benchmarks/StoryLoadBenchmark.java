@@ -0,0 +1,65 @@
+package com.leave.engine.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.leave.engine.GameStory;
+import com.leave.engine.SceneData;
+import com.leave.engine.StoryLoader;
+
+/**
+ * {@link StoryLoader#loadStory(String)} for the JSON story and the compiled one. The compiled
+ * and streaming loaders decode scenes on first lookup, so the second benchmark also touches
+ * every scene to compare the full cost.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StoryLoadBenchmark {
+
+    @Param({ "/com/leave/engine/data/sao.json", "/com/leave/engine/data/sao.story" })
+    public String storyPath;
+
+    private StoryLoader loader;
+
+    @Setup
+    public void setUp() {
+        EngineLogs.silence();
+        loader = new StoryLoader();
+    }
+
+    @TearDown
+    public void tearDown() {
+        EngineLogs.restore();
+    }
+
+    @Benchmark
+    public GameStory loadStory() throws IOException {
+        return loader.loadStory(storyPath);
+    }
+
+    @Benchmark
+    public void loadStoryAndEveryScene(Blackhole blackhole) throws IOException {
+        GameStory story = loader.loadStory(storyPath);
+        for (SceneData scene : story.getScenes().values()) {
+            blackhole.consume(scene);
+        }
+    }
+}
@@ -2,18 +2,28 @@ package com.leave.engine;
 
 import java.io.IOException;
 import java.net.URL;
+import java.nio.file.Path;
+import java.util.List;
 
+import com.leave.engine.utils.AnimationScheduler;
+import com.leave.engine.utils.AssetIO;
 import com.leave.engine.utils.AudioManager; 
+import com.leave.engine.utils.ContentPacks;
+import com.leave.engine.utils.ImageCache;
+import com.leave.engine.utils.SaveManager;
 
+import javafx.animation.AnimationTimer;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
+import javafx.geometry.Rectangle2D;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Label;
 import javafx.scene.layout.StackPane;
 import javafx.scene.text.Font; 
+import javafx.stage.Screen;
 import javafx.stage.Stage; 
 
 public class App extends Application { // WOah polymorphism
@@ -26,15 +36,17 @@ public class App extends Application { // WOah polymorphism
     private AudioManager audioManager;
 
     private static final String STORY_JSON_PATH = "/com/leave/engine/data/sao.json"; // our Json file
+    private static final String STORY_COMPILED_PATH = "/com/leave/engine/data/sao.story"; // built from sao.json by StoryCompiler
     private static final String DEFAULT_FONT_PATH = "/com/leave/engine/data/Le-Mano.ttf"; // horror font
+    private static final String TEXT_BLIP_PATH = "/com/leave/engine/data/audio/blip.wav";
 
 
     // prep to load
     @Override
     public void init() throws Exception {
         super.init();
-        audioManager = AudioManager.getInstance();
-        audioManager.loadTextBlipSound("/com/leave/engine/data/audio/blip.wav");
+        audioManager = AudioManager.getInstance(); // The text blip is loaded by the StartupPipeline
+        ContentPacks.getInstance().mountRequested(); // Before anything resolves a resource, so packs win everywhere
     }
 
     // stops the app
@@ -44,6 +56,16 @@ public class App extends Application { // WOah polymorphism
         if (audioManager != null) {
             audioManager.shutdown();
         }
+        ScenePrefetcher.getInstance().shutdown();
+        DevReloader.getInstance().stop();
+        GameManager.getInstance().stopRecording();
+        SaveManager.getInstance().shutdown(); // Lets a queued autosave finish
+        System.out.println("App.stop(): " + SaveManager.getInstance().getStatsSummary());
+        AssetIO.getInstance().shutdown();
+        ContentPacks.getInstance().unmountAll();
+        System.out.println("App.stop(): " + AssetIO.getInstance().getStatsSummary());
+        System.out.println("App.stop(): " + ImageCache.getInstance().getStatsSummary());
+        System.out.println("App.stop(): " + AnimationScheduler.getInstance().getStatsSummary());
         System.out.println("Application stopped.");
     }
 
@@ -56,53 +78,83 @@ public class App extends Application { // WOah polymorphism
         appPrimaryStage.setFullScreen(true); 
         appPrimaryStage.setFullScreenExitHint("");
         appPrimaryStage.setResizable(false);  
+        // Freeze every sprite and text animation while the window is minimized
+        appPrimaryStage.iconifiedProperty().addListener((obs, wasIconified, isIconified) -> {
+            if (isIconified) AnimationScheduler.getInstance().pause();
+            else AnimationScheduler.getInstance().resume();
+        });
 
         /* most of the println are there for debugging */
         System.out.println("App.start(): JavaFX Application Thread INITIALIZING.");
+        final long startNanos = System.nanoTime();
 
-        
-        boolean canProceed = true;
         gameManager = GameManager.getInstance(); // obtains a gamemanager instance
         System.out.println("App.start(): GameManager instance obtained.");
 
-        // Tries to load story 
-        try {
-            System.out.println("App.start(): Attempting to load story from: " + STORY_JSON_PATH);
-            gameManager.loadStory(STORY_JSON_PATH);
-            System.out.println("App.start(): Story loaded. Game Title: " + gameManager.getGameTitle());
-        } catch (IOException e) {
-            System.err.println("App.start(): CRITICAL ERROR - Could not load story.");
-            e.printStackTrace();
-            canProceed = false; // Set to false if story loading fails
-            // Optionally, show an alert dialog here for the user before exiting or trying to proceed
-            Platform.runLater(() -> {
-                Alert alert = new Alert(Alert.AlertType.ERROR);
-                alert.setTitle("Fatal Error");
-                alert.setHeaderText("Game Data Load Failure");
-                alert.setContentText("The game story could not be loaded. Please ensure the game files are intact. See console for details.");
-                alert.showAndWait();
-                Platform.exit(); // Exit application if critical data is missing
-            });
-            return; // Exit start method
-        }
-
-        if (canProceed) { // This check is now crucial as we might have returned early
-            System.out.println("App.start(): Calling gameManager.startGame()...");
-            gameManager.startGame();
-            System.out.println("App.start(): gameManager.startGame() completed. Player name is currently: '" + gameManager.getCurrentPlayerName() + "'");
-        }
-
-        loadCustomFonts();
+        // Show the menu first; the story, font, audio and first scene images load behind it
         System.out.println("App.start(): Loading initial FXML view (gameEntry.fxml)...");
-        loadInitialViewAndSetScene("gameEntry"); 
+        Object controller = loadInitialViewAndSetScene("gameEntry");
+        final MainMenuController mainMenuController =
+                (controller instanceof MainMenuController) ? (MainMenuController) controller : null;
 
-        
         if (appPrimaryStage.getScene() != null) { 
              appPrimaryStage.show();
              System.out.println("App.start(): Stage should now be visible.");
+             reportFirstFrame(startNanos);
+             updateDisplaySize(appPrimaryStage); // Before the startup pipeline decodes the first background
         } else {
             System.err.println("App.start(): ERROR! No scene was set on the stage. Cannot show.");
         }
+
+        // Prefer the compiled story when the build or a pack provides one, fall back to the JSON.
+        // Dev mode always runs the JSON, since that is what gets edited and reloaded.
+        Path devDirectory = DevReloader.requestedDirectory();
+        String storyPath = devDirectory == null && ContentPacks.getInstance().exists(STORY_COMPILED_PATH) ? STORY_COMPILED_PATH : STORY_JSON_PATH;
+        System.out.println("App.start(): Starting background load of story: " + storyPath);
+        StartupPipeline pipeline = new StartupPipeline(storyPath, DEFAULT_FONT_PATH, TEXT_BLIP_PATH);
+        pipeline.start((fraction, message) -> {
+            if (mainMenuController != null) mainMenuController.showStartupProgress(fraction, message);
+        }).whenComplete((ignored, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                System.err.println("App.start(): CRITICAL ERROR - Could not load story.");
+                error.printStackTrace();
+                Alert alert = new Alert(Alert.AlertType.ERROR);
+                alert.setTitle("Fatal Error");
+                alert.setHeaderText("Game Data Load Failure");
+                alert.setContentText("The game story could not be loaded. Please ensure the game files are intact. See console for details.");
+                alert.showAndWait();
+                Platform.exit(); // Exit application if critical data is missing
+                return;
+            }
+            HORROR_FONT = pipeline.getLoadedFont();
+            System.out.println("App.start(): Story loaded. Game Title: " + gameManager.getGameTitle() +
+                               ". Player name is currently: '" + gameManager.getCurrentPlayerName() + "'");
+            System.out.println("App.start(): Startup finished in " + pipeline.getElapsedMillis() +
+                               " ms, stages (ms): " + pipeline.getStageMillis());
+            if (devDirectory != null) DevReloader.getInstance().start(devDirectory, STORY_JSON_PATH);
+            if (mainMenuController != null) mainMenuController.onStartupComplete();
+        }));
+    }
+
+    // Full-screen size in device pixels, so ImageCache decodes backgrounds no larger than the screen
+    private static void updateDisplaySize(Stage stage) {
+        List<Screen> screens = Screen.getScreensForRectangle(stage.getX(), stage.getY(),
+                                                             Math.max(1, stage.getWidth()), Math.max(1, stage.getHeight()));
+        Screen screen = screens.isEmpty() ? Screen.getPrimary() : screens.get(0);
+        Rectangle2D bounds = screen.getBounds();
+        ImageCache.getInstance().setDisplaySize(bounds.getWidth() * screen.getOutputScaleX(),
+                                                bounds.getHeight() * screen.getOutputScaleY());
+    }
+
+    // Logs the time from start() to the first rendered pulse, which is roughly when the window has content
+    private static void reportFirstFrame(long startNanos) {
+        new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                stop();
+                System.out.println("App.start(): Time to first frame: " + (System.nanoTime() - startNanos) / 1_000_000 + " ms");
+            }
+        }.start();
     }
 
     // ... (App.setRoot and loadInitialViewAndSetScene methods as before, but with slight modifications below) ...
@@ -112,8 +164,9 @@ public class App extends Application { // WOah polymorphism
      * Also handles controller callbacks for global key listener setup if MainMenuController.
      * Creates a fallback error scene if FXML loading fails.
      * @param fxmlName The base name of the FXML file (e.g., "gameEntry")
+     * @return The loaded view's controller, or null if the FXML could not be loaded.
      */
-    private static void loadInitialViewAndSetScene(String fxmlName) {
+    private static Object loadInitialViewAndSetScene(String fxmlName) {
         Parent rootNode = null;
         Object controllerObj = null; // We need this to call setupGlobalKeyListener
         String fullFxmlPath = "/com/leave/engine/" + fxmlName + ".fxml";
@@ -177,6 +230,7 @@ public class App extends Application { // WOah polymorphism
         
         appPrimaryStage.setScene(primaryScene);
         System.out.println("App.loadInitialView(): Primary scene has been set on the stage.");
+        return rootNode != null ? controllerObj : null;
     }
 
     public static void setRoot(String fxml) throws IOException {
@@ -222,28 +276,6 @@ public class App extends Application { // WOah polymorphism
     }
 
 
-    private void loadCustomFonts() {
-        System.out.println("App.loadCustomFonts(): Loading...");
-        try {
-            // Load font from classpath
-            URL fontUrl = getClass().getResource(DEFAULT_FONT_PATH);
-            if (fontUrl != null) {
-                HORROR_FONT = Font.loadFont(fontUrl.toExternalForm(), 20); // Load with a base size
-                if (HORROR_FONT != null) {
-                    // HORROR_FONT_FAMILY_NAME = HORROR_FONT.getFamily();
-                    // System.out.println("App.loadCustomFonts(): Font '" + HORROR_FONT_FAMILY_NAME + "' loaded from " + DEFAULT_FONT_PATH);
-                } else {
-                    System.err.println("App.loadCustomFonts(): WARNING - Font.loadFont returned null for " + DEFAULT_FONT_PATH);
-                }
-            } else {
-                System.err.println("App.loadCustomFonts(): WARNING - Font resource not found at " + DEFAULT_FONT_PATH);
-            }
-        } catch (Exception e) {
-            System.err.println("App.loadCustomFonts(): ERROR loading font: " + DEFAULT_FONT_PATH);
-            e.printStackTrace();
-        }
-    }
-
     public static void main(String[] args) {
         System.out.println("App.main(): Launching JavaFX application via Application.launch()...");
         launch(); // This calls the start method indirectly
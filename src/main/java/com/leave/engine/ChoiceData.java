@@ -20,7 +20,7 @@ public class ChoiceData {
     // public String getRequiredItem() { return requiredItem; }
     // public void setRequiredItem(String requiredItem) { this.requiredItem = requiredItem; }
     public String getRequiredFlag() { return requiredFlag; }
-    // public void setRequiredFlag(String requiredFlag) { this.requiredFlag = requiredFlag; }
+    public void setRequiredFlag(String requiredFlag) { this.requiredFlag = requiredFlag; }
 
 
     // De buggy 
@@ -0,0 +1,230 @@
+package com.leave.engine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read side of the binary story format written by {@link StoryCompiler}.
+ * Only the header, the scene table and the outcomes are read up front; strings are decoded
+ * and {@link SceneData} objects are built the first time a scene is looked up. The scenes
+ * map handed to {@link GameStory} is a {@link LazySceneMap} over this class, so
+ * GameManager's existing {@code getScenes().get(id)} lookups work unchanged.
+ *
+ * Lookups may come from the FX thread and the prefetch threads at the same time, so
+ * string decoding is synchronized; the buffer itself is only ever read with absolute gets.
+ */
+class CompiledStory {
+
+    private final ByteBuffer buffer;
+    private final int stringOffsetsPos;
+    private final int poolStart;
+    private final int sceneDataStart;
+
+    private final String[] strings;        // Decoded on first use
+    private final String[] sceneIds;
+    private final int[] sceneRecordOffsets;
+    private final Map<String, Integer> sceneIndexById;
+
+    CompiledStory(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.remaining() < 30 || buffer.getInt(0) != StoryCompiler.MAGIC) {
+            throw new IOException("Not a compiled story (bad magic).");
+        }
+        short version = buffer.getShort(4);
+        if (version != StoryCompiler.VERSION) {
+            throw new IOException("Unsupported compiled story version " + version + " (expected " + StoryCompiler.VERSION + ").");
+        }
+        int stringCount = buffer.getInt(18);
+        int sceneCount = buffer.getInt(22);
+        int outcomeCount = buffer.getInt(26);
+
+        this.stringOffsetsPos = 30;
+        int sceneTablePos = stringOffsetsPos + 4 * stringCount;
+        int outcomeTablePos = sceneTablePos + 8 * sceneCount;
+        int poolLengthPos = outcomeTablePos + 12 * outcomeCount;
+        this.poolStart = poolLengthPos + 4;
+        this.sceneDataStart = poolStart + buffer.getInt(poolLengthPos);
+        if (sceneDataStart > buffer.limit()) {
+            throw new IOException("Compiled story is truncated.");
+        }
+
+        this.strings = new String[stringCount];
+        this.sceneIds = new String[sceneCount];
+        this.sceneRecordOffsets = new int[sceneCount];
+        this.sceneIndexById = new LinkedHashMap<>(sceneCount * 2); // Story order, like Jackson's map
+        for (int i = 0; i < sceneCount; i++) {
+            int pos = sceneTablePos + 8 * i;
+            sceneIds[i] = string(buffer.getInt(pos));
+            sceneRecordOffsets[i] = buffer.getInt(pos + 4);
+            sceneIndexById.put(sceneIds[i], i);
+        }
+    }
+
+    /**
+     * Builds the {@link GameStory} facade: title, start scene and outcomes are filled in now,
+     * scenes are materialized lazily through the returned map.
+     */
+    GameStory toGameStory() {
+        GameStory story = new GameStory();
+        story.setGameTitle(string(buffer.getInt(6)));
+        story.setStartScene(sceneRef(buffer.getInt(10)));
+        story.setPlayerNamePlaceholder(string(buffer.getInt(14)));
+
+        int outcomeCount = buffer.getInt(26);
+        int outcomeTablePos = stringOffsetsPos + 4 * strings.length + 8 * sceneIds.length;
+        Map<String, OutcomeData> outcomes = new LinkedHashMap<>();
+        for (int i = 0; i < outcomeCount; i++) {
+            int pos = outcomeTablePos + 12 * i;
+            OutcomeData outcome = new OutcomeData();
+            outcome.setMessage(string(buffer.getInt(pos + 4)));
+            outcome.setNextSceneId(sceneRef(buffer.getInt(pos + 8)));
+            outcomes.put(string(buffer.getInt(pos)), outcome);
+        }
+        story.setOutcomes(outcomes);
+        story.setScenes(new LazySceneMap(sceneIds, sceneIndexById,
+                                         index -> readScene(sceneDataStart + sceneRecordOffsets[index]),
+                                         LazySceneMap.UNLIMITED));
+        return story;
+    }
+
+    int getSceneCount() { return sceneIds.length; }
+
+    // --- Decoding ---
+
+    private synchronized String string(int index) {
+        if (index < 0) return null;
+        String s = strings[index];
+        if (s == null) {
+            int pos = poolStart + buffer.getInt(stringOffsetsPos + 4 * index);
+            int length = buffer.getInt(pos);
+            byte[] utf8 = new byte[length];
+            ByteBuffer view = buffer.duplicate();
+            view.position(pos + 4);
+            view.get(utf8);
+            s = new String(utf8, StandardCharsets.UTF_8);
+            strings[index] = s;
+        }
+        return s;
+    }
+
+    private String sceneRef(int ref) {
+        if (ref == StoryCompiler.NULL_REF) return null;
+        if (ref >= 0) return sceneIds[ref];
+        return string(-ref - 2); // Dangling ID, kept verbatim
+    }
+
+    private SceneData readScene(int start) {
+        Reader in = new Reader(start);
+        if (!in.bool()) return null;
+
+        SceneData scene = new SceneData();
+        scene.setId(in.str());
+
+        int dialogueCount = in.i32();
+        if (dialogueCount >= 0) {
+            List<DialogueEntry> dialogue = new ArrayList<>(dialogueCount);
+            for (int i = 0; i < dialogueCount; i++) {
+                if (!in.bool()) { dialogue.add(null); continue; }
+                DialogueEntry entry = new DialogueEntry();
+                entry.setSpeaker(in.str());
+                entry.setLine(in.str());
+                entry.setStyle(in.str());
+                entry.setPortraitPath(in.str());
+                dialogue.add(entry);
+            }
+            scene.setDialogue(dialogue);
+        }
+
+        scene.setBackgroundImage(in.str());
+
+        if (in.bool()) {
+            SpriteInfo bg = new SpriteInfo();
+            bg.setPath(in.str());
+            bg.setFrameWidth(in.i32());
+            bg.setFrameHeight(in.i32());
+            bg.setNumCols(in.i32());
+            bg.setTotalFrames(in.i32());
+            bg.setFps(in.f64());
+            bg.setLoop(in.bool());
+            scene.setBackgroundSprite(bg);
+        }
+
+        if (in.bool()) {
+            CharacterSpriteInfo ch = new CharacterSpriteInfo();
+            ch.setId(in.str());
+            ch.setPath(in.str());
+            ch.setFrameWidth(in.i32());
+            ch.setFrameHeight(in.i32());
+            ch.setNumCols(in.i32());
+            ch.setTotalFrames(in.i32());
+            ch.setFps(in.f64());
+            ch.setLoop(in.bool());
+            ch.setVisibleInitially(in.bool());
+            ch.setPositionX(in.f64());
+            ch.setPositionY(in.f64());
+            scene.setCharacterSprite(ch);
+        }
+
+        int objectCount = in.i32();
+        if (objectCount >= 0) {
+            List<InteractiveObjectInfo> objects = new ArrayList<>(objectCount);
+            for (int i = 0; i < objectCount; i++) {
+                if (!in.bool()) { objects.add(null); continue; }
+                InteractiveObjectInfo obj = new InteractiveObjectInfo();
+                obj.setId(in.str());
+                obj.setName(in.str());
+                obj.setImagePath(in.str());
+                obj.setX(in.i32());
+                obj.setY(in.i32());
+                obj.setRequiredItem(in.str());
+                obj.setActionOnInteract(in.str());
+                obj.setYieldsItem(in.str());
+                obj.setConsumedOnInteract(in.bool());
+                objects.add(obj);
+            }
+            scene.setObjects(objects);
+        }
+
+        int choiceCount = in.i32();
+        if (choiceCount >= 0) {
+            List<ChoiceData> choices = new ArrayList<>(choiceCount);
+            for (int i = 0; i < choiceCount; i++) {
+                if (!in.bool()) { choices.add(null); continue; }
+                ChoiceData choice = new ChoiceData();
+                choice.setText(in.str());
+                choice.setNextSceneId(in.ref());
+                choice.setOutcome(in.str());
+                choice.setAction(in.str());
+                choice.setRequiredFlag(in.str());
+                choices.add(choice);
+            }
+            scene.setChoices(choices);
+        }
+
+        scene.setAutoTransitionTo(in.ref());
+        scene.setOutcome(in.str());
+        scene.setBackgroundMusic(in.str());
+        scene.setAction(in.str());
+        scene.setEndingTitle(in.str());
+        scene.setNextSceneIdIfNameSet(in.ref());
+        return scene;
+    }
+
+    // Sequential cursor over one scene record, using absolute reads on the shared buffer
+    private final class Reader {
+        private int pos;
+
+        Reader(int pos) { this.pos = pos; }
+
+        boolean bool() { return buffer.get(pos++) != 0; }
+        int i32() { int v = buffer.getInt(pos); pos += 4; return v; }
+        double f64() { double v = buffer.getDouble(pos); pos += 8; return v; }
+        String str() { return string(i32()); }
+        String ref() { return sceneRef(i32()); }
+    }
+}
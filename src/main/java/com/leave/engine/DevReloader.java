@@ -0,0 +1,372 @@
+package com.leave.engine;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.leave.engine.utils.AudioCompiler;
+import com.leave.engine.utils.AudioManager;
+import com.leave.engine.utils.CompressedAudio;
+import com.leave.engine.utils.ImageCache;
+import com.leave.engine.utils.ResourceWatcher;
+import com.leave.engine.utils.SpriteAtlas;
+
+import javafx.application.Platform;
+
+/**
+ * Dev mode: picks up edits to the story JSON and its assets while the game runs, so changing a
+ * line of dialogue or a background does not mean restarting and clicking back to the scene.
+ *
+ * Started by App when {@code -Dleave.dev.dir=<resources dir>} is set (the pom's {@code dev}
+ * profile passes {@code src/main/resources}). A {@link ResourceWatcher} reports changed files;
+ * each one is copied (or, for WAVs, compressed) into the classpath directory the game reads
+ * from, then:
+ * <ul>
+ *   <li>the story JSON is parsed to a tree and compared with the running version scene by
+ *       scene. Only edited scenes are mapped and swapped into the live story in place
+ *       ({@link GameManager#replaceScenes}); adding or removing scenes, or editing outcomes or the
+ *       header, reloads the whole story but keeps the playthrough ({@link GameManager#reloadStory}).</li>
+ *   <li>an image or audio file drops just its own decoded copies from {@link ImageCache},
+ *       {@link SpriteAtlas} and {@link AudioManager}.</li>
+ * </ul>
+ * If the current scene was edited or uses a changed asset, it is shown again in place through
+ * the refresher the gameplay controller registers. Parsing and copying run on the watcher
+ * thread; only the swap and the refresh run on the FX thread.
+ */
+public final class DevReloader {
+
+    /** System property naming the resource source directory to watch; dev mode is off without it. */
+    public static final String DIR_PROPERTY = "leave.dev.dir";
+
+    private static DevReloader instance;
+
+    private final StoryLoader storyLoader = new StoryLoader();
+    private volatile ResourceWatcher watcher;
+    private Path classpathRoot;       // Directory the game loads resources from; null when running from a jar
+    private String storyPath;
+    private volatile JsonNode storyTree; // Version of the story the game is running; advanced only once applied
+    private volatile Runnable sceneRefresher;
+    private int reloads = 0;
+
+    private DevReloader() {}
+
+    public static synchronized DevReloader getInstance() {
+        if (instance == null) {
+            instance = new DevReloader();
+        }
+        return instance;
+    }
+
+    /** The directory from {@link #DIR_PROPERTY}, or null if dev mode was not asked for. */
+    public static Path requestedDirectory() {
+        String dir = System.getProperty(DIR_PROPERTY);
+        return (dir != null && !dir.trim().isEmpty()) ? Paths.get(dir.trim()) : null;
+    }
+
+    /**
+     * Starts watching {@code sourceRoot}. The story must already be loaded by GameManager from
+     * the JSON at {@code storyResourcePath}, which is taken as the running version.
+     * @return false if the directory cannot be watched or the story cannot be read.
+     */
+    public synchronized boolean start(Path sourceRoot, String storyResourcePath) {
+        if (watcher != null) return true;
+        try (InputStream in = DevReloader.class.getResourceAsStream(storyResourcePath)) {
+            if (in == null) throw new IOException("Story not on the classpath: " + storyResourcePath);
+            storyTree = storyLoader.readStoryTree(in.readAllBytes(), storyResourcePath);
+            storyPath = storyResourcePath;
+            classpathRoot = findClasspathRoot(storyResourcePath);
+            if (classpathRoot == null) {
+                System.err.println("DevReloader: Resources are not loaded from a directory; changed assets will not be picked up.");
+            }
+            watcher = new ResourceWatcher(sourceRoot, this::onChanged);
+            watcher.start();
+        } catch (IOException e) {
+            System.err.println("DevReloader: Could not start dev mode: " + e.getMessage());
+            if (watcher != null) watcher.close();
+            watcher = null;
+            return false;
+        }
+        System.out.println("DevReloader: Dev mode on. Edits under " + watcher.getRoot() + " are reloaded live.");
+        return true;
+    }
+
+    public synchronized boolean isRunning() {
+        return watcher != null;
+    }
+
+    public synchronized void stop() {
+        if (watcher == null) return;
+        watcher.close();
+        watcher = null;
+        System.out.println("DevReloader: Stopped after " + reloads + " reloads.");
+    }
+
+    /**
+     * Sets what to run (on the FX thread) when the current scene changed, normally the gameplay
+     * controller's displayCurrentScene.
+     */
+    public void setSceneRefresher(Runnable refresher) {
+        this.sceneRefresher = refresher;
+    }
+
+    // Resource root = the story file's directory, up one level per path segment
+    private static Path findClasspathRoot(String resourcePath) {
+        URL url = DevReloader.class.getResource(resourcePath);
+        if (url == null || !"file".equals(url.getProtocol())) return null;
+        try {
+            Path root = Paths.get(url.toURI());
+            for (String segment : resourcePath.split("/")) {
+                if (!segment.isEmpty()) root = root.getParent();
+            }
+            return root;
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+
+    // Watcher thread
+    private void onChanged(List<String> resourcePaths) {
+        long start = System.nanoTime();
+        ResourceWatcher source = watcher;
+        if (source == null) return; // Stopped while the batch was collected
+        StoryUpdate storyUpdate = null;
+        Set<String> assets = new LinkedHashSet<>();
+        for (String path : resourcePaths) {
+            try {
+                syncToClasspath(source, path);
+            } catch (IOException e) {
+                System.err.println("DevReloader: Could not update " + path + " on the classpath: " + e.getMessage());
+            }
+            if (path.equals(storyPath)) {
+                storyUpdate = prepareStoryUpdate(source);
+            } else if (isImage(path)) {
+                ImageCache.getInstance().invalidateSource(path);
+                SpriteAtlas.invalidate(path);
+                assets.add(path);
+            } else if (isAudio(path)) {
+                AudioManager.getInstance().invalidateAudio(path);
+                assets.add(path);
+            }
+        }
+        if (storyUpdate == null && assets.isEmpty()) return;
+        StoryUpdate update = storyUpdate;
+        Platform.runLater(() -> apply(update, assets, start));
+    }
+
+    // Copies the edited file over the one the game reads. WAVs the build compressed are compressed again.
+    private void syncToClasspath(ResourceWatcher sourceWatcher, String resourcePath) throws IOException {
+        if (classpathRoot == null) return;
+        Path source = sourceWatcher.toFile(resourcePath);
+        Path target = classpathRoot.resolve(resourcePath.substring(1));
+        if (!Files.exists(source)) {
+            Files.deleteIfExists(target);
+            return;
+        }
+        Files.createDirectories(target.getParent());
+        Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+        if (resourcePath.toLowerCase(Locale.ROOT).endsWith(".wav")) {
+            Path compressed = target.resolveSibling(baseName(target) + CompressedAudio.EXTENSION);
+            if (Files.exists(compressed)) AudioCompiler.compileFile(source, compressed);
+        }
+    }
+
+    private static String baseName(Path path) {
+        String name = path.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+
+    private StoryUpdate prepareStoryUpdate(ResourceWatcher source) {
+        JsonNode tree;
+        try {
+            tree = storyLoader.readStoryTree(Files.readAllBytes(source.toFile(storyPath)), storyPath);
+        } catch (IOException e) {
+            System.err.println("DevReloader: " + e.getMessage() + (e.getCause() != null ? ": " + e.getCause().getMessage() : "") +
+                               " - keeping the running version.");
+            return null;
+        }
+        StoryDiff diff = StoryDiff.between(storyTree, tree);
+        if (diff.isEmpty()) return null;
+        try {
+            StoryUpdate update = new StoryUpdate(diff, tree);
+            if (diff.isSceneEditOnly()) {
+                for (String sceneId : diff.changed) {
+                    update.scenes.put(sceneId, storyLoader.sceneFromTree(tree.get("scenes").get(sceneId)));
+                }
+            } else {
+                update.story = storyLoader.storyFromTree(tree);
+            }
+            for (String warning : diff.danglingLinks(tree)) System.err.println("DevReloader: WARNING " + warning);
+            return update;
+        } catch (IOException e) {
+            System.err.println("DevReloader: Story does not map: " + e.getMessage() + " - keeping the running version.");
+            return null;
+        }
+    }
+
+    // FX thread
+    private void apply(StoryUpdate update, Set<String> assets, long startNanos) {
+        GameManager gameManager = GameManager.getInstance();
+        boolean refresh = false;
+        List<String> done = new ArrayList<>();
+        if (update != null) {
+            try {
+                refresh = update.applyTo(gameManager, storyLoader);
+                storyTree = update.tree; // A failed edit stays in the next diff
+                done.add(update.describe());
+            } catch (IOException | RuntimeException e) {
+                System.err.println("DevReloader: Could not apply the story change: " + e.getMessage());
+            }
+        }
+        if (!assets.isEmpty()) {
+            done.add(assets.size() + " asset(s) " + assets);
+            SceneData scene = gameManager.getCurrentSceneData();
+            if (!refresh && scene != null) refresh = usesAny(scene, gameManager, assets);
+        }
+        Runnable refresher = sceneRefresher;
+        boolean refreshed = refresh && refresher != null && !gameManager.isGameOver();
+        if (refreshed) refresher.run();
+        reloads++;
+        System.out.println("DevReloader: Reloaded " + String.join(", ", done) + " in " +
+                           (System.nanoTime() - startNanos) / 1_000_000 + " ms" +
+                           (refreshed ? "; showing scene '" + gameManager.getCurrentSceneId() + "' again." : "."));
+    }
+
+    private static boolean usesAny(SceneData scene, GameManager gameManager, Set<String> assets) {
+        if (assets.contains(scene.getBackgroundMusic())) return true;
+        for (String path : ScenePrefetcher.collectImagePaths(scene, gameManager)) {
+            if (assets.contains(path)) return true;
+        }
+        return false;
+    }
+
+    private static boolean isImage(String path) {
+        String lower = path.toLowerCase(Locale.ROOT);
+        return lower.endsWith(".png") || lower.endsWith(".jpg") || lower.endsWith(".jpeg") || lower.endsWith(".gif");
+    }
+
+    private static boolean isAudio(String path) {
+        String lower = path.toLowerCase(Locale.ROOT);
+        return lower.endsWith(".wav") || lower.endsWith(".mp3") || lower.endsWith(CompressedAudio.EXTENSION);
+    }
+
+    /** A parsed story change, ready to swap in on the FX thread. */
+    private static final class StoryUpdate {
+        final StoryDiff diff;
+        final JsonNode tree;
+        final Map<String, SceneData> scenes = new LinkedHashMap<>(); // Scene edits only
+        GameStory story;                                             // Everything else
+
+        StoryUpdate(StoryDiff diff, JsonNode tree) {
+            this.diff = diff;
+            this.tree = tree;
+        }
+
+        // True if the current scene has to be shown again
+        boolean applyTo(GameManager gameManager, StoryLoader loader) throws IOException {
+            String sceneBefore = gameManager.getCurrentSceneId();
+            if (story == null) {
+                try {
+                    return gameManager.replaceScenes(scenes);
+                } catch (IllegalStateException e) {
+                    story = loader.storyFromTree(tree); // E.g. a lazily loaded story; swap it whole instead
+                }
+            }
+            boolean kept = gameManager.reloadStory(story);
+            return !kept || diff.changed.contains(sceneBefore) || !Objects.equals(sceneBefore, gameManager.getCurrentSceneId());
+        }
+
+        String describe() {
+            if (story == null) return scenes.size() + " scene(s) " + scenes.keySet();
+            return "story (" + diff + ")";
+        }
+    }
+
+    /**
+     * Scene-by-scene difference between two versions of a story JSON tree. Scenes are compared
+     * as JSON, so reformatting the file is not a change.
+     */
+    static final class StoryDiff {
+        final Set<String> changed = new LinkedHashSet<>();
+        final Set<String> added = new LinkedHashSet<>();
+        final Set<String> removed = new LinkedHashSet<>();
+        final Set<String> headerFields = new LinkedHashSet<>(); // Changed top-level fields other than scenes
+
+        static StoryDiff between(JsonNode before, JsonNode after) {
+            StoryDiff diff = new StoryDiff();
+            JsonNode oldScenes = before.path("scenes");
+            JsonNode newScenes = after.path("scenes");
+            for (Iterator<Map.Entry<String, JsonNode>> it = newScenes.fields(); it.hasNext(); ) {
+                Map.Entry<String, JsonNode> scene = it.next();
+                JsonNode old = oldScenes.get(scene.getKey());
+                if (old == null) diff.added.add(scene.getKey());
+                else if (!old.equals(scene.getValue())) diff.changed.add(scene.getKey());
+            }
+            for (Iterator<String> it = oldScenes.fieldNames(); it.hasNext(); ) {
+                String sceneId = it.next();
+                if (!newScenes.has(sceneId)) diff.removed.add(sceneId);
+            }
+            Set<String> fields = new LinkedHashSet<>();
+            before.fieldNames().forEachRemaining(fields::add);
+            after.fieldNames().forEachRemaining(fields::add);
+            for (String field : fields) {
+                if (!"scenes".equals(field) && !before.path(field).equals(after.path(field))) diff.headerFields.add(field);
+            }
+            return diff;
+        }
+
+        boolean isEmpty() {
+            return changed.isEmpty() && added.isEmpty() && removed.isEmpty() && headerFields.isEmpty();
+        }
+
+        /** True if existing scenes were edited and nothing else, so they can be swapped in place. */
+        boolean isSceneEditOnly() {
+            return added.isEmpty() && removed.isEmpty() && headerFields.isEmpty();
+        }
+
+        /** Links from edited or added scenes to scenes or outcomes {@code tree} does not have. */
+        List<String> danglingLinks(JsonNode tree) {
+            JsonNode scenes = tree.path("scenes");
+            JsonNode outcomes = tree.path("outcomes");
+            List<String> problems = new ArrayList<>();
+            Set<String> edited = new LinkedHashSet<>(changed);
+            edited.addAll(added);
+            for (String sceneId : edited) {
+                JsonNode scene = scenes.path(sceneId);
+                checkLink(problems, sceneId, "autoTransitionTo", scene.path("autoTransitionTo"), scenes);
+                checkLink(problems, sceneId, "outcome", scene.path("outcome"), outcomes);
+                for (JsonNode choice : scene.path("choices")) {
+                    checkLink(problems, sceneId, "choice nextSceneId", choice.path("nextSceneId"), scenes);
+                    checkLink(problems, sceneId, "choice outcome", choice.path("outcome"), outcomes);
+                }
+            }
+            return problems;
+        }
+
+        private static void checkLink(List<String> problems, String sceneId, String what, JsonNode link, JsonNode targets) {
+            if (link.isTextual() && !link.asText().trim().isEmpty() && !targets.has(link.asText())) {
+                problems.add("scene '" + sceneId + "': " + what + " '" + link.asText() + "' does not exist.");
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "changed=" + changed + ", added=" + added + ", removed=" + removed + ", header=" + headerFields;
+        }
+    }
+}
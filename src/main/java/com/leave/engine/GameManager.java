@@ -1,8 +1,16 @@
 package com.leave.engine;
 
 import java.io.IOException;
-import java.util.HashSet;
-import java.util.Set;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import com.leave.engine.utils.SaveManager;
+import com.leave.engine.utils.TextTemplate;
 
 /**
  * GameManager is a  class that manages the game state, story loading,
@@ -15,14 +23,34 @@ public class GameManager {
     private static GameManager instance;
     private StoryLoader storyLoader;
     private GameStory gameStory;
+    private SceneGraph sceneGraph; // Resolved int-indexed links, built once per loaded story
     private String currentPlayerName = "Player";
     private String currentSceneId;
+    private SceneGraph.SceneNode currentSceneNode;
     private boolean gameOver = false;
     private String currentOutcomeId;
-    // private Set<String> playerInventory = new HashSet<>(); // for future implementation of items
-    // private Set<String> storyFlags = new HashSet<>();// for future implementation
+    private SceneGraph.OutcomeNode currentOutcomeNode;
+    private StoryState storyState; // Flags and inventory, IDs interned per story by the scene graph
     private String currentPlayerPortraitPath;
 
+    /** Save slot written on every scene change while autosave is on. */
+    public static final String AUTOSAVE_SLOT = "autosave";
+    private boolean autosaveEnabled = false;
+
+    private PlaythroughRecorder recorder; // Null unless a playthrough is being recorded
+    private boolean quiet = false;        // Headless instances skip the per-step console logging
+
+    /** Variable that the story's playerNamePlaceholder stands for in text templates. */
+    public static final String PLAYER_NAME_VARIABLE = "playerName";
+    // Texts a lazily loaded story keeps compiled per resident scene; older ones are compiled again on display
+    static final int TEXT_TEMPLATES_PER_RESIDENT_SCENE = 32;
+    // Per story, keyed by raw text; accessOrder = true makes iteration order least-recently-used first
+    private final LinkedHashMap<String, TextTemplate> textTemplates = new LinkedHashMap<>(64, 0.75f, true);
+    private int maxTextTemplates = Integer.MAX_VALUE;
+    private final Map<String, String> textVariables = new HashMap<>();
+    private final StringBuilder textBuffer = new StringBuilder(256); // Reused by processText (FX thread)
+    private final TextTemplate.Resolver textResolver = this::appendTextVariable;
+
     private GameManager() {
         storyLoader = new StoryLoader();
     }
@@ -34,15 +62,114 @@ public class GameManager {
         return instance;
     }
 
+    /**
+     * A separate, quiet GameManager over an already loaded story, for headless tools such as
+     * {@link PlaythroughReplayer}. It does not validate the story or log each step, and never
+     * autosaves; it records only if {@link #startRecording} is called on it.
+     */
+    static GameManager headless(GameStory story) {
+        if (story == null || story.getStartScene() == null) {
+            throw new IllegalArgumentException("Headless GameManager needs a loaded story with a start scene.");
+        }
+        return headless(story, SceneGraph.build(story));
+    }
+
+    /**
+     * A headless GameManager over a scene graph already built for the story, so several of them
+     * (e.g. one per {@link StoryExplorer} thread) can share one graph and its symbols.
+     */
+    static GameManager headless(GameStory story, SceneGraph graph) {
+        if (story == null || story.getStartScene() == null || graph == null) {
+            throw new IllegalArgumentException("Headless GameManager needs a loaded story with a start scene.");
+        }
+        GameManager gameManager = new GameManager();
+        gameManager.quiet = true;
+        gameManager.gameStory = story;
+        gameManager.sceneGraph = graph;
+        gameManager.storyState = new StoryState(graph.getSymbols());
+        gameManager.maxTextTemplates = textTemplateLimit(story);
+        return gameManager;
+    }
+
+    // Per-step callers check quiet first, so headless runs do not even build the message
+    private void log(String message) {
+        if (!quiet) System.out.println(message);
+    }
+
     public void loadStory(String storyResourcePath) throws IOException {
         if (storyLoader == null) storyLoader = new StoryLoader();
         this.gameStory = storyLoader.loadStory(storyResourcePath);
         if (this.gameStory == null || this.gameStory.getStartScene() == null) {
             throw new IOException("Story data or start scene is null after loading.");
         }
+        this.sceneGraph = SceneGraph.build(this.gameStory);
+        this.storyState = new StoryState(this.sceneGraph.getSymbols());
+        compileTextTemplates();
+        // Lazily loaded stories are validated at build time; checking them here would parse every scene
+        if (!(this.gameStory.getScenes() instanceof LazySceneMap)) {
+            StoryValidator.Report report = new StoryValidator().validate(this.gameStory);
+            for (StoryValidator.Issue issue : report.getIssues()) {
+                (issue.getSeverity() == StoryValidator.Severity.ERROR ? System.err : System.out).println("GameManager: " + issue);
+            }
+            System.out.println(report.getSummary());
+        }
         System.out.println("Game story '" + getGameTitle() + "' loaded: " + storyResourcePath);
     }
 
+    /**
+     * Replaces scenes of the loaded story in place, e.g. after their JSON was edited (see
+     * {@link DevReloader}). The scenes must already exist; the graph keeps its indexes, and
+     * the playthrough carries on. A recording is stopped, since it no longer replays exactly.
+     * @return true if the current scene was one of them and should be shown again.
+     * @throws IllegalStateException If the story is lazily loaded or a scene is not in it.
+     */
+    boolean replaceScenes(Map<String, SceneData> scenes) {
+        if (gameStory == null || gameStory.getScenes() instanceof LazySceneMap) {
+            throw new IllegalStateException("Scenes can only be replaced in a fully loaded story.");
+        }
+        for (Map.Entry<String, SceneData> entry : scenes.entrySet()) {
+            if (!sceneGraph.replaceScene(entry.getKey(), entry.getValue())) {
+                throw new IllegalStateException("Scene '" + entry.getKey() + "' is not in the loaded story.");
+            }
+            gameStory.getScenes().put(entry.getKey(), entry.getValue());
+        }
+        if (recorder != null) {
+            System.out.println("GameManager: Story edited, stopping the recording.");
+            stopRecording();
+        }
+        return currentSceneId != null && scenes.containsKey(currentSceneId);
+    }
+
+    /**
+     * Swaps in a new version of the loaded story, keeping the playthrough: the current scene
+     * and outcome by ID, flags and items by name. Used when scenes were added or removed, which
+     * changes the graph's indexes. A recording is stopped.
+     * @return false if the current scene is gone, in which case the game is back at the start scene.
+     */
+    boolean reloadStory(GameStory story) {
+        if (story == null || story.getStartScene() == null) {
+            throw new IllegalArgumentException("Reloaded story has no start scene.");
+        }
+        SceneGraph graph = SceneGraph.build(story);
+        if (graph.getStartScene() == null) {
+            throw new IllegalArgumentException("Reloaded story's start scene '" + story.getStartScene() + "' does not exist.");
+        }
+        stopRecording();
+        this.gameStory = story;
+        this.sceneGraph = graph;
+        this.storyState = (storyState != null) ? new StoryState(storyState, graph.getSymbols()) : new StoryState(graph.getSymbols());
+        compileTextTemplates();
+        this.currentOutcomeNode = gameOver ? graph.getOutcomeNode(currentOutcomeId) : null;
+        if (gameOver && currentOutcomeNode == null) clearGameOver();
+        if (currentSceneId == null) return true;
+        this.currentSceneNode = graph.getSceneNode(currentSceneId);
+        if (currentSceneNode != null) return true;
+        System.err.println("GameManager: Scene '" + currentSceneId + "' was removed from the story, going back to the start scene.");
+        this.currentSceneNode = graph.getStartScene();
+        this.currentSceneId = currentSceneNode.getSceneId();
+        return false;
+    }
+
     public void startGame() { 
 
         // test for valid
@@ -59,15 +186,20 @@ public class GameManager {
             throw new IllegalStateException("Invalid start scene configuration in story data.");
         }
         // defaults the necessary variables
+        this.currentSceneNode = sceneGraph.getStartScene();
         this.currentSceneId = startSceneIDFromStory;
         this.gameOver = false;
         this.currentOutcomeId = null;
+        this.currentOutcomeNode = null;
         this.currentPlayerPortraitPath = null;
-        // this.playerInventory.clear(); // for the items
-        // this.storyFlags.clear();
-        
+        this.storyState.reset();
+        SceneData startScene = currentSceneNode.getData();
+        if (startScene != null) applySceneEffects(currentSceneNode, startScene); // Not entered through enterScene()
+
+        record(PlaythroughLog.START, -1, currentPlayerName);
+
         // debug
-        System.out.println("GameManager.startGame FINISHED. currentSceneId SET TO: " + this.currentSceneId +
+        if (!quiet) System.out.println("GameManager.startGame FINISHED. currentSceneId SET TO: " + this.currentSceneId +
                            ". currentPlayerName (current): '" + this.currentPlayerName + "'" +
                            ". gameStory IS " + (this.gameStory != null ? "NOT NULL" : "NULL") +
                            ". gameStory.scenes IS " + (this.gameStory.getScenes() != null ? "NOT NULL (Size: " + this.gameStory.getScenes().size() + ")" : "NULL"));
@@ -77,7 +209,7 @@ public class GameManager {
     public void setCurrentPlayerCharacterName(String selectedCharacterName) {
        if (selectedCharacterName != null && !selectedCharacterName.trim().isEmpty()) {
             this.currentPlayerName = selectedCharacterName;
-            System.out.println("GameManager: Player name set to: " + this.currentPlayerName);
+            log("GameManager: Player name set to: " + this.currentPlayerName);
         }
         else {
             System.err.println("GameManager: Invalid character name provided. Keeping: " + this.currentPlayerName);
@@ -98,47 +230,185 @@ public class GameManager {
 
     // 
     public SceneData getCurrentSceneData() {
-        if (gameStory == null || currentSceneId == null || gameStory.getScenes() == null) {
-            System.err.println("GameManager.getCurrentSceneData: GameStory, currentSceneId, or scenes map is null.");
+        if (gameStory == null || currentSceneNode == null) {
+            System.err.println("GameManager.getCurrentSceneData: GameStory or current scene is null.");
             return null;
         }
-        SceneData sceneData = gameStory.getScenes().get(currentSceneId); 
+        SceneData sceneData = currentSceneNode.getData(); // Direct node reference, no map lookup
         if (sceneData == null) {
             System.err.println("GameManager Error: Scene data for id '" + currentSceneId + "' is null (scene not found in map).");
         }
         return sceneData;
     }
     
+    /**
+     * Substitutes variables ({@code {playerName}}, the story's player-name placeholder and
+     * anything set with {@link #setTextVariable}) into story text. Each distinct text is compiled
+     * into a {@link TextTemplate} once per story; after that this is a single pass.
+     */
     public String processText(String rawText) {
         if (rawText == null) return "";
-        String placeholder = (gameStory != null && gameStory.getPlayerNamePlaceholder() != null) ?
-                             gameStory.getPlayerNamePlaceholder() : "{playerName}";
-        return rawText.replace(placeholder, currentPlayerName);
+        TextTemplate template = getTextTemplate(rawText);
+        if (template.isLiteral()) return rawText;
+        textBuffer.setLength(0);
+        template.renderTo(textBuffer, textResolver);
+        return textBuffer.toString();
+    }
+
+    /** Sets a variable for story text, e.g. a pronoun; null removes it. */
+    public void setTextVariable(String name, String value) {
+        if (name == null) return;
+        if (value == null) textVariables.remove(name);
+        else textVariables.put(name, value);
     }
+
+    public String getTextVariable(String name) {
+        return textVariables.get(name);
+    }
+
+    // {playerName}, {flag:NAME} (true/false), {item:ID} (count), then setTextVariable values
+    private boolean appendTextVariable(String name, StringBuilder out) {
+        if (PLAYER_NAME_VARIABLE.equals(name)) {
+            out.append(currentPlayerName);
+            return true;
+        }
+        if (storyState != null && name.startsWith("flag:")) {
+            out.append(storyState.isFlagSet(name.substring("flag:".length())));
+            return true;
+        }
+        if (storyState != null && name.startsWith("item:")) {
+            out.append(storyState.getItemCount(name.substring("item:".length())));
+            return true;
+        }
+        String value = textVariables.get(name);
+        if (value == null) return false;
+        out.append(value);
+        return true;
+    }
+
+    private TextTemplate getTextTemplate(String rawText) {
+        TextTemplate template = textTemplates.get(rawText);
+        if (template == null) {
+            template = TextTemplate.compile(rawText, playerNamePlaceholder(), PLAYER_NAME_VARIABLE);
+            textTemplates.put(rawText, template);
+            if (textTemplates.size() > maxTextTemplates) {
+                Iterator<String> eldest = textTemplates.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+            }
+        }
+        return template;
+    }
+
+    int getTextTemplateCount() {
+        return textTemplates.size();
+    }
+
+    private String playerNamePlaceholder() {
+        return (gameStory != null && gameStory.getPlayerNamePlaceholder() != null) ?
+               gameStory.getPlayerNamePlaceholder() : "{" + PLAYER_NAME_VARIABLE + "}";
+    }
+
+    // Compiles every displayed text of a fully loaded story up front. Lazily loaded stories compile
+    // each text on first display instead, so scenes are not decoded just to build templates, and
+    // keep only as many as their resident scenes need so memory stays flat however far the player gets.
+    private void compileTextTemplates() {
+        textTemplates.clear();
+        maxTextTemplates = textTemplateLimit(gameStory);
+        if (gameStory.getScenes() instanceof LazySceneMap) return;
+        for (SceneData scene : gameStory.getScenes().values()) {
+            if (scene == null) continue;
+            if (scene.getDialogue() != null) {
+                for (DialogueEntry entry : scene.getDialogue()) {
+                    if (entry == null) continue;
+                    if (entry.getSpeaker() != null) getTextTemplate(entry.getSpeaker());
+                    if (entry.getLine() != null) getTextTemplate(entry.getLine());
+                }
+            }
+            if (scene.getChoices() != null) {
+                for (ChoiceData choice : scene.getChoices()) {
+                    if (choice != null && choice.getText() != null) getTextTemplate(choice.getText());
+                }
+            }
+        }
+        if (gameStory.getOutcomes() != null) {
+            for (OutcomeData outcome : gameStory.getOutcomes().values()) {
+                if (outcome != null && outcome.getMessage() != null) getTextTemplate(outcome.getMessage());
+            }
+        }
+        System.out.println("GameManager: Compiled " + textTemplates.size() + " text templates.");
+    }
+
+    private static int textTemplateLimit(GameStory story) {
+        if (!(story.getScenes() instanceof LazySceneMap)) return Integer.MAX_VALUE;
+        long limit = (long) ((LazySceneMap) story.getScenes()).getMaxResidentScenes() * TEXT_TEMPLATES_PER_RESIDENT_SCENE;
+        return (int) Math.min(Integer.MAX_VALUE, limit);
+    }
+
     public void resetGameOver() {
+        clearGameOver();
+        record(PlaythroughLog.RESET_GAME_OVER, -1, null);
+    }
+
+    private void clearGameOver() {
     this.gameOver = false;
     // this.currentOutcomeId = null; // Also reset current outcome
-    System.out.println("GameManager: Game over state reset.");
+    log("GameManager: Game over state reset.");
     }
     public String getCurrentSceneId() {
     return this.currentSceneId;
 }
 
+    public SceneGraph.SceneNode getCurrentSceneNode() {
+        return this.currentSceneNode;
+    }
+
+    public SceneGraph getSceneGraph() {
+        return this.sceneGraph;
+    }
+
     public void makeChoice(ChoiceData choice) {
         if (choice == null || gameOver) {
             return;
         }
-        System.out.println("Player chose: " + choice.getText());
+        if (!quiet) log("Player chose: " + choice.getText());
+
+        // Follow the pre-resolved links when the choice belongs to the current scene
+        SceneGraph.SceneNode fromNode = currentSceneNode;
+        int choiceIndex = (fromNode != null) ? fromNode.indexOfChoice(choice) : -1;
+        if (choiceIndex < 0) {
+            makeUnindexedChoice(choice);
+            return;
+        }
 
         // Process any immediate action from the choice
-        if (choice.getAction() != null && !choice.getAction().trim().isEmpty()) {
-            processAction(choice.getAction());
+        storyState.apply(fromNode.getChoiceAction(choiceIndex));
+
+        if (choice.getOutcome() != null) {
+            SceneGraph.OutcomeNode outcomeNode = fromNode.getChoiceOutcome(choiceIndex);
+            if (outcomeNode != null) setGameOver(outcomeNode);
+            else endGame(choice.getOutcome());
+        } else if (choice.getNextSceneId() != null) {
+            SceneGraph.SceneNode target = fromNode.getChoiceTarget(choiceIndex);
+            if (target != null) enterScene(target);
+            else reportMissingScene(choice.getNextSceneId());
+        } else {
+            System.err.println("Choice '" + choice.getText() + "' has no next scene ID or outcome.");
         }
+        record(PlaythroughLog.CHOICE, choiceIndex, null);
+    }
+
+    // A choice the current scene no longer holds, e.g. after a lazy story evicted and re-parsed
+    // it; its links are looked up by ID and each step is recorded as the event that replays it
+    private void makeUnindexedChoice(ChoiceData choice) {
+        if (applyAction(choice.getAction())) record(PlaythroughLog.ACTION, -1, choice.getAction());
 
         if (choice.getOutcome() != null) {
             setGameOver(choice.getOutcome());
         } else if (choice.getNextSceneId() != null) {
-            advanceToScene(choice.getNextSceneId());
+            SceneGraph.SceneNode target = (sceneGraph != null) ? sceneGraph.getSceneNode(choice.getNextSceneId()) : null;
+            if (target == null) reportMissingScene(choice.getNextSceneId());
+            else if (enterScene(target)) record(PlaythroughLog.ADVANCE, target.getIndex(), null);
         } else {
             System.err.println("Choice '" + choice.getText() + "' has no next scene ID or outcome.");
         }
@@ -149,57 +419,150 @@ public class GameManager {
             System.err.println("GameManager.advanceToScene: sceneId is null or empty.");
             return;
         }
-        if (gameStory == null || gameStory.getScenes() == null || gameOver) {
-            if (gameOver) System.out.println("GameManager.advanceToScene: Game is over, cannot advance.");
+        if (gameStory == null || sceneGraph == null || gameOver) {
+            if (gameOver) log("GameManager.advanceToScene: Game is over, cannot advance.");
             else System.err.println("GameManager.advanceToScene: Story or scenes not loaded.");
             return;
         }
         
-        SceneData nextScene = gameStory.getScenes().get(sceneId); 
+        SceneGraph.SceneNode nextNode = sceneGraph.getSceneNode(sceneId);
         
-        if (nextScene != null) { // nill check
-            this.currentSceneId = sceneId;
-            System.out.println("Advanced to scene: " + this.currentSceneId);
-
-           
-            if (nextScene.getAction() != null && !nextScene.getAction().trim().isEmpty()) {
-                processAction(nextScene.getAction());
-            }
-
-            if (nextScene.getOutcome() != null) {
-                setGameOver(nextScene.getOutcome());
-            }
-            // If it auto-transitions, the UI controller will call advanceToScene again.
+        if (nextNode != null && nextNode.getData() != null) { // nill check
+            if (enterScene(nextNode)) record(PlaythroughLog.ADVANCE, nextNode.getIndex(), null);
         } else {
-            System.err.println("Cannot advance: Scene with ID '" + sceneId + "' not found in story data.");
+            reportMissingScene(sceneId);
             // Optionally set a game over state for "broken story path"
             // setGameOver("ERROR_INVALID_SCENE_ID");
         }
     }
 
+    /**
+     * Moves to an already resolved scene node. This is the hot path used by choices,
+     * auto-transitions and outcomes; it does no scene ID lookups.
+     */
+    public void advanceToScene(SceneGraph.SceneNode nextNode) {
+        if (enterScene(nextNode)) record(PlaythroughLog.ADVANCE, nextNode.getIndex(), null);
+    }
+
+    // Shared by every way of moving to a scene; public entry points record themselves, this does not
+    private boolean enterScene(SceneGraph.SceneNode nextNode) {
+        if (nextNode == null) {
+            System.err.println("GameManager.advanceToScene: scene node is null.");
+            return false;
+        }
+        if (gameOver) {
+            log("GameManager.advanceToScene: Game is over, cannot advance.");
+            return false;
+        }
+        SceneData nextScene = nextNode.getData();
+        if (nextScene == null) {
+            System.err.println("Cannot advance: Scene with ID '" + nextNode.getSceneId() + "' has no data in story.");
+            return false;
+        }
+        this.currentSceneNode = nextNode;
+        this.currentSceneId = nextNode.getSceneId();
+        if (!quiet) log("Advanced to scene: " + this.currentSceneId);
+
+        applySceneEffects(nextNode, nextScene);
+        if (autosaveEnabled) autosave();
+        // If it auto-transitions, the UI controller will call followAutoTransition().
+        return true;
+    }
+
+    // What entering a scene does to the state: its action, then its outcome. The start scene gets it too
+    private void applySceneEffects(SceneGraph.SceneNode node, SceneData scene) {
+        storyState.apply(node.getAction()); // Compiled when the node was resolved
+
+        if (scene.getOutcome() != null) {
+            SceneGraph.OutcomeNode outcomeNode = node.getOutcome();
+            if (outcomeNode != null) setGameOver(outcomeNode);
+            else endGame(scene.getOutcome());
+        }
+    }
+
+    private void reportMissingScene(String sceneId) {
+        System.err.println("Cannot advance: Scene with ID '" + sceneId + "' not found in story data.");
+    }
+
+    /**
+     * Follows the current scene's autoTransitionTo link.
+     */
+    public void followAutoTransition() {
+        SceneData scene = getCurrentSceneData();
+        if (scene == null || scene.getAutoTransitionTo() == null) {
+            System.err.println("GameManager.followAutoTransition: Current scene has no auto-transition.");
+            return;
+        }
+        SceneGraph.SceneNode target = currentSceneNode.getAutoTransition();
+        if (target == null) reportMissingScene(scene.getAutoTransitionTo());
+        else if (enterScene(target)) record(PlaythroughLog.AUTO, -1, null);
+    }
+
+    /**
+     * Continues from the current outcome to its nextSceneId, clearing the game-over state.
+     */
+    public void followOutcomeTransition() {
+        OutcomeData outcome = getCurrentOutcomeData();
+        if (outcome == null || outcome.getNextSceneId() == null) {
+            System.err.println("GameManager.followOutcomeTransition: Current outcome has no next scene.");
+            return;
+        }
+        SceneGraph.SceneNode target = currentOutcomeNode != null ? currentOutcomeNode.getNext() : null;
+        if (target == null) {
+            reportMissingScene(outcome.getNextSceneId());
+            return;
+        }
+        clearGameOver();
+        if (enterScene(target)) record(PlaythroughLog.OUTCOME_NEXT, -1, null);
+    }
+
     /**
      * Processes generic actions defined in the story (e.g., ADD_ITEM_X, SET_FLAG_Y).
+     * Each distinct string is compiled once; see {@link StorySymbols} for the syntax.
      * @param actionString The action string from the JSON.
      */
     public void processAction(String actionString) {
-        if (actionString == null || actionString.trim().isEmpty()) return;
-        System.out.println("GameManager: Processing action: " + actionString);
-        
-        // if (actionString.startsWith("ADD_ITEM_")) {
-        //     String item = actionString.substring("ADD_ITEM_".length());
-        //     addItemToInventory(item);
-        // } else if (actionString.startsWith("SET_FLAG_")) {
-        //     String flag = actionString.substring("SET_FLAG_".length());
-        //     setFlag(flag);
-        // }
-       // heres were gonna implement our items if we have any
-        // else {
-        //     System.err.println("GameManager: Unknown action string: " + actionString);
-        // }
+        if (applyAction(actionString)) record(PlaythroughLog.ACTION, -1, actionString);
+    }
+
+    private boolean applyAction(String actionString) {
+        if (actionString == null || actionString.trim().isEmpty() || storyState == null) return false;
+        log("GameManager: Processing action: " + actionString);
+        storyState.apply(sceneGraph.getSymbols().action(actionString));
+        return true;
+    }
+
+    /**
+     * Whether a choice's requiredFlag holds. Choices of the current scene use the condition
+     * compiled with the scene, so this is a single bit test.
+     */
+    public boolean isChoiceAvailable(ChoiceData choice) {
+        if (choice == null || storyState == null) return false;
+        int choiceIndex = (currentSceneNode != null) ? currentSceneNode.indexOfChoice(choice) : -1;
+        int condition = (choiceIndex >= 0) ? currentSceneNode.getChoiceCondition(choiceIndex)
+                                           : sceneGraph.getSymbols().flagCondition(choice.getRequiredFlag());
+        return storyState.test(condition);
+    }
+
+    /**
+     * Whether the player holds an object's requiredItem (or it needs none).
+     */
+    public boolean canInteract(InteractiveObjectInfo object) {
+        if (object == null || storyState == null) return false;
+        int objectIndex = (currentSceneNode != null) ? currentSceneNode.indexOfObject(object) : -1;
+        int condition = (objectIndex >= 0) ? currentSceneNode.getObjectCondition(objectIndex)
+                                           : sceneGraph.getSymbols().itemCondition(object.getRequiredItem());
+        return storyState.test(condition);
     }
 
     // Changed from private to public so GamePlayController can directly set outcome from a scene object
     public void setGameOver(String outcomeId) {
+        endGame(outcomeId);
+        SceneGraph.OutcomeNode node = currentOutcomeNode;
+        record(PlaythroughLog.GAME_OVER, node != null ? node.getIndex() : -1, node != null ? null : outcomeId);
+    }
+
+    private void endGame(String outcomeId) {
         if (outcomeId == null || outcomeId.trim().isEmpty()) {
              System.err.println("GameManager.setGameOver: outcomeId is null or empty.");
              // Potentially set a default "ERROR_OUTCOME" if this happens
@@ -207,10 +570,36 @@ public class GameManager {
         } else {
             this.currentOutcomeId = outcomeId;
         }
+        this.currentOutcomeNode = (sceneGraph != null) ? sceneGraph.getOutcomeNode(this.currentOutcomeId) : null;
+        this.gameOver = true;
+        if (!quiet) log("Game Over. Outcome: " + this.currentOutcomeId);
+    }
+
+    private void setGameOver(SceneGraph.OutcomeNode outcomeNode) {
+        this.currentOutcomeNode = outcomeNode;
+        this.currentOutcomeId = outcomeNode.getOutcomeId();
         this.gameOver = true;
-        System.out.println("Game Over. Outcome: " + this.currentOutcomeId);
+        if (!quiet) log("Game Over. Outcome: " + this.currentOutcomeId);
     }
     
+    /**
+     * Puts a headless GameManager at a position found by {@link StoryExplorer}: in a scene, or
+     * at an outcome when {@code outcome} is not null. {@code state} becomes the live state as is,
+     * so the caller must not use it afterwards.
+     */
+    void setPosition(SceneGraph.SceneNode scene, SceneGraph.OutcomeNode outcome, StoryState state) {
+        this.currentSceneNode = scene;
+        this.currentSceneId = scene != null ? scene.getSceneId() : null;
+        this.gameOver = outcome != null;
+        this.currentOutcomeNode = outcome;
+        this.currentOutcomeId = outcome != null ? outcome.getOutcomeId() : null;
+        this.storyState = state;
+    }
+
+    SceneGraph.OutcomeNode getCurrentOutcomeNode() {
+        return currentOutcomeNode;
+    }
+
     public String getCurrentOutcomeId() {
     return this.currentOutcomeId;
 }
@@ -219,16 +608,23 @@ public class GameManager {
     }
 
     public OutcomeData getCurrentOutcomeData() {
-        if (!gameOver || currentOutcomeId == null || gameStory == null || gameStory.getOutcomes() == null) {
+        if (!gameOver || currentOutcomeId == null || gameStory == null) {
             return null;
         }
-        OutcomeData outcomeData = gameStory.getOutcomes().get(currentOutcomeId);
+        OutcomeData outcomeData = (currentOutcomeNode != null) ? currentOutcomeNode.getData() : null;
         if (outcomeData == null) {
             System.err.println("GameManager Error: Outcome data for id '" + currentOutcomeId + "' is null (outcome not found in map).");
         }
         return outcomeData;
     }
 
+    public OutcomeData getOutcomeDataById(String outcomeId) {
+        if (gameStory == null || gameStory.getOutcomes() == null || outcomeId == null) {
+            return null;
+        }
+        return gameStory.getOutcomes().get(outcomeId);
+    }
+
     public String getCurrentPlayerName() {
         return currentPlayerName;
     }
@@ -259,9 +655,187 @@ public class GameManager {
         return "{playerName}";
     }
 
-    // Future implementation for inventory and flags
-    //  public boolean hasItem(String itemId){ return playerInventory.contains(itemId); }
-    //  public boolean checkFlag(String flag){ return storyFlags.contains(flag); }
-    //  public void addItemToInventory(String itemId) { this.playerInventory.add(itemId); System.out.println("Item added: " + itemId); }
-    //  public void setFlag(String flag) { this.storyFlags.add(flag); System.out.println("Flag set: " + flag); }
+    /**
+     * Turns autosave on every scene change on or off. Off by default, so tools and tests
+     * that drive the GameManager never touch the save directory.
+     */
+    public void setAutosaveEnabled(boolean enabled) {
+        this.autosaveEnabled = enabled;
+    }
+
+    public boolean isAutosaveEnabled() {
+        return autosaveEnabled;
+    }
+
+    /**
+     * Snapshot of the current playthrough: scene and outcome indexes, player, flags and items.
+     * @return The snapshot, or null if no game is in progress.
+     */
+    public SaveGame createSaveGame() {
+        if (sceneGraph == null || currentSceneNode == null || storyState == null) return null;
+        return SaveGame.capture(sceneGraph, currentSceneNode, gameOver ? currentOutcomeNode : null, gameOver,
+                                currentPlayerName, currentPlayerPortraitPath, storyState);
+    }
+
+    /**
+     * Writes the current playthrough to a slot on the save thread.
+     * @return Completes once it is on disk; null if no game is in progress.
+     */
+    public CompletableFuture<Void> saveGame(String slot) {
+        SaveGame save = createSaveGame();
+        if (save == null) return null;
+        return SaveManager.getInstance().save(slot, save::toBytes);
+    }
+
+    private void autosave() {
+        SaveGame save = createSaveGame(); // Copying the state is all that happens on this thread
+        if (save != null) SaveManager.getInstance().save(AUTOSAVE_SLOT, save::toBytes);
+    }
+
+    /**
+     * Restores a playthrough saved for the loaded story.
+     * @return false (and nothing changed) if the save belongs to a different story or version of it.
+     */
+    public boolean restoreSaveGame(SaveGame save) {
+        if (save == null || sceneGraph == null) return false;
+        if (save.getStoryFingerprint() != sceneGraph.getFingerprint()) {
+            System.err.println("GameManager: Save was made with a different story version, cannot restore it.");
+            return false;
+        }
+        int sceneIndex = save.getSceneIndex();
+        int outcomeIndex = save.getOutcomeIndex();
+        if (sceneIndex < 0 || sceneIndex >= sceneGraph.getSceneCount() || outcomeIndex >= sceneGraph.getOutcomeCount()) {
+            System.err.println("GameManager: Save refers to a scene or outcome the story does not have: " + save);
+            return false;
+        }
+        this.currentSceneNode = sceneGraph.getSceneNode(sceneIndex);
+        this.currentSceneId = currentSceneNode.getSceneId();
+        this.gameOver = save.isGameOver();
+        this.currentOutcomeNode = outcomeIndex >= 0 ? sceneGraph.getOutcomeNode(outcomeIndex) : null;
+        this.currentOutcomeId = currentOutcomeNode != null ? currentOutcomeNode.getOutcomeId() : null;
+        if (save.getPlayerName() != null) this.currentPlayerName = save.getPlayerName();
+        this.currentPlayerPortraitPath = save.getPortraitPath();
+        storyState.reset();
+        for (String flag : save.getFlags()) storyState.setFlag(flag, true);
+        for (int i = 0; i < save.getItems().size(); i++) storyState.addItem(save.getItems().get(i), save.getItemCount(i));
+        log("GameManager: Restored save at scene '" + currentSceneId + "' for " + currentPlayerName + ".");
+        if (recorder != null) recordSnapshot(save);
+        return true;
+    }
+
+    /**
+     * Reads and restores a save slot.
+     * @return false if the slot is missing, unreadable or does not fit the loaded story.
+     */
+    public boolean loadGame(String slot) {
+        try {
+            byte[] data = SaveManager.getInstance().read(slot);
+            if (data == null) {
+                System.out.println("GameManager: No save in slot '" + slot + "'.");
+                return false;
+            }
+            return restoreSaveGame(SaveGame.fromBytes(data));
+        } catch (IOException e) {
+            System.err.println("GameManager: Could not load save slot '" + slot + "': " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Starts recording this playthrough to a new log in {@code directory}. The log begins with
+     * a snapshot of the current state, so recording can start mid-game (e.g. after Continue).
+     * @return The log file, or null if recording could not start.
+     */
+    public Path startRecording(Path directory) {
+        stopRecording();
+        SaveGame snapshot = createSaveGame();
+        if (snapshot == null) {
+            System.err.println("GameManager: No game in progress, not recording.");
+            return null;
+        }
+        try {
+            recorder = PlaythroughRecorder.create(directory, sceneGraph.getFingerprint());
+            recordSnapshot(snapshot);
+            System.out.println("GameManager: Recording playthrough to " + recorder.getFile());
+            return recorder.getFile();
+        } catch (IOException e) {
+            System.err.println("GameManager: Could not start recording: " + e.getMessage());
+            recorder = null;
+            return null;
+        }
+    }
+
+    /** Records to a stream instead of a file, e.g. in tests. */
+    void startRecording(OutputStream stream) throws IOException {
+        stopRecording();
+        SaveGame snapshot = createSaveGame();
+        if (snapshot == null) throw new IllegalStateException("No game in progress to record.");
+        recorder = new PlaythroughRecorder(stream, sceneGraph.getFingerprint());
+        recordSnapshot(snapshot);
+    }
+
+    /** Ends the recording, if any, with a final state checkpoint. */
+    public void stopRecording() {
+        if (recorder == null) return;
+        recorder.close(stateDigest());
+        System.out.println("GameManager: Recorded " + recorder.getRecordCount() + " playthrough records.");
+        recorder = null;
+    }
+
+    public boolean isRecording() {
+        return recorder != null && !recorder.hasFailed();
+    }
+
+    /**
+     * Notes that the player advanced to dialogue line {@code lineIndex} of the current scene.
+     * Only recorded for timing; it does not change the game state.
+     */
+    public void recordDialogueAdvance(int lineIndex) {
+        record(PlaythroughLog.DIALOGUE, lineIndex, null);
+    }
+
+    private void record(byte type, int arg, Object payload) {
+        if (recorder != null) recorder.record(type, arg, payload, this::stateDigest);
+    }
+
+    private void recordSnapshot(SaveGame save) {
+        try {
+            recorder.record(PlaythroughLog.SNAPSHOT, -1, save.toBytes(), this::stateDigest);
+        } catch (IOException e) {
+            System.err.println("GameManager: Could not record snapshot: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Digest of everything a replay must reproduce: scene, outcome, game-over flag, player name,
+     * flags and items. Independent of symbol ID order, so it matches across sessions.
+     */
+    long stateDigest() {
+        long hash = StoryState.mix(currentSceneNode != null ? currentSceneNode.getIndex() + 1 : 0);
+        hash = StoryState.mix(hash ^ (currentOutcomeNode != null ? currentOutcomeNode.getIndex() + 1 : 0) * 31L);
+        hash = StoryState.mix(hash ^ (gameOver ? 0x9e3779b97f4a7c15L : 0));
+        hash = StoryState.mix(hash ^ currentPlayerName.hashCode());
+        return hash ^ (storyState != null ? storyState.contentHash() : 0);
+    }
+
+    public StoryState getStoryState() {
+        return storyState;
+    }
+
+    public boolean hasItem(String itemId) { return storyState != null && storyState.hasItem(itemId); }
+    public boolean checkFlag(String flag) { return storyState != null && storyState.isFlagSet(flag); }
+
+    public void addItemToInventory(String itemId) {
+        if (storyState == null || itemId == null) return;
+        storyState.addItem(itemId, 1);
+        log("Item added: " + itemId);
+        record(PlaythroughLog.ACTION, -1, "ADD_ITEM_" + itemId); // Same effect, so replays stay exact
+    }
+
+    public void setFlag(String flag) {
+        if (storyState == null || flag == null) return;
+        storyState.setFlag(flag, true);
+        log("Flag set: " + flag);
+        record(PlaythroughLog.ACTION, -1, "SET_FLAG_" + flag);
+    }
 }
\ No newline at end of file
@@ -1,13 +1,15 @@
 package com.leave.engine;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.net.URL;
 import java.util.List;
 import java.util.ResourceBundle;
 
 import static com.leave.engine.utils.AnimationUtils.animateText;
+import static com.leave.engine.utils.AnimationUtils.stopTextAnimation;
 import com.leave.engine.utils.AudioManager;
+import com.leave.engine.utils.ImageCache;
+import com.leave.engine.utils.SaveManager;
 import com.leave.engine.utils.SpriteSheetAnimator;
 
 import javafx.animation.PauseTransition;
@@ -47,6 +49,12 @@ public class GamePlayController implements Initializable {
     private SpriteSheetAnimator currentBackgroundAnimator;
     private SpriteSheetAnimator currentCharacterAnimator; 
 
+    // Loads each scene's assets off the FX thread before swapping it in; see displayCurrentScene
+    private final SceneTransitionPipeline transitionPipeline = new SceneTransitionPipeline(new SceneTransitionPipeline.SceneView() {
+        @Override public void commitScene(SceneData scene) { GamePlayController.this.commitScene(scene); }
+        @Override public void startScene(SceneData scene) { GamePlayController.this.startScene(scene); }
+    });
+
     private List<DialogueEntry> currentSceneDialogueLines;
     private int currentDialogueLineIndex;
     private boolean dialogueAnimationPlaying = false;
@@ -59,6 +67,7 @@ public class GamePlayController implements Initializable {
         this.gameManager = GameManager.getInstance();
         this.audioManager = AudioManager.getInstance();
         System.out.println("GPC: Initializing Controller...");
+        DevReloader.getInstance().setSceneRefresher(this::displayCurrentScene); // Only called in dev mode
 
    
         // Initial UI state setup
@@ -67,9 +76,10 @@ public class GamePlayController implements Initializable {
         clearAndHidePortrait();     // Ensure portrait area is initially clean & hidden
 
         // Load continue indicator image
-        try (InputStream stream = getClass().getResourceAsStream(CONTINUE_INDICATOR_PATH)) {
-            if (stream != null && continueIndicatorImageView != null) {
-                continueIndicatorImageView.setImage(new Image(stream));
+        try {
+            Image indicator = ImageCache.getInstance().getImage(CONTINUE_INDICATOR_PATH);
+            if (indicator != null && !indicator.isError() && continueIndicatorImageView != null) {
+                continueIndicatorImageView.setImage(indicator);
                 continueIndicatorImageView.setVisible(false); // Start hidden
             } else {
                 if (continueIndicatorImageView == null) System.err.println("GPC: continueIndicatorImageView is null.");
@@ -153,39 +163,45 @@ public class GamePlayController implements Initializable {
 
         
 
+    /**
+     * Shows GameManager's current scene through the {@link SceneTransitionPipeline}: its assets
+     * are decoded off the FX thread first, then {@link #commitScene} and {@link #startScene} run.
+     * Calling this again before that happens replaces the pending scene.
+     */
     public void displayCurrentScene() {
         
         SceneData currentSceneData = gameManager.getCurrentSceneData();
-        String sceneIdForLog = (currentSceneData != null) ? currentSceneData.getId() : (gameManager != null ? gameManager.getCurrentSceneId() : "NULL_SCENE_ID");
+        String sceneIdForLog = (gameManager != null) ? gameManager.getCurrentSceneId() : "NULL_SCENE_ID";
         System.out.println("GPC: displayCurrentScene() for scene ID: " + sceneIdForLog);
 
-    
-    if (endingTitleLabel != null) {
-        endingTitleLabel.setText(""); // Clear previous title
-        endingTitleLabel.setVisible(false);
-        endingTitleLabel.setManaged(false);
-    }
-   
-    // If choicesVBox is sometimes left visible from a previous state (e.g. error),
-    // you might consider also explicitly hiding it here or ensuring showDialogueArea() is robust.
-    // if (choicesVBox != null) { choicesVBox.setVisible(false); choicesVBox.setManaged(false); }
-
-
-    // 3. Handle case where scene data is missing
+    // 1. Handle case where scene data is missing
     if (currentSceneData == null) {
+        transitionPipeline.cancelInFlight(); // Don't let an older pending scene replace the error
         System.err.println("GPC: Critical - currentSceneData is null. Cannot display scene.");
         if (sceneTextLabel != null) sceneTextLabel.setText("ERROR: SCENE DATA MISSING OR CORRUPT.");
         if (dialogueHudHBox != null) dialogueHudHBox.setVisible(true); // Ensure HUD is visible for error
         showDialogueArea(); // Show some default UI state
-        // Potentially show the fxmlStaticExitButton here too for a hard error state?
-        // if (fxmlStaticExitButton != null) {
-        //     fxmlStaticExitButton.setVisible(true);
-        //     fxmlStaticExitButton.setManaged(true);
-        // }
         return;
     }
 
-    
+    // 2. Freeze the old scene's interaction while the new one loads
+    if (sceneTextLabel != null) stopTextAnimation(sceneTextLabel);
+    dialogueAnimationPlaying = false;
+    waitingForClickToAdvanceDialogue = false;
+    if (continueIndicatorImageView != null) continueIndicatorImageView.setVisible(false);
+    if (choicesVBox != null) choicesVBox.setDisable(true);
+
+    transitionPipeline.begin(currentSceneData, sceneIdForLog);
+}
+
+    // Pipeline commit stage: replace the old scene's UI with the new one (assets are already decoded)
+    private void commitScene(SceneData currentSceneData) {
+    if (endingTitleLabel != null) {
+        endingTitleLabel.setText(""); // Clear previous title
+        endingTitleLabel.setVisible(false);
+        endingTitleLabel.setManaged(false);
+    }
+
     //    This happens AFTER the reset, so it only shows if the current scene requires it.
     if (endingTitleLabel != null) {
         if (currentSceneData.getEndingTitle() != null && !currentSceneData.getEndingTitle().trim().isEmpty()) {
@@ -197,7 +213,7 @@ public class GamePlayController implements Initializable {
         // No 'else' needed here to hide it, as it was reset at the top of the method.
     }
 
-    // 5. Reset general UI components for the new scene (dialogue area, portrait, animators etc.)
+    // Reset general UI components for the new scene (dialogue area, portrait, animators etc.)
     if (dialogueHudHBox != null) dialogueHudHBox.setVisible(true);
     showDialogueArea(); // Ensure dialogue text area is active, choices hidden
 
@@ -206,14 +222,18 @@ public class GamePlayController implements Initializable {
     if (currentBackgroundAnimator != null) { currentBackgroundAnimator.stop(); currentBackgroundAnimator = null; }
     if (currentCharacterAnimator != null) { currentCharacterAnimator.stop(); currentCharacterAnimator = null; }
 
-    dialogueAnimationPlaying = false;
-    waitingForClickToAdvanceDialogue = false;
-    if (continueIndicatorImageView != null) continueIndicatorImageView.setVisible(false);
     if (sceneTextLabel != null) sceneTextLabel.setText(""); // Clear previous scene text
 
-    // 6. Load and set scene content (background, character, music)
+    // Load and set scene content (background, character); animators start in startScene
     setBackground(currentSceneData.getBackgroundSprite(), currentSceneData.getBackgroundImage());
     setSpeakerAndCharacterVisibility(currentSceneData.getCharacterSprite() != null, currentSceneData.getCharacterSprite()); // For on-screen sprite
+}
+
+    // Pipeline start stage: animations, music and dialogue for the committed scene
+    private void startScene(SceneData currentSceneData) {
+    String sceneIdForLog = gameManager.getCurrentSceneId();
+    if (currentBackgroundAnimator != null) currentBackgroundAnimator.play();
+    if (currentCharacterAnimator != null) currentCharacterAnimator.play();
 
     String bgmPath = currentSceneData.getBackgroundMusic();
     if (bgmPath != null && !bgmPath.trim().isEmpty()) {
@@ -222,7 +242,10 @@ public class GamePlayController implements Initializable {
         audioManager.stopBackgroundMusic();
     }
 
-    // 7. Initialize dialogue
+    // Start decoding whatever the player can reach next while they read this scene
+    ScenePrefetcher.getInstance().prefetchFrom(currentSceneData);
+
+    // Initialize dialogue
     this.currentSceneDialogueLines = currentSceneData.getDialogue();
     this.currentDialogueLineIndex = 0;
 
@@ -260,25 +283,24 @@ public class GamePlayController implements Initializable {
                         bgSpriteInfo.getNumCols(), bgSpriteInfo.getTotalFrames(),
                         bgSpriteInfo.getFps(), bgSpriteInfo.isLoop()
                     );
-                    sceneBackgroundImageView.setVisible(true);
-                    currentBackgroundAnimator.play();
+                    sceneBackgroundImageView.setVisible(true); // Played by startScene
                     System.out.println("GPC: Set background (animated/spritesheet): " + bgSpriteInfo.getPath());
                     backgroundSet = true;
                 } catch (Exception e) {
                     System.err.println("GPC Error setting animated/spritesheet background from SpriteInfo: " + bgSpriteInfo.getPath() + " - " + e.getMessage());
                     // Attempt to load as static if animator failed with its own path
-                    loadStaticImageToView(bgSpriteInfo.getPath(), sceneBackgroundImageView, "GPC: Fallback to static from SpriteInfo.path: ");
+                    loadStaticImageToView(bgSpriteInfo.getPath(), sceneBackgroundImageView, false, "GPC: Fallback to static from SpriteInfo.path: ");
                     backgroundSet = sceneBackgroundImageView.getImage() != null;
                 }
             } else { // SpriteInfo present but not enough data for animation, treat path as static
-                loadStaticImageToView(bgSpriteInfo.getPath(), sceneBackgroundImageView, "GPC: Set static background (from SpriteInfo.path, non-animated): ");
+                loadStaticImageToView(bgSpriteInfo.getPath(), sceneBackgroundImageView, false, "GPC: Set static background (from SpriteInfo.path, non-animated): ");
                 backgroundSet = sceneBackgroundImageView.getImage() != null;
             }
         }
 
         // Fallback to dedicated staticBackgroundImagePath if bgSpriteInfo didn't provide a usable background
         if (!backgroundSet && staticBgImagePath != null && !staticBgImagePath.trim().isEmpty()) {
-            loadStaticImageToView(staticBgImagePath, sceneBackgroundImageView, "GPC: Set static background (from backgroundImage field): ");
+            loadStaticImageToView(staticBgImagePath, sceneBackgroundImageView, true, "GPC: Set static background (from backgroundImage field): ");
             backgroundSet = sceneBackgroundImageView.getImage() != null;
         }
 
@@ -286,15 +308,16 @@ public class GamePlayController implements Initializable {
             System.out.println("GPC: No background specified or failed to load for the current scene.");
         }
     }
-    // loads the static image to the view
-    private void loadStaticImageToView(String imagePath, ImageView imageView, String logPrefix) {
+    // loads the static image to the view; fitToDisplay decodes it no larger than the screen needs
+    private void loadStaticImageToView(String imagePath, ImageView imageView, boolean fitToDisplay, String logPrefix) {
         if (imagePath == null || imagePath.trim().isEmpty() || imageView == null) {
              System.err.println(logPrefix + "Skipping load: imagePath or imageView is null.");
              return;
         }
-        try (InputStream stream = getClass().getResourceAsStream(imagePath)) {
-            if (stream != null) {
-                Image staticImg = new Image(stream);
+        try {
+            Image staticImg = fitToDisplay ? ImageCache.getInstance().getImageForDisplay(imagePath)
+                                           : ImageCache.getInstance().getImage(imagePath);
+            if (staticImg != null) {
                 if (staticImg.isError()) {
                     System.err.println(logPrefix + "Error in Image object after loading: " + imagePath + ". Exception: " + staticImg.getException().getMessage());
                     imageView.setImage(null);
@@ -345,8 +368,7 @@ public class GamePlayController implements Initializable {
                 characterDisplayImageView.setTranslateY(charInfo.getPositionY());
 
                 characterDisplayImageView.setVisible(true);
-                characterDisplayImageView.setManaged(true);
-                currentCharacterAnimator.play();
+                characterDisplayImageView.setManaged(true); // Played by startScene
                 System.out.println("GPC: Set on-screen character (animator): " + charInfo.getPath() +
                                    " at X=" + charInfo.getPositionX() + ", Y=" + charInfo.getPositionY());
             } catch (Exception e) {
@@ -419,6 +441,8 @@ private void showNextDialogueLine() {
         return;
     }
 
+    if (gameManager != null) gameManager.recordDialogueAdvance(this.currentDialogueLineIndex);
+
     String rawSpeaker = dialogueEntry.getSpeaker();
     String processedSpeakerDisplayName = (gameManager != null) ? gameManager.processText(rawSpeaker) : rawSpeaker; // Handle null GM
     String processedLine = (gameManager != null) ? gameManager.processText(dialogueEntry.getLine()) : dialogueEntry.getLine();
@@ -451,7 +475,7 @@ private void showNextDialogueLine() {
     // Display Portrait
     if (this.speakerPortraitContainer != null && this.speakerPortraitImageView != null) {
         if (portraitPath != null && !portraitPath.trim().isEmpty()) {
-            loadStaticImageToView(portraitPath, this.speakerPortraitImageView, "GPC Dialogue Portrait: ");
+            loadStaticImageToView(portraitPath, this.speakerPortraitImageView, false, "GPC Dialogue Portrait: ");
             if (this.speakerPortraitImageView.getImage() != null && !this.speakerPortraitImageView.getImage().isError()) {
                 this.speakerPortraitContainer.setVisible(true);
                 this.speakerPortraitContainer.setManaged(true);
@@ -485,7 +509,10 @@ private void showNextDialogueLine() {
         // final String capturedSceneIdForAnimLambda = sceneContext.getId(); // Already have currentProcessingSceneId
 
         System.out.println("GPC ShowNextDialogueLine: Creating animateText for line: \"" + processedLine.substring(0, Math.min(processedLine.length(), 30)) + "...\" for scene '" + currentProcessingSceneId + "'");
-        animateText(this.sceneTextLabel, processedLine, 30, () -> {
+        // Blip voice: the line's style if it has one, otherwise the named speaker (the narrator keeps the default)
+        String style = dialogueEntry.getStyle();
+        String blipVoice = (style != null && !style.trim().isEmpty()) ? style : (showNamePlate ? rawSpeaker : null);
+        animateText(this.sceneTextLabel, processedLine, 30, blipVoice, () -> {
             this.dialogueAnimationPlaying = false;
             // It's crucial that 'sceneContext' (the final variable) is used here to ensure we operate on the correct scene's data,
             // especially if scene transitions could happen rapidly or if callbacks get queued.
@@ -575,10 +602,7 @@ private void handleScreenClick(MouseEvent event) {
 
         clearAndHidePortrait();
 
-        if (scene.getAction() != null && !scene.getAction().trim().isEmpty()) {
-            System.out.println("GPC: Processing scene action '" + scene.getAction() + "' for scene " + sceneId);
-            gameManager.processAction(scene.getAction());
-        }
+        // The scene's own action already ran in GameManager when the scene was entered.
 
         if (scene.getChoices() != null && !scene.getChoices().isEmpty()) {
             System.out.println("GPC: Scene " + sceneId + " has CHOICES.");
@@ -586,7 +610,7 @@ private void handleScreenClick(MouseEvent event) {
         } else if (scene.getAutoTransitionTo() != null && !scene.getAutoTransitionTo().trim().isEmpty()) {
             System.out.println("GPC: Scene " + sceneId + " has AUTO-TRANSITION to: " + scene.getAutoTransitionTo());
             showDialogueArea();
-            gameManager.advanceToScene(scene.getAutoTransitionTo());
+            gameManager.followAutoTransition();
             displayCurrentScene();
         } else if (scene.getOutcome() != null && !scene.getOutcome().trim().isEmpty()) {
             System.out.println("GPC: Scene " + sceneId + " leads to OUTCOME: " + scene.getOutcome());
@@ -625,6 +649,8 @@ private void handleScreenClick(MouseEvent event) {
 
                     System.out.println("GPC: Exiting game after completion message.");
                     if (audioManager != null) audioManager.shutdown();
+                    GameManager.getInstance().stopRecording();
+                    SaveManager.getInstance().shutdown(); // Finish a queued autosave before System.exit
                     Platform.exit();
                     System.exit(0);
                 });
@@ -660,6 +686,8 @@ private void handleScreenClick(MouseEvent event) {
                     
                             System.out.println("GPC: Exiting game after narrative dead end confirmation.");
                             if (audioManager != null) audioManager.shutdown();
+                            GameManager.getInstance().stopRecording();
+                            SaveManager.getInstance().shutdown(); // Finish a queued autosave before System.exit
                             Platform.exit();
                             System.exit(0);
                     
@@ -687,14 +715,7 @@ private void handleScreenClick(MouseEvent event) {
         boolean atLeastOneChoiceAvailable = false;
 
         for (ChoiceData choice : sceneData.getChoices()) {
-            boolean displayChoice = true;
-            // Condition checking...
-            // if (choice.getRequiredItem() != null && !choice.getRequiredItem().trim().isEmpty()) {
-            //     if (!gameManager.hasItem(choice.getRequiredItem())) displayChoice = false;
-            // }
-            // if (displayChoice && choice.getRequiredFlag() != null && !choice.getRequiredFlag().trim().isEmpty()) {
-            //     if (!gameManager.checkFlag(choice.getRequiredFlag())) displayChoice = false;
-            // }
+            boolean displayChoice = gameManager.isChoiceAvailable(choice); // requiredFlag, compiled with the scene
 
             if (displayChoice) {
                 atLeastOneChoiceAvailable = true;
@@ -759,8 +780,7 @@ private void handleScreenClick(MouseEvent event) {
                             continueButton.getStyleClass().add("choice-button");
                             continueButton.setOnAction(e -> {
                                 if (audioManager != null) audioManager.playSoundEffect("/com/leave/engine/audio/clicker.wav");
-                                gameManager.resetGameOver(); // Reset if leading to a new playable part
-                                gameManager.advanceToScene(outcome.getNextSceneId());
+                                gameManager.followOutcomeTransition(); // Resets game over and moves to the "ending_" scene
                                 displayCurrentScene(); // Display the "ending_" scene
                             });
                             choicesVBox.getChildren().add(continueButton);
@@ -820,6 +840,8 @@ private void handleScreenClick(MouseEvent event) {
                 audioManager.playSoundEffect("/com/leave/engine/audio/clicker.wav"); // Play click before shutdown
                 audioManager.shutdown();
             }
+            GameManager.getInstance().stopRecording();
+            SaveManager.getInstance().shutdown(); // Finish a queued autosave before System.exit
             Platform.exit();
             System.exit(0); // Force exit if Platform.exit() has issues
         });
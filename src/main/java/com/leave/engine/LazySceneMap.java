@@ -0,0 +1,131 @@
+package com.leave.engine;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+/**
+ * Read-only {@code Map<String, SceneData>} used as {@link GameStory#getScenes()} by the
+ * loaders that do not materialize the whole story up front ({@link CompiledStory},
+ * {@link StreamingStory}). Scene IDs are known from an index built at load time;
+ * a {@link SceneData} is only built when {@code get} asks for it.
+ *
+ * Built scenes are kept in a least-recently-used cache of at most {@code maxResidentScenes}
+ * entries, so memory stays flat no matter how many scenes the story has. An evicted scene is
+ * simply built again on its next lookup. Lookups come from both the FX thread and the
+ * prefetch threads, so the cache is synchronized.
+ */
+class LazySceneMap extends AbstractMap<String, SceneData> {
+
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    private final String[] sceneIds;
+    private final Map<String, Integer> indexById;
+    private final IntFunction<SceneData> loader;
+    private final int maxResidentScenes;
+
+    // accessOrder = true makes iteration order least-recently-used first
+    private final LinkedHashMap<Integer, SceneData> resident = new LinkedHashMap<>(64, 0.75f, true);
+    private long loads = 0;
+    private long evictions = 0;
+
+    /**
+     * @param sceneIds          Scene IDs in story order; the position is the scene index.
+     * @param indexById         Scene ID to index in {@code sceneIds}.
+     * @param loader            Builds the scene at an index. May return null for a null scene.
+     * @param maxResidentScenes Cap on built scenes kept in memory, or {@link #UNLIMITED}.
+     */
+    LazySceneMap(String[] sceneIds, Map<String, Integer> indexById, IntFunction<SceneData> loader, int maxResidentScenes) {
+        if (maxResidentScenes <= 0) {
+            throw new IllegalArgumentException("maxResidentScenes must be positive: " + maxResidentScenes);
+        }
+        this.sceneIds = sceneIds;
+        this.indexById = indexById;
+        this.loader = loader;
+        this.maxResidentScenes = maxResidentScenes;
+    }
+
+    @Override
+    public SceneData get(Object key) {
+        Integer index = indexById.get(key);
+        return index != null ? scene(index) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexById.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return sceneIds.length;
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return Collections.unmodifiableSet(indexById.keySet());
+    }
+
+    synchronized SceneData scene(int index) {
+        if (resident.containsKey(index)) {
+            return resident.get(index);
+        }
+        SceneData scene = loader.apply(index);
+        loads++;
+        resident.put(index, scene);
+        if (resident.size() > maxResidentScenes) {
+            Iterator<Integer> eldest = resident.keySet().iterator();
+            eldest.next();
+            eldest.remove();
+            evictions++;
+        }
+        return scene;
+    }
+
+    int getMaxResidentScenes() { return maxResidentScenes; }
+    synchronized int getResidentCount() { return resident.size(); }
+    synchronized long getLoads() { return loads; }
+    synchronized long getEvictions() { return evictions; }
+
+    /**
+     * Drops every built scene so the next lookups rebuild them from the source.
+     */
+    synchronized void clearResident() {
+        resident.clear();
+    }
+
+    @Override
+    public Set<Map.Entry<String, SceneData>> entrySet() {
+        return new AbstractSet<Map.Entry<String, SceneData>>() {
+            @Override
+            public int size() {
+                return sceneIds.length;
+            }
+
+            @Override
+            public Iterator<Map.Entry<String, SceneData>> iterator() {
+                return new Iterator<Map.Entry<String, SceneData>>() {
+                    private int next = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < sceneIds.length;
+                    }
+
+                    @Override
+                    public Map.Entry<String, SceneData> next() {
+                        if (!hasNext()) throw new NoSuchElementException();
+                        int index = next++;
+                        return new AbstractMap.SimpleImmutableEntry<>(sceneIds[index], scene(index));
+                    }
+                };
+            }
+        };
+    }
+}
@@ -2,12 +2,15 @@ package com.leave.engine;
 
 import java.io.IOException;
 import java.net.URL;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.ResourceBundle;
 
 import static com.leave.engine.utils.AnimationUtils.createBlinkTimeline;
 import static com.leave.engine.utils.AnimationUtils.createFadeTransition;
 import static com.leave.engine.utils.AnimationUtils.createPauseTransition;
+import com.leave.engine.utils.ImageCache;
+import com.leave.engine.utils.SaveManager;
 import com.leave.engine.utils.SpriteSheetAnimator;
 
 import javafx.animation.FadeTransition;
@@ -21,6 +24,7 @@ import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.input.KeyEvent;
@@ -44,10 +48,14 @@ public class MainMenuController implements Initializable {
     @FXML private Circle backgroundSpotlightCircle;
     @FXML private Button characterChangeButton;
     @FXML private Button newGameButton;
-    @FXML private Button loadGameButton; // Currently Quit
+    @FXML private Button loadGameButton; // Continue from the autosave
+    @FXML private Button quitGameButton;
     @FXML private VBox menuButtonBox;
     @FXML private VBox centerContentVBox;
     @FXML private Label tradeMarc;
+    @FXML private VBox loadingBox;
+    @FXML private ProgressBar loadingProgressBar;
+    @FXML private Label loadingStatusLabel;
 
     //logo
     private static final String LOGO_SPRITE_SHEET_PATH = "/com/leave/engine/images/LogoIntroAnim.png";
@@ -78,6 +86,9 @@ public class MainMenuController implements Initializable {
     private boolean isCharacterAnimating = false;
     private volatile boolean mainMenuContentIsSetup = false; // Flag to ensure CharacterManager is ready
 
+    // Set by App once the StartupPipeline has loaded the story; Start Game stays disabled until then
+    private boolean startupComplete = false;
+
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
         System.out.println("MainMenuController: initialize START");
@@ -360,8 +371,13 @@ public class MainMenuController implements Initializable {
     private void setMenuButtonsDisabled(boolean disabled) {
         System.out.println("MainMenuController: setMenuButtonsDisabled to " + disabled);
         if (characterChangeButton != null) characterChangeButton.setDisable(disabled);
-        if (newGameButton != null) newGameButton.setDisable(disabled);
-        if (loadGameButton != null) loadGameButton.setDisable(disabled); // This is "Quit"
+        if (newGameButton != null) newGameButton.setDisable(disabled || !startupComplete);
+        if (loadGameButton != null) loadGameButton.setDisable(disabled || !startupComplete || !hasAutosave());
+        if (quitGameButton != null) quitGameButton.setDisable(disabled);
+    }
+
+    private boolean hasAutosave() {
+        return SaveManager.getInstance().exists(GameManager.AUTOSAVE_SLOT);
     }
 
     private void loadCurrentCharacterDisplay(boolean isInitialLoad) {
@@ -382,9 +398,9 @@ public class MainMenuController implements Initializable {
         
         String fullResourcePath = "/com/leave/engine/" + relativeImagePath;
         try {
-            Image charImage = new Image(getClass().getResourceAsStream(fullResourcePath));
-            if (charImage.isError()) {
-                System.err.println("MainMenuController Error loading menu character image: " + fullResourcePath + ", " + charImage.getException().getMessage());
+            Image charImage = ImageCache.getInstance().getImage(fullResourcePath);
+            if (charImage == null || charImage.isError()) {
+                System.err.println("MainMenuController Error loading menu character image: " + fullResourcePath);
                 characterImageView.setImage(null);
             } else {
                 characterImageView.setImage(charImage);
@@ -478,9 +494,38 @@ public class MainMenuController implements Initializable {
     }
 
 
+    /**
+     * Shows startup progress from the StartupPipeline. Called on the FX thread.
+     */
+    public void showStartupProgress(double fraction, String message) {
+        if (loadingProgressBar != null) loadingProgressBar.setProgress(fraction);
+        if (loadingStatusLabel != null) loadingStatusLabel.setText(message);
+    }
+
+    /**
+     * Called on the FX thread once the story is loaded; hides the progress bar and lets the
+     * player start a game if the menu is already up.
+     */
+    public void onStartupComplete() {
+        startupComplete = true;
+        if (loadingBox != null) {
+            FadeTransition fadeOutLoading = createFadeTransition(loadingBox, Duration.millis(400), loadingBox.getOpacity(), 0.0);
+            fadeOutLoading.setOnFinished(e -> loadingBox.setVisible(false));
+            fadeOutLoading.play();
+        }
+        if (newGameButton != null && mainMenuGroup != null && !mainMenuGroup.isMouseTransparent() && !isCharacterAnimating) {
+            newGameButton.setDisable(false);
+            if (loadGameButton != null) loadGameButton.setDisable(!hasAutosave());
+        }
+    }
+
     @FXML
     public void handleNewGame(ActionEvent event) {
         System.out.println("MainMenuController: handleNewGame called!");
+        if (!startupComplete) {
+            System.out.println("MainMenuController: handleNewGame - Story still loading, ignoring.");
+            return;
+        }
 
         ensureMainMenuContentIsSetup(); // Ensure manager is definitely ready
         if (!mainMenuContentIsSetup || this.characterManager == null) {
@@ -511,9 +556,19 @@ public class MainMenuController implements Initializable {
         System.out.println("MainMenuController: Player selected: " + selectedCharacterName +
                            ", Dialogue Portrait Path set to GameManager: " + selectedPlayerPortraitPath);
 
+        gm.setAutosaveEnabled(true);
+        enterGameplay();
+    }
+
+    private void enterGameplay() {
         if (thunderAnimator != null) thunderAnimator.stop();
         if (logoAnimator != null) logoAnimator.stop();
 
+        String recordDir = System.getProperty(PlaythroughRecorder.DIR_PROPERTY);
+        if (recordDir != null && !recordDir.trim().isEmpty()) {
+            GameManager.getInstance().startRecording(Paths.get(recordDir));
+        }
+
         try {
             App.setRoot("gameplay", (controller) -> {
                 if (controller instanceof GamePlayController) {
@@ -530,11 +585,30 @@ public class MainMenuController implements Initializable {
     }
 
     @FXML
-    public void handleLoadGame(ActionEvent event) { // This is "Quit Game"
+    public void handleLoadGame(ActionEvent event) {
+        System.out.println("MainMenuController: Continue button clicked.");
+        if (!startupComplete) return;
+        GameManager gm = GameManager.getInstance();
+        if (!gm.loadGame(GameManager.AUTOSAVE_SLOT)) {
+            Alert alert = new Alert(Alert.AlertType.WARNING);
+            alert.setTitle("Continue");
+            alert.setHeaderText("No saved game to continue");
+            alert.setContentText("The autosave is missing or was made with a different version of the story.");
+            alert.showAndWait();
+            if (loadGameButton != null) loadGameButton.setDisable(true);
+            return;
+        }
+        gm.setAutosaveEnabled(true);
+        enterGameplay();
+    }
+
+    @FXML
+    public void handleQuitGame(ActionEvent event) {
         System.out.println("MainMenuController: Quit Game button clicked.");
         if (thunderAnimator != null) thunderAnimator.stop();
         if (logoAnimator != null) logoAnimator.stop();
-        //if (audioManager != null) audioManager.shutdown(); // Assuming you have AudioManager instance here or get it
+        GameManager.getInstance().stopRecording();
+        SaveManager.getInstance().shutdown(); // System.exit below can beat App.stop(); finish any queued autosave first
         Platform.exit();
         System.exit(0); // Force exit if Platform.exit() hangs for any reason
     }
@@ -0,0 +1,208 @@
+package com.leave.engine;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * A recorded playthrough: the calls a player made on {@link GameManager}, in order, as
+ * written by {@link PlaythroughRecorder} and replayed by {@link PlaythroughReplayer}.
+ *
+ * Layout (big-endian, append-only):
+ * <pre>
+ *   int magic, short version, long story fingerprint, long startedAtMillis
+ *   records: byte type, varint millisSincePreviousRecord, payload
+ * </pre>
+ * Payloads by type:
+ * <pre>
+ *   SNAPSHOT         varint length, {@link SaveGame} bytes (state when recording began, or a restore)
+ *   START            utf playerName
+ *   CHOICE           varint choice index in the current scene
+ *   ADVANCE          varint scene index
+ *   AUTO, OUTCOME_NEXT, RESET_GAME_OVER   (none)
+ *   GAME_OVER        varint outcome index + 1, then utf outcome ID only if the index is 0 (unknown ID)
+ *   ACTION           utf action string
+ *   DIALOGUE         varint dialogue line index (timing only; does not change state)
+ *   CHECKPOINT       long state digest, see {@link GameManager#stateDigest()}
+ * </pre>
+ * Scenes, choices and outcomes are ints, so a typical record is two or three bytes. A log cut
+ * short by a crash is read up to its last complete record.
+ */
+public final class PlaythroughLog {
+
+    static final int MAGIC = 0x4C56504C; // "LVPL"
+    static final short VERSION = 1;
+
+    public static final byte SNAPSHOT = 1;
+    public static final byte START = 2;
+    public static final byte CHOICE = 3;
+    public static final byte ADVANCE = 4;
+    public static final byte AUTO = 5;
+    public static final byte OUTCOME_NEXT = 6;
+    public static final byte GAME_OVER = 7;
+    public static final byte ACTION = 8;
+    public static final byte RESET_GAME_OVER = 9;
+    public static final byte DIALOGUE = 10;
+    public static final byte CHECKPOINT = 11;
+
+    private final long storyFingerprint;
+    private final long startedAtMillis;
+    private final int size;
+    private final byte[] types;
+    private final int[] args;        // Index argument, -1 if none
+    private final long[] values;     // Checkpoint digest
+    private final int[] delays;      // Milliseconds since the previous record
+    private final Object[] payloads; // String or byte[] where the type has one
+    private final boolean truncated;
+
+    private PlaythroughLog(long storyFingerprint, long startedAtMillis, int size, byte[] types, int[] args,
+                           long[] values, int[] delays, Object[] payloads, boolean truncated) {
+        this.storyFingerprint = storyFingerprint;
+        this.startedAtMillis = startedAtMillis;
+        this.size = size;
+        this.types = types;
+        this.args = args;
+        this.values = values;
+        this.delays = delays;
+        this.payloads = payloads;
+        this.truncated = truncated;
+    }
+
+    public static PlaythroughLog read(Path file) throws IOException {
+        return parse(Files.readAllBytes(file));
+    }
+
+    /**
+     * Parses a log.
+     * @throws IOException If the header is missing or the log is not a playthrough.
+     */
+    public static PlaythroughLog parse(byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        long fingerprint;
+        long startedAt;
+        try {
+            if (in.readInt() != MAGIC) throw new IOException("Not a playthrough log.");
+            short version = in.readShort();
+            if (version != VERSION) throw new IOException("Unsupported playthrough log version " + version + ".");
+            fingerprint = in.readLong();
+            startedAt = in.readLong();
+        } catch (EOFException e) {
+            throw new IOException("Playthrough log header is truncated.", e);
+        }
+
+        int capacity = Math.max(16, data.length / 2);
+        byte[] types = new byte[capacity];
+        int[] args = new int[capacity];
+        long[] values = new long[capacity];
+        int[] delays = new int[capacity];
+        Object[] payloads = new Object[capacity];
+        int size = 0;
+        boolean truncated = false;
+        while (in.available() > 0) {
+            byte type;
+            int arg = -1;
+            long value = 0;
+            int delay;
+            Object payload = null;
+            try {
+                type = in.readByte();
+                delay = readVarInt(in);
+                switch (type) {
+                    case SNAPSHOT:
+                        byte[] bytes = new byte[readVarInt(in)];
+                        in.readFully(bytes);
+                        payload = bytes;
+                        break;
+                    case START:
+                    case ACTION:
+                        payload = in.readUTF();
+                        break;
+                    case CHOICE:
+                    case ADVANCE:
+                    case DIALOGUE:
+                        arg = readVarInt(in);
+                        break;
+                    case GAME_OVER:
+                        arg = readVarInt(in) - 1;
+                        if (arg < 0) payload = in.readUTF();
+                        break;
+                    case CHECKPOINT:
+                        value = in.readLong();
+                        break;
+                    case AUTO:
+                    case OUTCOME_NEXT:
+                    case RESET_GAME_OVER:
+                        break;
+                    default:
+                        throw new IOException("Unknown playthrough record type " + type + " at record " + size + ".");
+                }
+            } catch (EOFException e) {
+                truncated = true; // Crashed mid-record; keep everything before it
+                break;
+            }
+            if (size == types.length) {
+                int grown = size * 2;
+                types = Arrays.copyOf(types, grown);
+                args = Arrays.copyOf(args, grown);
+                values = Arrays.copyOf(values, grown);
+                delays = Arrays.copyOf(delays, grown);
+                payloads = Arrays.copyOf(payloads, grown);
+            }
+            types[size] = type;
+            args[size] = arg;
+            values[size] = value;
+            delays[size] = delay;
+            payloads[size] = payload;
+            size++;
+        }
+        return new PlaythroughLog(fingerprint, startedAt, size, types, args, values, delays, payloads, truncated);
+    }
+
+    public long getStoryFingerprint() { return storyFingerprint; }
+    public long getStartedAtMillis() { return startedAtMillis; }
+    public int size() { return size; }
+    public boolean isTruncated() { return truncated; }
+
+    public byte getType(int record) { return types[record]; }
+    public int getArg(int record) { return args[record]; }
+    public long getValue(int record) { return values[record]; }
+    public int getDelayMillis(int record) { return delays[record]; }
+    public String getText(int record) { return (String) payloads[record]; }
+    public byte[] getBytes(int record) { return (byte[]) payloads[record]; }
+
+    /** Wall-clock length of the session as recorded. */
+    public long getRecordedMillis() {
+        long total = 0;
+        for (int i = 0; i < size; i++) total += delays[i];
+        return total;
+    }
+
+    public int count(byte type) {
+        int n = 0;
+        for (int i = 0; i < size; i++) if (types[i] == type) n++;
+        return n;
+    }
+
+    static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7f) != 0) {
+            out.writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Malformed varint in playthrough log.");
+    }
+}
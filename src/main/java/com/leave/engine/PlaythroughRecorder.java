@@ -0,0 +1,145 @@
+package com.leave.engine;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.function.LongSupplier;
+
+/**
+ * Appends {@link GameManager} calls to a {@link PlaythroughLog} as they happen.
+ *
+ * Each record is flushed as it is written, so a crash loses at most the record being written
+ * (records come at the pace of player clicks, so this costs nothing noticeable). Every
+ * {@value #CHECKPOINT_INTERVAL} state-changing records, and on close, a checkpoint with the
+ * GameManager's state digest is written so replays can prove they reached the same state.
+ * A write error is reported once and stops the recording; it never interrupts the game.
+ */
+public final class PlaythroughRecorder implements Closeable {
+
+    /** System property naming a directory to record every playthrough into. */
+    public static final String DIR_PROPERTY = "leave.record.dir";
+    public static final String EXTENSION = ".lvpl";
+    static final int CHECKPOINT_INTERVAL = 16;
+
+    private final DataOutputStream out;
+    private Path file; // Null when recording to a stream
+    private long lastNanos;
+    private int sinceCheckpoint = 0;
+    private int records = 0;
+    private boolean failed = false;
+
+    public PlaythroughRecorder(OutputStream stream, long storyFingerprint) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(stream, 512));
+        out.writeInt(PlaythroughLog.MAGIC);
+        out.writeShort(PlaythroughLog.VERSION);
+        out.writeLong(storyFingerprint);
+        out.writeLong(System.currentTimeMillis());
+        out.flush();
+        lastNanos = System.nanoTime();
+    }
+
+    /** Starts a new log file named after the current time in {@code directory}. */
+    public static PlaythroughRecorder create(Path directory, long storyFingerprint) throws IOException {
+        Files.createDirectories(directory);
+        String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss-SSS").format(new Date());
+        Path file = directory.resolve("playthrough-" + stamp + EXTENSION);
+        PlaythroughRecorder recorder = new PlaythroughRecorder(
+                Files.newOutputStream(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE), storyFingerprint);
+        recorder.file = file;
+        return recorder;
+    }
+
+    public Path getFile() { return file; }
+    public int getRecordCount() { return records; }
+    public boolean hasFailed() { return failed; }
+
+    /**
+     * Appends one record.
+     * @param arg     Index argument for the types that take one.
+     * @param payload String or byte[] for the types that take one.
+     * @param digest  Current state digest, asked for only when a checkpoint is due.
+     */
+    void record(byte type, int arg, Object payload, LongSupplier digest) {
+        if (failed) return;
+        try {
+            writeRecord(type, arg, payload);
+            if (type != PlaythroughLog.DIALOGUE && ++sinceCheckpoint >= CHECKPOINT_INTERVAL) {
+                writeCheckpoint(digest.getAsLong());
+            }
+            out.flush();
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void writeRecord(byte type, int arg, Object payload) throws IOException {
+        long now = System.nanoTime();
+        long delayMillis = Math.max(0, (now - lastNanos) / 1_000_000L);
+        lastNanos = now;
+        out.writeByte(type);
+        PlaythroughLog.writeVarInt(out, (int) Math.min(Integer.MAX_VALUE, delayMillis));
+        switch (type) {
+            case PlaythroughLog.SNAPSHOT:
+                byte[] bytes = (byte[]) payload;
+                PlaythroughLog.writeVarInt(out, bytes.length);
+                out.write(bytes);
+                break;
+            case PlaythroughLog.START:
+            case PlaythroughLog.ACTION:
+                out.writeUTF(payload != null ? (String) payload : "");
+                break;
+            case PlaythroughLog.CHOICE:
+            case PlaythroughLog.ADVANCE:
+            case PlaythroughLog.DIALOGUE:
+                PlaythroughLog.writeVarInt(out, arg);
+                break;
+            case PlaythroughLog.GAME_OVER:
+                PlaythroughLog.writeVarInt(out, arg + 1);
+                if (arg < 0) out.writeUTF(payload != null ? (String) payload : "");
+                break;
+            default:
+                break;
+        }
+        records++;
+    }
+
+    private void writeCheckpoint(long digest) throws IOException {
+        writeRecord(PlaythroughLog.CHECKPOINT, -1, null);
+        out.writeLong(digest);
+        sinceCheckpoint = 0;
+    }
+
+    /** Writes a final checkpoint with {@code digest} and closes the log. */
+    public void close(long digest) {
+        if (!failed) {
+            try {
+                writeCheckpoint(digest);
+                out.flush();
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+        close();
+    }
+
+    @Override
+    public void close() {
+        try {
+            out.close();
+        } catch (IOException e) {
+            System.err.println("PlaythroughRecorder: Error closing log: " + e.getMessage());
+        }
+    }
+
+    private void fail(IOException e) {
+        failed = true;
+        System.err.println("PlaythroughRecorder: Could not write playthrough log, recording stopped: " + e.getMessage());
+    }
+}
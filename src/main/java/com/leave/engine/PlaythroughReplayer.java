@@ -0,0 +1,175 @@
+package com.leave.engine;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Replays a {@link PlaythroughLog} against a headless {@link GameManager}, with no JavaFX.
+ *
+ * Each record makes the same GameManager call the player's session made, and every checkpoint
+ * is compared with the replayed state digest, so a replay either reproduces the session exactly
+ * or fails with the record where it diverged. One replayer can run any number of logs for the
+ * same story; it restarts from each log's opening snapshot.
+ *
+ * Usage: {@code PlaythroughReplayer <story> <log.lvpl> [iterations]} prints the result and the
+ * replay rate.
+ */
+public final class PlaythroughReplayer {
+
+    /** Thrown when a replay does not reach the recorded state. */
+    public static final class DivergenceException extends IllegalStateException {
+        private static final long serialVersionUID = 1L;
+
+        private final int record;
+
+        DivergenceException(int record, String message) {
+            super("Replay diverged at record " + record + ": " + message);
+            this.record = record;
+        }
+
+        public int getRecord() { return record; }
+    }
+
+    /** What a replay reached. */
+    public static final class Result {
+        private final int records;
+        private final int checkpoints;
+        private final long digest;
+        private final String finalSceneId;
+        private final boolean gameOver;
+        private final long recordedMillis;
+
+        Result(int records, int checkpoints, long digest, String finalSceneId, boolean gameOver, long recordedMillis) {
+            this.records = records;
+            this.checkpoints = checkpoints;
+            this.digest = digest;
+            this.finalSceneId = finalSceneId;
+            this.gameOver = gameOver;
+            this.recordedMillis = recordedMillis;
+        }
+
+        public int getRecords() { return records; }
+        public int getCheckpoints() { return checkpoints; }
+        public long getDigest() { return digest; }
+        public String getFinalSceneId() { return finalSceneId; }
+        public boolean isGameOver() { return gameOver; }
+        /** Wall-clock length of the original session. */
+        public long getRecordedMillis() { return recordedMillis; }
+
+        @Override
+        public String toString() {
+            return "Result{records=" + records + ", checkpoints=" + checkpoints + ", finalScene='" + finalSceneId +
+                   "', gameOver=" + gameOver + ", digest=" + Long.toHexString(digest) + ", recordedMs=" + recordedMillis + '}';
+        }
+    }
+
+    private final GameManager gameManager;
+
+    public PlaythroughReplayer(GameStory story) {
+        this.gameManager = GameManager.headless(story);
+    }
+
+    /** The replayer's own GameManager, e.g. to inspect the state after a replay. */
+    public GameManager getGameManager() {
+        return gameManager;
+    }
+
+    /**
+     * Replays a log from its opening snapshot.
+     * @throws DivergenceException If a record cannot be applied or a checkpoint does not match.
+     */
+    public Result replay(PlaythroughLog log) {
+        SceneGraph graph = gameManager.getSceneGraph();
+        if (log.getStoryFingerprint() != graph.getFingerprint()) {
+            throw new DivergenceException(0, "log was recorded with a different story");
+        }
+        int checkpoints = 0;
+        for (int i = 0; i < log.size(); i++) {
+            int arg = log.getArg(i);
+            switch (log.getType(i)) {
+                case PlaythroughLog.SNAPSHOT:
+                    SaveGame save;
+                    try {
+                        save = SaveGame.fromBytes(log.getBytes(i));
+                    } catch (IOException e) {
+                        throw new DivergenceException(i, "unreadable snapshot: " + e.getMessage());
+                    }
+                    if (!gameManager.restoreSaveGame(save)) throw new DivergenceException(i, "snapshot does not fit the story");
+                    break;
+                case PlaythroughLog.START:
+                    gameManager.setCurrentPlayerCharacterName(log.getText(i));
+                    gameManager.startGame();
+                    break;
+                case PlaythroughLog.CHOICE:
+                    SceneData scene = gameManager.getCurrentSceneData();
+                    List<ChoiceData> choices = scene != null ? scene.getChoices() : null;
+                    if (choices == null || arg < 0 || arg >= choices.size()) {
+                        throw new DivergenceException(i, "no choice " + arg + " in scene '" + gameManager.getCurrentSceneId() + "'");
+                    }
+                    gameManager.makeChoice(choices.get(arg));
+                    break;
+                case PlaythroughLog.ADVANCE:
+                    if (arg < 0 || arg >= graph.getSceneCount()) throw new DivergenceException(i, "no scene " + arg);
+                    gameManager.advanceToScene(graph.getSceneNode(arg));
+                    break;
+                case PlaythroughLog.AUTO:
+                    gameManager.followAutoTransition();
+                    break;
+                case PlaythroughLog.OUTCOME_NEXT:
+                    gameManager.followOutcomeTransition();
+                    break;
+                case PlaythroughLog.GAME_OVER:
+                    if (arg >= graph.getOutcomeCount()) throw new DivergenceException(i, "no outcome " + arg);
+                    gameManager.setGameOver(arg >= 0 ? graph.getOutcomeNode(arg).getOutcomeId() : log.getText(i));
+                    break;
+                case PlaythroughLog.ACTION:
+                    gameManager.processAction(log.getText(i));
+                    break;
+                case PlaythroughLog.RESET_GAME_OVER:
+                    gameManager.resetGameOver();
+                    break;
+                case PlaythroughLog.DIALOGUE:
+                    break; // Timing only
+                case PlaythroughLog.CHECKPOINT:
+                    long replayed = gameManager.stateDigest();
+                    if (replayed != log.getValue(i)) {
+                        throw new DivergenceException(i, "state digest " + Long.toHexString(replayed) +
+                                                         " != recorded " + Long.toHexString(log.getValue(i)) +
+                                                         " at scene '" + gameManager.getCurrentSceneId() + "'");
+                    }
+                    checkpoints++;
+                    break;
+                default:
+                    throw new DivergenceException(i, "unknown record type " + log.getType(i));
+            }
+        }
+        return new Result(log.size(), checkpoints, gameManager.stateDigest(), gameManager.getCurrentSceneId(),
+                          gameManager.isGameOver(), log.getRecordedMillis());
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: PlaythroughReplayer <story> <log.lvpl> [iterations]");
+            System.exit(2);
+        }
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 10_000;
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream())); // Loader and restore chatter
+        PlaythroughReplayer replayer = new PlaythroughReplayer(new StoryLoader().loadStory(args[0]));
+        PlaythroughLog log = PlaythroughLog.read(Paths.get(args[1]));
+        Result result = replayer.replay(log);
+        for (int i = 0; i < Math.min(iterations, 1000); i++) replayer.replay(log); // Warm up
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            if (replayer.replay(log).getDigest() != result.getDigest()) throw new IllegalStateException("Replay is not deterministic.");
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.setOut(console);
+        System.out.println("PlaythroughReplayer: " + result + (log.isTruncated() ? " (log truncated)" : ""));
+        System.out.printf("PlaythroughReplayer: %d replays in %.2f s = %.0f replays/s, %.0f records/s%n",
+                iterations, seconds, iterations / seconds, (double) iterations * log.size() / seconds);
+    }
+}
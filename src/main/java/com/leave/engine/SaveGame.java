@@ -0,0 +1,187 @@
+package com.leave.engine;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Snapshot of a {@link GameManager} playthrough and its compact binary form.
+ *
+ * Layout (big-endian):
+ * <pre>
+ *   int magic, short version
+ *   long story fingerprint ({@link SceneGraph#getFingerprint()})
+ *   long savedAtMillis
+ *   int sceneIndex, int outcomeIndex (-1 for none), boolean gameOver
+ *   str playerName, str portraitPath (nullable)
+ *   int flagCount,  flagCount x str name
+ *   int itemCount,  itemCount x (str name, int count)
+ *   int CRC32 of everything above
+ * </pre>
+ * A "str" is a boolean (present) followed by modified UTF-8. Scenes and outcomes are their
+ * int index in story order, checked against the fingerprint on load. Only set flags and held
+ * items are written; they are keyed by name rather than by their {@link StorySymbols} ID,
+ * because lazily loaded stories intern those IDs in whatever order scenes are first entered,
+ * so the IDs differ between sessions.
+ *
+ * Taking a snapshot copies the state without encoding it, so it is cheap on the FX thread;
+ * {@link #toBytes()} runs on the save writer thread.
+ */
+public final class SaveGame {
+
+    static final int MAGIC = 0x4C565356; // "LVSV"
+    static final short VERSION = 1;
+
+    private final long storyFingerprint;
+    private final long savedAtMillis;
+    private final int sceneIndex;
+    private final int outcomeIndex;
+    private final boolean gameOver;
+    private final String playerName;
+    private final String portraitPath;
+    private final List<String> flags;
+    private final List<String> items;
+    private final int[] itemCounts;
+
+    SaveGame(long storyFingerprint, long savedAtMillis, int sceneIndex, int outcomeIndex, boolean gameOver,
+             String playerName, String portraitPath, List<String> flags, List<String> items, int[] itemCounts) {
+        this.storyFingerprint = storyFingerprint;
+        this.savedAtMillis = savedAtMillis;
+        this.sceneIndex = sceneIndex;
+        this.outcomeIndex = outcomeIndex;
+        this.gameOver = gameOver;
+        this.playerName = playerName;
+        this.portraitPath = portraitPath;
+        this.flags = flags;
+        this.items = items;
+        this.itemCounts = itemCounts;
+    }
+
+    /**
+     * Captures a playthrough. Flag and item names are looked up here, from a copy of the state,
+     * so later changes to the live state do not leak into the snapshot.
+     */
+    static SaveGame capture(SceneGraph graph, SceneGraph.SceneNode scene, SceneGraph.OutcomeNode outcome, boolean gameOver,
+                            String playerName, String portraitPath, StoryState state) {
+        StorySymbols symbols = graph.getSymbols();
+        List<String> flags = new ArrayList<>();
+        BitSet flagBits = state.getFlagBits();
+        for (int id = flagBits.nextSetBit(0); id >= 0; id = flagBits.nextSetBit(id + 1)) {
+            flags.add(symbols.getFlagName(id));
+        }
+        List<String> items = new ArrayList<>();
+        int itemSymbols = symbols.getItemCount();
+        int[] counts = new int[itemSymbols];
+        for (int id = 0; id < itemSymbols; id++) {
+            int count = state.getItemCount(id);
+            if (count > 0) {
+                counts[items.size()] = count;
+                items.add(symbols.getItemName(id));
+            }
+        }
+        return new SaveGame(graph.getFingerprint(), System.currentTimeMillis(),
+                            scene != null ? scene.getIndex() : -1, outcome != null ? outcome.getIndex() : -1, gameOver,
+                            playerName, portraitPath, flags, items, Arrays.copyOf(counts, items.size()));
+    }
+
+    public long getStoryFingerprint() { return storyFingerprint; }
+    public long getSavedAtMillis() { return savedAtMillis; }
+    public int getSceneIndex() { return sceneIndex; }
+    public int getOutcomeIndex() { return outcomeIndex; }
+    public boolean isGameOver() { return gameOver; }
+    public String getPlayerName() { return playerName; }
+    public String getPortraitPath() { return portraitPath; }
+    public List<String> getFlags() { return flags; }
+    public List<String> getItems() { return items; }
+    public int getItemCount(int index) { return itemCounts[index]; }
+
+    /** Encodes the snapshot, checksum included. */
+    public byte[] toBytes() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeLong(storyFingerprint);
+        out.writeLong(savedAtMillis);
+        out.writeInt(sceneIndex);
+        out.writeInt(outcomeIndex);
+        out.writeBoolean(gameOver);
+        writeString(out, playerName);
+        writeString(out, portraitPath);
+        out.writeInt(flags.size());
+        for (String flag : flags) writeString(out, flag);
+        out.writeInt(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            writeString(out, items.get(i));
+            out.writeInt(itemCounts[i]);
+        }
+        out.flush();
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        out.writeInt((int) crc.getValue());
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a snapshot.
+     * @throws IOException If the data is truncated, corrupt or from an unknown version.
+     */
+    public static SaveGame fromBytes(byte[] data) throws IOException {
+        if (data == null || data.length < 10) throw new IOException("Save data is empty or truncated.");
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length - 4);
+        int storedCrc = ((data[data.length - 4] & 0xff) << 24) | ((data[data.length - 3] & 0xff) << 16)
+                      | ((data[data.length - 2] & 0xff) << 8) | (data[data.length - 1] & 0xff);
+        if ((int) crc.getValue() != storedCrc) throw new IOException("Save data checksum mismatch.");
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, 0, data.length - 4));
+        if (in.readInt() != MAGIC) throw new IOException("Not a save file.");
+        short version = in.readShort();
+        if (version != VERSION) throw new IOException("Unsupported save version " + version + ".");
+        long fingerprint = in.readLong();
+        long savedAt = in.readLong();
+        int sceneIndex = in.readInt();
+        int outcomeIndex = in.readInt();
+        boolean gameOver = in.readBoolean();
+        String playerName = readString(in);
+        String portraitPath = readString(in);
+        int flagCount = in.readInt();
+        if (flagCount < 0) throw new IOException("Corrupt flag count.");
+        List<String> flags = new ArrayList<>(Math.min(flagCount, 1024));
+        for (int i = 0; i < flagCount; i++) flags.add(readString(in));
+        int itemCount = in.readInt();
+        if (itemCount < 0) throw new IOException("Corrupt item count.");
+        List<String> items = new ArrayList<>(Math.min(itemCount, 1024));
+        int[] counts = new int[Math.min(itemCount, 1024)];
+        for (int i = 0; i < itemCount; i++) {
+            items.add(readString(in));
+            if (i >= counts.length) counts = Arrays.copyOf(counts, counts.length * 2);
+            counts[i] = in.readInt();
+        }
+        return new SaveGame(fingerprint, savedAt, sceneIndex, outcomeIndex, gameOver, playerName, portraitPath,
+                            flags, items, Arrays.copyOf(counts, itemCount));
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    @Override
+    public String toString() {
+        return "SaveGame{scene=" + sceneIndex + ", outcome=" + outcomeIndex + ", gameOver=" + gameOver +
+               ", player='" + playerName + "', flags=" + flags + ", items=" + items + '}';
+    }
+}
@@ -0,0 +1,300 @@
+package com.leave.engine;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resolved, integer-indexed view of a {@link GameStory}, built once after the story is loaded.
+ * Every scene and outcome gets a dense int ID (its position in story order) and a node that
+ * holds direct references to the nodes its choices, autoTransitionTo and outcome lead to.
+ * GameManager walks these references, so moving through the story never hashes a scene ID
+ * string; string lookups only remain at the API edge ({@link #getSceneNode(String)}).
+ *
+ * For fully mapped stories every node is resolved when the graph is built. For stories
+ * whose scenes are parsed on demand ({@link LazySceneMap}) a node resolves its links the
+ * first time it is entered, so building the graph does not parse the whole story.
+ *
+ * Resolving a node also compiles its actions and conditions against the graph's
+ * {@link StorySymbols}, so entering a scene or checking a choice never parses a string.
+ */
+public class SceneGraph {
+
+    /**
+     * A scene in the graph. Links are resolved once; a null target with a non-null ID in the
+     * scene data means the story points at a scene or outcome that does not exist.
+     */
+    public static final class SceneNode {
+        private final int index;
+        private final String sceneId;
+        private final SceneGraph graph;
+        private volatile SceneData data; // Null for lazily parsed stories, fetched by index
+        private boolean resolved = false;
+
+        private SceneNode[] choiceTargets = new SceneNode[0];   // Parallel to the scene's choices
+        private OutcomeNode[] choiceOutcomes = new OutcomeNode[0];
+        private SceneNode autoTransition;
+        private OutcomeNode outcome;
+        private StorySymbols.Action action = StorySymbols.Action.NONE;
+        private StorySymbols.Action[] choiceActions = new StorySymbols.Action[0];
+        private int[] choiceConditions = new int[0];
+        private int[] objectConditions = new int[0];  // Parallel to the scene's objects
+
+        private SceneNode(SceneGraph graph, int index, String sceneId, SceneData data) {
+            this.graph = graph;
+            this.index = index;
+            this.sceneId = sceneId;
+            this.data = data;
+        }
+
+        public int getIndex() { return index; }
+        public String getSceneId() { return sceneId; }
+
+        public SceneData getData() {
+            return data != null ? data : graph.lazyScenes.scene(index);
+        }
+
+        public SceneNode getAutoTransition() { resolve(); return autoTransition; }
+        public OutcomeNode getOutcome() { resolve(); return outcome; }
+
+        /** Target scene of the choice at {@code choiceIndex}, or null if it has none. */
+        public SceneNode getChoiceTarget(int choiceIndex) {
+            resolve();
+            return choiceIndex >= 0 && choiceIndex < choiceTargets.length ? choiceTargets[choiceIndex] : null;
+        }
+
+        /** Outcome of the choice at {@code choiceIndex}, or null if it has none. */
+        public OutcomeNode getChoiceOutcome(int choiceIndex) {
+            resolve();
+            return choiceIndex >= 0 && choiceIndex < choiceOutcomes.length ? choiceOutcomes[choiceIndex] : null;
+        }
+
+        /** The scene's own action, compiled; empty if it has none. */
+        public StorySymbols.Action getAction() { resolve(); return action; }
+
+        /** Compiled action of the choice at {@code choiceIndex}; empty if it has none. */
+        public StorySymbols.Action getChoiceAction(int choiceIndex) {
+            resolve();
+            return choiceIndex >= 0 && choiceIndex < choiceActions.length ? choiceActions[choiceIndex] : StorySymbols.Action.NONE;
+        }
+
+        /** Compiled requiredFlag of the choice at {@code choiceIndex}, for {@link StoryState#test(int)}. */
+        public int getChoiceCondition(int choiceIndex) {
+            resolve();
+            return choiceIndex >= 0 && choiceIndex < choiceConditions.length ? choiceConditions[choiceIndex] : StorySymbols.ALWAYS;
+        }
+
+        /** Compiled requiredItem of the object at {@code objectIndex}, for {@link StoryState#test(int)}. */
+        public int getObjectCondition(int objectIndex) {
+            resolve();
+            return objectIndex >= 0 && objectIndex < objectConditions.length ? objectConditions[objectIndex] : StorySymbols.ALWAYS;
+        }
+
+        /** Position of an object in this scene's object list, compared by identity, or -1. */
+        public int indexOfObject(InteractiveObjectInfo object) {
+            SceneData scene = getData();
+            if (object == null || scene == null || scene.getObjects() == null) return -1;
+            List<InteractiveObjectInfo> objects = scene.getObjects();
+            for (int i = 0; i < objects.size(); i++) {
+                if (objects.get(i) == object) return i;
+            }
+            return -1;
+        }
+
+        /**
+         * Position of a choice in this scene's choice list, compared by identity, or -1.
+         */
+        public int indexOfChoice(ChoiceData choice) {
+            SceneData scene = getData();
+            if (choice == null || scene == null || scene.getChoices() == null) return -1;
+            List<ChoiceData> choices = scene.getChoices();
+            for (int i = 0; i < choices.size(); i++) {
+                if (choices.get(i) == choice) return i;
+            }
+            return -1;
+        }
+
+        // Swaps in edited scene data and recompiles its links; other nodes keep pointing at this one
+        private synchronized void replaceData(SceneData scene) {
+            data = scene;
+            resolved = false;
+            resolve();
+        }
+
+        private synchronized void resolve() {
+            if (resolved) return;
+            SceneData scene = getData();
+            if (scene != null) {
+                List<ChoiceData> choices = scene.getChoices();
+                if (choices != null) {
+                    choiceTargets = new SceneNode[choices.size()];
+                    choiceOutcomes = new OutcomeNode[choices.size()];
+                    choiceActions = new StorySymbols.Action[choices.size()];
+                    choiceConditions = new int[choices.size()];
+                    for (int i = 0; i < choices.size(); i++) {
+                        ChoiceData choice = choices.get(i);
+                        choiceActions[i] = StorySymbols.Action.NONE;
+                        choiceConditions[i] = StorySymbols.ALWAYS;
+                        if (choice == null) continue;
+                        choiceTargets[i] = graph.getSceneNode(choice.getNextSceneId());
+                        choiceOutcomes[i] = graph.getOutcomeNode(choice.getOutcome());
+                        choiceActions[i] = graph.symbols.action(choice.getAction());
+                        choiceConditions[i] = graph.symbols.flagCondition(choice.getRequiredFlag());
+                    }
+                }
+                List<InteractiveObjectInfo> objects = scene.getObjects();
+                if (objects != null) {
+                    objectConditions = new int[objects.size()];
+                    for (int i = 0; i < objects.size(); i++) {
+                        InteractiveObjectInfo object = objects.get(i);
+                        objectConditions[i] = object != null ? graph.symbols.itemCondition(object.getRequiredItem()) : StorySymbols.ALWAYS;
+                    }
+                }
+                action = graph.symbols.action(scene.getAction());
+                autoTransition = graph.getSceneNode(scene.getAutoTransitionTo());
+                outcome = graph.getOutcomeNode(scene.getOutcome());
+            }
+            resolved = true;
+        }
+
+        @Override
+        public String toString() {
+            return "SceneNode{" + index + ", '" + sceneId + "'}";
+        }
+    }
+
+    /**
+     * An outcome in the graph, with a direct reference to the scene it continues to (if any).
+     */
+    public static final class OutcomeNode {
+        private final int index;
+        private final String outcomeId;
+        private final OutcomeData data;
+        private SceneNode next;
+
+        private OutcomeNode(int index, String outcomeId, OutcomeData data) {
+            this.index = index;
+            this.outcomeId = outcomeId;
+            this.data = data;
+        }
+
+        public int getIndex() { return index; }
+        public String getOutcomeId() { return outcomeId; }
+        public OutcomeData getData() { return data; }
+        public SceneNode getNext() { return next; }
+
+        @Override
+        public String toString() {
+            return "OutcomeNode{" + index + ", '" + outcomeId + "'}";
+        }
+    }
+
+    private final SceneNode[] scenes;
+    private final OutcomeNode[] outcomes;
+    private final Map<String, SceneNode> scenesById;
+    private final Map<String, OutcomeNode> outcomesById;
+    private final LazySceneMap lazyScenes;
+    private final SceneNode startScene;
+    private final StorySymbols symbols = new StorySymbols();
+    private final long fingerprint;
+
+    private SceneGraph(GameStory story) {
+        Map<String, SceneData> sceneMap = story.getScenes() != null ? story.getScenes() : new HashMap<>();
+        Map<String, OutcomeData> outcomeMap = story.getOutcomes() != null ? story.getOutcomes() : new HashMap<>();
+        this.lazyScenes = (sceneMap instanceof LazySceneMap) ? (LazySceneMap) sceneMap : null;
+
+        // LazySceneMap iterates its keys in index order, so node IDs line up with its scene indexes
+        scenes = new SceneNode[sceneMap.size()];
+        scenesById = new HashMap<>(sceneMap.size() * 2);
+        int i = 0;
+        for (String sceneId : sceneMap.keySet()) {
+            SceneData data = (lazyScenes == null) ? sceneMap.get(sceneId) : null;
+            scenes[i] = new SceneNode(this, i, sceneId, data);
+            scenesById.put(sceneId, scenes[i]);
+            i++;
+        }
+
+        outcomes = new OutcomeNode[outcomeMap.size()];
+        outcomesById = new HashMap<>(outcomeMap.size() * 2);
+        i = 0;
+        for (Map.Entry<String, OutcomeData> entry : outcomeMap.entrySet()) {
+            outcomes[i] = new OutcomeNode(i, entry.getKey(), entry.getValue());
+            outcomesById.put(entry.getKey(), outcomes[i]);
+            i++;
+        }
+        for (OutcomeNode outcome : outcomes) {
+            if (outcome.data != null) outcome.next = getSceneNode(outcome.data.getNextSceneId());
+        }
+
+        startScene = getSceneNode(story.getStartScene());
+        fingerprint = computeFingerprint();
+        if (lazyScenes == null) {
+            for (SceneNode node : scenes) node.resolve();
+        }
+    }
+
+    /**
+     * Builds the graph for a loaded story.
+     */
+    public static SceneGraph build(GameStory story) {
+        if (story == null) {
+            throw new IllegalArgumentException("Cannot build a scene graph for a null story.");
+        }
+        return new SceneGraph(story);
+    }
+
+    public SceneNode getStartScene() { return startScene; }
+
+    /**
+     * 64-bit FNV-1a hash of the scene and outcome IDs in index order. Saves record it, since
+     * they refer to scenes and outcomes by index.
+     */
+    public long getFingerprint() { return fingerprint; }
+
+    private long computeFingerprint() {
+        long hash = 0xcbf29ce484222325L;
+        for (SceneNode node : scenes) hash = fnv(hash, node.sceneId);
+        hash = fnv(hash, "#outcomes");
+        for (OutcomeNode node : outcomes) hash = fnv(hash, node.outcomeId);
+        return hash;
+    }
+
+    private static long fnv(long hash, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        return (hash ^ 0xff) * 0x100000001b3L; // Separator, so "ab","c" differs from "a","bc"
+    }
+
+    /** Flag and item IDs and compiled actions of this story. */
+    public StorySymbols getSymbols() { return symbols; }
+
+    public int getSceneCount() { return scenes.length; }
+    public int getOutcomeCount() { return outcomes.length; }
+
+    public SceneNode getSceneNode(int index) { return scenes[index]; }
+    public OutcomeNode getOutcomeNode(int index) { return outcomes[index]; }
+
+    /** Node for a scene ID, or null if the story has no such scene. */
+    public SceneNode getSceneNode(String sceneId) {
+        return sceneId != null ? scenesById.get(sceneId) : null;
+    }
+
+    /**
+     * Replaces the data of an existing scene in place, e.g. after its JSON was edited. Node
+     * indexes and the fingerprint stay the same, so this only works for fully mapped stories
+     * and scenes that already exist; anything else needs a new graph.
+     * @return false if the scene is not in the graph or the story is lazily loaded.
+     */
+    boolean replaceScene(String sceneId, SceneData scene) {
+        SceneNode node = getSceneNode(sceneId);
+        if (node == null || lazyScenes != null || scene == null) return false;
+        node.replaceData(scene);
+        return true;
+    }
+
+    /** Node for an outcome ID, or null if the story has no such outcome. */
+    public OutcomeNode getOutcomeNode(String outcomeId) {
+        return outcomeId != null ? outcomesById.get(outcomeId) : null;
+    }
+}
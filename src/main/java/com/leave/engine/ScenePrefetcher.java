@@ -0,0 +1,172 @@
+package com.leave.engine;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.leave.engine.utils.AssetIO;
+import com.leave.engine.utils.AudioManager;
+import com.leave.engine.utils.ImageCache;
+import com.leave.engine.utils.SpriteAtlas;
+
+/**
+ * Look-ahead loader for the scenes the player can reach next.
+ * Given the scene on screen, it follows choices[].nextSceneId, autoTransitionTo and the
+ * nextSceneId of any outcome, then decodes those scenes' images into the {@link ImageCache}
+ * and prepares their BGM on {@link AssetIO} threads, every asset loading in parallel. When the player moves on,
+ * displayCurrentScene() finds everything already decoded and only swaps it in.
+ *
+ * Each call to {@link #prefetchFrom(SceneData)} starts a new generation; queued work from an
+ * older generation is skipped so fast clicking never piles up stale loads.
+ */
+public class ScenePrefetcher {
+
+    private static ScenePrefetcher instance;
+
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicBoolean shutDown = new AtomicBoolean(false);
+
+    private ScenePrefetcher() {}
+
+    public static synchronized ScenePrefetcher getInstance() {
+        if (instance == null) {
+            instance = new ScenePrefetcher();
+        }
+        return instance;
+    }
+
+    /**
+     * Queues background loading of every scene reachable in one step from the given scene.
+     * @param currentScene The scene now being displayed.
+     */
+    public void prefetchFrom(SceneData currentScene) {
+        if (currentScene == null || shutDown.get()) return;
+        GameManager gm = GameManager.getInstance();
+        final long myGeneration = generation.incrementAndGet();
+
+        for (String nextSceneId : collectNextSceneIds(currentScene, gm)) {
+            SceneData next = gm.getSceneDataById(nextSceneId);
+            if (next == null) continue;
+
+            for (String imagePath : collectImagePaths(next, gm)) {
+                if (isSceneImageCached(next, imagePath)) continue;
+                AssetIO.getInstance().run(() -> {
+                    if (generation.get() != myGeneration) return; // Player already moved on
+                    loadSceneImage(next, imagePath);
+                });
+            }
+
+            // Animated sprites also get their frame atlas built (and sliced) here, off the FX thread
+            SpriteInfo bg = next.getBackgroundSprite();
+            if (bg != null) submitAtlas(myGeneration, bg.getPath(), bg.getFrameWidth(), bg.getFrameHeight(), bg.getNumCols(), bg.getTotalFrames());
+            CharacterSpriteInfo ch = next.getCharacterSprite();
+            if (ch != null) submitAtlas(myGeneration, ch.getPath(), ch.getFrameWidth(), ch.getFrameHeight(), ch.getNumCols(), ch.getTotalFrames());
+
+            String bgmPath = next.getBackgroundMusic();
+            if (bgmPath != null && !bgmPath.trim().isEmpty()) {
+                AssetIO.getInstance().run(() -> {
+                    if (generation.get() != myGeneration) return;
+                    AudioManager.getInstance().prepareBackgroundMusic(bgmPath);
+                });
+            }
+        }
+    }
+
+    private void submitAtlas(long myGeneration, String path, int frameWidth, int frameHeight, int numCols, int totalFrames) {
+        if (path == null || path.trim().isEmpty() || frameWidth <= 0 || frameHeight <= 0 || numCols <= 0 || totalFrames <= 0) return;
+        AssetIO.getInstance().run(() -> {
+            if (generation.get() != myGeneration) return;
+            try {
+                SpriteAtlas.get(path, frameWidth, frameHeight, numCols, totalFrames);
+            } catch (IllegalArgumentException e) {
+                System.err.println("ScenePrefetcher: Could not build sprite atlas for " + path + ": " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Scene IDs the player can reach directly from the given scene, in story order.
+     */
+    static Set<String> collectNextSceneIds(SceneData scene, GameManager gm) {
+        Set<String> ids = new LinkedHashSet<>();
+        if (scene == null) return ids;
+
+        if (scene.getChoices() != null) {
+            for (ChoiceData choice : scene.getChoices()) {
+                if (choice == null) continue;
+                addIfPresent(ids, choice.getNextSceneId());
+                addOutcomeTarget(ids, choice.getOutcome(), gm);
+            }
+        }
+        addIfPresent(ids, scene.getAutoTransitionTo());
+        addOutcomeTarget(ids, scene.getOutcome(), gm);
+        return ids;
+    }
+
+    /**
+     * Every image path displayCurrentScene()/showNextDialogueLine() will load for the given scene.
+     */
+    static Set<String> collectImagePaths(SceneData scene, GameManager gm) {
+        Set<String> paths = new LinkedHashSet<>();
+        if (scene.getBackgroundSprite() != null) addIfPresent(paths, scene.getBackgroundSprite().getPath());
+        addIfPresent(paths, scene.getBackgroundImage());
+        if (scene.getCharacterSprite() != null) addIfPresent(paths, scene.getCharacterSprite().getPath());
+
+        List<DialogueEntry> dialogue = scene.getDialogue();
+        if (dialogue != null) {
+            String placeholder = gm.getPlayerNamePlaceholderFromStory();
+            for (DialogueEntry entry : dialogue) {
+                if (entry == null) continue;
+                if (placeholder != null && placeholder.equals(entry.getSpeaker())) {
+                    addIfPresent(paths, gm.getCurrentPlayerPortraitPath()); // Player portrait is chosen at runtime
+                } else {
+                    addIfPresent(paths, entry.getPortraitPath());
+                }
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * Decodes one of {@link #collectImagePaths}' images the way the gameplay screen will ask
+     * for it: the scene's static background sized for the display, everything else as is.
+     */
+    static void loadSceneImage(SceneData scene, String imagePath) {
+        if (isDisplayImage(scene, imagePath)) ImageCache.getInstance().getImageForDisplay(imagePath);
+        else ImageCache.getInstance().getImage(imagePath);
+    }
+
+    /** {@link #loadSceneImage} on an {@link AssetIO} thread. */
+    static CompletableFuture<?> loadSceneImageAsync(SceneData scene, String imagePath) {
+        return isDisplayImage(scene, imagePath) ? ImageCache.getInstance().getImageForDisplayAsync(imagePath)
+                                                : ImageCache.getInstance().getImageAsync(imagePath);
+    }
+
+    static boolean isSceneImageCached(SceneData scene, String imagePath) {
+        return isDisplayImage(scene, imagePath) ? ImageCache.getInstance().containsForDisplay(imagePath)
+                                                : ImageCache.getInstance().contains(imagePath);
+    }
+
+    // GamePlayController.setBackground loads the backgroundImage field full screen
+    private static boolean isDisplayImage(SceneData scene, String imagePath) {
+        return imagePath.equals(scene.getBackgroundImage());
+    }
+
+    private static void addOutcomeTarget(Set<String> ids, String outcomeId, GameManager gm) {
+        if (outcomeId == null || outcomeId.trim().isEmpty()) return;
+        OutcomeData outcome = gm.getOutcomeDataById(outcomeId);
+        if (outcome != null) addIfPresent(ids, outcome.getNextSceneId());
+    }
+
+    private static void addIfPresent(Set<String> set, String value) {
+        if (value != null && !value.trim().isEmpty()) set.add(value);
+    }
+
+    public void shutdown() {
+        shutDown.set(true);
+        generation.incrementAndGet(); // Invalidate anything still queued
+    }
+}
@@ -0,0 +1,177 @@
+package com.leave.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.leave.engine.utils.AssetIO;
+import com.leave.engine.utils.SpriteAtlas;
+
+import javafx.application.Platform;
+
+/**
+ * Moves the gameplay screen from one scene to the next in four timed stages:
+ *
+ *   resolve - (FX thread) snapshot the scene and work out every asset it needs
+ *   load    - ({@link AssetIO} threads) decode images and build sprite atlases
+ *   commit  - (FX thread) tear down the old scene and bind the new assets to the UI
+ *   start   - (FX thread) start sprite animations, music and dialogue
+ *
+ * Only the newest transition may reach commit. Beginning another transition, or calling
+ * {@link #cancelInFlight()}, cancels the one in flight: its remaining loads are skipped and
+ * its commit/start never run, so a slow stale load can't overwrite a newer scene. Every load
+ * gets its own AssetIO thread, so one stale decode still running doesn't hold up the new scene.
+ */
+public class SceneTransitionPipeline {
+
+    /** The UI side of a transition, implemented by the gameplay controller. */
+    public interface SceneView {
+        /** Replaces what is on screen with the given scene. Assets are already decoded. */
+        void commitScene(SceneData scene);
+
+        /** Starts animations and dialogue for a committed scene. */
+        void startScene(SceneData scene);
+    }
+
+    /**
+     * A transition in progress. Cancelling one that already finished has no effect on the screen.
+     */
+    public final class Transition {
+        private final long generation;
+        private final String sceneId;
+        private final long beginNanos = System.nanoTime();
+        private long resolveMillis, loadMillis, commitMillis, startMillis;
+        private CompletableFuture<?> loaded = CompletableFuture.completedFuture(null);
+
+        private Transition(long generation, String sceneId) {
+            this.generation = generation;
+            this.sceneId = sceneId;
+        }
+
+        public boolean isCancelled() {
+            return currentGeneration.get() != generation;
+        }
+
+        public void cancel() {
+            currentGeneration.compareAndSet(generation, generation + 1);
+        }
+
+        public String getSceneId() { return sceneId; }
+
+        // Completes once the load stage is over and commit has been handed to the FX thread (or dropped)
+        CompletableFuture<?> whenLoaded() { return loaded; }
+
+        private String summary() {
+            return "SceneTransitionPipeline: '" + sceneId + "' resolve " + resolveMillis + " ms, load " + loadMillis +
+                   " ms, commit " + commitMillis + " ms, start " + startMillis + " ms, total " +
+                   (System.nanoTime() - beginNanos) / 1_000_000 + " ms";
+        }
+    }
+
+    private final SceneView view;
+    private final Executor fxThread;
+    private final AtomicLong currentGeneration = new AtomicLong();
+
+    public SceneTransitionPipeline(SceneView view) {
+        this(view, Platform::runLater);
+    }
+
+    // Tests run the FX-thread stages on an executor of their own
+    SceneTransitionPipeline(SceneView view, Executor fxThread) {
+        this.view = view;
+        this.fxThread = fxThread;
+    }
+
+    /**
+     * Starts a transition to the given scene, cancelling any transition still in flight.
+     * Must be called on the FX thread.
+     * @param scene   The scene to show (normally GameManager's current scene).
+     * @param sceneId Its ID, for logging.
+     */
+    public Transition begin(SceneData scene, String sceneId) {
+        Transition transition = new Transition(currentGeneration.incrementAndGet(), sceneId);
+
+        // Resolve: everything the scene will put on screen
+        long t0 = System.nanoTime();
+        GameManager gm = GameManager.getInstance();
+        List<Runnable> loads = new ArrayList<>();
+        for (String imagePath : ScenePrefetcher.collectImagePaths(scene, gm)) {
+            if (!ScenePrefetcher.isSceneImageCached(scene, imagePath)) {
+                loads.add(() -> ScenePrefetcher.loadSceneImage(scene, imagePath));
+            }
+        }
+        SpriteInfo bg = scene.getBackgroundSprite();
+        if (bg != null) addAtlasLoad(loads, bg.getPath(), bg.getFrameWidth(), bg.getFrameHeight(), bg.getNumCols(), bg.getTotalFrames(), bg.getFps());
+        CharacterSpriteInfo ch = scene.getCharacterSprite();
+        if (ch != null) addAtlasLoad(loads, ch.getPath(), ch.getFrameWidth(), ch.getFrameHeight(), ch.getNumCols(), ch.getTotalFrames(), ch.getFps());
+        // BGM is not waited for: it streams as soon as startScene asks for it
+        transition.resolveMillis = (System.nanoTime() - t0) / 1_000_000;
+
+        if (loads.isEmpty()) {
+            finish(transition, scene, 0); // Everything is cached; commit without a thread hop
+            return transition;
+        }
+
+        // Load: every asset on its own AssetIO thread, skipping work once the transition is stale
+        long t1 = System.nanoTime();
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[loads.size()];
+        for (int i = 0; i < futures.length; i++) {
+            Runnable load = loads.get(i);
+            futures[i] = AssetIO.getInstance().run(() -> {
+                if (transition.isCancelled()) return;
+                try {
+                    load.run();
+                } catch (RuntimeException e) {
+                    // The commit stage reports missing assets through the normal UI paths
+                    System.err.println("SceneTransitionPipeline: Load failed for '" + sceneId + "': " + e.getMessage());
+                }
+            });
+        }
+        transition.loaded = CompletableFuture.allOf(futures).whenComplete((ignored, error) -> {
+            long loadMillis = (System.nanoTime() - t1) / 1_000_000;
+            if (transition.isCancelled()) {
+                System.out.println("SceneTransitionPipeline: Dropped stale transition to '" + sceneId + "' after " + loadMillis + " ms of loading.");
+                return;
+            }
+            fxThread.execute(() -> finish(transition, scene, loadMillis));
+        });
+        return transition;
+    }
+
+    private static void addAtlasLoad(List<Runnable> loads, String path, int frameWidth, int frameHeight,
+                                     int numCols, int totalFrames, double fps) {
+        if (path == null || path.trim().isEmpty() || frameWidth <= 0 || frameHeight <= 0 ||
+            numCols <= 0 || totalFrames <= 0 || fps <= 0) return;
+        loads.add(() -> {
+            try {
+                SpriteAtlas.get(path, frameWidth, frameHeight, numCols, totalFrames);
+            } catch (IllegalArgumentException e) {
+                System.err.println("SceneTransitionPipeline: Could not build sprite atlas for " + path + ": " + e.getMessage());
+            }
+        });
+    }
+
+    // Commit and start, on the FX thread
+    private void finish(Transition transition, SceneData scene, long loadMillis) {
+        if (transition.isCancelled()) return; // A newer scene was requested while this one waited
+        transition.loadMillis = loadMillis;
+
+        long t2 = System.nanoTime();
+        view.commitScene(scene);
+        transition.commitMillis = (System.nanoTime() - t2) / 1_000_000;
+
+        if (transition.isCancelled()) return; // commitScene itself moved on (e.g. an empty scene)
+        long t3 = System.nanoTime();
+        view.startScene(scene);
+        transition.startMillis = (System.nanoTime() - t3) / 1_000_000;
+
+        System.out.println(transition.summary());
+    }
+
+    /** Cancels whatever transition is in flight. */
+    public void cancelInFlight() {
+        currentGeneration.incrementAndGet();
+    }
+}
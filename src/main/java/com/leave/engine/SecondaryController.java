@@ -10,7 +10,6 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.leave.engine.utils.AnimationUtils;
 
-import javafx.animation.Timeline; 
 import javafx.event.ActionEvent;  
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
@@ -122,8 +121,7 @@ public class SecondaryController {
 
     @FXML
     private void handleNextDialogue(ActionEvent event) {
-        Object timelineObj = dialogueLabel.getProperties().get("activeTextAnimation");
-        if (timelineObj instanceof Timeline && ((Timeline) timelineObj).getStatus() == Timeline.Status.RUNNING) {
+        if (AnimationUtils.isTextAnimating(dialogueLabel)) {
             AnimationUtils.completeTextAnimation(dialogueLabel);
             if (nextDialogueButton != null) {
                  nextDialogueButton.setDisable(false);
@@ -134,8 +132,7 @@ public class SecondaryController {
     }
 
     private void handleDialogueClick(MouseEvent event) {
-        Object timelineObj = dialogueLabel.getProperties().get("activeTextAnimation");
-        if (timelineObj instanceof Timeline && ((Timeline) timelineObj).getStatus() == Timeline.Status.RUNNING) {
+        if (AnimationUtils.isTextAnimating(dialogueLabel)) {
             AnimationUtils.completeTextAnimation(dialogueLabel);
             if (nextDialogueButton != null) {
                  nextDialogueButton.setDisable(false);
@@ -0,0 +1,147 @@
+package com.leave.engine;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.leave.engine.utils.AssetIO;
+import com.leave.engine.utils.AudioManager;
+import com.leave.engine.utils.ContentPacks;
+import com.leave.engine.utils.ImageCache;
+
+import javafx.application.Platform;
+import javafx.scene.text.Font;
+
+/**
+ * Runs the startup work that used to block App.start() on {@link AssetIO} threads, so the
+ * stage can be shown with gameEntry.fxml straight away.
+ *
+ * Stages (the last one waits for the story, the rest run in parallel):
+ *   story  - load the story, build the scene graph and call startGame()
+ *   font   - load the horror font
+ *   audio  - load the text blip clip
+ *   images - decode the start scene's images into the {@link ImageCache}, all at once, and prepare its BGM
+ *
+ * Progress callbacks are delivered on the FX thread. Per-stage times are kept for the
+ * startup metrics printed by App.
+ */
+public class StartupPipeline {
+
+    /** Receives progress updates on the FX thread. */
+    public interface ProgressListener {
+        void onProgress(double fraction, String message);
+    }
+
+    private static final int STAGE_COUNT = 4;
+
+    private final String storyPath;
+    private final String fontPath;
+    private final String textBlipPath;
+    private final AtomicInteger completedStages = new AtomicInteger();
+    private final Map<String, Long> stageMillis = Collections.synchronizedMap(new LinkedHashMap<>());
+    private volatile Font loadedFont;
+    private long startNanos;
+
+    public StartupPipeline(String storyPath, String fontPath, String textBlipPath) {
+        this.storyPath = storyPath;
+        this.fontPath = fontPath;
+        this.textBlipPath = textBlipPath;
+    }
+
+    /**
+     * Starts every stage. The returned future completes once all stages are done, or
+     * exceptionally if the story could not be loaded; the other stages only log their failures.
+     */
+    public CompletableFuture<Void> start(ProgressListener listener) {
+        startNanos = System.nanoTime();
+
+        CompletableFuture<Void> story = stage("story", listener, this::loadStory);
+        CompletableFuture<Void> font = optional(stage("font", listener, this::loadFont), "font");
+        CompletableFuture<Void> audio = optional(stage("audio", listener, this::warmAudio), "audio");
+        CompletableFuture<Void> images = story.thenCompose(v ->
+                optional(stage("images", listener, this::decodeStartSceneImages), "images"));
+
+        return CompletableFuture.allOf(story, font, audio, images);
+    }
+
+    private CompletableFuture<Void> stage(String name, ProgressListener listener, AssetIO.IOAction task) {
+        return AssetIO.getInstance().run(() -> {
+            long begin = System.nanoTime();
+            try {
+                task.run();
+            } finally {
+                stageMillis.put(name, (System.nanoTime() - begin) / 1_000_000);
+                int done = completedStages.incrementAndGet();
+                if (listener != null) {
+                    Platform.runLater(() -> listener.onProgress((double) done / STAGE_COUNT, "Loaded " + name));
+                }
+            }
+        });
+    }
+
+    // The game can run without these stages (it just loads lazily later), so log and carry on
+    private static CompletableFuture<Void> optional(CompletableFuture<Void> stage, String name) {
+        return stage.exceptionally(error -> {
+            System.err.println("StartupPipeline: Stage '" + name + "' failed: " + error.getMessage());
+            return null;
+        });
+    }
+
+    private void loadStory() throws IOException {
+        GameManager gameManager = GameManager.getInstance();
+        gameManager.loadStory(storyPath);
+        gameManager.startGame();
+        System.out.println("StartupPipeline: Story '" + gameManager.getGameTitle() + "' ready.");
+    }
+
+    private void loadFont() {
+        URL fontUrl = ContentPacks.getInstance().getResource(fontPath);
+        if (fontUrl == null) {
+            System.err.println("StartupPipeline: WARNING - Font resource not found at " + fontPath);
+            return;
+        }
+        loadedFont = Font.loadFont(fontUrl.toExternalForm(), 20); // Load with a base size
+        if (loadedFont == null) {
+            System.err.println("StartupPipeline: WARNING - Font.loadFont returned null for " + fontPath);
+        }
+    }
+
+    private void warmAudio() {
+        AudioManager.getInstance().loadTextBlipSound(textBlipPath);
+    }
+
+    private void decodeStartSceneImages() {
+        GameManager gameManager = GameManager.getInstance();
+        SceneData startScene = gameManager.getCurrentSceneData();
+        if (startScene == null) return;
+        List<CompletableFuture<?>> decodes = new ArrayList<>();
+        for (String imagePath : ScenePrefetcher.collectImagePaths(startScene, gameManager)) {
+            decodes.add(ScenePrefetcher.loadSceneImageAsync(startScene, imagePath));
+        }
+        // The start scene's BGM is only known once the story is parsed, so it is prepared here (while the images decode)
+        AudioManager.getInstance().prepareBackgroundMusic(startScene.getBackgroundMusic());
+        // A failed image is logged by ImageCache and reported again when the scene shows it
+        CompletableFuture.allOf(decodes.toArray(new CompletableFuture<?>[0])).exceptionally(error -> null).join();
+    }
+
+    /** Font loaded by the font stage, or null if it failed or has not run yet. */
+    public Font getLoadedFont() { return loadedFont; }
+
+    /** Wall time of each finished stage in milliseconds, in completion order. */
+    public Map<String, Long> getStageMillis() {
+        synchronized (stageMillis) {
+            return new LinkedHashMap<>(stageMillis);
+        }
+    }
+
+    /** Milliseconds since {@link #start(ProgressListener)} was called. */
+    public long getElapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+}
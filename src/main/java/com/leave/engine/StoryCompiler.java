@@ -0,0 +1,320 @@
+package com.leave.engine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Build-time compiler that turns a story JSON file (e.g., sao.json) into the compact
+ * binary form read by {@link CompiledStory}.
+ *
+ * Layout (big-endian):
+ * <pre>
+ *   int magic, short version
+ *   int gameTitle(str), int startScene(ref), int playerNamePlaceholder(str)
+ *   int stringCount, int sceneCount, int outcomeCount
+ *   int[stringCount]   string offsets into the string pool
+ *   sceneCount  x (int id(str), int record offset into the scene data)
+ *   outcomeCount x (int id(str), int message(str), int nextSceneId(ref))
+ *   int poolLength, string pool ([int byteLength][UTF-8 bytes] per string)
+ *   scene data (one record per scene, see {@link #writeScene})
+ * </pre>
+ * Every string is interned once. A "ref" to a scene is its index in the scene table,
+ * -1 for null, or -(stringIndex + 2) for an ID that no scene defines (kept so the
+ * runtime still reports the broken link the same way the JSON path does).
+ *
+ * Usage: {@code StoryCompiler <story.json> <out.story>} or
+ * {@code StoryCompiler --bench <story.json> <story.story> [iterations]}.
+ */
+public class StoryCompiler {
+
+    static final int MAGIC = 0x4C565354; // "LVST"
+    static final short VERSION = 1;
+    static final int NULL_REF = -1;
+
+    private final Map<String, Integer> stringIndex = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+    private final Map<String, Integer> sceneIndex = new LinkedHashMap<>();
+
+    /**
+     * Compiles an already loaded story to the binary format.
+     * @param story The story to compile.
+     * @param out   Stream the compiled story is written to. Not closed.
+     */
+    public void compile(GameStory story, OutputStream out) throws IOException {
+        if (story == null || story.getScenes() == null) {
+            throw new IOException("Cannot compile story: story or scenes map is null.");
+        }
+        stringIndex.clear();
+        strings.clear();
+        sceneIndex.clear();
+        for (String sceneId : story.getScenes().keySet()) {
+            sceneIndex.put(sceneId, sceneIndex.size());
+        }
+
+        // Scene records first, since they decide which strings end up in the pool
+        ByteArrayOutputStream sceneBytes = new ByteArrayOutputStream();
+        DataOutputStream sceneOut = new DataOutputStream(sceneBytes);
+        int[] sceneOffsets = new int[sceneIndex.size()];
+        int[] sceneIds = new int[sceneIndex.size()];
+        for (Map.Entry<String, Integer> entry : sceneIndex.entrySet()) {
+            sceneIds[entry.getValue()] = intern(entry.getKey());
+            sceneOffsets[entry.getValue()] = sceneOut.size();
+            writeScene(sceneOut, story.getScenes().get(entry.getKey()));
+        }
+        sceneOut.flush();
+
+        Map<String, OutcomeData> outcomes = story.getOutcomes() != null ? story.getOutcomes() : new LinkedHashMap<>();
+        int[][] outcomeRows = new int[outcomes.size()][];
+        int row = 0;
+        for (Map.Entry<String, OutcomeData> entry : outcomes.entrySet()) {
+            OutcomeData outcome = entry.getValue();
+            outcomeRows[row++] = new int[] {
+                intern(entry.getKey()),
+                outcome != null ? intern(outcome.getMessage()) : NULL_REF,
+                outcome != null ? sceneRef(outcome.getNextSceneId()) : NULL_REF
+            };
+        }
+
+        int gameTitle = intern(story.getGameTitle());
+        int startScene = sceneRef(story.getStartScene());
+        int placeholder = intern(story.getPlayerNamePlaceholder());
+
+        ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+        DataOutputStream poolOut = new DataOutputStream(poolBytes);
+        int[] stringOffsets = new int[strings.size()];
+        for (int i = 0; i < strings.size(); i++) {
+            stringOffsets[i] = poolOut.size();
+            byte[] utf8 = strings.get(i).getBytes(StandardCharsets.UTF_8);
+            poolOut.writeInt(utf8.length);
+            poolOut.write(utf8);
+        }
+        poolOut.flush();
+
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeShort(VERSION);
+        data.writeInt(gameTitle);
+        data.writeInt(startScene);
+        data.writeInt(placeholder);
+        data.writeInt(strings.size());
+        data.writeInt(sceneIndex.size());
+        data.writeInt(outcomeRows.length);
+        for (int offset : stringOffsets) data.writeInt(offset);
+        for (int i = 0; i < sceneIds.length; i++) {
+            data.writeInt(sceneIds[i]);
+            data.writeInt(sceneOffsets[i]);
+        }
+        for (int[] outcome : outcomeRows) {
+            for (int value : outcome) data.writeInt(value);
+        }
+        data.writeInt(poolBytes.size());
+        poolBytes.writeTo(data);
+        sceneBytes.writeTo(data);
+        data.flush();
+    }
+
+    /*
+     * Scene record. Nullable objects are prefixed by a presence byte, nullable lists by
+     * their size (-1 for null), so CompiledStory hands back exactly what Jackson would have.
+     */
+    private void writeScene(DataOutputStream out, SceneData scene) throws IOException {
+        out.writeBoolean(scene != null);
+        if (scene == null) return;
+
+        out.writeInt(intern(scene.getId()));
+
+        List<DialogueEntry> dialogue = scene.getDialogue();
+        out.writeInt(dialogue != null ? dialogue.size() : -1);
+        if (dialogue != null) {
+            for (DialogueEntry entry : dialogue) {
+                out.writeBoolean(entry != null);
+                if (entry == null) continue;
+                out.writeInt(intern(entry.getSpeaker()));
+                out.writeInt(intern(entry.getLine()));
+                out.writeInt(intern(entry.getStyle()));
+                out.writeInt(intern(entry.getPortraitPath()));
+            }
+        }
+
+        out.writeInt(intern(scene.getBackgroundImage()));
+
+        SpriteInfo bg = scene.getBackgroundSprite();
+        out.writeBoolean(bg != null);
+        if (bg != null) {
+            out.writeInt(intern(bg.getPath()));
+            out.writeInt(bg.getFrameWidth());
+            out.writeInt(bg.getFrameHeight());
+            out.writeInt(bg.getNumCols());
+            out.writeInt(bg.getTotalFrames());
+            out.writeDouble(bg.getFps());
+            out.writeBoolean(bg.isLoop());
+        }
+
+        CharacterSpriteInfo ch = scene.getCharacterSprite();
+        out.writeBoolean(ch != null);
+        if (ch != null) {
+            out.writeInt(intern(ch.getId()));
+            out.writeInt(intern(ch.getPath()));
+            out.writeInt(ch.getFrameWidth());
+            out.writeInt(ch.getFrameHeight());
+            out.writeInt(ch.getNumCols());
+            out.writeInt(ch.getTotalFrames());
+            out.writeDouble(ch.getFps());
+            out.writeBoolean(ch.isLoop());
+            out.writeBoolean(ch.isVisibleInitially());
+            out.writeDouble(ch.getPositionX());
+            out.writeDouble(ch.getPositionY());
+        }
+
+        List<InteractiveObjectInfo> objects = scene.getObjects();
+        out.writeInt(objects != null ? objects.size() : -1);
+        if (objects != null) {
+            for (InteractiveObjectInfo obj : objects) {
+                out.writeBoolean(obj != null);
+                if (obj == null) continue;
+                out.writeInt(intern(obj.getId()));
+                out.writeInt(intern(obj.getName()));
+                out.writeInt(intern(obj.getImagePath()));
+                out.writeInt(obj.getX());
+                out.writeInt(obj.getY());
+                out.writeInt(intern(obj.getRequiredItem()));
+                out.writeInt(intern(obj.getActionOnInteract()));
+                out.writeInt(intern(obj.getYieldsItem()));
+                out.writeBoolean(obj.isConsumedOnInteract());
+            }
+        }
+
+        List<ChoiceData> choices = scene.getChoices();
+        out.writeInt(choices != null ? choices.size() : -1);
+        if (choices != null) {
+            for (ChoiceData choice : choices) {
+                out.writeBoolean(choice != null);
+                if (choice == null) continue;
+                out.writeInt(intern(choice.getText()));
+                out.writeInt(sceneRef(choice.getNextSceneId()));
+                out.writeInt(intern(choice.getOutcome()));
+                out.writeInt(intern(choice.getAction()));
+                out.writeInt(intern(choice.getRequiredFlag()));
+            }
+        }
+
+        out.writeInt(sceneRef(scene.getAutoTransitionTo()));
+        out.writeInt(intern(scene.getOutcome()));
+        out.writeInt(intern(scene.getBackgroundMusic()));
+        out.writeInt(intern(scene.getAction()));
+        out.writeInt(intern(scene.getEndingTitle()));
+        out.writeInt(sceneRef(scene.getNextSceneIdIfNameSet()));
+    }
+
+    private int intern(String value) {
+        if (value == null) return NULL_REF;
+        Integer index = stringIndex.get(value);
+        if (index == null) {
+            index = strings.size();
+            strings.add(value);
+            stringIndex.put(value, index);
+        }
+        return index;
+    }
+
+    private int sceneRef(String sceneId) {
+        if (sceneId == null) return NULL_REF;
+        Integer index = sceneIndex.get(sceneId);
+        if (index != null) return index;
+        System.err.println("StoryCompiler Warning: Reference to unknown scene '" + sceneId + "' kept as a string.");
+        return -(intern(sceneId) + 2);
+    }
+
+    /**
+     * Compiles a JSON story file to a binary story file, writing through a temp file so a
+     * failed compile never leaves a truncated story behind.
+     */
+    public static void compileFile(Path jsonPath, Path outPath) throws IOException {
+        GameStory story;
+        try (InputStream in = Files.newInputStream(jsonPath)) {
+            story = StoryLoader.MAPPER.readValue(in, GameStory.class);
+        }
+        if (outPath.getParent() != null) Files.createDirectories(outPath.getParent());
+        Path tmp = outPath.resolveSibling(outPath.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            new StoryCompiler().compile(story, out);
+        }
+        Files.move(tmp, outPath, StandardCopyOption.REPLACE_EXISTING);
+        System.out.println("StoryCompiler: Compiled " + jsonPath + " (" + Files.size(jsonPath) + " bytes) -> " +
+                           outPath + " (" + Files.size(outPath) + " bytes), " + story.getScenes().size() + " scenes.");
+    }
+
+    /**
+     * Times the JSON path against the compiled path: full load, then touching every scene
+     * (the worst case for the lazy loader, since it has to materialize them all).
+     */
+    static void benchmark(Path jsonPath, Path storyPath, int iterations) throws IOException {
+        StoryLoader loader = new StoryLoader();
+        long jsonLoadNs = 0, jsonTouchNs = 0, binLoadNs = 0, binTouchNs = 0, binFirstSceneNs = 0;
+        int warmup = Math.max(1, iterations / 5);
+
+        for (int i = -warmup; i < iterations; i++) {
+            long t0 = System.nanoTime();
+            GameStory json = loader.loadJsonStory(Files.newInputStream(jsonPath), jsonPath.toString());
+            long t1 = System.nanoTime();
+            touchAllScenes(json);
+            long t2 = System.nanoTime();
+            GameStory bin = loader.loadCompiledStory(storyPath);
+            long t3 = System.nanoTime();
+            bin.getScenes().get(bin.getStartScene());
+            long t4 = System.nanoTime();
+            touchAllScenes(bin);
+            long t5 = System.nanoTime();
+            if (i < 0) continue; // warmup
+            jsonLoadNs += t1 - t0;
+            jsonTouchNs += t2 - t1;
+            binLoadNs += t3 - t2;
+            binFirstSceneNs += t4 - t3;
+            binTouchNs += t5 - t3;
+        }
+        System.out.println("StoryCompiler benchmark (" + iterations + " iterations, avg microseconds):");
+        System.out.printf("  JSON     load %8.1f | load + all scenes %8.1f%n",
+                          jsonLoadNs / 1e3 / iterations, (jsonLoadNs + jsonTouchNs) / 1e3 / iterations);
+        System.out.printf("  compiled load %8.1f | load + start scene %8.1f | load + all scenes %8.1f%n",
+                          binLoadNs / 1e3 / iterations, (binLoadNs + binFirstSceneNs) / 1e3 / iterations,
+                          (binLoadNs + binTouchNs) / 1e3 / iterations);
+        System.out.println("  sizes: JSON " + Files.size(jsonPath) + " bytes, compiled " + Files.size(storyPath) + " bytes");
+    }
+
+    private static int touchAllScenes(GameStory story) {
+        int lines = 0;
+        for (String id : story.getScenes().keySet()) {
+            SceneData scene = story.getScenes().get(id);
+            if (scene != null && scene.getDialogue() != null) lines += scene.getDialogue().size();
+        }
+        return lines;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length >= 3 && "--bench".equals(args[0])) {
+            int iterations = args.length > 3 ? Integer.parseInt(args[3]) : 200;
+            benchmark(Paths.get(args[1]), Paths.get(args[2]), iterations);
+            return;
+        }
+        if (args.length != 2) {
+            System.err.println("Usage: StoryCompiler <story.json> <out.story>");
+            System.err.println("       StoryCompiler --bench <story.json> <story.story> [iterations]");
+            System.exit(2);
+        }
+        compileFile(Paths.get(args[0]), Paths.get(args[1]));
+    }
+}
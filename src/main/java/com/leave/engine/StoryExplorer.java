@@ -0,0 +1,589 @@
+package com.leave.engine;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Walks every route through a story from its start scene, headless, following choices,
+ * autoTransitionTo links and outcomes with the real {@link GameManager} transition logic.
+ * Meant for coverage reports (which scenes and endings can be reached at all) and soak tests.
+ *
+ * A position is a scene or an outcome together with the flags and items held there. Each
+ * distinct position is expanded once, however many routes lead to it, so a story with
+ * millions of routes only costs as much as its distinct positions. Expansion runs on a
+ * fork/join pool with one headless GameManager per thread, all sharing one {@link SceneGraph}.
+ *
+ * Routes are then counted over the graph of positions. A route ends at an outcome with no
+ * nextSceneId, at a scene with no way on, at a scene whose choices are all locked, or at a
+ * broken link. Positions that can return to themselves form loops; a route through a loop is
+ * counted once for every way out of it, and a loop with no way out ends the routes entering it.
+ * Counts saturate at {@link Long#MAX_VALUE}.
+ *
+ * Usage: {@code StoryExplorer <story> [threads] [maxStates]} prints the report.
+ */
+public final class StoryExplorer {
+
+    public static final int DEFAULT_MAX_STATES = 1_000_000;
+
+    // Why a position has no successors
+    private static final byte OPEN = 0;
+    private static final byte ENDING = 1;     // Outcome without a next scene
+    private static final byte DEAD_END = 2;   // Scene without choices, auto-transition or outcome
+    private static final byte LOCKED = 3;     // Every choice needs a flag that is not set
+    private static final byte UNEXPLORED = 4; // Over the state limit
+
+    private static final State[] NO_STATES = new State[0];
+
+    /** A scene or outcome with the flags and items held there. Immutable once interned, apart from its expansion. */
+    private static final class State {
+        final int scene;      // Scene index; at an outcome, the scene entered to reach it or -1 if a choice ended the game
+        final int outcome;    // Outcome index, -1 in a scene
+        final StoryState flags;
+        final int hash;
+
+        // Written by the one thread that interns or expands the state, read once the pool is idle
+        int id = -1;
+        State[] next = NO_STATES;
+        byte end = OPEN;
+        int brokenExits;      // Choices or links pointing at a scene or outcome that does not exist
+
+        State(int scene, int outcome, StoryState flags) {
+            this.scene = scene;
+            this.outcome = outcome;
+            this.flags = flags;
+            this.hash = (scene * 31 + outcome) * 31 + flags.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof State)) return false;
+            State other = (State) o;
+            return hash == other.hash && scene == other.scene && outcome == other.outcome && flags.equals(other.flags);
+        }
+
+        @Override
+        public int hashCode() { return hash; }
+    }
+
+    /** What an exploration found. Route counts are per scene or outcome ID. */
+    public static final class Report {
+        private final int states;
+        private final boolean truncated;
+        private final long paths;
+        private final Map<String, Long> endings;
+        private final Map<String, Long> outcomeVisits;
+        private final Map<String, Long> deadEnds;
+        private final Map<String, Long> lockedScenes;
+        private final Map<String, Long> brokenLinks;
+        private final long trappedPaths;
+        private final long unexploredPaths;
+        private final Map<String, Long> sceneVisits;
+        private final List<String> longestRoute;
+        private final List<String> unreachedScenes;
+        private final List<String> unreachedOutcomes;
+        private final long elapsedMillis;
+
+        Report(int states, boolean truncated, long paths, Map<String, Long> endings, Map<String, Long> outcomeVisits,
+               Map<String, Long> deadEnds, Map<String, Long> lockedScenes, Map<String, Long> brokenLinks,
+               long trappedPaths, long unexploredPaths, Map<String, Long> sceneVisits, List<String> longestRoute,
+               List<String> unreachedScenes, List<String> unreachedOutcomes, long elapsedMillis) {
+            this.states = states;
+            this.truncated = truncated;
+            this.paths = paths;
+            this.endings = endings;
+            this.outcomeVisits = outcomeVisits;
+            this.deadEnds = deadEnds;
+            this.lockedScenes = lockedScenes;
+            this.brokenLinks = brokenLinks;
+            this.trappedPaths = trappedPaths;
+            this.unexploredPaths = unexploredPaths;
+            this.sceneVisits = sceneVisits;
+            this.longestRoute = longestRoute;
+            this.unreachedScenes = unreachedScenes;
+            this.unreachedOutcomes = unreachedOutcomes;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        /** Distinct (scene or outcome, flags and items) positions reached. */
+        public int getStates() { return states; }
+        /** Whether the state limit cut the exploration short; see {@link #getUnexploredPaths()}. */
+        public boolean isTruncated() { return truncated; }
+        /** Routes from the start scene to any kind of end. */
+        public long getPaths() { return paths; }
+        public boolean isPathCountSaturated() { return paths == Long.MAX_VALUE; }
+        /** Routes ending at each outcome without a nextSceneId. */
+        public Map<String, Long> getEndings() { return endings; }
+        /** Times each outcome is reached over all routes, including outcomes the story continues from. */
+        public Map<String, Long> getOutcomeVisits() { return outcomeVisits; }
+        /** Routes ending in each scene that has no choices, auto-transition or outcome. */
+        public Map<String, Long> getDeadEnds() { return deadEnds; }
+        /** Routes stuck in each scene because none of its choices is available. */
+        public Map<String, Long> getLockedScenes() { return lockedScenes; }
+        /** Routes ending at a broken link, by the scene (or outcome) the link is in. */
+        public Map<String, Long> getBrokenLinks() { return brokenLinks; }
+        /** Routes that enter a loop with no way out. */
+        public long getTrappedPaths() { return trappedPaths; }
+        /** Routes that reach a position past the state limit. */
+        public long getUnexploredPaths() { return unexploredPaths; }
+        /** Times each scene is entered over all routes; scenes never reached are absent. */
+        public Map<String, Long> getSceneVisits() { return sceneVisits; }
+        /** Scene and outcome IDs along the longest route; loops on it are listed once. */
+        public List<String> getLongestRoute() { return longestRoute; }
+        public List<String> getUnreachedScenes() { return unreachedScenes; }
+        public List<String> getUnreachedOutcomes() { return unreachedOutcomes; }
+        public long getElapsedMillis() { return elapsedMillis; }
+
+        @Override
+        public String toString() {
+            return "Report{states=" + states + (truncated ? " (truncated)" : "") +
+                   ", paths=" + (isPathCountSaturated() ? ">=" : "") + paths +
+                   ", endings=" + endings +
+                   ", deadEnds=" + deadEnds.size() + ", locked=" + lockedScenes.size() + ", broken=" + brokenLinks.size() +
+                   ", trapped=" + trappedPaths +
+                   ", longestRoute=" + longestRoute.size() +
+                   ", unreachedScenes=" + unreachedScenes.size() + ", unreachedOutcomes=" + unreachedOutcomes.size() +
+                   ", ms=" + elapsedMillis + '}';
+        }
+    }
+
+    private final GameStory story;
+    private final SceneGraph graph;
+    private final int parallelism;
+    private int maxStates = DEFAULT_MAX_STATES;
+
+    public StoryExplorer(GameStory story) {
+        this(story, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param story       The story to explore. Lazily loaded scenes are all mapped first, since
+     *                    every one of them will be visited anyway.
+     * @param parallelism Fork/join worker threads.
+     */
+    public StoryExplorer(GameStory story, int parallelism) {
+        if (story == null || story.getStartScene() == null) {
+            throw new IllegalArgumentException("StoryExplorer needs a loaded story with a start scene.");
+        }
+        if (parallelism <= 0) throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        this.story = fullyMapped(story);
+        this.graph = SceneGraph.build(this.story);
+        this.parallelism = parallelism;
+        if (graph.getStartScene() == null) {
+            throw new IllegalArgumentException("Start scene '" + story.getStartScene() + "' is not in the story.");
+        }
+    }
+
+    // A lazily parsed story can rebuild a SceneData behind a node, which breaks the identity
+    // lookups makeChoice relies on when several threads thrash the scene cache
+    private static GameStory fullyMapped(GameStory story) {
+        if (!(story.getScenes() instanceof LazySceneMap)) return story;
+        GameStory copy = new GameStory();
+        copy.setGameTitle(story.getGameTitle());
+        copy.setStartScene(story.getStartScene());
+        copy.setPlayerNamePlaceholder(story.getPlayerNamePlaceholder());
+        copy.setOutcomes(story.getOutcomes());
+        copy.setScenes(new LinkedHashMap<>(story.getScenes())); // Same order, so the same scene indexes
+        return copy;
+    }
+
+    /** Cap on distinct positions; positions past it are not expanded. */
+    public void setMaxStates(int maxStates) {
+        if (maxStates <= 0) {
+            System.err.println("StoryExplorer: Ignoring non-positive state limit: " + maxStates);
+            return;
+        }
+        this.maxStates = maxStates;
+    }
+
+    public int getMaxStates() { return maxStates; }
+
+    public SceneGraph getSceneGraph() { return graph; }
+
+    /** Explores the whole story and counts its routes. */
+    public Report explore() {
+        long begin = System.nanoTime();
+        Exploration exploration = new Exploration();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(exploration.new ExploreTask(null, exploration.root));
+        } finally {
+            pool.shutdown();
+        }
+        return exploration.count(begin);
+    }
+
+    /** One run: the interned positions and the per-thread GameManagers that expand them. */
+    private final class Exploration {
+        final ConcurrentHashMap<State, State> states = new ConcurrentHashMap<>();
+        final AtomicInteger ids = new AtomicInteger();
+        final ThreadLocal<GameManager> managers = ThreadLocal.withInitial(() -> GameManager.headless(story, graph));
+        final State root;
+        volatile boolean truncated;
+
+        Exploration() {
+            // Wherever startGame() leaves the player: the start scene after its action, or its outcome
+            GameManager gm = GameManager.headless(story, graph);
+            gm.startGame();
+            SceneGraph.OutcomeNode outcome = gm.isGameOver() ? gm.getCurrentOutcomeNode() : null;
+            root = new State(gm.getCurrentSceneNode().getIndex(), outcome != null ? outcome.getIndex() : -1, gm.getStoryState());
+            root.id = ids.getAndIncrement();
+            states.put(root, root);
+        }
+
+        /** Expands one position with a fork/join task per newly found successor; nothing waits on a join. */
+        final class ExploreTask extends CountedCompleter<Void> {
+            private static final long serialVersionUID = 1L;
+
+            private final State state;
+
+            ExploreTask(CountedCompleter<?> parent, State state) {
+                super(parent);
+                this.state = state;
+            }
+
+            @Override
+            public void compute() {
+                for (State fresh : expand(state)) {
+                    addToPendingCount(1);
+                    new ExploreTask(this, fresh).fork();
+                }
+                tryComplete();
+            }
+        }
+
+        // Works out the successors of a position; returns those nobody has seen before
+        private List<State> expand(State state) {
+            GameManager gm = managers.get();
+            List<State> next = new ArrayList<>();
+            List<State> fresh = new ArrayList<>();
+            if (state.outcome >= 0) {
+                SceneGraph.OutcomeNode outcome = graph.getOutcomeNode(state.outcome);
+                OutcomeData data = outcome.getData();
+                if (data == null || data.getNextSceneId() == null) {
+                    state.end = ENDING;
+                } else if (outcome.getNext() == null) {
+                    state.brokenExits++;
+                } else {
+                    gm.setPosition(state.scene >= 0 ? graph.getSceneNode(state.scene) : null, outcome, new StoryState(state.flags));
+                    gm.followOutcomeTransition();
+                    follow(gm, state, true, next, fresh);
+                }
+            } else {
+                SceneGraph.SceneNode node = graph.getSceneNode(state.scene);
+                SceneData scene = node.getData();
+                List<ChoiceData> choices = scene != null ? scene.getChoices() : null;
+                if (choices != null && !choices.isEmpty()) {
+                    gm.setPosition(node, null, state.flags); // Only read by isChoiceAvailable
+                    List<ChoiceData> available = new ArrayList<>(choices.size());
+                    for (int i = 0; i < choices.size(); i++) {
+                        ChoiceData choice = choices.get(i);
+                        if (choice == null || !gm.isChoiceAvailable(choice)) continue;
+                        boolean linked = choice.getOutcome() != null ? node.getChoiceOutcome(i) != null
+                                                                     : node.getChoiceTarget(i) != null;
+                        if (linked) available.add(choice);
+                        else state.brokenExits++;
+                    }
+                    for (ChoiceData choice : available) {
+                        gm.setPosition(node, null, new StoryState(state.flags));
+                        gm.makeChoice(choice);
+                        follow(gm, state, choice.getOutcome() == null, next, fresh);
+                    }
+                    if (available.isEmpty() && state.brokenExits == 0) state.end = LOCKED;
+                } else if (scene != null && scene.getAutoTransitionTo() != null && !scene.getAutoTransitionTo().trim().isEmpty()) {
+                    if (node.getAutoTransition() == null) {
+                        state.brokenExits++;
+                    } else {
+                        gm.setPosition(node, null, new StoryState(state.flags));
+                        gm.followAutoTransition();
+                        follow(gm, state, true, next, fresh);
+                    }
+                } else {
+                    state.end = DEAD_END;
+                }
+            }
+            state.next = next.toArray(NO_STATES);
+            return fresh;
+        }
+
+        // Interns where the GameManager ended up after a move; the GameManager's state copy becomes the key.
+        // enteredScene is false when a choice's own outcome ended the game without entering a scene.
+        private void follow(GameManager gm, State from, boolean enteredScene, List<State> next, List<State> fresh) {
+            State reached;
+            if (gm.isGameOver()) {
+                SceneGraph.OutcomeNode outcome = gm.getCurrentOutcomeNode();
+                if (outcome == null) { // The scene entered names an outcome the story does not have
+                    from.brokenExits++;
+                    return;
+                }
+                int scene = enteredScene ? gm.getCurrentSceneNode().getIndex() : -1;
+                reached = new State(scene, outcome.getIndex(), gm.getStoryState());
+            } else {
+                reached = new State(gm.getCurrentSceneNode().getIndex(), -1, gm.getStoryState());
+            }
+            State known = states.putIfAbsent(reached, reached);
+            if (known != null) {
+                next.add(known);
+                return;
+            }
+            reached.id = ids.getAndIncrement();
+            next.add(reached);
+            if (reached.id >= maxStates) {
+                reached.end = UNEXPLORED;
+                truncated = true;
+            } else {
+                fresh.add(reached);
+            }
+        }
+
+        // Counts routes over the strongly connected components of the position graph
+        Report count(long begin) {
+            int n = ids.get();
+            State[] byId = new State[n];
+            for (State state : states.values()) byId[state.id] = state;
+            int[][] edges = new int[n][];
+            for (int i = 0; i < n; i++) {
+                State[] next = byId[i].next;
+                edges[i] = new int[next.length];
+                for (int j = 0; j < next.length; j++) edges[i][j] = next[j].id;
+            }
+
+            int[] component = new int[n];
+            int components = stronglyConnectedComponents(edges, component);
+            // Members of each component, and whether it loops
+            int[] memberStart = new int[components + 1];
+            for (int c : component) memberStart[c + 1]++;
+            for (int c = 0; c < components; c++) memberStart[c + 1] += memberStart[c];
+            int[] members = new int[n];
+            int[] fill = Arrays.copyOf(memberStart, components);
+            for (int v = 0; v < n; v++) members[fill[component[v]]++] = v;
+            boolean[] cyclic = new boolean[components];
+            for (int v = 0; v < n; v++) {
+                for (int w : edges[v]) {
+                    if (component[w] == component[v]) cyclic[component[v]] = true;
+                }
+            }
+
+            // Components come out of Tarjan's algorithm with every edge pointing to a lower number
+            long[] pathsOut = new long[components];
+            int[] longest = new int[components];
+            int[] bestExit = new int[components];
+            boolean[] trapped = new boolean[components];
+            for (int c = 0; c < components; c++) {
+                long out = 0;
+                int best = 0;
+                bestExit[c] = -1;
+                for (int m = memberStart[c]; m < memberStart[c + 1]; m++) {
+                    State state = byId[members[m]];
+                    if (state.end != OPEN) out = add(out, 1);
+                    out = add(out, state.brokenExits);
+                    for (int w : edges[state.id]) {
+                        int target = component[w];
+                        if (target == c) continue;
+                        out = add(out, pathsOut[target]);
+                        if (bestExit[c] < 0 || longest[target] > best) {
+                            best = longest[target];
+                            bestExit[c] = w;
+                        }
+                    }
+                }
+                if (out == 0) { // A loop with no way out
+                    trapped[c] = true;
+                    out = 1;
+                }
+                pathsOut[c] = out;
+                int size = memberStart[c + 1] - memberStart[c];
+                longest[c] = (cyclic[c] ? size : 1) + (bestExit[c] >= 0 ? best : 0);
+            }
+
+            long[] pathsIn = new long[components];
+            int start = component[root.id];
+            pathsIn[start] = 1;
+            for (int c = start; c >= 0; c--) {
+                if (pathsIn[c] == 0) continue;
+                for (int m = memberStart[c]; m < memberStart[c + 1]; m++) {
+                    for (int w : edges[members[m]]) {
+                        if (component[w] != c) pathsIn[component[w]] = add(pathsIn[component[w]], pathsIn[c]);
+                    }
+                }
+            }
+
+            Map<String, Long> endings = new TreeMap<>();
+            Map<String, Long> outcomeVisits = new TreeMap<>();
+            Map<String, Long> deadEnds = new TreeMap<>();
+            Map<String, Long> locked = new TreeMap<>();
+            Map<String, Long> broken = new TreeMap<>();
+            long[] sceneVisitCounts = new long[graph.getSceneCount()];
+            boolean[] sceneReached = new boolean[graph.getSceneCount()];
+            boolean[] outcomeReached = new boolean[graph.getOutcomeCount()];
+            long trappedPaths = 0;
+            long unexploredPaths = 0;
+            for (int c = 0; c < components; c++) {
+                if (trapped[c]) trappedPaths = add(trappedPaths, pathsIn[c]);
+            }
+            for (State state : byId) {
+                int c = component[state.id];
+                long in = pathsIn[c];
+                long through = multiply(in, pathsOut[c]);
+                String name = name(state);
+                if (state.scene >= 0) {
+                    sceneReached[state.scene] = true;
+                    sceneVisitCounts[state.scene] = add(sceneVisitCounts[state.scene], through);
+                }
+                if (state.outcome >= 0) {
+                    outcomeReached[state.outcome] = true;
+                    outcomeVisits.merge(name, through, StoryExplorer::add);
+                }
+                if (state.brokenExits > 0) broken.merge(name, multiply(in, state.brokenExits), StoryExplorer::add);
+                switch (state.end) {
+                    case ENDING: endings.merge(name, in, StoryExplorer::add); break;
+                    case DEAD_END: deadEnds.merge(name, in, StoryExplorer::add); break;
+                    case LOCKED: locked.merge(name, in, StoryExplorer::add); break;
+                    case UNEXPLORED: unexploredPaths = add(unexploredPaths, in); break;
+                    default: break;
+                }
+            }
+
+            Map<String, Long> sceneVisits = new TreeMap<>();
+            List<String> unreachedScenes = new ArrayList<>();
+            for (int s = 0; s < sceneReached.length; s++) {
+                String id = graph.getSceneNode(s).getSceneId();
+                if (sceneReached[s]) sceneVisits.put(id, sceneVisitCounts[s]);
+                else unreachedScenes.add(id);
+            }
+            List<String> unreachedOutcomes = new ArrayList<>();
+            for (int o = 0; o < outcomeReached.length; o++) {
+                if (!outcomeReached[o]) unreachedOutcomes.add(graph.getOutcomeNode(o).getOutcomeId());
+            }
+            Collections.sort(unreachedScenes);
+            Collections.sort(unreachedOutcomes);
+
+            List<String> route = new ArrayList<>();
+            for (int v = root.id; v >= 0; v = bestExit[component[v]]) {
+                State state = byId[v];
+                if (state.outcome >= 0 && state.scene >= 0) route.add(graph.getSceneNode(state.scene).getSceneId());
+                route.add(name(state));
+            }
+
+            return new Report(n, truncated, pathsOut[start], endings, outcomeVisits, deadEnds, locked, broken,
+                              trappedPaths, unexploredPaths, sceneVisits, route, unreachedScenes, unreachedOutcomes,
+                              (System.nanoTime() - begin) / 1_000_000);
+        }
+
+        private String name(State state) {
+            return state.outcome >= 0 ? graph.getOutcomeNode(state.outcome).getOutcomeId()
+                                      : graph.getSceneNode(state.scene).getSceneId();
+        }
+    }
+
+    /**
+     * Tarjan's algorithm without recursion, since routes can be far deeper than the stack.
+     * Components are numbered in the order they complete, so every edge between two components
+     * points from the higher number to the lower.
+     * @return The number of components.
+     */
+    static int stronglyConnectedComponents(int[][] edges, int[] component) {
+        int n = edges.length;
+        int[] index = new int[n];
+        int[] low = new int[n];
+        Arrays.fill(index, -1);
+        boolean[] onStack = new boolean[n];
+        int[] stack = new int[n];
+        int stackSize = 0;
+        int[] callStack = new int[n];
+        int[] edgePosition = new int[n];
+        int nextIndex = 0;
+        int components = 0;
+        for (int root = 0; root < n; root++) {
+            if (index[root] >= 0) continue;
+            int depth = 0;
+            callStack[depth] = root;
+            edgePosition[root] = 0;
+            index[root] = low[root] = nextIndex++;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+            while (depth >= 0) {
+                int v = callStack[depth];
+                if (edgePosition[v] < edges[v].length) {
+                    int w = edges[v][edgePosition[v]++];
+                    if (index[w] < 0) {
+                        index[w] = low[w] = nextIndex++;
+                        stack[stackSize++] = w;
+                        onStack[w] = true;
+                        edgePosition[w] = 0;
+                        callStack[++depth] = w;
+                    } else if (onStack[w]) {
+                        low[v] = Math.min(low[v], index[w]);
+                    }
+                    continue;
+                }
+                if (low[v] == index[v]) {
+                    int w;
+                    do {
+                        w = stack[--stackSize];
+                        onStack[w] = false;
+                        component[w] = components;
+                    } while (w != v);
+                    components++;
+                }
+                depth--;
+                if (depth >= 0) {
+                    int parent = callStack[depth];
+                    low[parent] = Math.min(low[parent], low[v]);
+                }
+            }
+        }
+        return components;
+    }
+
+    // Route counts are never negative; both saturate instead of overflowing
+    static long add(long a, long b) {
+        long sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    static long multiply(long a, long b) {
+        if (a == 0 || b == 0) return 0;
+        return a > Long.MAX_VALUE / b ? Long.MAX_VALUE : a * b;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: StoryExplorer <story> [threads] [maxStates]");
+            System.exit(2);
+        }
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream())); // Loader chatter
+        StoryExplorer explorer = new StoryExplorer(new StoryLoader().loadStory(args[0]), threads);
+        if (args.length > 2) explorer.setMaxStates(Integer.parseInt(args[2]));
+        Report report = explorer.explore();
+        System.setOut(console);
+        System.out.println("StoryExplorer: " + report);
+        System.out.println("StoryExplorer: Longest route (" + report.getLongestRoute().size() + "): " +
+                           String.join(" -> ", report.getLongestRoute()));
+        System.out.println("StoryExplorer: Endings: " + report.getEndings());
+        if (!report.getDeadEnds().isEmpty()) System.out.println("StoryExplorer: Dead ends: " + report.getDeadEnds());
+        if (!report.getLockedScenes().isEmpty()) System.out.println("StoryExplorer: Locked scenes: " + report.getLockedScenes());
+        if (!report.getBrokenLinks().isEmpty()) System.out.println("StoryExplorer: Broken links: " + report.getBrokenLinks());
+        if (!report.getUnreachedScenes().isEmpty()) System.out.println("StoryExplorer: Unreached scenes: " + report.getUnreachedScenes());
+        if (!report.getUnreachedOutcomes().isEmpty()) System.out.println("StoryExplorer: Unreached outcomes: " + report.getUnreachedOutcomes());
+        List<Map.Entry<String, Long>> visits = new ArrayList<>(report.getSceneVisits().entrySet());
+        visits.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+        System.out.println("StoryExplorer: Most visited scenes: " + visits.subList(0, Math.min(10, visits.size())));
+        System.out.printf("StoryExplorer: %d states, %s paths in %d ms on %d threads%n", report.getStates(),
+                          (report.isPathCountSaturated() ? ">=" : "") + report.getPaths(), report.getElapsedMillis(), threads);
+    }
+}
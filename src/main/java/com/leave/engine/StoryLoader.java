@@ -1,21 +1,161 @@
 package com.leave.engine;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.leave.engine.utils.ContentPacks;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 
 
 //A class that loads the story of the game
 public class StoryLoader {
 
+    // Extension of stories precompiled by StoryCompiler
+    public static final String COMPILED_STORY_EXTENSION = ".story";
+
+    // Jackson mappers are thread-safe and expensive to build, so the whole package shares one
+    static final ObjectMapper MAPPER = new ObjectMapper();
+
+    // JSON stories at least this large are indexed and parsed scene by scene instead of all at once
+    public static final int DEFAULT_STREAMING_THRESHOLD_BYTES = 512 * 1024;
+    public static final int DEFAULT_MAX_RESIDENT_SCENES = 256;
+
+    private int streamingThresholdBytes = DEFAULT_STREAMING_THRESHOLD_BYTES;
+    private int maxResidentScenes = DEFAULT_MAX_RESIDENT_SCENES;
+
     //A method that loads the story into a frame
+    // Paths ending in .story are read as a compiled story, anything else as JSON
     public GameStory loadStory(String resourcePath) throws IOException {
-        ObjectMapper mapper = new ObjectMapper();
-        InputStream inputStream = StoryLoader.class.getResourceAsStream(resourcePath);
+        if (resourcePath != null && resourcePath.endsWith(COMPILED_STORY_EXTENSION)) {
+            return loadCompiledStory(resourcePath);
+        }
+        InputStream inputStream = ContentPacks.getInstance().openStream(resourcePath);
         if (inputStream == null) {
             throw new IOException("Cannot find story resource: " + resourcePath);
         }
-        return mapper.readValue(inputStream, GameStory.class);
+        byte[] json;
+        try (InputStream in = inputStream) {
+            json = in.readAllBytes();
+        }
+        if (json.length >= streamingThresholdBytes) {
+            System.out.println("StoryLoader: " + resourcePath + " is " + (json.length / 1024) + " KB, loading scenes on demand.");
+            return loadStreamingStory(json, resourcePath);
+        }
+        try {
+            return MAPPER.readValue(json, GameStory.class);
+        } catch (IOException e) {
+            throw new IOException("Failed to parse story JSON: " + resourcePath, e);
+        }
+    }
+
+    /**
+     * Indexes a JSON story without mapping its scenes. Each scene is parsed on first lookup and
+     * at most {@link #getMaxResidentScenes()} parsed scenes are kept at a time.
+     */
+    public GameStory loadStreamingStory(byte[] json, String sourceName) throws IOException {
+        return new StreamingStory(MAPPER, json, sourceName).toGameStory(maxResidentScenes);
+    }
+
+    /**
+     * Reads a JSON story from a stream, closing it afterwards.
+     */
+    public GameStory loadJsonStory(InputStream inputStream, String sourceName) throws IOException {
+        try (InputStream in = inputStream) {
+            return MAPPER.readValue(in, GameStory.class);
+        } catch (IOException e) {
+            throw new IOException("Failed to parse story JSON: " + sourceName, e);
+        }
+    }
+
+    /**
+     * Parses story JSON into a tree without mapping it, e.g. to compare two versions of a
+     * story scene by scene and map only the scenes that differ.
+     */
+    public JsonNode readStoryTree(byte[] json, String sourceName) throws IOException {
+        try {
+            JsonNode tree = MAPPER.readTree(json);
+            if (tree == null || !tree.isObject()) throw new IOException("Story JSON is not an object: " + sourceName);
+            return tree;
+        } catch (IOException e) {
+            throw new IOException("Failed to parse story JSON: " + sourceName, e);
+        }
+    }
+
+    /** Maps a whole story tree from {@link #readStoryTree}. */
+    public GameStory storyFromTree(JsonNode tree) throws IOException {
+        return MAPPER.treeToValue(tree, GameStory.class);
+    }
+
+    /** Maps one scene of a story tree. */
+    public SceneData sceneFromTree(JsonNode scene) throws IOException {
+        return MAPPER.treeToValue(scene, SceneData.class);
+    }
+
+    /**
+     * Loads a compiled story from a content pack or the classpath. When the resource is a plain
+     * file (e.g., running from target/classes) it is memory-mapped; inside a jar or a pack it is
+     * read into memory once. Either way scenes are only decoded when first looked up.
+     */
+    public GameStory loadCompiledStory(String resourcePath) throws IOException {
+        Path packEntry = ContentPacks.getInstance().findInPacks(resourcePath);
+        if (packEntry != null) {
+            return new CompiledStory(ByteBuffer.wrap(Files.readAllBytes(packEntry))).toGameStory();
+        }
+        URL url = ContentPacks.getInstance().getResource(resourcePath);
+        if (url == null) {
+            throw new IOException("Cannot find compiled story resource: " + resourcePath);
+        }
+        if ("file".equals(url.getProtocol())) {
+            try {
+                return loadCompiledStory(Paths.get(url.toURI()));
+            } catch (URISyntaxException e) {
+                throw new IOException("Invalid compiled story location: " + url, e);
+            }
+        }
+        try (InputStream in = url.openStream()) {
+            return new CompiledStory(ByteBuffer.wrap(in.readAllBytes())).toGameStory();
+        }
+    }
+
+    /**
+     * Memory-maps a compiled story file. The mapping stays valid after the channel is closed.
+     */
+    public GameStory loadCompiledStory(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new CompiledStory(mapped).toGameStory();
+        }
     }
-}
\ No newline at end of file
+
+    /**
+     * JSON stories of at least this many bytes are loaded in streaming mode by {@link #loadStory(String)}.
+     * Use 0 to always stream, {@link Integer#MAX_VALUE} to never stream.
+     */
+    public void setStreamingThresholdBytes(int streamingThresholdBytes) {
+        this.streamingThresholdBytes = Math.max(0, streamingThresholdBytes);
+    }
+
+    public int getStreamingThresholdBytes() { return streamingThresholdBytes; }
+
+    /**
+     * Cap on parsed scenes kept in memory by a streaming story.
+     */
+    public void setMaxResidentScenes(int maxResidentScenes) {
+        if (maxResidentScenes <= 0) {
+            System.err.println("StoryLoader: Ignoring non-positive scene cap: " + maxResidentScenes);
+            return;
+        }
+        this.maxResidentScenes = maxResidentScenes;
+    }
+
+    public int getMaxResidentScenes() { return maxResidentScenes; }
+}
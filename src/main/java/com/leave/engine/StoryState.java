@@ -0,0 +1,184 @@
+package com.leave.engine;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Flags and inventory of one playthrough, indexed by the IDs of a {@link StorySymbols}.
+ * Flags are bits; items are counts, with a parallel bit per item that is set while the
+ * count is above zero, so both kinds of condition are one bit test.
+ *
+ * Not thread-safe; each playthrough (or explorer branch) uses its own state.
+ */
+public final class StoryState {
+
+    private final StorySymbols symbols;
+    private final BitSet flags = new BitSet();
+    private final BitSet heldItems = new BitSet();
+    private int[] itemCounts = new int[8];
+
+    public StoryState(StorySymbols symbols) {
+        if (symbols == null) throw new IllegalArgumentException("StoryState needs the story's symbols.");
+        this.symbols = symbols;
+    }
+
+    /** A copy with the same flags and items, sharing the symbols. */
+    public StoryState(StoryState other) {
+        this.symbols = other.symbols;
+        this.flags.or(other.flags);
+        this.heldItems.or(other.heldItems);
+        this.itemCounts = other.itemCounts.clone();
+    }
+
+    /**
+     * A copy keyed to another story's symbols, matching flags and items by name, e.g. after the
+     * story was reloaded with a new scene graph.
+     */
+    public StoryState(StoryState other, StorySymbols symbols) {
+        this(symbols);
+        for (int id = other.flags.nextSetBit(0); id >= 0; id = other.flags.nextSetBit(id + 1)) {
+            flags.set(symbols.flagId(other.symbols.getFlagName(id)));
+        }
+        for (int id = other.heldItems.nextSetBit(0); id >= 0; id = other.heldItems.nextSetBit(id + 1)) {
+            addItem(symbols.itemId(other.symbols.getItemName(id)), other.itemCounts[id]);
+        }
+    }
+
+    public StorySymbols getSymbols() { return symbols; }
+
+    /** Clears all flags and items, e.g. for a new game. */
+    public void reset() {
+        flags.clear();
+        heldItems.clear();
+        Arrays.fill(itemCounts, 0);
+    }
+
+    /** Tests a condition compiled by {@link StorySymbols#flagCondition} or {@link StorySymbols#itemCondition}. */
+    public boolean test(int condition) {
+        if (condition == StorySymbols.ALWAYS) return true;
+        BitSet bits = (condition & StorySymbols.CONDITION_ITEM) != 0 ? heldItems : flags;
+        return bits.get(condition >>> 2) != ((condition & StorySymbols.CONDITION_NEGATED) != 0);
+    }
+
+    /** Runs a compiled action. */
+    public void apply(StorySymbols.Action action) {
+        int[] code = action.code;
+        for (int i = 0; i < code.length; i += 2) {
+            int id = code[i + 1];
+            switch (code[i]) {
+                case StorySymbols.OP_SET_FLAG: flags.set(id); break;
+                case StorySymbols.OP_CLEAR_FLAG: flags.clear(id); break;
+                case StorySymbols.OP_ADD_ITEM: addItem(id, 1); break;
+                case StorySymbols.OP_REMOVE_ITEM: addItem(id, -1); break;
+                default: break;
+            }
+        }
+    }
+
+    public boolean isFlagSet(int flagId) { return flags.get(flagId); }
+    public boolean hasItem(int itemId) { return heldItems.get(itemId); }
+
+    public int getItemCount(int itemId) {
+        return itemId >= 0 && itemId < itemCounts.length ? itemCounts[itemId] : 0;
+    }
+
+    public void setFlag(int flagId, boolean value) {
+        flags.set(flagId, value);
+    }
+
+    /** Changes an item's count by {@code delta}; counts never go below zero. */
+    public void addItem(int itemId, int delta) {
+        if (itemId >= itemCounts.length) {
+            itemCounts = Arrays.copyOf(itemCounts, Math.max(itemId + 1, itemCounts.length * 2));
+        }
+        int count = Math.max(0, itemCounts[itemId] + delta);
+        itemCounts[itemId] = count;
+        heldItems.set(itemId, count > 0);
+    }
+
+    // Name-based access, for the UI and debugging
+
+    public boolean isFlagSet(String flag) {
+        int id = symbols.findFlag(flag);
+        return id >= 0 && flags.get(id);
+    }
+
+    public boolean hasItem(String itemId) {
+        int id = symbols.findItem(itemId);
+        return id >= 0 && heldItems.get(id);
+    }
+
+    public int getItemCount(String itemId) {
+        return getItemCount(symbols.findItem(itemId));
+    }
+
+    public void setFlag(String flag, boolean value) {
+        setFlag(symbols.flagId(flag), value);
+    }
+
+    public void addItem(String itemId, int delta) {
+        addItem(symbols.itemId(itemId), delta);
+    }
+
+    /**
+     * Hash of the set flags and held items by name. Unlike {@link #hashCode()} it does not depend
+     * on the order IDs were interned in, so it matches across sessions of a lazily loaded story.
+     */
+    public long contentHash() {
+        long hash = 0;
+        for (int id = flags.nextSetBit(0); id >= 0; id = flags.nextSetBit(id + 1)) {
+            hash += mix(symbols.getFlagName(id).hashCode());
+        }
+        for (int id = heldItems.nextSetBit(0); id >= 0; id = heldItems.nextSetBit(id + 1)) {
+            hash += mix(((long) symbols.getItemName(id).hashCode() << 32) ^ itemCounts[id] ^ 0x5bd1e995L);
+        }
+        return hash;
+    }
+
+    // SplitMix64 finalizer; summing mixed values keeps the hash independent of order
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /** Raw flag bits, indexed by flag ID. */
+    public BitSet getFlagBits() { return (BitSet) flags.clone(); }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof StoryState)) return false;
+        StoryState other = (StoryState) o;
+        if (symbols != other.symbols || !flags.equals(other.flags) || !heldItems.equals(other.heldItems)) return false;
+        int length = Math.max(itemCounts.length, other.itemCounts.length);
+        for (int i = 0; i < length; i++) {
+            if (getItemCount(i) != other.getItemCount(i)) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = flags.hashCode() * 31 + heldItems.hashCode();
+        for (int i = 0; i < itemCounts.length; i++) {
+            if (itemCounts[i] != 0) hash = hash * 31 + i * 17 + itemCounts[i];
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("StoryState{flags=[");
+        for (int id = flags.nextSetBit(0); id >= 0; id = flags.nextSetBit(id + 1)) {
+            if (sb.charAt(sb.length() - 1) != '[') sb.append(", ");
+            sb.append(symbols.getFlagName(id));
+        }
+        sb.append("], items=[");
+        for (int id = heldItems.nextSetBit(0); id >= 0; id = heldItems.nextSetBit(id + 1)) {
+            if (sb.charAt(sb.length() - 1) != '[') sb.append(", ");
+            sb.append(symbols.getItemName(id)).append('x').append(itemCounts[id]);
+        }
+        return sb.append("]}").toString();
+    }
+}
@@ -0,0 +1,168 @@
+package com.leave.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Flag and item names of a story interned to dense int IDs, plus the compiled form of its
+ * action strings and conditions. Built once per story (owned by its {@link SceneGraph});
+ * any number of {@link StoryState}s can share it.
+ *
+ * Names are trimmed and upper-cased, so {@code requiredItem: "shovel"} matches
+ * {@code ADD_ITEM_SHOVEL}. For lazily loaded stories new names are interned as scenes are
+ * resolved, so IDs can grow after the graph is built.
+ *
+ * Actions are written {@code ADD_ITEM_X}, {@code REMOVE_ITEM_X}, {@code SET_FLAG_X} or
+ * {@code CLEAR_FLAG_X}, several separated by commas or semicolons. A condition is a flag name
+ * (a choice's requiredFlag) or an item ID (an object's requiredItem), either optionally
+ * prefixed with {@code !} to require its absence. Compiled conditions are single ints, so
+ * checking one is a single bit test in {@link StoryState#test(int)}.
+ */
+public final class StorySymbols {
+
+    /** Condition that always holds (no requirement). */
+    public static final int ALWAYS = -1;
+
+    static final int CONDITION_ITEM = 1;    // Tests held items instead of flags
+    static final int CONDITION_NEGATED = 2; // Holds when the bit is clear
+
+    static final int OP_SET_FLAG = 0;
+    static final int OP_CLEAR_FLAG = 1;
+    static final int OP_ADD_ITEM = 2;
+    static final int OP_REMOVE_ITEM = 3;
+
+    private static final String[] OP_PREFIXES = { "SET_FLAG_", "CLEAR_FLAG_", "ADD_ITEM_", "REMOVE_ITEM_" };
+
+    /** An action string compiled to (opcode, symbol ID) pairs. */
+    public static final class Action {
+        static final Action NONE = new Action("", new int[0]);
+
+        final String source;
+        final int[] code; // op0, id0, op1, id1, ...
+
+        private Action(String source, int[] code) {
+            this.source = source;
+            this.code = code;
+        }
+
+        public String getSource() { return source; }
+        public boolean isEmpty() { return code.length == 0; }
+
+        @Override
+        public String toString() {
+            return "Action{'" + source + "', " + code.length / 2 + " ops}";
+        }
+    }
+
+    private final Map<String, Integer> flagIds = new HashMap<>();
+    private final List<String> flagNames = new ArrayList<>();
+    private final Map<String, Integer> itemIds = new HashMap<>();
+    private final List<String> itemNames = new ArrayList<>();
+    private final Map<String, Action> actions = new HashMap<>(); // By raw action string
+
+    private static String normalize(String name) {
+        return name.trim().toUpperCase(Locale.ROOT);
+    }
+
+    /** ID of a flag, interning it if new. */
+    public synchronized int flagId(String flag) {
+        return intern(normalize(flag), flagIds, flagNames);
+    }
+
+    /** ID of an item, interning it if new. */
+    public synchronized int itemId(String itemId) {
+        return intern(normalize(itemId), itemIds, itemNames);
+    }
+
+    private static int intern(String name, Map<String, Integer> ids, List<String> names) {
+        Integer id = ids.get(name);
+        if (id == null) {
+            id = names.size();
+            ids.put(name, id);
+            names.add(name);
+        }
+        return id;
+    }
+
+    /** ID of a flag, or -1 if no action or condition in the story mentions it. */
+    public synchronized int findFlag(String flag) {
+        Integer id = flag != null ? flagIds.get(normalize(flag)) : null;
+        return id != null ? id : -1;
+    }
+
+    /** ID of an item, or -1 if no action or condition in the story mentions it. */
+    public synchronized int findItem(String itemId) {
+        Integer id = itemId != null ? itemIds.get(normalize(itemId)) : null;
+        return id != null ? id : -1;
+    }
+
+    public synchronized int getFlagCount() { return flagNames.size(); }
+    public synchronized int getItemCount() { return itemNames.size(); }
+    public synchronized String getFlagName(int id) { return flagNames.get(id); }
+    public synchronized String getItemName(int id) { return itemNames.get(id); }
+
+    /** Compiles a choice's requiredFlag; {@link #ALWAYS} for null or blank. */
+    public int flagCondition(String requiredFlag) {
+        return condition(requiredFlag, false);
+    }
+
+    /** Compiles an object's requiredItem; {@link #ALWAYS} for null or blank. */
+    public int itemCondition(String requiredItem) {
+        return condition(requiredItem, true);
+    }
+
+    private int condition(String name, boolean item) {
+        if (name == null || name.trim().isEmpty()) return ALWAYS;
+        String trimmed = name.trim();
+        boolean negated = trimmed.startsWith("!");
+        if (negated) trimmed = trimmed.substring(1);
+        if (trimmed.trim().isEmpty()) return ALWAYS;
+        int id = item ? itemId(trimmed) : flagId(trimmed);
+        return (id << 2) | (item ? CONDITION_ITEM : 0) | (negated ? CONDITION_NEGATED : 0);
+    }
+
+    /**
+     * Compiles an action string, once per distinct string. Unknown parts are reported and
+     * skipped.
+     */
+    public synchronized Action action(String actionString) {
+        if (actionString == null || actionString.trim().isEmpty()) return Action.NONE;
+        Action action = actions.get(actionString);
+        if (action == null) {
+            action = compile(actionString);
+            actions.put(actionString, action);
+        }
+        return action;
+    }
+
+    private Action compile(String actionString) {
+        int[] code = new int[8];
+        int length = 0;
+        for (String part : actionString.split("[,;]")) {
+            String op = normalize(part);
+            if (op.isEmpty()) continue;
+            int opcode = -1;
+            for (int i = 0; i < OP_PREFIXES.length; i++) {
+                if (op.startsWith(OP_PREFIXES[i]) && op.length() > OP_PREFIXES[i].length()) {
+                    opcode = i;
+                    break;
+                }
+            }
+            if (opcode < 0) {
+                System.err.println("StorySymbols: Unknown action '" + part.trim() + "' in '" + actionString + "', ignoring it.");
+                continue;
+            }
+            String name = op.substring(OP_PREFIXES[opcode].length());
+            int id = (opcode == OP_SET_FLAG || opcode == OP_CLEAR_FLAG)
+                     ? intern(name, flagIds, flagNames) : intern(name, itemIds, itemNames);
+            if (length + 2 > code.length) code = Arrays.copyOf(code, code.length * 2);
+            code[length++] = opcode;
+            code[length++] = id;
+        }
+        return new Action(actionString, Arrays.copyOf(code, length));
+    }
+}
@@ -0,0 +1,470 @@
+package com.leave.engine;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Predicate;
+
+import com.leave.engine.utils.ContentPacks;
+
+/**
+ * Checks a {@link GameStory} for content problems before anyone plays it:
+ * <ul>
+ *   <li>dangling {@code nextSceneId}, {@code autoTransitionTo}, outcome and
+ *       {@code nextSceneIdIfNameSet} references (error),</li>
+ *   <li>groups of scenes that loop back into each other with no way out and no ending (error),</li>
+ *   <li>scenes that cannot be reached from {@code startScene} (warning),</li>
+ *   <li>image and audio paths that do not resolve to a resource (warning).</li>
+ * </ul>
+ * Per-scene checks and the reachability walk run on a fork/join pool. GameManager runs the
+ * validator after loading a story and logs the report; {@link #main(String[])} runs it as a
+ * Maven build step and fails the build on errors.
+ */
+public class StoryValidator {
+
+    public enum Severity { ERROR, WARNING }
+
+    public enum Category { DANGLING_REFERENCE, TRAP_CYCLE, UNREACHABLE_SCENE, MISSING_ASSET }
+
+    /** A single finding. {@code sceneId} is null for story-level issues. */
+    public static final class Issue {
+        private final Severity severity;
+        private final Category category;
+        private final String sceneId;
+        private final String message;
+
+        Issue(Severity severity, Category category, String sceneId, String message) {
+            this.severity = severity;
+            this.category = category;
+            this.sceneId = sceneId;
+            this.message = message;
+        }
+
+        public Severity getSeverity() { return severity; }
+        public Category getCategory() { return category; }
+        public String getSceneId() { return sceneId; }
+        public String getMessage() { return message; }
+
+        @Override
+        public String toString() {
+            return severity + " [" + category + "] " + (sceneId != null ? sceneId + ": " : "") + message;
+        }
+    }
+
+    /** Result of a validation run, issues sorted by severity, category and scene. */
+    public static final class Report {
+        private final List<Issue> issues;
+        private final int sceneCount;
+        private final int reachableCount;
+
+        Report(List<Issue> issues, int sceneCount, int reachableCount) {
+            this.issues = Collections.unmodifiableList(issues);
+            this.sceneCount = sceneCount;
+            this.reachableCount = reachableCount;
+        }
+
+        public List<Issue> getIssues() { return issues; }
+        public int getSceneCount() { return sceneCount; }
+        public int getReachableCount() { return reachableCount; }
+
+        public long count(Severity severity) {
+            return issues.stream().filter(i -> i.getSeverity() == severity).count();
+        }
+
+        public boolean hasErrors() { return count(Severity.ERROR) > 0; }
+
+        public String getSummary() {
+            return "StoryValidator: " + sceneCount + " scenes, " + reachableCount + " reachable, " +
+                   count(Severity.ERROR) + " errors, " + count(Severity.WARNING) + " warnings.";
+        }
+    }
+
+    // Below this many scenes a fork/join task just does the work itself
+    private static final int SEQUENTIAL_THRESHOLD = 64;
+
+    private final Predicate<String> assetExists;
+    private final ForkJoinPool pool;
+
+    /**
+     * Validator that looks assets up in the content packs and on the classpath, as the running game does.
+     */
+    public StoryValidator() {
+        this(StoryValidator::resourceExists);
+    }
+
+    /**
+     * @param assetExists Decides whether an asset path from the story exists.
+     */
+    public StoryValidator(Predicate<String> assetExists) {
+        this.assetExists = assetExists;
+        this.pool = ForkJoinPool.commonPool();
+    }
+
+    public Report validate(GameStory story) {
+        if (story == null) {
+            throw new IllegalArgumentException("Cannot validate a null story.");
+        }
+        SceneGraph graph = SceneGraph.build(story);
+        ConcurrentLinkedQueue<Issue> issues = new ConcurrentLinkedQueue<>();
+
+        if (graph.getStartScene() == null) {
+            issues.add(new Issue(Severity.ERROR, Category.DANGLING_REFERENCE, null,
+                                 "startScene '" + story.getStartScene() + "' does not exist."));
+        }
+        if (story.getOutcomes() != null) {
+            for (Map.Entry<String, OutcomeData> entry : story.getOutcomes().entrySet()) {
+                OutcomeData outcome = entry.getValue();
+                if (outcome != null && outcome.getNextSceneId() != null && graph.getSceneNode(outcome.getNextSceneId()) == null) {
+                    issues.add(new Issue(Severity.ERROR, Category.DANGLING_REFERENCE, null,
+                                         "Outcome '" + entry.getKey() + "' continues to unknown scene '" + outcome.getNextSceneId() + "'."));
+                }
+            }
+        }
+
+        pool.invoke(new SceneCheckTask(graph, story, issues, 0, graph.getSceneCount()));
+
+        Set<Integer> reachable = ConcurrentHashMap.newKeySet();
+        if (graph.getStartScene() != null) {
+            reachable.add(graph.getStartScene().getIndex());
+            List<SceneGraph.SceneNode> frontier = Collections.singletonList(graph.getStartScene());
+            while (!frontier.isEmpty()) {
+                ConcurrentLinkedQueue<SceneGraph.SceneNode> next = new ConcurrentLinkedQueue<>();
+                pool.invoke(new FrontierTask(frontier, 0, frontier.size(), reachable, next));
+                frontier = new ArrayList<>(next);
+            }
+        }
+        for (int i = 0; i < graph.getSceneCount(); i++) {
+            if (!reachable.contains(i)) {
+                issues.add(new Issue(Severity.WARNING, Category.UNREACHABLE_SCENE, graph.getSceneNode(i).getSceneId(),
+                                     "Scene cannot be reached from startScene."));
+            }
+        }
+
+        findTrapCycles(graph, reachable, issues);
+
+        List<Issue> sorted = new ArrayList<>(issues);
+        sorted.sort(Comparator.comparing(Issue::getSeverity)
+                              .thenComparing(Issue::getCategory)
+                              .thenComparing(i -> i.getSceneId() != null ? i.getSceneId() : ""));
+        return new Report(sorted, graph.getSceneCount(), reachable.size());
+    }
+
+    // --- Per-scene checks (links and assets), split over scene index ranges ---
+
+    private final class SceneCheckTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final SceneGraph graph;
+        private final GameStory story;
+        private final ConcurrentLinkedQueue<Issue> issues;
+        private final int from;
+        private final int to;
+
+        SceneCheckTask(SceneGraph graph, GameStory story, ConcurrentLinkedQueue<Issue> issues, int from, int to) {
+            this.graph = graph;
+            this.story = story;
+            this.issues = issues;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                for (int i = from; i < to; i++) checkScene(graph.getSceneNode(i));
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new SceneCheckTask(graph, story, issues, from, mid),
+                      new SceneCheckTask(graph, story, issues, mid, to));
+        }
+
+        private void checkScene(SceneGraph.SceneNode node) {
+            String id = node.getSceneId();
+            SceneData scene = node.getData();
+            if (scene == null) {
+                issues.add(new Issue(Severity.ERROR, Category.DANGLING_REFERENCE, id, "Scene entry is null."));
+                return;
+            }
+
+            if (scene.getChoices() != null) {
+                for (ChoiceData choice : scene.getChoices()) {
+                    if (choice == null) continue;
+                    checkSceneLink(id, "Choice '" + choice.getText() + "' nextSceneId", choice.getNextSceneId());
+                    checkOutcomeLink(id, "Choice '" + choice.getText() + "' outcome", choice.getOutcome());
+                    if (choice.getNextSceneId() == null && choice.getOutcome() == null) {
+                        issues.add(new Issue(Severity.ERROR, Category.DANGLING_REFERENCE, id,
+                                             "Choice '" + choice.getText() + "' has neither nextSceneId nor outcome."));
+                    }
+                }
+            }
+            checkSceneLink(id, "autoTransitionTo", scene.getAutoTransitionTo());
+            checkSceneLink(id, "nextSceneIdIfNameSet", scene.getNextSceneIdIfNameSet());
+            checkOutcomeLink(id, "outcome", scene.getOutcome());
+
+            checkAsset(id, "backgroundImage", scene.getBackgroundImage());
+            if (scene.getBackgroundSprite() != null) checkAsset(id, "backgroundSprite", scene.getBackgroundSprite().getPath());
+            if (scene.getCharacterSprite() != null) checkAsset(id, "characterSprite", scene.getCharacterSprite().getPath());
+            checkAsset(id, "backgroundMusic", scene.getBackgroundMusic());
+            if (scene.getDialogue() != null) {
+                String placeholder = story.getPlayerNamePlaceholder();
+                for (DialogueEntry entry : scene.getDialogue()) {
+                    if (entry == null) continue;
+                    // The player's own portrait is picked at runtime and replaces whatever the JSON says
+                    if (placeholder != null && placeholder.equals(entry.getSpeaker())) continue;
+                    checkAsset(id, "portraitPath", entry.getPortraitPath());
+                }
+            }
+            if (scene.getObjects() != null) {
+                for (InteractiveObjectInfo obj : scene.getObjects()) {
+                    if (obj != null) checkAsset(id, "object '" + obj.getId() + "' imagePath", obj.getImagePath());
+                }
+            }
+        }
+
+        private void checkSceneLink(String sceneId, String what, String target) {
+            if (target != null && !target.trim().isEmpty() && graph.getSceneNode(target) == null) {
+                issues.add(new Issue(Severity.ERROR, Category.DANGLING_REFERENCE, sceneId,
+                                     what + " points to unknown scene '" + target + "'."));
+            }
+        }
+
+        private void checkOutcomeLink(String sceneId, String what, String target) {
+            if (target != null && !target.trim().isEmpty() && graph.getOutcomeNode(target) == null) {
+                issues.add(new Issue(Severity.ERROR, Category.DANGLING_REFERENCE, sceneId,
+                                     what + " points to unknown outcome '" + target + "'."));
+            }
+        }
+
+        private void checkAsset(String sceneId, String what, String path) {
+            if (path == null || path.trim().isEmpty()) return;
+            if (!assetExists.test(path)) {
+                issues.add(new Issue(Severity.WARNING, Category.MISSING_ASSET, sceneId,
+                                     what + " not found: " + path));
+            }
+        }
+    }
+
+    // --- Reachability: breadth-first, each frontier expanded in parallel ---
+    // (Level by level rather than one task per scene, so long linear chains don't recurse deeply.)
+
+    private static final class FrontierTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<SceneGraph.SceneNode> frontier;
+        private final int from;
+        private final int to;
+        private final Set<Integer> visited;
+        private final ConcurrentLinkedQueue<SceneGraph.SceneNode> next;
+
+        FrontierTask(List<SceneGraph.SceneNode> frontier, int from, int to,
+                     Set<Integer> visited, ConcurrentLinkedQueue<SceneGraph.SceneNode> next) {
+            this.frontier = frontier;
+            this.from = from;
+            this.to = to;
+            this.visited = visited;
+            this.next = next;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    for (SceneGraph.SceneNode successor : successors(frontier.get(i))) {
+                        if (visited.add(successor.getIndex())) next.add(successor);
+                    }
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new FrontierTask(frontier, from, mid, visited, next),
+                      new FrontierTask(frontier, mid, to, visited, next));
+        }
+    }
+
+    /**
+     * Scenes directly reachable from a scene: choice targets, choice outcomes' next scenes,
+     * autoTransitionTo and the scene outcome's next scene.
+     */
+    static List<SceneGraph.SceneNode> successors(SceneGraph.SceneNode node) {
+        List<SceneGraph.SceneNode> next = new ArrayList<>(4);
+        SceneData scene = node.getData();
+        if (scene == null) return next;
+        int choiceCount = scene.getChoices() != null ? scene.getChoices().size() : 0;
+        for (int i = 0; i < choiceCount; i++) {
+            addIfPresent(next, node.getChoiceTarget(i));
+            SceneGraph.OutcomeNode outcome = node.getChoiceOutcome(i);
+            if (outcome != null) addIfPresent(next, outcome.getNext());
+        }
+        addIfPresent(next, node.getAutoTransition());
+        if (node.getOutcome() != null) addIfPresent(next, node.getOutcome().getNext());
+        return next;
+    }
+
+    private static void addIfPresent(List<SceneGraph.SceneNode> list, SceneGraph.SceneNode node) {
+        if (node != null) list.add(node);
+    }
+
+    /*
+     * True if the scene ends the game: it leads to an outcome with no next scene, or has no
+     * navigation at all (the ending_ / dead-end handling in GamePlayController).
+     */
+    private static boolean isExit(SceneGraph.SceneNode node) {
+        SceneData scene = node.getData();
+        if (scene == null) return true;
+        if (scene.getOutcome() != null && (node.getOutcome() == null || node.getOutcome().getNext() == null)) return true;
+        if (scene.getChoices() != null) {
+            for (int i = 0; i < scene.getChoices().size(); i++) {
+                ChoiceData choice = scene.getChoices().get(i);
+                if (choice == null || choice.getOutcome() == null) continue;
+                SceneGraph.OutcomeNode outcome = node.getChoiceOutcome(i);
+                if (outcome == null || outcome.getNext() == null) return true;
+            }
+        }
+        return successors(node).isEmpty();
+    }
+
+    // --- Trap cycles: strongly connected components (iterative Tarjan) with no way out ---
+
+    private void findTrapCycles(SceneGraph graph, Set<Integer> reachable, ConcurrentLinkedQueue<Issue> issues) {
+        int n = graph.getSceneCount();
+        int[] order = new int[n];
+        int[] low = new int[n];
+        int[] component = new int[n];
+        boolean[] onStack = new boolean[n];
+        Arrays.fill(order, -1);
+        int[] stack = new int[n];
+        int[] dfsNode = new int[n]; // Explicit DFS stack of (node, next successor position)
+        int[] dfsPos = new int[n];
+        int stackSize = 0;
+        int counter = 0;
+        int componentCount = 0;
+
+        List<int[]> successorCache = new ArrayList<>(Collections.nCopies(n, (int[]) null));
+
+        for (int root = 0; root < n; root++) {
+            if (order[root] != -1 || !reachable.contains(root)) continue;
+            int depth = 0;
+            dfsNode[0] = root;
+            dfsPos[0] = 0;
+            order[root] = low[root] = counter++;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+
+            while (depth >= 0) {
+                int v = dfsNode[depth];
+                int[] succ = successorCache.get(v);
+                if (succ == null) {
+                    succ = successors(graph.getSceneNode(v)).stream().mapToInt(SceneGraph.SceneNode::getIndex).toArray();
+                    successorCache.set(v, succ);
+                }
+                if (dfsPos[depth] < succ.length) {
+                    int w = succ[dfsPos[depth]++];
+                    if (order[w] == -1) {
+                        order[w] = low[w] = counter++;
+                        stack[stackSize++] = w;
+                        onStack[w] = true;
+                        depth++;
+                        dfsNode[depth] = w;
+                        dfsPos[depth] = 0;
+                    } else if (onStack[w]) {
+                        low[v] = Math.min(low[v], order[w]);
+                    }
+                    continue;
+                }
+                if (low[v] == order[v]) {
+                    int w;
+                    do {
+                        w = stack[--stackSize];
+                        onStack[w] = false;
+                        component[w] = componentCount;
+                    } while (w != v);
+                    componentCount++;
+                }
+                depth--;
+                if (depth >= 0) {
+                    int parent = dfsNode[depth];
+                    low[parent] = Math.min(low[parent], low[v]);
+                }
+            }
+        }
+
+        // A component is a trap if it loops, nothing in it leaves the component, and nothing in it ends the game
+        boolean[] cyclic = new boolean[componentCount];
+        boolean[] escapes = new boolean[componentCount];
+        List<List<String>> members = new ArrayList<>();
+        for (int c = 0; c < componentCount; c++) members.add(new ArrayList<>());
+        for (int v = 0; v < n; v++) {
+            if (order[v] == -1) continue;
+            int c = component[v];
+            members.get(c).add(graph.getSceneNode(v).getSceneId());
+            for (int w : successorCache.get(v)) {
+                if (component[w] != c) escapes[c] = true;
+                else cyclic[c] = true; // Includes self-loops
+            }
+            if (isExit(graph.getSceneNode(v))) escapes[c] = true;
+        }
+        for (int c = 0; c < componentCount; c++) {
+            if (cyclic[c] && !escapes[c]) {
+                List<String> ids = members.get(c);
+                Collections.sort(ids);
+                issues.add(new Issue(Severity.ERROR, Category.TRAP_CYCLE, ids.get(0),
+                                     "Scenes " + ids + " loop with no exit, choice or ending leading out."));
+            }
+        }
+    }
+
+    private static boolean resourceExists(String path) {
+        return ContentPacks.getInstance().exists(path);
+    }
+
+    /**
+     * Build step: {@code StoryValidator <story.json> <resourcesDir> [strict]}.
+     * Asset paths are resolved against {@code resourcesDir}. Throws (failing the Maven
+     * exec step) if there are errors, or warnings too with {@code strict}.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: StoryValidator <story.json> <resourcesDir> [strict]");
+            throw new IllegalArgumentException("Missing arguments.");
+        }
+        Path storyPath = Paths.get(args[0]);
+        Path resourcesDir = Paths.get(args[1]);
+        boolean strict = args.length > 2 && ("strict".equals(args[2]) || "--strict".equals(args[2]));
+
+        GameStory story;
+        try (InputStream in = Files.newInputStream(storyPath)) {
+            story = StoryLoader.MAPPER.readValue(in, GameStory.class);
+        }
+        Report report = new StoryValidator(path -> {
+            String relative = path.startsWith("/") ? path.substring(1) : path;
+            try {
+                return Files.isRegularFile(resourcesDir.resolve(relative));
+            } catch (InvalidPathException e) {
+                return false; // Not representable on this file system, so it cannot be there either
+            }
+        }).validate(story);
+
+        for (Issue issue : report.getIssues()) {
+            (issue.getSeverity() == Severity.ERROR ? System.err : System.out).println("  " + issue);
+        }
+        System.out.println(report.getSummary());
+        if (report.hasErrors() || (strict && !report.getIssues().isEmpty())) {
+            throw new IllegalStateException("Story validation failed for " + storyPath + ": " + report.getSummary());
+        }
+    }
+}
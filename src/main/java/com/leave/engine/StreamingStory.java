@@ -0,0 +1,118 @@
+package com.leave.engine;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Streaming view of a JSON story for stories too large to map into objects at startup.
+ * A single pass with Jackson's {@link JsonParser} reads the header fields and outcomes and
+ * records where each scene's object starts and ends in the raw bytes, skipping over its
+ * contents. A {@link SceneData} (with its dialogue list) is only parsed from that byte range
+ * when GameManager first looks the scene up, and at most {@code maxResidentScenes} parsed
+ * scenes are kept (see {@link LazySceneMap}).
+ *
+ * The raw JSON bytes stay in memory; they are far smaller than the object graph Jackson
+ * would otherwise build from them.
+ */
+class StreamingStory {
+
+    private final ObjectMapper mapper;
+    private final byte[] json;
+    private final String sourceName;
+
+    private final List<String> sceneIds = new ArrayList<>();
+    private final List<long[]> sceneRanges = new ArrayList<>(); // {startOffset, length}
+    private final Map<String, Integer> sceneIndexById = new LinkedHashMap<>();
+
+    private String gameTitle;
+    private String startScene;
+    private String playerNamePlaceholder;
+    private Map<String, OutcomeData> outcomes;
+
+    StreamingStory(ObjectMapper mapper, byte[] json, String sourceName) throws IOException {
+        this.mapper = mapper;
+        this.json = json;
+        this.sourceName = sourceName;
+        index();
+    }
+
+    private void index() throws IOException {
+        try (JsonParser parser = mapper.getFactory().createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Story JSON must be an object: " + sourceName);
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                switch (field) {
+                    case "gameTitle": gameTitle = parser.getValueAsString(); break;
+                    case "startScene": startScene = parser.getValueAsString(); break;
+                    case "playerNamePlaceholder": playerNamePlaceholder = parser.getValueAsString(); break;
+                    case "outcomes":
+                        outcomes = mapper.readValue(parser, new TypeReference<LinkedHashMap<String, OutcomeData>>() {});
+                        break;
+                    case "scenes": indexScenes(parser); break;
+                    default:
+                        System.err.println("StreamingStory: Ignoring unknown top-level field '" + field + "' in " + sourceName);
+                        parser.skipChildren();
+                }
+            }
+        }
+    }
+
+    private void indexScenes(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) return;
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            throw new IOException("'scenes' must be an object: " + sourceName);
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String sceneId = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            long start = parser.getTokenLocation().getByteOffset();
+            parser.skipChildren(); // Leaves the parser on the scene's END_OBJECT (or on a scalar)
+            long end = parser.getCurrentLocation().getByteOffset();
+            if (value == JsonToken.VALUE_NULL) {
+                start = -1; // Kept as a null scene, like the full mapper does
+            }
+            Integer existing = sceneIndexById.get(sceneId);
+            if (existing != null) {
+                // A repeated key replaces the earlier scene in its place, as the full mapper's map does
+                sceneRanges.set(existing, new long[] { start, end - start });
+                continue;
+            }
+            sceneIndexById.put(sceneId, sceneIds.size());
+            sceneIds.add(sceneId);
+            sceneRanges.add(new long[] { start, end - start });
+        }
+    }
+
+    private SceneData parseScene(int index) {
+        long[] range = sceneRanges.get(index);
+        if (range[0] < 0) return null;
+        try {
+            return mapper.readValue(json, (int) range[0], (int) range[1], SceneData.class);
+        } catch (IOException e) {
+            // Same symptom the game already handles for a scene that is not in the map
+            System.err.println("StreamingStory: Error parsing scene '" + sceneIds.get(index) + "' from " + sourceName + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    GameStory toGameStory(int maxResidentScenes) {
+        GameStory story = new GameStory();
+        story.setGameTitle(gameTitle);
+        story.setStartScene(startScene);
+        story.setPlayerNamePlaceholder(playerNamePlaceholder);
+        story.setOutcomes(outcomes);
+        story.setScenes(new LazySceneMap(sceneIds.toArray(new String[0]), sceneIndexById, this::parseScene, maxResidentScenes));
+        return story;
+    }
+}
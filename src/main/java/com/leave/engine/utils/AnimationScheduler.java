@@ -0,0 +1,235 @@
+package com.leave.engine.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javafx.animation.AnimationTimer;
+
+/**
+ * One shared pulse for every frame-based animation in the game.
+ * Sprite animators and text typing register a {@link Tickable} here instead of starting their
+ * own {@link AnimationTimer}, so the FX pulse only has a single listener however many
+ * animations are running. The timer only runs while something is registered.
+ *
+ * The clock handed to tickables stops while the scheduler is paused, so everything resumes
+ * exactly where it left off. In fixed-step mode the clock advances in whole steps (catching up
+ * at most {@link #MAX_CATCH_UP_STEPS} per pulse), which keeps frame timing independent of
+ * pulse jitter. All methods must be called on the FX thread.
+ *
+ * With {@link #setExternalPulse(boolean)} the caller drives the pulses through
+ * {@link #pulse(long)} instead, which lets a headless benchmark run sprite animations
+ * without the FX toolkit (the FX timer is only created once it is first needed).
+ */
+public class AnimationScheduler {
+
+    /** Something advanced by the shared pulse. */
+    @FunctionalInterface
+    public interface Tickable {
+        /**
+         * @param nowNanos Scheduler clock in nanoseconds. Monotonic, excludes paused time.
+         */
+        void tick(long nowNanos);
+    }
+
+    public static final int MAX_CATCH_UP_STEPS = 5;
+
+    private static AnimationScheduler instance;
+
+    private final List<Tickable> registered = new ArrayList<>();
+    private Tickable[] active = new Tickable[0]; // Snapshot ticked each pulse, rebuilt only on change
+    private boolean activeDirty = false;
+
+    private AnimationTimer timer;       // Created on first start
+    private boolean timerRunning = false;
+    private boolean paused = false;
+    private boolean externalPulse = false;
+
+    private long lastPulseNanos = -1;   // Real time of the previous pulse, -1 after start/resume
+    private long clockNanos = 0;        // Scheduler clock given to tickables
+    private long fixedStepNanos = 0;    // 0 = variable step
+    private long accumulatorNanos = 0;
+
+    // Per-pulse cost of running every tickable
+    private long pulses = 0;
+    private long totalTickNanos = 0;
+    private long maxTickNanos = 0;
+
+    private AnimationScheduler() {}
+
+    public static synchronized AnimationScheduler getInstance() {
+        if (instance == null) {
+            instance = new AnimationScheduler();
+        }
+        return instance;
+    }
+
+    /**
+     * Adds a tickable. It is first ticked on the next pulse; registering twice has no effect.
+     */
+    public void register(Tickable tickable) {
+        if (tickable == null || registered.contains(tickable)) return;
+        registered.add(tickable);
+        activeDirty = true;
+        updateTimer();
+    }
+
+    /**
+     * Removes a tickable. Safe to call from inside its own tick().
+     */
+    public void unregister(Tickable tickable) {
+        if (tickable != null && registered.remove(tickable)) {
+            activeDirty = true;
+            updateTimer();
+        }
+    }
+
+    public boolean isRegistered(Tickable tickable) {
+        return registered.contains(tickable);
+    }
+
+    /** Current scheduler clock; use it to timestamp the start of an animation. */
+    public long now() {
+        return clockNanos;
+    }
+
+    /** Freezes every registered animation. */
+    public void pause() {
+        if (paused) return;
+        paused = true;
+        updateTimer();
+    }
+
+    /** Resumes after {@link #pause()}; the paused time is skipped by the clock. */
+    public void resume() {
+        if (!paused) return;
+        paused = false;
+        updateTimer();
+    }
+
+    public boolean isPaused() { return paused; }
+
+    /**
+     * Switches to fixed-step timing: the clock advances in whole steps of the given rate.
+     * @param stepsPerSecond Steps per second, or 0 or less for variable step (the default).
+     */
+    public void setFixedStepRate(double stepsPerSecond) {
+        fixedStepNanos = stepsPerSecond > 0 ? (long) (1_000_000_000.0 / stepsPerSecond) : 0;
+        accumulatorNanos = 0;
+    }
+
+    public boolean isFixedStep() { return fixedStepNanos > 0; }
+
+    /**
+     * Switches between the FX pulse (the default) and pulses driven by {@link #pulse(long)}.
+     * The FX timer is stopped while external pulses are on.
+     */
+    public void setExternalPulse(boolean external) {
+        if (externalPulse == external) return;
+        externalPulse = external;
+        lastPulseNanos = -1;
+        updateTimer();
+    }
+
+    public boolean isExternalPulse() { return externalPulse; }
+
+    /**
+     * Runs one pulse at the given time, exactly as the FX pulse would. Does nothing while paused
+     * or with nothing registered; like a restarted timer, the first pulse after that does not
+     * advance the clock.
+     * @throws IllegalStateException unless {@link #setExternalPulse(boolean) external pulses} are on.
+     */
+    public void pulse(long nowNanos) {
+        if (!externalPulse) throw new IllegalStateException("AnimationScheduler is driven by the FX pulse.");
+        if (paused || registered.isEmpty()) {
+            lastPulseNanos = -1;
+            return;
+        }
+        onPulse(nowNanos);
+    }
+
+    private void updateTimer() {
+        boolean shouldRun = !paused && !registered.isEmpty() && !externalPulse;
+        if (shouldRun && !timerRunning) {
+            if (timer == null) {
+                timer = new AnimationTimer() {
+                    @Override
+                    public void handle(long now) {
+                        onPulse(now);
+                    }
+                };
+            }
+            lastPulseNanos = -1; // The first pulse after (re)starting does not advance the clock
+            timer.start();
+            timerRunning = true;
+        } else if (!shouldRun && timerRunning) {
+            timer.stop();
+            timerRunning = false;
+        }
+    }
+
+    private void onPulse(long now) {
+        long elapsed = (lastPulseNanos < 0) ? 0 : now - lastPulseNanos;
+        lastPulseNanos = now;
+
+        long begin = System.nanoTime();
+        if (fixedStepNanos > 0) {
+            accumulatorNanos += elapsed;
+            int steps = 0;
+            while (accumulatorNanos >= fixedStepNanos && steps < MAX_CATCH_UP_STEPS) {
+                accumulatorNanos -= fixedStepNanos;
+                clockNanos += fixedStepNanos;
+                tickAll();
+                steps++;
+            }
+            if (steps == MAX_CATCH_UP_STEPS) accumulatorNanos = 0; // Drop the backlog after a long stall
+        } else {
+            clockNanos += elapsed;
+            tickAll();
+        }
+        long cost = System.nanoTime() - begin;
+
+        pulses++;
+        totalTickNanos += cost;
+        if (cost > maxTickNanos) maxTickNanos = cost;
+    }
+
+    private void tickAll() {
+        if (activeDirty) { // Also between catch-up steps, so nothing unregistered in the last one ticks again
+            active = registered.toArray(new Tickable[0]);
+            activeDirty = false;
+        }
+        Tickable[] snapshot = active;
+        for (Tickable tickable : snapshot) {
+            // Unregistered earlier in this pass, e.g. by another animation's completion callback
+            if (activeDirty && !registered.contains(tickable)) continue;
+            try {
+                tickable.tick(clockNanos);
+            } catch (RuntimeException e) {
+                // One broken animation must not stop the others
+                System.err.println("AnimationScheduler: Tick failed, unregistering " + tickable + ": " + e);
+                e.printStackTrace();
+                unregister(tickable);
+            }
+        }
+    }
+
+    public int getRegisteredCount() { return registered.size(); }
+    public long getPulseCount() { return pulses; }
+    public long getMaxTickNanos() { return maxTickNanos; }
+
+    public double getAverageTickMicros() {
+        return pulses == 0 ? 0.0 : totalTickNanos / 1000.0 / pulses;
+    }
+
+    public void resetStats() {
+        pulses = 0;
+        totalTickNanos = 0;
+        maxTickNanos = 0;
+    }
+
+    public String getStatsSummary() {
+        return String.format("AnimationScheduler: %d registered, %d pulses, avg tick %.1f us, max tick %.1f us%s",
+                registered.size(), pulses, getAverageTickMicros(), maxTickNanos / 1000.0,
+                fixedStepNanos > 0 ? ", fixed step " + fixedStepNanos / 1000 + " us" : "");
+    }
+}
@@ -58,6 +58,9 @@ public class AnimationUtils {
 
     
 
+    // Label property holding the TypewriterText currently revealing that label
+    static final String TEXT_ANIMATION_KEY = "activeTextAnimation";
+
     /**
      * Animates text appearing character by character in a JavaFX Label.
      *
@@ -67,12 +70,18 @@ public class AnimationUtils {
      * @param onFinished    A Runnable to execute once the animation is complete (can be null).
      */
     public static void animateText(Label label, String fullText, int charDelayMs, Runnable onFinished) {
+        animateText(label, fullText, charDelayMs, null, onFinished);
+    }
+
+    /**
+     * Same as {@link #animateText(Label, String, int, Runnable)}, with the text blip voiced for a
+     * speaker or dialogue style.
+     *
+     * @param blipVoice     Speaker name or dialogue style selecting the blip pitch (null for the default voice).
+     */
+    public static void animateText(Label label, String fullText, int charDelayMs, String blipVoice, Runnable onFinished) {
         // Stop any existing animation on this label
-        Object oldTimelineObj = label.getProperties().get("activeTextAnimation");
-        if (oldTimelineObj instanceof Timeline) {
-            ((Timeline) oldTimelineObj).stop();
-            label.getProperties().remove("activeTextAnimation"); // Clean up
-        }
+        stopTextAnimation(label);
 
         if (fullText == null || fullText.isEmpty()) {
             label.setText("");
@@ -82,34 +91,13 @@ public class AnimationUtils {
             return;
         }
 
-        final StringBuilder displayedText = new StringBuilder();
-        label.setText(""); // Clear existing text
         label.setUserData(fullText); // Store full text for potential completion
 
-        final Timeline timeline = new Timeline();
-        timeline.setCycleCount(fullText.length());
-        label.getProperties().put("activeTextAnimation", timeline);
-
-        KeyFrame keyFrame = new KeyFrame(
-                Duration.millis(charDelayMs),
-                event -> {
-                    if (displayedText.length() < fullText.length()) {
-                        displayedText.append(fullText.charAt(displayedText.length()));
-                        label.setText(displayedText.toString());
-                        AudioManager.getInstance().playTextBlip();
-                    }
-                }
-        );
-
-        timeline.getKeyFrames().add(keyFrame);
-        timeline.setOnFinished(event -> {
-            label.getProperties().remove("activeTextAnimation"); // Clean up
-            if (onFinished != null) {
-                onFinished.run();
-            }
-        });
-
-        timeline.play();
+        TypewriterText typer = new TypewriterText(label, fullText, charDelayMs,
+                AudioManager.getInstance().getTextBlipVariant(blipVoice), onFinished);
+        label.getProperties().put(TEXT_ANIMATION_KEY, typer);
+        typer.begin(); // Lays the whole line out once and hides it
+        AnimationScheduler.getInstance().register(typer);
     }
 
     /**
@@ -126,16 +114,21 @@ public class AnimationUtils {
         animateText(label, fullText, 50, null); // Default 50ms delay
     }
 
+    /**
+     * Returns true while text is still being revealed on the given label.
+     */
+    public static boolean isTextAnimating(Label label) {
+        return label.getProperties().get(TEXT_ANIMATION_KEY) instanceof TypewriterText;
+    }
+
     /**
      * Stops any ongoing text animation on the given label.
      * @param label The label to stop animation on.
      */
     public static void stopTextAnimation(Label label) {
-        Object timelineObj = label.getProperties().get("activeTextAnimation");
-        if (timelineObj instanceof Timeline) {
-            Timeline timeline = (Timeline) timelineObj;
-            timeline.stop();
-            label.getProperties().remove("activeTextAnimation");
+        Object typer = label.getProperties().get(TEXT_ANIMATION_KEY);
+        if (typer instanceof TypewriterText) {
+            ((TypewriterText) typer).freeze(); // Leaves the revealed part on the label
         }
     }
 
@@ -145,15 +138,11 @@ public class AnimationUtils {
      * @param label The label to complete animation on.
      */
     public static void completeTextAnimation(Label label) {
-        Object timelineObj = label.getProperties().get("activeTextAnimation");
-        if (timelineObj instanceof Timeline) {
-            ((Timeline) timelineObj).stop();
-            label.getProperties().remove("activeTextAnimation");
-        }
+        stopTextAnimation(label);
         // Retrieve the full text stored in user data
         if (label.getUserData() instanceof String) {
             label.setText((String) label.getUserData());
         }
         
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,162 @@
+package com.leave.engine.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shared executor for asset reads and decodes: story files, images, sound effects.
+ *
+ * On Java 21+ every task gets its own virtual thread, so dozens of assets can be in flight
+ * at once without a pool to size or a queue to wait in; blocking reads just park their
+ * thread. On older runtimes (or with {@code -Dleave.assetio.threads=platform}) it falls back
+ * to a fixed pool of daemon platform threads. The virtual-thread factory is looked up
+ * reflectively so the engine still compiles for Java 11; build with the {@code java21}
+ * Maven profile to target 21 directly.
+ *
+ * Every call returns a {@link CompletableFuture}. Checked exceptions from a task complete
+ * the future exceptionally with a {@link CompletionException} wrapping the cause.
+ * Work that has to stay ordered (Clip playback, the mixer threads) keeps its own thread.
+ */
+public final class AssetIO {
+
+    /** A blocking load that may throw, e.g. a resource read or an image decode. */
+    @FunctionalInterface
+    public interface IOTask<T> {
+        T call() throws Exception;
+    }
+
+    /** A blocking load with no result. */
+    @FunctionalInterface
+    public interface IOAction {
+        void run() throws Exception;
+    }
+
+    /** System property that forces the platform-thread pool even when virtual threads exist. */
+    public static final String THREADS_PROPERTY = "leave.assetio.threads";
+
+    private static AssetIO instance;
+
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+
+    private AssetIO() {
+        ExecutorService virtual = "platform".equalsIgnoreCase(System.getProperty(THREADS_PROPERTY)) ? null : newVirtualThreadExecutor();
+        virtualThreads = virtual != null;
+        executor = virtual != null ? virtual : newPlatformThreadExecutor();
+        System.out.println("AssetIO: Using " + (virtualThreads ? "virtual threads" : "platform threads") + " for asset loads.");
+    }
+
+    public static synchronized AssetIO getInstance() {
+        if (instance == null) {
+            instance = new AssetIO();
+        }
+        return instance;
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor(), when this runtime has it (final in Java 21)
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null; // Before Java 19, or 19/20 without --enable-preview
+        }
+    }
+
+    private static ExecutorService newPlatformThreadExecutor() {
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors() * 2); // Loads mix blocking reads with decoding
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "asset-io-" + counter.incrementAndGet());
+            t.setDaemon(true); // A stuck read must not keep the JVM alive
+            return t;
+        });
+    }
+
+    /**
+     * Runs a load on its own (virtual) thread.
+     * @return A future with the task's result; already failed if AssetIO has been shut down.
+     */
+    public <T> CompletableFuture<T> submit(IOTask<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        submitted.incrementAndGet();
+        try {
+            executor.execute(() -> {
+                int now = inFlight.incrementAndGet();
+                peakInFlight.accumulateAndGet(now, Math::max);
+                try {
+                    future.complete(task.call());
+                } catch (Throwable e) {
+                    failed.incrementAndGet();
+                    future.completeExceptionally(e instanceof CompletionException ? e : new CompletionException(e));
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            failed.incrementAndGet();
+            future.completeExceptionally(new CompletionException(e));
+        }
+        return future;
+    }
+
+    /** Runs a load that has no result. */
+    public CompletableFuture<Void> run(IOAction action) {
+        return submit(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Reads a whole resource from the content packs or the classpath.
+     * @param resourcePath Classpath resource path (a missing leading '/' is tolerated).
+     */
+    public CompletableFuture<byte[]> readResource(String resourcePath) {
+        return submit(() -> {
+            InputStream stream = ContentPacks.getInstance().openStream(resourcePath);
+            if (stream == null) throw new IOException("Resource not found: " + resourcePath);
+            try (InputStream in = stream) {
+                return in.readAllBytes();
+            }
+        });
+    }
+
+    /** Reads a whole file from disk. */
+    public CompletableFuture<byte[]> readFile(Path path) {
+        return submit(() -> Files.readAllBytes(path));
+    }
+
+    public boolean usesVirtualThreads() { return virtualThreads; }
+    public long getSubmittedCount() { return submitted.get(); }
+    public long getFailedCount() { return failed.get(); }
+    public int getInFlight() { return inFlight.get(); }
+    public int getPeakInFlight() { return peakInFlight.get(); }
+
+    public String getStatsSummary() {
+        return "AssetIO{threads=" + (virtualThreads ? "virtual" : "platform") +
+               ", submitted=" + submitted.get() +
+               ", failed=" + failed.get() +
+               ", peakInFlight=" + peakInFlight.get() + '}';
+    }
+
+    /** Stops accepting loads; running ones are interrupted. */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
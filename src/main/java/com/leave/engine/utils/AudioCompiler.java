@@ -0,0 +1,156 @@
+package com.leave.engine.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * Build-time step that compresses every WAV in an audio directory to {@link CompressedAudio}.
+ *
+ * Runs after resources are copied: each {@code name.wav} gets a {@code name.lvau} next to its
+ * copy in the output directory, and with {@code --strip-wav=true} the copied WAV is removed
+ * so only the compressed file ends up in the jar. Files whose output is newer than the
+ * source are skipped.
+ *
+ * Usage: {@code AudioCompiler <wav dir> <out dir> [--strip-wav=true|false]} or
+ * {@code AudioCompiler --bench <wav dir> <lvau dir> [iterations]}.
+ */
+public class AudioCompiler {
+
+    /**
+     * Compresses one WAV, writing through a temp file so a failed encode never leaves a
+     * truncated file behind.
+     * @return Frames encoded.
+     */
+    public static int compileFile(Path wavPath, Path outPath) throws IOException {
+        if (outPath.getParent() != null) Files.createDirectories(outPath.getParent());
+        Path tmp = outPath.resolveSibling(outPath.getFileName() + ".tmp");
+        int frames;
+        try (AudioInputStream in = AudioSystem.getAudioInputStream(wavPath.toFile());
+             OutputStream out = Files.newOutputStream(tmp)) {
+            frames = CompressedAudio.encode(in, out);
+        } catch (UnsupportedAudioFileException e) {
+            Files.deleteIfExists(tmp);
+            throw new IOException("Unsupported audio file " + wavPath + ": " + e.getMessage(), e);
+        }
+        Files.move(tmp, outPath, StandardCopyOption.REPLACE_EXISTING);
+        return frames;
+    }
+
+    public static void compileDirectory(Path wavDir, Path outDir, boolean stripWav) throws IOException {
+        long wavBytes = 0, outBytes = 0;
+        int compiled = 0, upToDate = 0;
+        for (Path wav : listWavs(wavDir)) {
+            Path out = outDir.resolve(baseName(wav) + CompressedAudio.EXTENSION);
+            if (Files.exists(out) && Files.getLastModifiedTime(out).compareTo(Files.getLastModifiedTime(wav)) >= 0) {
+                upToDate++;
+            } else {
+                compileFile(wav, out);
+                compiled++;
+            }
+            wavBytes += Files.size(wav);
+            outBytes += Files.size(out);
+            if (stripWav) {
+                Files.deleteIfExists(outDir.resolve(wav.getFileName()));
+            }
+        }
+        System.out.println("AudioCompiler: " + compiled + " compiled, " + upToDate + " up to date; WAV " + wavBytes +
+                           " bytes -> " + outBytes + " bytes" + (stripWav ? " (WAV copies removed from " + outDir + ")" : ""));
+    }
+
+    private static List<Path> listWavs(Path dir) throws IOException {
+        List<Path> wavs = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*.{wav,WAV}")) {
+            for (Path path : stream) wavs.add(path);
+        }
+        wavs.sort(null);
+        return wavs;
+    }
+
+    private static String baseName(Path path) {
+        String name = path.getFileName().toString();
+        return name.substring(0, name.length() - 4);
+    }
+
+    /**
+     * Compares the WAV and compressed versions of every track: file size, size once deflated
+     * into a jar, time to decode the whole file to PCM, and the buffer a streaming reader holds.
+     */
+    static void benchmark(Path wavDir, Path lvauDir, int iterations) throws IOException, UnsupportedAudioFileException {
+        long wavSize = 0, lvauSize = 0, wavJar = 0, lvauJar = 0, wavNs = 0, lvauNs = 0, pcmBytes = 0;
+        byte[] scratch = new byte[64 * 1024];
+        for (Path wav : listWavs(wavDir)) {
+            Path lvau = lvauDir.resolve(baseName(wav) + CompressedAudio.EXTENSION);
+            if (!Files.exists(lvau)) continue;
+            wavSize += Files.size(wav);
+            lvauSize += Files.size(lvau);
+            wavJar += deflatedSize(Files.readAllBytes(wav));
+            lvauJar += deflatedSize(Files.readAllBytes(lvau));
+            for (int i = -1; i < iterations; i++) { // One warmup pass
+                long t0 = System.nanoTime();
+                long wavPcm = drain(CompressedAudio.open(wav.toUri().toURL()), scratch);
+                long t1 = System.nanoTime();
+                drain(CompressedAudio.open(lvau.toUri().toURL()), scratch);
+                long t2 = System.nanoTime();
+                if (i < 0) continue;
+                wavNs += t1 - t0;
+                lvauNs += t2 - t1;
+                if (i == 0) pcmBytes += wavPcm;
+            }
+        }
+        System.out.println("AudioCompiler benchmark (" + iterations + " iterations):");
+        System.out.printf("  files:        WAV %,d bytes | compressed %,d bytes (%.1f%%)%n", wavSize, lvauSize, 100.0 * lvauSize / wavSize);
+        System.out.printf("  jar entries:  WAV %,d bytes | compressed %,d bytes (%.1f%%)%n", wavJar, lvauJar, 100.0 * lvauJar / wavJar);
+        System.out.printf("  full decode:  WAV %.1f ms | compressed %.1f ms (all tracks, avg)%n",
+                          wavNs / 1e6 / iterations, lvauNs / 1e6 / iterations);
+        System.out.printf("  decoded PCM:  %,d bytes; a streaming compressed reader holds %,d bytes (one stereo block)%n",
+                          pcmBytes, CompressedAudio.blockBytes(2) + CompressedAudio.BLOCK_FRAMES * 2 * 2);
+    }
+
+    private static long drain(AudioInputStream in, byte[] scratch) throws IOException {
+        long total = 0;
+        try (InputStream stream = in) {
+            int n;
+            while ((n = stream.read(scratch)) > 0) total += n;
+        }
+        return total;
+    }
+
+    private static long deflatedSize(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true); // What the jar tool uses
+        deflater.setInput(data);
+        deflater.finish();
+        byte[] buffer = new byte[64 * 1024];
+        long total = 0;
+        while (!deflater.finished()) total += deflater.deflate(buffer);
+        deflater.end();
+        return total;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length >= 3 && "--bench".equals(args[0])) {
+            int iterations = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+            benchmark(Paths.get(args[1]), Paths.get(args[2]), iterations);
+            return;
+        }
+        if (args.length < 2 || args.length > 3 || (args.length == 3 && !args[2].startsWith("--strip-wav"))) {
+            System.err.println("Usage: AudioCompiler <wav dir> <out dir> [--strip-wav=true|false]");
+            System.err.println("       AudioCompiler --bench <wav dir> <lvau dir> [iterations]");
+            System.exit(2);
+        }
+        boolean strip = args.length == 3 && (args[2].equals("--strip-wav") || args[2].equals("--strip-wav=true"));
+        compileDirectory(Paths.get(args[0]), Paths.get(args[1]), strip);
+    }
+}
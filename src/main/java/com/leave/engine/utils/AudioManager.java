@@ -1,13 +1,16 @@
 package com.leave.engine.utils;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
-import java.io.InputStream; // For MediaPlayer seeking if needed
 import java.net.URL;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.sound.sampled.AudioFormat;
 import javax.sound.sampled.AudioInputStream;
@@ -23,20 +26,33 @@ public class AudioManager {
 
     private static AudioManager instance;
 
+    private final BgmPlayer bgmPlayer = new BgmPlayer(); // Streams and crossfades BGM on its own line
+    private Boolean bgmPlayerAvailable; // Null until first used
+    private volatile int bgmCrossfadeMillis = BgmPlayer.DEFAULT_CROSSFADE_MILLIS;
+
+    // Fallback BGM path when no output line is available
     private MediaPlayer backgroundMusicPlayer;
     private String currentBGMPath;
 
     // Cache for sound effect Clips to avoid reloading short sounds repeatedly
     private Map<String, Clip> sfxClipCache;
-    private ExecutorService sfxExecutor; // Thread pool for playing SFX
+    private ExecutorService sfxExecutor; // Keeps Clip playback in order; decoding runs on AssetIO
+    private final SfxMixer sfxMixer = new SfxMixer(); // Mixes every SFX through one output line
+    private Boolean sfxMixerAvailable; // Null until the SFX thread first tries to open the mixer
 
     private float masterVolumeSFX = 1.0f; // 0.0 (mute) to 1.0 (full)
     private double masterVolumeBGM = 1.0;  // 0.0 (mute) to 1.0 (full)
 
-    private Clip currentTextBlipClip; // Special clip for text animation SFX
+    private volatile Clip currentTextBlipClip; // Text blip fallback when the mixer has no output line
+    private final AtomicBoolean textBlipClipQueued = new AtomicBoolean(false);
+    private volatile long lastClipBlipNanos = 0;
+
+    // BGM Media prepared ahead of time by the scene prefetcher, most recently used last
+    private static final int MAX_PREPARED_BGM = 6;
+    private final Map<String, Media> preparedBGM = new LinkedHashMap<>(8, 0.75f, true);
 
     private AudioManager() {
-        sfxClipCache = new HashMap<>();
+        sfxClipCache = new ConcurrentHashMap<>(); // Filled from the SFX thread and the startup pipeline
         // Using a single thread executor for SFX can prevent too many simultaneous
         // audio lines if many SFX are triggered rapidly, but might queue them.
         // A cached thread pool allows more concurrency but uses more resources if many sounds play.
@@ -58,16 +74,56 @@ public class AudioManager {
     // --- Background Music (BGM) Methods ---
 
     /**
-     * Plays background music. If music is already playing, it stops the current one first.
+     * Plays background music, crossfading from the current track over the default crossfade
+     * time. Asking for the track that is already playing only adjusts its volume.
      * @param resourcePath Classpath resource path to the BGM file (e.g., "/com/leave/audio/level1.mp3")
      * @param loop If true, the music will loop.
      * @param volume Volume from 0.0 to 1.0.
      */
     public void playBackgroundMusic(String resourcePath, boolean loop, double volume) {
+        playBackgroundMusic(resourcePath, loop, volume, bgmCrossfadeMillis);
+    }
+
+    /**
+     * Same as {@link #playBackgroundMusic(String, boolean, double)} with an explicit crossfade.
+     * @param crossfadeMillis Crossfade length; 0 switches tracks with a hard cut.
+     */
+    public void playBackgroundMusic(String resourcePath, boolean loop, double volume, int crossfadeMillis) {
         if (resourcePath == null || resourcePath.trim().isEmpty()) {
             System.err.println("AudioManager: BGM resource path is null or empty.");
             return;
         }
+        if (ensureBgmPlayer()) {
+            URL bgmUrl = getAudioSourceUrl(resourcePath);
+            if (bgmUrl == null) {
+                System.err.println("AudioManager: BGM file not found: " + resourcePath);
+                bgmPlayer.stop(crossfadeMillis);
+                return;
+            }
+            bgmPlayer.play(resourcePath, bgmUrl, loop, (float) volume, crossfadeMillis);
+            return;
+        }
+        playWithMediaPlayer(resourcePath, loop, volume);
+    }
+
+    // Opens the streaming BGM line on first use
+    private synchronized boolean ensureBgmPlayer() {
+        if (bgmPlayerAvailable == null) {
+            bgmPlayerAvailable = bgmPlayer.start();
+            bgmPlayer.setMasterGain((float) masterVolumeBGM);
+        }
+        return bgmPlayerAvailable;
+    }
+
+    /** Default crossfade between BGM tracks, in milliseconds. */
+    public void setBGMCrossfadeMillis(int millis) {
+        bgmCrossfadeMillis = Math.max(0, millis);
+    }
+
+    public int getBGMCrossfadeMillis() { return bgmCrossfadeMillis; }
+
+    // Fallback: one MediaPlayer per track, hard cut
+    private void playWithMediaPlayer(String resourcePath, boolean loop, double volume) {
         if (currentBGMPath != null && currentBGMPath.equals(resourcePath) && backgroundMusicPlayer != null &&
             backgroundMusicPlayer.getStatus() == MediaPlayer.Status.PLAYING) {
             System.out.println("AudioManager: BGM '" + resourcePath + "' is already playing.");
@@ -84,7 +140,10 @@ public class AudioManager {
                 return;
             }
 
-            Media media = new Media(bgmUrl.toExternalForm());
+            Media media = takePreparedBackgroundMusic(resourcePath);
+            if (media == null) {
+                media = new Media(bgmUrl.toExternalForm());
+            }
             backgroundMusicPlayer = new MediaPlayer(media);
             backgroundMusicPlayer.setVolume(volume * masterVolumeBGM);
 
@@ -106,7 +165,69 @@ public class AudioManager {
         }
     }
 
+    /**
+     * Decodes a BGM track into the decoded-track cache ahead of time, so a later
+     * playBackgroundMusic() for the same path starts from memory. (Without an output line
+     * it creates the {@link Media} instead.) Safe to call from a background thread.
+     * @param resourcePath Classpath resource path to the BGM file.
+     */
+    public void prepareBackgroundMusic(String resourcePath) {
+        if (resourcePath == null || resourcePath.trim().isEmpty()) return;
+        if (ensureBgmPlayer()) {
+            if (bgmPlayer.cacheContains(resourcePath)) return;
+            URL bgmUrl = getAudioSourceUrl(resourcePath);
+            if (bgmUrl == null) {
+                System.err.println("AudioManager: Cannot prepare BGM, file not found: " + resourcePath);
+                return;
+            }
+            try {
+                bgmPlayer.prepare(resourcePath, bgmUrl);
+                System.out.println("AudioManager: Decoded BGM into cache: " + resourcePath);
+            } catch (Exception e) {
+                System.err.println("AudioManager: Error preparing BGM " + resourcePath + ": " + e.getMessage());
+            }
+            return;
+        }
+        synchronized (preparedBGM) {
+            if (preparedBGM.containsKey(resourcePath)) return;
+        }
+        URL bgmUrl = getResourceUrl(resourcePath);
+        if (bgmUrl == null) {
+            System.err.println("AudioManager: Cannot prepare BGM, file not found: " + resourcePath);
+            return;
+        }
+        try {
+            Media media = new Media(bgmUrl.toExternalForm());
+            synchronized (preparedBGM) {
+                preparedBGM.putIfAbsent(resourcePath, media);
+                while (preparedBGM.size() > MAX_PREPARED_BGM) {
+                    String eldest = preparedBGM.keySet().iterator().next();
+                    preparedBGM.remove(eldest);
+                }
+            }
+            System.out.println("AudioManager: Prepared BGM: " + resourcePath);
+        } catch (Exception e) {
+            System.err.println("AudioManager: Error preparing BGM " + resourcePath + ": " + e.getMessage());
+        }
+    }
+
+    private Media takePreparedBackgroundMusic(String resourcePath) {
+        synchronized (preparedBGM) {
+            return preparedBGM.get(resourcePath); // Media can back several MediaPlayers, so keep it cached
+        }
+    }
+
+    /**
+     * Fades the background music out over the default crossfade time.
+     */
     public void stopBackgroundMusic() {
+        stopBackgroundMusic(bgmCrossfadeMillis);
+    }
+
+    public void stopBackgroundMusic(int fadeMillis) {
+        if (bgmPlayer.isRunning()) {
+            bgmPlayer.stop(fadeMillis);
+        }
         if (backgroundMusicPlayer != null) {
             backgroundMusicPlayer.stop();
             backgroundMusicPlayer.dispose(); // Release resources
@@ -117,6 +238,9 @@ public class AudioManager {
     }
 
     public void setBGMVolume(double volume) {
+        if (bgmPlayer.isRunning()) {
+            bgmPlayer.setVolume((float) volume);
+        }
         if (backgroundMusicPlayer != null) {
             backgroundMusicPlayer.setVolume(Math.max(0.0, Math.min(1.0, volume)) * masterVolumeBGM);
         }
@@ -125,8 +249,10 @@ public class AudioManager {
     // --- Sound Effects (SFX) Methods ---
 
     /**
-     * Plays a sound effect once. Uses a cached Clip if available, otherwise loads it.
-     * Played on a separate thread.
+     * Plays a sound effect once. Loaded effects are queued straight onto the mixer, so
+     * overlapping plays of the same effect layer instead of restarting each other.
+     * The first play of an effect decodes it on the SFX thread. Without an audio line the
+     * effect falls back to a cached Clip.
      * @param resourcePath Classpath resource path to the SFX file (e.g., "/com/leave/audio/click.wav")
      * @param volume       Volume from 0.0f to 1.0f for this SFX.
      */
@@ -135,78 +261,114 @@ public class AudioManager {
             System.err.println("AudioManager: SFX resource path is null or empty.");
             return;
         }
+        float gain = Math.max(0.0f, Math.min(1.0f, volume)); // Master SFX volume is applied by the mixer
+        if (sfxMixer.play(resourcePath, gain)) {
+            return; // Already decoded; no thread hop
+        }
 
-        sfxExecutor.submit(() -> { // Submit task to the SFX thread pool
-            try {
-                Clip clip = sfxClipCache.get(resourcePath);
+        // Decode on an asset thread; only the Clip fallback needs the ordered SFX thread
+        AssetIO.getInstance().submit(() -> loadIntoMixer(resourcePath)).thenAccept(loaded -> {
+            if (loaded) {
+                sfxMixer.play(resourcePath, gain);
+            } else {
+                sfxExecutor.submit(() -> playClip(resourcePath, volume));
+            }
+        });
+    }
 
-                if (clip == null || !clip.isOpen()) { // Load if not cached or if previous instance was closed
-                    URL sfxUrl = getResourceUrl(resourcePath);
-                    if (sfxUrl == null) {
-                        System.err.println("AudioManager: SFX file not found: " + resourcePath);
+    // Opens the mixer on first use
+    private synchronized boolean ensureMixer() {
+        if (sfxMixerAvailable == null) {
+            sfxMixerAvailable = sfxMixer.start();
+            sfxMixer.setMasterGain(masterVolumeSFX);
+        }
+        return sfxMixerAvailable;
+    }
+
+    // Decodes an effect into the mixer; false means the caller should use a Clip instead. Asset threads only
+    private boolean loadIntoMixer(String resourcePath) {
+        if (!ensureMixer()) return false;
+        try {
+            if (!sfxMixer.isLoaded(resourcePath)) {
+                sfxMixer.load(resourcePath, getAudioSourceUrl(resourcePath));
+                System.out.println("AudioManager: SFX decoded into mixer: " + resourcePath);
+            }
+            return true;
+        } catch (Exception e) {
+            System.err.println("AudioManager: Could not decode SFX " + resourcePath + " for the mixer: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Fallback playback through one cached Clip per effect; SFX thread only
+    private void playClip(String resourcePath, float volume) {
+        try {
+            Clip clip = sfxClipCache.get(resourcePath);
+
+            if (clip == null || !clip.isOpen()) { // Load if not cached or if previous instance was closed
+                URL sfxUrl = getAudioSourceUrl(resourcePath);
+                if (sfxUrl == null) {
+                    System.err.println("AudioManager: SFX file not found: " + resourcePath);
+                    return;
+                }
+                try (AudioInputStream audioStream = CompressedAudio.open(sfxUrl)) {
+
+                    AudioFormat format = audioStream.getFormat();
+                    DataLine.Info info = new DataLine.Info(Clip.class, format);
+
+                    if (!AudioSystem.isLineSupported(info)) {
+                        System.err.println("AudioManager: SFX Line not supported for " + resourcePath);
                         return;
                     }
-                    try (InputStream inputStream = sfxUrl.openStream();
-                         BufferedInputStream bis = new BufferedInputStream(inputStream);
-                         AudioInputStream audioStream = AudioSystem.getAudioInputStream(bis)) {
-
-                        AudioFormat format = audioStream.getFormat();
-                        DataLine.Info info = new DataLine.Info(Clip.class, format);
-
-                        if (!AudioSystem.isLineSupported(info)) {
-                            System.err.println("AudioManager: SFX Line not supported for " + resourcePath);
-                            return;
-                        }
-                        clip = (Clip) AudioSystem.getLine(info);
-                        clip.open(audioStream);
-                        sfxClipCache.put(resourcePath, clip); // Cache the opened clip
-                        System.out.println("AudioManager: SFX loaded and cached: " + resourcePath);
-                    }
-                } else {
-                     // System.out.println("AudioManager: Using cached SFX: " + resourcePath);
+                    clip = (Clip) AudioSystem.getLine(info);
+                    clip.open(audioStream);
+                    sfxClipCache.put(resourcePath, clip); // Cache the opened clip
+                    System.out.println("AudioManager: SFX loaded and cached: " + resourcePath);
                 }
+            } else {
+                 // System.out.println("AudioManager: Using cached SFX: " + resourcePath);
+            }
 
 
-                // Set volume for this playback instance
-                if (clip.isControlSupported(FloatControl.Type.MASTER_GAIN)) {
-                    FloatControl gainControl = (FloatControl) clip.getControl(FloatControl.Type.MASTER_GAIN);
-                    // Convert linear volume (0-1) to decibels. Max gain is often 6.0206f, min can be -80f or lower
-                    // This is a simplified conversion. Real dB conversion is logarithmic.
-                    float minDb = gainControl.getMinimum();
-                    float maxDb = gainControl.getMaximum();
-                    float range = maxDb - minDb;
-                    // For very low volumes, MASTER_GAIN expects very negative values.
-                    // A simple linear scale mapping might not be perceptually linear.
-                    // This approximation aims for lower values being quieter.
-                    // Example: if volume is 0.1, gain becomes minDb + 0.1*range
-                    float effectiveVolume = Math.max(0.0f, Math.min(1.0f, volume * masterVolumeSFX));
-                    if (effectiveVolume == 0.0f) {
-                        gainControl.setValue(minDb); // Mute
-                    } else {
-                        // Simplified mapping: use portion of range above a very low value
-                        // This is a rough approximation for perceived loudness
-                        float db = (float) (Math.log10(effectiveVolume) * 20.0);
-                        db = Math.max(minDb, Math.min(maxDb, db)); // Clamp to valid range
-                        gainControl.setValue(db);
-
-                        // If the above is too complex or doesn't sound right, a simpler approach:
-                        // float targetDb = minDb + (effectiveVolume * range);
-                        // gainControl.setValue(targetDb);
-                    }
+            // Set volume for this playback instance
+            if (clip.isControlSupported(FloatControl.Type.MASTER_GAIN)) {
+                FloatControl gainControl = (FloatControl) clip.getControl(FloatControl.Type.MASTER_GAIN);
+                // Convert linear volume (0-1) to decibels. Max gain is often 6.0206f, min can be -80f or lower
+                // This is a simplified conversion. Real dB conversion is logarithmic.
+                float minDb = gainControl.getMinimum();
+                float maxDb = gainControl.getMaximum();
+                float range = maxDb - minDb;
+                // For very low volumes, MASTER_GAIN expects very negative values.
+                // A simple linear scale mapping might not be perceptually linear.
+                // This approximation aims for lower values being quieter.
+                // Example: if volume is 0.1, gain becomes minDb + 0.1*range
+                float effectiveVolume = Math.max(0.0f, Math.min(1.0f, volume * masterVolumeSFX));
+                if (effectiveVolume == 0.0f) {
+                    gainControl.setValue(minDb); // Mute
+                } else {
+                    // Simplified mapping: use portion of range above a very low value
+                    // This is a rough approximation for perceived loudness
+                    float db = (float) (Math.log10(effectiveVolume) * 20.0);
+                    db = Math.max(minDb, Math.min(maxDb, db)); // Clamp to valid range
+                    gainControl.setValue(db);
+
+                    // If the above is too complex or doesn't sound right, a simpler approach:
+                    // float targetDb = minDb + (effectiveVolume * range);
+                    // gainControl.setValue(targetDb);
                 }
+            }
 
-                // Ensure clip is at the beginning if reusing
-                clip.setFramePosition(0);
-                clip.start();
+            // Ensure clip is at the beginning if reusing
+            clip.setFramePosition(0);
+            clip.start();
 
-                // No LineListener to close here, as we want to reuse the Clip from cache.
-                // Clips are closed when a new Clip is loaded for the same path, or via a cleanup method.
+            // No LineListener to close here, as we want to reuse the Clip from cache.
+            // Clips are closed when a new Clip is loaded for the same path, or via a cleanup method.
 
-            } catch (Exception e) {
-                System.err.println("AudioManager: Error playing SFX " + resourcePath);
-                e.printStackTrace();
-            }
-        });
+        } catch (Exception e) {
+            System.err.println("AudioManager: Error playing SFX " + resourcePath);
+            e.printStackTrace();
+        }
     }
 
     public void playSoundEffect(String resourcePath) {
@@ -214,39 +376,45 @@ public class AudioManager {
     }
 
     /**
-     * Preloads sound effects into the cache. Call during loading screens.
+     * Decodes sound effects into the mixer (or the Clip cache without an audio line), all in
+     * parallel on {@link AssetIO} threads. Call during loading screens.
      * @param resourcePaths Varargs of SFX resource paths to load.
+     * @return Completes once every effect has been loaded or has failed (failures are logged).
      */
-    public void preloadSoundEffects(String... resourcePaths) {
+    public CompletableFuture<Void> preloadSoundEffects(String... resourcePaths) {
+        List<CompletableFuture<Void>> loads = new ArrayList<>();
         for (String path : resourcePaths) {
             if (path == null || path.trim().isEmpty() || sfxClipCache.containsKey(path)) continue;
-            sfxExecutor.submit(() -> { // Preload on SFX thread
-                try {
-                     URL sfxUrl = getResourceUrl(path);
-                    if (sfxUrl == null) return;
-                    try (InputStream inputStream = sfxUrl.openStream();
-                         BufferedInputStream bis = new BufferedInputStream(inputStream);
-                         AudioInputStream audioStream = AudioSystem.getAudioInputStream(bis)) {
-                        Clip clip = (Clip) AudioSystem.getLine(new DataLine.Info(Clip.class, audioStream.getFormat()));
-                        clip.open(audioStream);
-                        sfxClipCache.put(path, clip);
-                        System.out.println("AudioManager: Preloaded SFX: " + path);
-                    }
-                } catch (Exception e) {
-                    System.err.println("AudioManager: Error preloading SFX " + path);
-                    e.printStackTrace();
-                }
-            });
+            loads.add(AssetIO.getInstance().run(() -> {
+                if (!loadIntoMixer(path)) preloadClip(path);
+            }));
+        }
+        return CompletableFuture.allOf(loads.toArray(new CompletableFuture<?>[0]));
+    }
+
+    private void preloadClip(String path) {
+        try {
+            URL sfxUrl = getAudioSourceUrl(path);
+            if (sfxUrl == null) return;
+            try (AudioInputStream audioStream = CompressedAudio.open(sfxUrl)) {
+                Clip clip = (Clip) AudioSystem.getLine(new DataLine.Info(Clip.class, audioStream.getFormat()));
+                clip.open(audioStream);
+                sfxClipCache.put(path, clip);
+                System.out.println("AudioManager: Preloaded SFX: " + path);
+            }
+        } catch (Exception e) {
+            System.err.println("AudioManager: Error preloading SFX " + path);
+            e.printStackTrace();
         }
     }
 
 
     // --- Text Animation SFX Methods (Specialized) ---
-    // For text blips, it's often better to have a dedicated, preloaded clip
-    // and just restart it rapidly.
+    // Text blips play on the mixer's dedicated TextBlipVoice; typing only drops a trigger into
+    // its ring buffer. A preloaded clip is kept as the fallback without an output line.
 
     /**
-     * Prepares the text blip sound.
+     * Prepares the text blip sound. Call off the FX thread.
      * @param resourcePath Path to the short WAV file for text blips.
      */
     public void loadTextBlipSound(String resourcePath) {
@@ -254,15 +422,22 @@ public class AudioManager {
             System.err.println("AudioManager: Text blip resource path is null or empty.");
             return;
         }
+        if (ensureMixer()) {
+            try {
+                sfxMixer.loadTextBlip(getAudioSourceUrl(resourcePath));
+                System.out.println("AudioManager: Text blip voice loaded: " + resourcePath);
+                return;
+            } catch (Exception e) {
+                System.err.println("AudioManager: Could not decode text blip " + resourcePath + " for the mixer, using a clip: " + e.getMessage());
+            }
+        }
         try {
             currentTextBlipClip = sfxClipCache.get(resourcePath); // Try cache first
             if (currentTextBlipClip == null || !currentTextBlipClip.isOpen()) {
-                URL sfxUrl = getResourceUrl(resourcePath);
+                URL sfxUrl = getAudioSourceUrl(resourcePath);
                 if (sfxUrl == null) throw new IOException("Text blip sound not found: " + resourcePath);
 
-                try (InputStream inputStream = sfxUrl.openStream();
-                     BufferedInputStream bis = new BufferedInputStream(inputStream);
-                     AudioInputStream audioStream = AudioSystem.getAudioInputStream(bis)) {
+                try (AudioInputStream audioStream = CompressedAudio.open(sfxUrl)) {
 
                     currentTextBlipClip = (Clip) AudioSystem.getLine(new DataLine.Info(Clip.class, audioStream.getFormat()));
                     currentTextBlipClip.open(audioStream);
@@ -288,18 +463,63 @@ public class AudioManager {
     }
 
     /**
-     * Plays the preloaded text blip sound. Very low latency targeted.
+     * Plays the text blip in its default voice.
      */
     public void playTextBlip() {
-        if (currentTextBlipClip != null && currentTextBlipClip.isOpen()) {
-            // Don't run this on the sfxExecutor, play directly for lowest latency
-            // as AnimationTimer for text rendering is on JavaFX thread.
-            // Rapid calls can be an issue, but Clips are good at restarting.
-            currentTextBlipClip.setFramePosition(0); // Rewind
-            currentTextBlipClip.start();             // Play
-        } else {
-            // System.err.println("AudioManager: Text blip sound not loaded or ready.");
+        playTextBlip(0);
+    }
+
+    /**
+     * Requests a text blip in the given voice variant. Never blocks: triggers faster than the
+     * blip rate are coalesced. Call from the FX thread.
+     * @param variant From {@link #getTextBlipVariant(String)}.
+     */
+    public void playTextBlip(int variant) {
+        TextBlipVoice voice = sfxMixer.getTextBlipVoice();
+        if (sfxMixer.isRunning() && voice.hasSound()) {
+            voice.trigger(variant);
+            return;
         }
+        // Fallback: restart the clip on the SFX thread, rate limited here since a clip can't coalesce
+        Clip clip = currentTextBlipClip;
+        double rate = voice.getMaxRate();
+        if (clip == null || rate <= 0) return;
+        long now = System.nanoTime();
+        if (now - lastClipBlipNanos < (long) (1_000_000_000.0 / rate)) return;
+        if (!textBlipClipQueued.compareAndSet(false, true)) return; // Previous restart still queued
+        lastClipBlipNanos = now;
+        sfxExecutor.submit(() -> {
+            textBlipClipQueued.set(false);
+            if (clip.isOpen()) {
+                clip.setFramePosition(0); // Rewind
+                clip.start();             // Play
+            }
+        });
+    }
+
+    /**
+     * Blip voice variant for a speaker or dialogue style; null gives the default voice.
+     */
+    public int getTextBlipVariant(String speakerOrStyle) {
+        return sfxMixer.getTextBlipVoice().variantFor(speakerOrStyle);
+    }
+
+    /**
+     * Gives a speaker or dialogue style its own blip pitch (1.0 = unmodified).
+     */
+    public void setTextBlipPitch(String speakerOrStyle, float pitch) {
+        sfxMixer.getTextBlipVoice().setVoicePitch(speakerOrStyle, pitch);
+    }
+
+    /**
+     * Caps how many text blips can start per second. 0 or less mutes them.
+     */
+    public void setMaxTextBlipsPerSecond(double blipsPerSecond) {
+        sfxMixer.getTextBlipVoice().setMaxRate(blipsPerSecond);
+    }
+
+    public double getMaxTextBlipsPerSecond() {
+        return sfxMixer.getTextBlipVoice().getMaxRate();
     }
 
 
@@ -307,8 +527,8 @@ public class AudioManager {
     public void setMasterSFXVolume(float volume) {
         this.masterVolumeSFX = Math.max(0.0f, Math.min(1.0f, volume));
         System.out.println("AudioManager: Master SFX Volume set to " + this.masterVolumeSFX);
-        // Note: This doesn't change volume of currently playing cached SFX clips directly.
-        // Volume for SFX is set at the time of playback.
+        sfxMixer.setMasterGain(this.masterVolumeSFX); // Applies to mixed effects immediately, including ones playing
+        // Note: Fallback SFX clips get their volume at the time of playback.
         // For text blip, you might re-apply volume:
         if (currentTextBlipClip != null && currentTextBlipClip.isControlSupported(FloatControl.Type.MASTER_GAIN)) {
             FloatControl gainControl = (FloatControl) currentTextBlipClip.getControl(FloatControl.Type.MASTER_GAIN);
@@ -320,6 +540,7 @@ public class AudioManager {
 
     public void setMasterBGMVolume(double volume) {
         this.masterVolumeBGM = Math.max(0.0, Math.min(1.0, volume));
+        bgmPlayer.setMasterGain((float) this.masterVolumeBGM);
         if (backgroundMusicPlayer != null) {
             // BGM volume is usually set on MediaPlayer as (baseVolume * masterVolume)
             // So we need the original baseVolume it was played with if we want to scale.
@@ -331,12 +552,37 @@ public class AudioManager {
     }
 
     // --- Utility and Cleanup ---
+    // The compressed build output when there is one; for everything decoded through Java Sound
+    private URL getAudioSourceUrl(String resourcePath) {
+        return CompressedAudio.findResource(resourcePath);
+    }
+
+    // The original file; JavaFX Media can't read the compressed format
     private URL getResourceUrl(String resourcePath) {
-        URL url = AudioManager.class.getResource(resourcePath);
-        if (url == null && !resourcePath.startsWith("/")) {
-            url = AudioManager.class.getResource("/" + resourcePath);
+        return ContentPacks.getInstance().getResource(resourcePath);
+    }
+
+    /**
+     * Forgets everything decoded from an audio file that changed on disk: the decoded BGM
+     * track, prepared Media, the mixer's copy of an effect and its fallback Clip. BGM playing
+     * from the file stops, so the next {@link #playBackgroundMusic} of the path reads the new file.
+     */
+    public void invalidateAudio(String resourcePath) {
+        if (resourcePath == null) return;
+        bgmPlayer.invalidate(resourcePath);
+        synchronized (preparedBGM) {
+            preparedBGM.remove(resourcePath);
+        }
+        if (resourcePath.equals(currentBGMPath) && backgroundMusicPlayer != null) {
+            backgroundMusicPlayer.stop();
+            backgroundMusicPlayer.dispose();
+            backgroundMusicPlayer = null;
+            currentBGMPath = null;
         }
-        return url;
+        sfxMixer.unload(resourcePath);
+        Clip clip = sfxClipCache.remove(resourcePath);
+        if (clip != null && clip != currentTextBlipClip) clip.close(); // The blip keeps its clip until reloaded
+        System.out.println("AudioManager: Invalidated " + resourcePath);
     }
 
     /**
@@ -344,7 +590,11 @@ public class AudioManager {
      */
     public void shutdown() {
         System.out.println("AudioManager: Shutting down...");
-        stopBackgroundMusic();
+        stopBackgroundMusic(0);
+        if (bgmPlayer.isRunning()) {
+            System.out.println(bgmPlayer.getStatsSummary());
+        }
+        bgmPlayer.shutdown();
         if (currentTextBlipClip != null && currentTextBlipClip.isOpen()) {
             currentTextBlipClip.close();
         }
@@ -354,6 +604,13 @@ public class AudioManager {
             }
         }
         sfxClipCache.clear();
+        if (sfxMixer.isRunning()) {
+            System.out.println(sfxMixer.getStatsSummary());
+        }
+        sfxMixer.shutdown();
+        synchronized (preparedBGM) {
+            preparedBGM.clear();
+        }
         sfxExecutor.shutdown(); // Gracefully shut down the SFX thread pool
         System.out.println("AudioManager: Shutdown complete.");
     }
@@ -0,0 +1,553 @@
+package com.leave.engine.utils;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * Background music streamed through its own {@link SourceDataLine}, with crossfades.
+ *
+ * A track is decoded on the streaming thread a chunk at a time and resampled to the mixer
+ * format as it plays, so starting a long WAV doesn't read the whole file first. The PCM of
+ * the first pass is kept, and once a track has played (or been {@link #prepare prepared})
+ * it sits in a small LRU of decoded tracks. Loops and returns to a recent track then play
+ * from memory without touching the file.
+ *
+ * Switching tracks crossfades: the old track fades out while the new one fades in, using
+ * equal-power curves so the loudness doesn't dip halfway. Only the newest two tracks are
+ * ever mixed; a third switch mid-fade drops the oldest.
+ *
+ * All playback state belongs to the streaming thread. Public methods only post commands.
+ */
+public class BgmPlayer {
+
+    public static final int DEFAULT_CROSSFADE_MILLIS = 1500;
+
+    private static final int CHANNELS = SfxMixer.CHANNELS;
+    private static final float SAMPLE_RATE = SfxMixer.SAMPLE_RATE;
+    static final int BLOCK_FRAMES = 1024;                 // ~23 ms per block
+    private static final int LINE_BUFFER_BLOCKS = 8;      // ~190 ms queued; music tolerates latency, not gaps
+    private static final int CHUNK_FRAMES = 8192;         // Source frames decoded per read
+
+    private static final int MAX_CACHED_TRACKS = 4;
+    private static final long MAX_CACHED_SAMPLES = 24L * 1024 * 1024;                 // 48 MB of 16-bit samples
+    private static final int MAX_TRACK_SAMPLES = (int) (60 * SAMPLE_RATE * CHANNELS);   // Longer tracks are only streamed
+
+    /** Produces stereo frames at the mixer rate. */
+    private abstract static class TrackReader {
+        /** Fills {@code out} with up to {@code frames} frames; fewer only at the end of a non-looping track. */
+        abstract int read(short[] out, int frames) throws IOException;
+        void close() {}
+    }
+
+    private static final class MemoryReader extends TrackReader {
+        private final short[] pcm;
+        private final boolean loop;
+        private int position = 0;
+
+        MemoryReader(short[] pcm, boolean loop) {
+            this.pcm = pcm;
+            this.loop = loop;
+        }
+
+        @Override
+        int read(short[] out, int frames) {
+            return fill(out, 0, frames * CHANNELS) / CHANNELS;
+        }
+
+        // Copies samples into out[from, to); returns how many were written
+        int fill(short[] out, int from, int to) {
+            int written = from;
+            while (written < to) {
+                if (position >= pcm.length) {
+                    if (!loop || pcm.length == 0) break;
+                    position = 0;
+                }
+                int n = Math.min(to - written, pcm.length - position);
+                System.arraycopy(pcm, position, out, written, n);
+                position += n;
+                written += n;
+            }
+            return written - from;
+        }
+    }
+
+    /**
+     * Decodes a file chunk by chunk, resampling to the mixer rate, and records the result
+     * so a fully read track can go into the decoded-track cache.
+     */
+    private final class StreamReader extends TrackReader {
+        private final String path;
+        private final URL url;
+        private final boolean loop;
+
+        private AudioInputStream stream;
+        private int sourceChannels;
+        private double step;                // Source frames per output frame
+        private byte[] sourceBytes;
+        private short[] sourceFrames;       // Stereo; index 0 holds the frame carried over from the last chunk
+        private boolean carried;
+        private double sourcePos;
+
+        private short[] pending = new short[0];
+        private int pendingPos, pendingLen;
+
+        private short[] recorded = new short[0];
+        private int recordedLen = 0;
+        private boolean recording = true;
+        private MemoryReader replay;        // Plays the recorded track after the first pass of a loop
+
+        StreamReader(String path, URL url, boolean loop) throws IOException, UnsupportedAudioFileException {
+            this.path = path;
+            this.url = url;
+            this.loop = loop;
+            open();
+        }
+
+        private void open() throws IOException, UnsupportedAudioFileException {
+            AudioInputStream source = CompressedAudio.open(url);
+            AudioFormat format = source.getFormat();
+            sourceChannels = format.getChannels();
+            float rate = format.getSampleRate();
+            AudioFormat pcm16 = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, rate, 16, sourceChannels,
+                                                sourceChannels * 2, rate, false);
+            stream = format.matches(pcm16) ? source : AudioSystem.getAudioInputStream(pcm16, source);
+            step = rate / SAMPLE_RATE;
+            sourceBytes = new byte[CHUNK_FRAMES * sourceChannels * 2];
+            sourceFrames = new short[(CHUNK_FRAMES + 1) * CHANNELS];
+            int maxOut = (int) ((CHUNK_FRAMES + 1) / step) + 2;
+            if (pending.length < maxOut * CHANNELS) pending = new short[maxOut * CHANNELS];
+            carried = false;
+            sourcePos = 0;
+            pendingPos = pendingLen = 0;
+        }
+
+        @Override
+        int read(short[] out, int frames) throws IOException {
+            int wanted = frames * CHANNELS;
+            int written = 0;
+            while (written < wanted) {
+                if (replay != null) {
+                    written += replay.fill(out, written, wanted);
+                    break;
+                }
+                if (pendingPos < pendingLen) {
+                    int n = Math.min(wanted - written, pendingLen - pendingPos);
+                    System.arraycopy(pending, pendingPos, out, written, n);
+                    pendingPos += n;
+                    written += n;
+                } else if (!decodeChunk() && !endOfPass()) {
+                    break;
+                }
+            }
+            return written / CHANNELS;
+        }
+
+        // Decodes and resamples one chunk into pending; false at the end of the file
+        private boolean decodeChunk() throws IOException {
+            int n = stream.read(sourceBytes, 0, sourceBytes.length); // Whole frames only
+            if (n <= 0) return false;
+            int newFrames = n / (sourceChannels * 2);
+            int base = carried ? 1 : 0;
+            for (int f = 0; f < newFrames; f++) {
+                for (int c = 0; c < CHANNELS; c++) {
+                    int index = (f * sourceChannels + Math.min(c, sourceChannels - 1)) * 2; // Mono is copied to both sides
+                    sourceFrames[(base + f) * CHANNELS + c] = (short) ((sourceBytes[index] & 0xff) | (sourceBytes[index + 1] << 8));
+                }
+            }
+            int total = base + newFrames;
+
+            pendingPos = pendingLen = 0;
+            while ((int) sourcePos + 1 < total) {
+                int i0 = (int) sourcePos;
+                double frac = sourcePos - i0;
+                for (int c = 0; c < CHANNELS; c++) {
+                    double s0 = sourceFrames[i0 * CHANNELS + c];
+                    double s1 = sourceFrames[(i0 + 1) * CHANNELS + c];
+                    pending[pendingLen++] = (short) Math.round(s0 + (s1 - s0) * frac);
+                }
+                sourcePos += step;
+            }
+            // Keep the last frame to interpolate across the chunk boundary
+            System.arraycopy(sourceFrames, (total - 1) * CHANNELS, sourceFrames, 0, CHANNELS);
+            sourcePos -= total - 1;
+            carried = true;
+
+            record();
+            return true;
+        }
+
+        private void record() {
+            if (!recording) return;
+            if (recordedLen + pendingLen > MAX_TRACK_SAMPLES) {
+                recording = false; // Too long to cache; keep streaming it
+                recorded = null;
+                return;
+            }
+            if (recordedLen + pendingLen > recorded.length) {
+                recorded = Arrays.copyOf(recorded, Math.max(recordedLen + pendingLen, recorded.length * 2));
+            }
+            System.arraycopy(pending, 0, recorded, recordedLen, pendingLen);
+            recordedLen += pendingLen;
+        }
+
+        // End of the file: cache the track, then loop from memory or reopen. False if playback is over
+        private boolean endOfPass() throws IOException {
+            stream.close();
+            short[] pcm = null;
+            if (recording) {
+                pcm = Arrays.copyOf(recorded, recordedLen);
+                cachePut(path, pcm);
+                recording = false;
+                recorded = null;
+            }
+            if (!loop) return false;
+            if (pcm != null) {
+                replay = new MemoryReader(pcm, true);
+                return true;
+            }
+            try {
+                open();
+                return true;
+            } catch (UnsupportedAudioFileException e) {
+                throw new IOException("Could not reopen " + path + " to loop it", e);
+            }
+        }
+
+        @Override
+        void close() {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                // Nothing left to release
+            }
+        }
+    }
+
+    /** One playing track and its fade envelope. */
+    private static final class Deck {
+        final String path;
+        final TrackReader reader;
+        float volume;
+        float envelope;         // 0..1, shaped into an equal-power gain
+        float envelopeStep;     // Per frame; negative while fading out
+        boolean done;
+
+        Deck(String path, TrackReader reader, float volume) {
+            this.path = path;
+            this.reader = reader;
+            this.volume = volume;
+        }
+
+        void fadeTo(float target, int fadeFrames) {
+            if (fadeFrames <= 0) {
+                envelope = target;
+                envelopeStep = 0;
+            } else {
+                envelopeStep = (target - envelope) / fadeFrames;
+            }
+        }
+    }
+
+    // Decoded tracks, most recently used last; guarded by itself
+    private final Map<String, short[]> trackCache = new LinkedHashMap<>(8, 0.75f, true);
+    private long cachedSamples = 0;
+
+    private final LinkedBlockingQueue<Runnable> commands = new LinkedBlockingQueue<>();
+    private final short[] deckBuffer = new short[BLOCK_FRAMES * CHANNELS];
+    private final float[] mixBuffer = new float[BLOCK_FRAMES * CHANNELS];
+    private final byte[] outBuffer = new byte[BLOCK_FRAMES * CHANNELS * 2];
+
+    private SourceDataLine line;
+    private Thread streamThread;
+    private volatile boolean running = false;
+    private volatile float masterGain = 1.0f;
+
+    // Streaming-thread state
+    private Deck current;
+    private Deck outgoing;
+
+    private volatile long cacheHits = 0;
+    private volatile long streamedStarts = 0;
+
+    /**
+     * Opens the output line and starts the streaming thread.
+     * @return false if no suitable line is available.
+     */
+    public synchronized boolean start() {
+        if (running) return true;
+        try {
+            line = AudioSystem.getSourceDataLine(SfxMixer.OUTPUT_FORMAT);
+            line.open(SfxMixer.OUTPUT_FORMAT, outBuffer.length * LINE_BUFFER_BLOCKS);
+            line.start();
+        } catch (LineUnavailableException | IllegalArgumentException | SecurityException e) {
+            System.err.println("BgmPlayer: Output line unavailable, streaming BGM disabled: " + e.getMessage());
+            line = null;
+            return false;
+        }
+        running = true;
+        streamThread = new Thread(this::runStream, "bgm-stream");
+        streamThread.setDaemon(true);
+        streamThread.start();
+        System.out.println("BgmPlayer: Started, line buffer " + line.getBufferSize() + " bytes.");
+        return true;
+    }
+
+    public boolean isRunning() { return running; }
+
+    private void runStream() {
+        try {
+            while (running) {
+                Runnable command = (current == null && outgoing == null) ? commands.take() : commands.poll();
+                while (command != null) {
+                    command.run();
+                    command = commands.poll();
+                }
+                if (current == null && outgoing == null) continue; // Idle; wait for the next command
+                mixBlock();
+                line.write(outBuffer, 0, outBuffer.length); // Blocks while the line is full
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        closeDeck(current);
+        closeDeck(outgoing);
+        current = outgoing = null;
+    }
+
+    /**
+     * Switches to a track, crossfading from whatever is playing. Asking for the track that is
+     * already playing only updates its volume.
+     * @param resourcePath    Key for the decoded-track cache.
+     * @param url             Where to stream the track from.
+     * @param volume          Track volume, 0.0 to 1.0, before the master gain.
+     * @param crossfadeMillis Length of the crossfade; 0 cuts.
+     */
+    public void play(String resourcePath, URL url, boolean loop, float volume, int crossfadeMillis) {
+        float clamped = Math.max(0f, Math.min(1f, volume));
+        commands.offer(() -> {
+            if (current != null && current.path.equals(resourcePath)) {
+                current.volume = clamped;
+                return;
+            }
+            int fadeFrames = framesFor(crossfadeMillis);
+            if (outgoing != null && outgoing.path.equals(resourcePath)) {
+                // Switched back mid-fade: reverse the crossfade instead of restarting the track
+                Deck revived = outgoing;
+                outgoing = current;
+                if (outgoing != null) outgoing.fadeTo(0f, fadeFrames);
+                current = revived;
+                current.volume = clamped;
+                current.fadeTo(1f, fadeFrames);
+                return;
+            }
+            closeDeck(outgoing); // Never more than two tracks at once
+            outgoing = current;
+            if (outgoing != null) outgoing.fadeTo(0f, fadeFrames);
+
+            TrackReader reader;
+            short[] cached = cacheGet(resourcePath);
+            try {
+                if (cached != null) {
+                    reader = new MemoryReader(cached, loop);
+                    cacheHits++;
+                } else {
+                    reader = new StreamReader(resourcePath, url, loop);
+                    streamedStarts++;
+                }
+            } catch (IOException | UnsupportedAudioFileException e) {
+                System.err.println("BgmPlayer: Cannot stream " + resourcePath + ": " + e.getMessage());
+                current = null;
+                return;
+            }
+            current = new Deck(resourcePath, reader, clamped);
+            current.fadeTo(1f, fadeFrames);
+            System.out.println("BgmPlayer: Playing " + resourcePath + (cached != null ? " from cache" : " (streaming)") +
+                               (outgoing != null ? ", crossfading from " + outgoing.path : ""));
+        });
+    }
+
+    /** Fades out the current track. */
+    public void stop(int fadeMillis) {
+        commands.offer(() -> {
+            if (current == null) return;
+            int fadeFrames = framesFor(fadeMillis);
+            closeDeck(outgoing);
+            outgoing = current;
+            outgoing.fadeTo(0f, fadeFrames);
+            current = null;
+        });
+    }
+
+    /** Volume of the current track, 0.0 to 1.0. */
+    public void setVolume(float volume) {
+        float clamped = Math.max(0f, Math.min(1f, volume));
+        commands.offer(() -> {
+            if (current != null) current.volume = clamped;
+        });
+    }
+
+    /** Gain applied to all music, 0.0 to 1.0. */
+    public void setMasterGain(float gain) {
+        masterGain = Math.max(0f, Math.min(1f, gain));
+    }
+
+    /**
+     * Decodes a whole track into the cache so it starts from memory. Call off the FX thread.
+     */
+    public void prepare(String resourcePath, URL url) throws IOException, UnsupportedAudioFileException {
+        if (cacheContains(resourcePath)) return;
+        StreamReader reader = new StreamReader(resourcePath, url, false);
+        try {
+            short[] scratch = new short[CHUNK_FRAMES * CHANNELS];
+            while (reader.read(scratch, CHUNK_FRAMES) == CHUNK_FRAMES) {
+                // The reader caches the track when it reaches the end
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    private int framesFor(int millis) {
+        return (int) (Math.max(0, millis) * SAMPLE_RATE / 1000);
+    }
+
+    private void mixBlock() {
+        Arrays.fill(mixBuffer, 0f);
+        mixDeck(outgoing);
+        mixDeck(current);
+        if (outgoing != null && outgoing.done) {
+            closeDeck(outgoing);
+            outgoing = null;
+        }
+        if (current != null && current.done) {
+            closeDeck(current);
+            current = null;
+        }
+
+        float master = masterGain;
+        for (int i = 0; i < mixBuffer.length; i++) {
+            int s = (int) (mixBuffer[i] * master);
+            if (s > Short.MAX_VALUE) s = Short.MAX_VALUE;
+            else if (s < Short.MIN_VALUE) s = Short.MIN_VALUE;
+            outBuffer[i * 2] = (byte) s;
+            outBuffer[i * 2 + 1] = (byte) (s >> 8);
+        }
+    }
+
+    private void mixDeck(Deck deck) {
+        if (deck == null || deck.done) return;
+        int frames;
+        try {
+            frames = deck.reader.read(deckBuffer, BLOCK_FRAMES);
+        } catch (IOException e) {
+            System.err.println("BgmPlayer: Error streaming " + deck.path + ": " + e.getMessage());
+            deck.done = true;
+            return;
+        }
+        float envelope = deck.envelope;
+        float step = deck.envelopeStep;
+        float volume = deck.volume;
+        for (int f = 0; f < frames; f++) {
+            if (step != 0) {
+                envelope += step;
+                if (envelope >= 1f) { envelope = 1f; step = 0; }
+                else if (envelope <= 0f) { envelope = 0f; step = 0; }
+            }
+            float gain = volume * (float) Math.sin(envelope * (Math.PI / 2)); // Equal-power curve
+            mixBuffer[f * CHANNELS] += deckBuffer[f * CHANNELS] * gain;
+            mixBuffer[f * CHANNELS + 1] += deckBuffer[f * CHANNELS + 1] * gain;
+        }
+        deck.envelope = envelope;
+        deck.envelopeStep = step;
+        if (frames < BLOCK_FRAMES) deck.done = true;                   // Non-looping track ended
+        if (deck.envelope == 0f && deck.envelopeStep == 0) deck.done = true; // Faded out
+    }
+
+    private static void closeDeck(Deck deck) {
+        if (deck != null) deck.reader.close();
+    }
+
+    private void cachePut(String path, short[] pcm) {
+        synchronized (trackCache) {
+            short[] previous = trackCache.put(path, pcm);
+            if (previous != null) cachedSamples -= previous.length;
+            cachedSamples += pcm.length;
+            while (trackCache.size() > 1 && (trackCache.size() > MAX_CACHED_TRACKS || cachedSamples > MAX_CACHED_SAMPLES)) {
+                String eldest = trackCache.keySet().iterator().next();
+                cachedSamples -= trackCache.remove(eldest).length;
+            }
+        }
+    }
+
+    short[] cacheGet(String path) {
+        synchronized (trackCache) {
+            return trackCache.get(path);
+        }
+    }
+
+    /**
+     * Forgets a track whose file changed. If it is playing it stops at once, so the next
+     * {@link #play} of the path reads the new file instead of continuing the old one.
+     */
+    public void invalidate(String path) {
+        synchronized (trackCache) {
+            short[] removed = trackCache.remove(path);
+            if (removed != null) cachedSamples -= removed.length;
+        }
+        commands.offer(() -> {
+            if (outgoing != null && outgoing.path.equals(path)) {
+                closeDeck(outgoing);
+                outgoing = null;
+            }
+            if (current != null && current.path.equals(path)) {
+                closeDeck(current);
+                current = null;
+            }
+        });
+    }
+
+    public boolean cacheContains(String path) {
+        synchronized (trackCache) {
+            return trackCache.containsKey(path);
+        }
+    }
+
+    public String getStatsSummary() {
+        synchronized (trackCache) {
+            return "BgmPlayer: " + trackCache.size() + " decoded tracks cached (" + cachedSamples * 2 / (1024 * 1024) +
+                   " MB), " + cacheHits + " starts from cache, " + streamedStarts + " streamed";
+        }
+    }
+
+    /** Stops playback immediately and closes the line. */
+    public synchronized void shutdown() {
+        running = false;
+        if (streamThread != null) {
+            streamThread.interrupt();
+            try {
+                streamThread.join(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            streamThread = null;
+        }
+        if (line != null) {
+            line.stop();
+            line.flush();
+            line.close();
+            line = null;
+        }
+        commands.clear();
+    }
+}
@@ -0,0 +1,306 @@
+package com.leave.engine.utils;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.util.Arrays;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * Compact audio format written by {@link AudioCompiler} and decoded here in pure Java.
+ *
+ * Samples are IMA ADPCM (4 bits per sample, a quarter of 16-bit PCM) in fixed-size blocks.
+ * Every block restarts the predictor of each channel, so the decoder only ever holds one
+ * block and a stream can be read front to back with bounded memory.
+ *
+ * Layout (big-endian header):
+ * <pre>
+ *   int magic, short version, int sampleRate, short channels, int frames, short blockFrames
+ *   blocks, each: channels x (short first sample, byte step index, byte 0)
+ *                 then (blockFrames - 1) frames of 4-bit codes, channels interleaved,
+ *                 low nibble first, padded to a whole byte
+ * </pre>
+ * The last block is padded to full size; {@code frames} says where the audio ends.
+ *
+ * Game code asks for a {@code .wav} path as before. {@link #findResource(String)} returns
+ * the compressed sibling when the build produced one, and {@link #open(URL)} decodes it.
+ */
+public final class CompressedAudio {
+
+    public static final String EXTENSION = ".lvau";
+    static final int MAGIC = 0x4C564155; // "LVAU"
+    static final short VERSION = 1;
+    static final int BLOCK_FRAMES = 1025; // Header sample + 1024 coded frames
+
+    private static final int[] STEP_TABLE = {
+        7, 8, 9, 10, 11, 12, 13, 14, 16, 17, 19, 21, 23, 25, 28, 31, 34, 37, 41, 45,
+        50, 55, 60, 66, 73, 80, 88, 97, 107, 118, 130, 143, 157, 173, 190, 209, 230, 253, 279, 307,
+        337, 371, 408, 449, 494, 544, 598, 658, 724, 796, 876, 963, 1060, 1166, 1282, 1411, 1552, 1707, 1878, 2066,
+        2272, 2499, 2749, 3024, 3327, 3660, 4026, 4428, 4871, 5358, 5894, 6484, 7132, 7845, 8630, 9493, 10442, 11487, 12635, 13899,
+        15289, 16818, 18500, 20350, 22385, 24623, 27086, 29794, 32767
+    };
+    private static final int[] INDEX_TABLE = { -1, -1, -1, -1, 2, 4, 6, 8, -1, -1, -1, -1, 2, 4, 6, 8 };
+
+    private CompressedAudio() {}
+
+    /** Bytes in one block for the given channel count. */
+    static int blockBytes(int channels) {
+        return channels * 4 + ((BLOCK_FRAMES - 1) * channels + 1) / 2;
+    }
+
+    /**
+     * Finds an audio resource, preferring the compressed version of a {@code .wav} path.
+     * Content packs are searched for either file before the jar, so a pack's replacement
+     * {@code .wav} wins over the jar's compressed copy of the original.
+     * @return The resource URL, or null if neither exists.
+     */
+    public static URL findResource(String resourcePath) {
+        if (resourcePath == null) return null;
+        String path = resourcePath.startsWith("/") ? resourcePath : "/" + resourcePath;
+        ContentPacks packs = ContentPacks.getInstance();
+        if (!path.toLowerCase().endsWith(".wav")) return packs.getResource(path);
+
+        String compressedPath = path.substring(0, path.length() - 4) + EXTENSION;
+        if (packs.findInPacks(compressedPath) != null) return packs.getResource(compressedPath);
+        if (packs.findInPacks(path) != null) return packs.getResource(path);
+        URL compressed = packs.getResource(compressedPath);
+        return compressed != null ? compressed : packs.getResource(path);
+    }
+
+    /**
+     * Opens an audio URL as a stream. Compressed files decode to 16-bit PCM as they are read;
+     * anything else goes through {@link AudioSystem}. The caller closes the stream.
+     */
+    public static AudioInputStream open(URL url) throws IOException, UnsupportedAudioFileException {
+        if (url == null) throw new IOException("Audio resource not found.");
+        InputStream in = new BufferedInputStream(url.openStream());
+        try {
+            if (url.getPath().endsWith(EXTENSION)) {
+                return decode(in);
+            }
+            return AudioSystem.getAudioInputStream(in);
+        } catch (IOException | UnsupportedAudioFileException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Wraps a compressed stream (positioned at its header) in a decoding AudioInputStream.
+     */
+    public static AudioInputStream decode(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) throw new IOException("Not a compressed audio stream (bad magic).");
+        short version = data.readShort();
+        if (version != VERSION) throw new IOException("Unsupported compressed audio version " + version + ".");
+        int sampleRate = data.readInt();
+        int channels = data.readShort();
+        int frames = data.readInt();
+        int blockFrames = data.readShort();
+        if (channels < 1 || channels > 2 || blockFrames != BLOCK_FRAMES || frames < 0) {
+            throw new IOException("Corrupt compressed audio header.");
+        }
+        AudioFormat format = new AudioFormat(sampleRate, 16, channels, true, false);
+        return new AudioInputStream(new DecoderStream(data, channels, frames), format, frames);
+    }
+
+    /** Decodes one block at a time into little-endian 16-bit PCM. */
+    private static final class DecoderStream extends InputStream {
+        private final DataInputStream in;
+        private final int channels;
+        private int framesLeft;
+        private final byte[] block;
+        private final byte[] pcm;          // One decoded block
+        private int pcmPos = 0, pcmLen = 0;
+        private final int[] predictor;
+        private final int[] stepIndex;
+
+        DecoderStream(DataInputStream in, int channels, int frames) {
+            this.in = in;
+            this.channels = channels;
+            this.framesLeft = frames;
+            this.block = new byte[blockBytes(channels)];
+            this.pcm = new byte[BLOCK_FRAMES * channels * 2];
+            this.predictor = new int[channels];
+            this.stepIndex = new int[channels];
+        }
+
+        private boolean fill() throws IOException {
+            if (framesLeft <= 0) return false;
+            in.readFully(block);
+            int frames = Math.min(BLOCK_FRAMES, framesLeft);
+            int p = 0;
+            for (int c = 0; c < channels; c++) {
+                predictor[c] = (short) (((block[p] & 0xff) << 8) | (block[p + 1] & 0xff));
+                stepIndex[c] = Math.min(88, block[p + 2] & 0xff);
+                p += 4;
+                putSample(c, predictor[c]);
+            }
+            // Channels are decoded one at a time so each keeps its state in locals
+            for (int c = 0; c < channels; c++) {
+                int value = predictor[c];
+                int index = stepIndex[c];
+                int out = (channels + c) * 2;
+                for (int nibble = c, f = 1; f < frames; f++, nibble += channels, out += channels * 2) {
+                    int b = block[p + (nibble >> 1)];
+                    int code = (nibble & 1) == 0 ? b & 0x0f : (b >> 4) & 0x0f;
+                    int step = STEP_TABLE[index];
+                    int diff = step >> 3;
+                    if ((code & 4) != 0) diff += step;
+                    if ((code & 2) != 0) diff += step >> 1;
+                    if ((code & 1) != 0) diff += step >> 2;
+                    value += (code & 8) != 0 ? -diff : diff;
+                    if (value > Short.MAX_VALUE) value = Short.MAX_VALUE;
+                    else if (value < Short.MIN_VALUE) value = Short.MIN_VALUE;
+                    index += INDEX_TABLE[code];
+                    if (index < 0) index = 0;
+                    else if (index > 88) index = 88;
+                    pcm[out] = (byte) value;
+                    pcm[out + 1] = (byte) (value >> 8);
+                }
+            }
+            framesLeft -= frames;
+            pcmPos = 0;
+            pcmLen = frames * channels * 2;
+            return true;
+        }
+
+        private void putSample(int channel, int sample) {
+            pcm[channel * 2] = (byte) sample;
+            pcm[channel * 2 + 1] = (byte) (sample >> 8);
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (pcmPos >= pcmLen && !fill()) return -1;
+            return pcm[pcmPos++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            int total = 0;
+            while (total < len) {
+                if (pcmPos >= pcmLen) {
+                    try {
+                        if (!fill()) break;
+                    } catch (EOFException e) {
+                        throw new IOException("Compressed audio stream is truncated.", e);
+                    }
+                }
+                int n = Math.min(len - total, pcmLen - pcmPos);
+                System.arraycopy(pcm, pcmPos, b, off + total, n);
+                pcmPos += n;
+                total += n;
+            }
+            return total == 0 ? -1 : total;
+        }
+
+        @Override
+        public int available() {
+            return pcmLen - pcmPos;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * Encodes 16-bit PCM to the compressed format.
+     * @param source Any stream AudioSystem can convert to 16-bit signed PCM; mono or stereo.
+     * @param out    Destination. Not closed.
+     * @return Frames written.
+     */
+    public static int encode(AudioInputStream source, OutputStream out) throws IOException {
+        AudioFormat format = source.getFormat();
+        int channels = format.getChannels();
+        if (channels < 1 || channels > 2) throw new IOException("Only mono and stereo audio can be compressed.");
+        float rate = format.getSampleRate();
+        AudioFormat pcm16 = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, rate, 16, channels, channels * 2, rate, false);
+        AudioInputStream pcmStream = format.matches(pcm16) ? source : AudioSystem.getAudioInputStream(pcm16, source);
+        byte[] bytes = pcmStream.readAllBytes();
+        int frames = bytes.length / (channels * 2);
+
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeShort(VERSION);
+        data.writeInt(Math.round(rate));
+        data.writeShort(channels);
+        data.writeInt(frames);
+        data.writeShort(BLOCK_FRAMES);
+
+        byte[] block = new byte[blockBytes(channels)];
+        int[] predictor = new int[channels];
+        int[] stepIndex = new int[channels];
+        for (int start = 0; start < frames; start += BLOCK_FRAMES) {
+            Arrays.fill(block, (byte) 0);
+            int count = Math.min(BLOCK_FRAMES, frames - start);
+            int p = 0;
+            for (int c = 0; c < channels; c++) {
+                int first = sample(bytes, start, c, channels);
+                predictor[c] = first;
+                // Start each block at the step size that best fits its opening slope
+                int delta = count > 1 ? Math.abs(sample(bytes, start + 1, c, channels) - first) : 0;
+                stepIndex[c] = initialIndex(delta);
+                block[p] = (byte) (first >> 8);
+                block[p + 1] = (byte) first;
+                block[p + 2] = (byte) stepIndex[c];
+                p += 4;
+            }
+            int nibble = 0;
+            for (int f = 1; f < count; f++) {
+                for (int c = 0; c < channels; c++, nibble++) {
+                    int code = encodeSample(sample(bytes, start + f, c, channels), c, predictor, stepIndex);
+                    int index = p + (nibble >> 1);
+                    block[index] |= (nibble & 1) == 0 ? code : code << 4;
+                }
+            }
+            data.write(block);
+        }
+        data.flush();
+        return frames;
+    }
+
+    private static int sample(byte[] pcm, int frame, int channel, int channels) {
+        int index = (frame * channels + channel) * 2;
+        return (short) ((pcm[index] & 0xff) | (pcm[index + 1] << 8));
+    }
+
+    private static int initialIndex(int delta) {
+        int index = 0;
+        while (index < 88 && STEP_TABLE[index] < delta) index++;
+        return index;
+    }
+
+    // Standard IMA ADPCM quantizer; tracks the decoder's state exactly
+    private static int encodeSample(int sample, int channel, int[] predictor, int[] stepIndex) {
+        int step = STEP_TABLE[stepIndex[channel]];
+        int diff = sample - predictor[channel];
+        int code = 0;
+        if (diff < 0) {
+            code = 8;
+            diff = -diff;
+        }
+        int delta = step >> 3;
+        if (diff >= step) { code |= 4; diff -= step; delta += step; }
+        step >>= 1;
+        if (diff >= step) { code |= 2; diff -= step; delta += step; }
+        step >>= 1;
+        if (diff >= step) { code |= 1; delta += step; }
+        int value = predictor[channel] + ((code & 8) != 0 ? -delta : delta);
+        predictor[channel] = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, value));
+        stepIndex[channel] = Math.max(0, Math.min(88, stepIndex[channel] + INDEX_TABLE[code]));
+        return code;
+    }
+}
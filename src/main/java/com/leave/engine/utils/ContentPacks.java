@@ -0,0 +1,297 @@
+package com.leave.engine.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Story and asset packs: zip archives mounted through the NIO zip {@link FileSystem} and
+ * searched before the classpath, so content can ship outside the jar.
+ *
+ * A pack mirrors the classpath layout, e.g. a pack holding
+ * {@code com/leave/engine/images/backgrounds/3door.png} replaces or adds that image. Packs
+ * mounted later win over earlier ones, and every pack wins over the jar.
+ *
+ * Mounting only reads each archive's central directory; the path index is then built on
+ * {@link AssetIO} threads, one task per directory, so several large packs index at once.
+ * Entries are only inflated when something reads them. Mount packs before anything is
+ * loaded (App does it in {@code init()}); resources already cached keep the copy they were
+ * loaded from.
+ *
+ * Packs to mount at startup come from {@value #PACKS_PROPERTY}: zip files or directories of
+ * them (mounted in name order), separated by the platform path separator.
+ */
+public final class ContentPacks {
+
+    /** System property listing the packs to mount at startup. */
+    public static final String PACKS_PROPERTY = "leave.packs";
+    public static final String PACK_EXTENSION = ".zip";
+
+    /** One mounted archive. */
+    private static final class Pack {
+        final Path archive;
+        final FileSystem fileSystem;
+        final Map<String, Path> entries;
+
+        Pack(Path archive, FileSystem fileSystem, Map<String, Path> entries) {
+            this.archive = archive;
+            this.fileSystem = fileSystem;
+            this.entries = entries;
+        }
+    }
+
+    private static ContentPacks instance;
+
+    private final List<Pack> packs = new ArrayList<>();
+    private volatile Map<String, Path> index = Collections.emptyMap(); // Resource path -> entry of the winning pack
+
+    private ContentPacks() {}
+
+    public static synchronized ContentPacks getInstance() {
+        if (instance == null) {
+            instance = new ContentPacks();
+        }
+        return instance;
+    }
+
+    /**
+     * Mounts the packs named by {@value #PACKS_PROPERTY}, if it is set. A pack that cannot be
+     * opened is logged and skipped; the game runs from the jar without it.
+     * @return The number of packs mounted.
+     */
+    public int mountRequested() {
+        String property = System.getProperty(PACKS_PROPERTY);
+        if (property == null || property.trim().isEmpty()) return 0;
+        List<Path> archives = new ArrayList<>();
+        for (String part : property.split(File.pathSeparator)) {
+            if (part.trim().isEmpty()) continue;
+            Path path = Paths.get(part.trim());
+            if (!Files.isDirectory(path)) {
+                archives.add(path);
+                continue;
+            }
+            try (DirectoryStream<Path> dir = Files.newDirectoryStream(path, "*" + PACK_EXTENSION)) {
+                List<Path> found = new ArrayList<>();
+                dir.forEach(found::add);
+                Collections.sort(found);
+                archives.addAll(found);
+            } catch (IOException e) {
+                System.err.println("ContentPacks: Cannot list pack directory " + path + ": " + e.getMessage());
+            }
+        }
+        return mount(archives);
+    }
+
+    /**
+     * Mounts archives in order, later ones taking precedence. All of them are opened and
+     * indexed in parallel; the call returns once every index is built.
+     * @return The number of packs mounted.
+     */
+    public int mount(List<Path> archives) {
+        long begin = System.nanoTime();
+        List<CompletableFuture<Pack>> opening = new ArrayList<>();
+        for (Path archive : archives) {
+            opening.add(AssetIO.getInstance().submit(() -> open(archive))
+                    .thenCompose(fileSystem -> indexAsync(archive, fileSystem)));
+        }
+        int mounted = 0;
+        int entries = 0;
+        synchronized (this) {
+            Map<String, Path> merged = new HashMap<>(index);
+            for (int i = 0; i < opening.size(); i++) {
+                Pack pack;
+                try {
+                    pack = opening.get(i).join();
+                } catch (CompletionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    System.err.println("ContentPacks: Cannot mount " + archives.get(i) + ": " + cause.getMessage());
+                    continue;
+                }
+                packs.add(pack);
+                merged.putAll(pack.entries); // In mount order, so a later pack overrides
+                mounted++;
+                entries += pack.entries.size();
+            }
+            index = Collections.unmodifiableMap(merged);
+        }
+        if (!opening.isEmpty()) {
+            System.out.println("ContentPacks: Mounted " + mounted + "/" + opening.size() + " packs (" + entries +
+                               " files) in " + (System.nanoTime() - begin) / 1_000_000 + " ms.");
+        }
+        return mounted;
+    }
+
+    /** Mounts a single archive. */
+    public boolean mount(Path archive) {
+        return mount(List.of(archive)) == 1;
+    }
+
+    private static FileSystem open(Path archive) throws IOException {
+        if (!Files.isRegularFile(archive)) throw new IOException("Not a file: " + archive);
+        return FileSystems.newFileSystem(archive, (ClassLoader) null);
+    }
+
+    // Lists each directory on its own task; the last task to finish completes the pack
+    private static CompletableFuture<Pack> indexAsync(Path archive, FileSystem fileSystem) {
+        Map<String, Path> entries = new ConcurrentHashMap<>();
+        CompletableFuture<Pack> done = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger();
+        for (Path root : fileSystem.getRootDirectories()) {
+            indexDirectory(root, entries, pending, done, archive, fileSystem);
+        }
+        return done.whenComplete((pack, error) -> {
+            if (error != null) closeQuietly(fileSystem);
+        });
+    }
+
+    private static void indexDirectory(Path dir, Map<String, Path> entries, AtomicInteger pending,
+                                       CompletableFuture<Pack> done, Path archive, FileSystem fileSystem) {
+        pending.incrementAndGet();
+        AssetIO.getInstance().run(() -> {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                for (Path child : stream) {
+                    if (Files.isDirectory(child)) {
+                        indexDirectory(child, entries, pending, done, archive, fileSystem);
+                    } else {
+                        entries.put(toResourcePath(child), child);
+                    }
+                }
+            }
+        }).whenComplete((ignored, error) -> {
+            if (error != null) {
+                done.completeExceptionally(error.getCause() != null ? error.getCause() : error);
+            } else if (pending.decrementAndGet() == 0) {
+                done.complete(new Pack(archive, fileSystem, new HashMap<>(entries)));
+            }
+        });
+    }
+
+    // "/com/leave/..." for the entry com/leave/... of any pack
+    static String toResourcePath(Path entry) {
+        String path = entry.toString();
+        return path.startsWith("/") ? path : "/" + path;
+    }
+
+    /** The entry of the winning pack for a resource, or null if no pack has it. */
+    public Path findInPacks(String resourcePath) {
+        if (resourcePath == null || resourcePath.trim().isEmpty()) return null;
+        Map<String, Path> current = index;
+        if (current.isEmpty()) return null;
+        return current.get(resourcePath.startsWith("/") ? resourcePath : "/" + resourcePath);
+    }
+
+    /**
+     * Finds a resource in the packs, then on the classpath. A classpath path without the
+     * leading '/' is also tried as an absolute one, as the loaders always have.
+     * @return The resource URL ({@code jar:file:...!/...} inside a pack), or null if it does not exist.
+     */
+    public URL getResource(String resourcePath) {
+        if (resourcePath == null || resourcePath.trim().isEmpty()) return null;
+        Path entry = findInPacks(resourcePath);
+        if (entry != null) {
+            try {
+                return entry.toUri().toURL();
+            } catch (MalformedURLException e) {
+                System.err.println("ContentPacks: No URL for " + entry + ": " + e.getMessage());
+            }
+        }
+        URL url = ContentPacks.class.getResource(resourcePath);
+        if (url == null && !resourcePath.startsWith("/")) {
+            url = ContentPacks.class.getResource("/" + resourcePath);
+        }
+        return url;
+    }
+
+    /**
+     * Opens a resource from the packs or the classpath. Pack entries are read through the
+     * zip file system directly. The caller closes the stream.
+     * @return The stream, or null if the resource does not exist.
+     */
+    public InputStream openStream(String resourcePath) throws IOException {
+        Path entry = findInPacks(resourcePath);
+        if (entry != null) return Files.newInputStream(entry);
+        URL url = getResource(resourcePath);
+        return url != null ? url.openStream() : null;
+    }
+
+    public boolean exists(String resourcePath) {
+        return findInPacks(resourcePath) != null || getResource(resourcePath) != null;
+    }
+
+    /**
+     * Every copy of a resource, the jar's first and then each pack's in mount order, for
+     * files that are merged rather than replaced (such as the image tier manifest).
+     */
+    public synchronized List<URL> getAllResources(String resourcePath) {
+        List<URL> urls = new ArrayList<>();
+        URL base = ContentPacks.class.getResource(resourcePath);
+        if (base != null) urls.add(base);
+        String key = resourcePath.startsWith("/") ? resourcePath : "/" + resourcePath;
+        for (Pack pack : packs) {
+            Path entry = pack.entries.get(key);
+            if (entry == null) continue;
+            try {
+                urls.add(entry.toUri().toURL());
+            } catch (MalformedURLException e) {
+                System.err.println("ContentPacks: No URL for " + entry + ": " + e.getMessage());
+            }
+        }
+        return urls;
+    }
+
+    /** Every pack's entry for a resource, in mount order; empty if no pack has it. */
+    public synchronized List<Path> findAllInPacks(String resourcePath) {
+        List<Path> found = new ArrayList<>();
+        if (resourcePath == null || resourcePath.trim().isEmpty()) return found;
+        String key = resourcePath.startsWith("/") ? resourcePath : "/" + resourcePath;
+        for (Pack pack : packs) {
+            Path entry = pack.entries.get(key);
+            if (entry != null) found.add(entry);
+        }
+        return found;
+    }
+
+    /** Archives currently mounted, in mount order. */
+    public synchronized List<Path> getMountedArchives() {
+        List<Path> archives = new ArrayList<>();
+        for (Pack pack : packs) archives.add(pack.archive);
+        return archives;
+    }
+
+    /** Number of resources served from packs. */
+    public int getIndexedCount() {
+        return index.size();
+    }
+
+    /** Closes every pack; lookups go back to the classpath only. */
+    public synchronized void unmountAll() {
+        index = Collections.emptyMap();
+        for (Pack pack : packs) closeQuietly(pack.fileSystem);
+        packs.clear();
+    }
+
+    private static void closeQuietly(FileSystem fileSystem) {
+        try {
+            fileSystem.close();
+        } catch (IOException e) {
+            System.err.println("ContentPacks: Error closing pack: " + e.getMessage());
+        }
+    }
+}
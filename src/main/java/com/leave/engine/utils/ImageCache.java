@@ -0,0 +1,281 @@
+package com.leave.engine.utils;
+
+import java.net.URL;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import javafx.scene.image.Image;
+
+/**
+ * Shared cache of decoded {@link Image}s keyed by classpath resource path.
+ * Every image load in the engine goes through here so that revisiting a scene
+ * reuses the already decoded background, sprite sheet or portrait instead of
+ * decoding the PNG again.
+ *
+ * Entries are kept in least-recently-used order and evicted once the estimated
+ * pixel memory (width * height * 4 bytes) goes over the configured budget.
+ * Images that are still shown on an ImageView stay alive through that view;
+ * eviction only drops the cache's own reference.
+ *
+ * Full-screen images go through {@link #getImageForDisplay(String)} instead, which decodes
+ * the smallest {@link ImageTiers} tier that covers the display at just the size needed.
+ * Those entries are keyed by path plus decoded size, separately from the original.
+ */
+public class ImageCache {
+
+    private static ImageCache instance;
+
+    public static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024; // 256 MB of decoded pixels
+
+    // accessOrder = true makes iteration order least-recently-used first
+    private final LinkedHashMap<String, Image> images = new LinkedHashMap<>(32, 0.75f, true);
+    private long maxBytes = DEFAULT_MAX_BYTES;
+    private long currentBytes = 0;
+
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    // Full-screen size in device pixels, 0 until the stage reports it
+    private volatile double displayWidth = 0;
+    private volatile double displayHeight = 0;
+    private volatile ImageTiers tiers;
+
+    ImageCache() {} // Package-private so tests can use a cache of their own
+
+    public static synchronized ImageCache getInstance() {
+        if (instance == null) {
+            instance = new ImageCache();
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the shared decoded image for a resource path, loading it on a miss.
+     * Decoding happens outside the cache lock so other threads are not blocked by a large PNG.
+     *
+     * @param resourcePath Classpath resource path (e.g., "/com/leave/engine/images/backgrounds/3door.png")
+     * @return The decoded image, an image with {@code isError()} set if decoding failed
+     *         (not cached), or null if the resource does not exist.
+     */
+    public Image getImage(String resourcePath) {
+        if (resourcePath == null || resourcePath.trim().isEmpty()) {
+            System.err.println("ImageCache: Resource path is null or empty.");
+            return null;
+        }
+        return load(resourcePath, new ImageTiers.Choice(resourcePath, 0, 0));
+    }
+
+    /**
+     * Returns an image meant to fill the screen, decoded no larger than needed to cover the
+     * display set with {@link #setDisplaySize(double, double)}: the smallest downscaled tier
+     * that still covers it, loaded through JavaFX's requested-size decode at the image's
+     * aspect ratio. Falls back to {@link #getImage(String)} when the display size is unknown
+     * or the image has no tiers and is not larger than the display.
+     *
+     * Only for images shown whole; sprite sheets must use {@link #getImage(String)} because
+     * their frame viewports are in source pixels.
+     */
+    public Image getImageForDisplay(String resourcePath) {
+        if (resourcePath == null || resourcePath.trim().isEmpty()) {
+            System.err.println("ImageCache: Resource path is null or empty.");
+            return null;
+        }
+        ImageTiers.Choice choice = chooseForDisplay(resourcePath);
+        if (choice.getWidth() <= 0) return getImage(resourcePath);
+        return load(displayKey(resourcePath, choice), choice);
+    }
+
+    /**
+     * Returns true if {@link #getImageForDisplay(String)} would be a cache hit.
+     */
+    public synchronized boolean containsForDisplay(String resourcePath) {
+        if (resourcePath == null) return false;
+        ImageTiers.Choice choice = chooseForDisplay(resourcePath);
+        return images.containsKey(choice.getWidth() <= 0 ? resourcePath : displayKey(resourcePath, choice));
+    }
+
+    /**
+     * Sets the area full-screen images have to cover, in device pixels (screen bounds times
+     * the output scale). Images already decoded for the old size stay cached until evicted.
+     */
+    public void setDisplaySize(double width, double height) {
+        if (width <= 0 || height <= 0) {
+            System.err.println("ImageCache: Ignoring invalid display size: " + width + "x" + height);
+            return;
+        }
+        if (width != displayWidth || height != displayHeight) {
+            System.out.println("ImageCache: Display size " + (int) width + "x" + (int) height + " for full-screen images.");
+        }
+        displayWidth = width;
+        displayHeight = height;
+    }
+
+    public double getDisplayWidth() { return displayWidth; }
+    public double getDisplayHeight() { return displayHeight; }
+
+    private ImageTiers.Choice chooseForDisplay(String resourcePath) {
+        ImageTiers t = tiers;
+        if (t == null) {
+            t = ImageTiers.getClasspathTiers();
+            tiers = t;
+        }
+        return t.choose(resourcePath, displayWidth, displayHeight);
+    }
+
+    private static String displayKey(String resourcePath, ImageTiers.Choice choice) {
+        return resourcePath + "@" + choice.getWidth() + "x" + choice.getHeight();
+    }
+
+    // Cache lookup, then decode outside the lock; a choice with a size uses the requested-size decode
+    private Image load(String key, ImageTiers.Choice choice) {
+        synchronized (this) {
+            Image cached = images.get(key);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+        }
+
+        URL url = getResourceUrl(choice.getResourcePath());
+        if (url == null) {
+            System.err.println("ImageCache: Image resource not found: " + choice.getResourcePath());
+            return null;
+        }
+        Image loaded = decode(url, choice);
+        if (loaded.isError()) {
+            System.err.println("ImageCache: Error decoding image " + choice.getResourcePath() + ": " +
+                               (loaded.getException() != null ? loaded.getException().getMessage() : "unknown"));
+            return loaded; // Callers already check isError(), so hand it back but don't keep it
+        }
+        return put(key, loaded);
+    }
+
+    // Decoding needs the FX toolkit; tests without a display replace this
+    Image decode(URL url, ImageTiers.Choice choice) {
+        return choice.getWidth() > 0
+                ? new Image(url.toExternalForm(), choice.getWidth(), choice.getHeight(), false, true)
+                : new Image(url.toExternalForm());
+    }
+
+    /**
+     * {@link #getImage(String)} on an {@link AssetIO} thread. Completes immediately on a hit.
+     */
+    public CompletableFuture<Image> getImageAsync(String resourcePath) {
+        if (contains(resourcePath)) return CompletableFuture.completedFuture(getImage(resourcePath));
+        return AssetIO.getInstance().submit(() -> getImage(resourcePath));
+    }
+
+    /**
+     * {@link #getImageForDisplay(String)} on an {@link AssetIO} thread. Completes immediately on a hit.
+     */
+    public CompletableFuture<Image> getImageForDisplayAsync(String resourcePath) {
+        if (containsForDisplay(resourcePath)) return CompletableFuture.completedFuture(getImageForDisplay(resourcePath));
+        return AssetIO.getInstance().submit(() -> getImageForDisplay(resourcePath));
+    }
+
+    /**
+     * Returns true if the image is already decoded and cached. Does not count as a hit or miss
+     * and does not change the LRU order.
+     */
+    public synchronized boolean contains(String resourcePath) {
+        return resourcePath != null && images.containsKey(resourcePath);
+    }
+
+    // Adds a freshly decoded image, keeping the first one if another thread got there before us
+    private synchronized Image put(String resourcePath, Image image) {
+        Image existing = images.get(resourcePath);
+        if (existing != null) {
+            return existing;
+        }
+        images.put(resourcePath, image);
+        currentBytes += estimateBytes(image);
+        evictIfNeeded();
+        return image;
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<String, Image>> it = images.entrySet().iterator();
+        // Always keep at least the newest entry, even if it alone is over budget
+        while (currentBytes > maxBytes && images.size() > 1 && it.hasNext()) {
+            Map.Entry<String, Image> eldest = it.next();
+            currentBytes -= estimateBytes(eldest.getValue());
+            it.remove();
+            evictions++;
+            System.out.println("ImageCache: Evicted " + eldest.getKey() + " (cache now " + (currentBytes / 1024) + " KB)");
+        }
+    }
+
+    /**
+     * Removes a single image from the cache (e.g., after the file changed on disk), along with
+     * any display-sized copies of it.
+     */
+    public synchronized void invalidate(String resourcePath) {
+        if (resourcePath == null) return;
+        Iterator<Map.Entry<String, Image>> it = images.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Image> entry = it.next();
+            String key = entry.getKey();
+            if (key.equals(resourcePath) || (key.startsWith(resourcePath + "@") && key.indexOf('/', resourcePath.length()) < 0)) {
+                currentBytes -= estimateBytes(entry.getValue());
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Invalidates an image whose file changed while the game runs: drops it like
+     * {@link #invalidate(String)} and stops using its build-time tiers, which still show the old file.
+     */
+    public void invalidateSource(String resourcePath) {
+        if (resourcePath == null) return;
+        ImageTiers t = tiers != null ? tiers : ImageTiers.getClasspathTiers();
+        tiers = t.without(resourcePath);
+        invalidate(resourcePath);
+    }
+
+    public synchronized void clear() {
+        images.clear();
+        currentBytes = 0;
+    }
+
+    /**
+     * Sets the decoded-pixel budget in bytes and evicts immediately if the cache is now over it.
+     */
+    public synchronized void setMaxBytes(long maxBytes) {
+        if (maxBytes <= 0) {
+            System.err.println("ImageCache: Ignoring non-positive budget: " + maxBytes);
+            return;
+        }
+        this.maxBytes = maxBytes;
+        evictIfNeeded();
+    }
+
+    public synchronized long getMaxBytes() { return maxBytes; }
+    public synchronized long getCurrentBytes() { return currentBytes; }
+    public synchronized int size() { return images.size(); }
+    public synchronized long getHits() { return hits; }
+    public synchronized long getMisses() { return misses; }
+    public synchronized long getEvictions() { return evictions; }
+
+    public synchronized String getStatsSummary() {
+        return "ImageCache{entries=" + images.size() +
+               ", bytes=" + currentBytes + "/" + maxBytes +
+               ", hits=" + hits +
+               ", misses=" + misses +
+               ", evictions=" + evictions + '}';
+    }
+
+    // Decoded JavaFX images are stored as 32-bit pixels
+    static long estimateBytes(Image image) {
+        if (image == null) return 0;
+        return (long) image.getWidth() * (long) image.getHeight() * 4L;
+    }
+
+    private URL getResourceUrl(String resourcePath) {
+        return ContentPacks.getInstance().getResource(resourcePath);
+    }
+}
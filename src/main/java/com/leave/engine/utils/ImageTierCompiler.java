@@ -0,0 +1,305 @@
+package com.leave.engine.utils;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * Build-time step that writes downscaled tiers of oversized images and the {@link ImageTiers}
+ * manifest listing them.
+ *
+ * Every PNG under the image directory is halved repeatedly with a 2x2 box filter. A level is
+ * kept as a tier when it could still cover a full screen on its own (short edge at least
+ * {@link #MIN_SHORT_EDGE}, long edge at least {@link #MIN_LONG_EDGE}) and is not bigger than
+ * any display needs ({@link #MAX_LONG_EDGE}). In practice only large single pictures get tiers;
+ * sprite sheets are long strips with short frames and fail the short edge test, which matters
+ * because their frame coordinates are in source pixels.
+ *
+ * Tiers are written next to the copied originals in the output directory, so the source tree
+ * never changes. Images whose tiers are newer than the source are skipped.
+ *
+ * Usage: {@code ImageTierCompiler <image dir> <out dir> <resource prefix>} or
+ * {@code ImageTierCompiler --bench <out dir> <resource prefix> [iterations]}.
+ */
+public class ImageTierCompiler {
+
+    static final int MIN_SHORT_EDGE = 540;
+    static final int MIN_LONG_EDGE = 960;
+    static final int MAX_LONG_EDGE = 4096;
+    // Above this, sources are read subsampled (every 2nd pixel, 4th, ...) to bound build heap
+    private static final long MAX_READ_PIXELS = 40_000_000L;
+
+    /**
+     * Writes the tiers of one image at the given halving levels (see {@link #tierLevels}).
+     * @return The tier sizes, largest first.
+     */
+    static int[][] compileImage(Path source, int[] size, List<Integer> levels, Path outDir, String fileName) throws IOException {
+        int subsample = 1;
+        while ((long) (size[0] / subsample) * (size[1] / subsample) > MAX_READ_PIXELS) subsample *= 2;
+        BufferedImage image = read(source, subsample);
+        int width = image.getWidth(), height = image.getHeight();
+        int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+        image = null; // Let the decoded source go before halving
+
+        int[][] tiers = new int[levels.size()][];
+        int level = Integer.numberOfTrailingZeros(subsample);
+        for (int i = 0; i < levels.size(); i++) {
+            while (level < levels.get(i)) {
+                int halfWidth = Math.max(1, width / 2), halfHeight = Math.max(1, height / 2);
+                pixels = halve(pixels, width, height);
+                width = halfWidth;
+                height = halfHeight;
+                level++;
+            }
+            tiers[i] = new int[] { width, height };
+            write(pixels, width, height, outDir.resolve(ImageTiers.tierPath(fileName, width, height)));
+        }
+        return tiers;
+    }
+
+    /** Halving levels (1 = half size) worth writing for an image of the given size. */
+    static List<Integer> tierLevels(int width, int height) {
+        List<Integer> levels = new ArrayList<>();
+        int w = width, h = height;
+        for (int level = 1; ; level++) {
+            w = Math.max(1, w / 2);
+            h = Math.max(1, h / 2);
+            if (Math.min(w, h) < MIN_SHORT_EDGE || Math.max(w, h) < MIN_LONG_EDGE) break;
+            if (Math.max(w, h) <= MAX_LONG_EDGE) levels.add(level);
+        }
+        return levels;
+    }
+
+    /**
+     * Averages each 2x2 block of ARGB pixels. Colour is weighted by alpha so transparent
+     * pixels don't darken the edges of what they surround. An odd last row or column is dropped.
+     */
+    static int[] halve(int[] pixels, int width, int height) {
+        int outWidth = Math.max(1, width / 2), outHeight = Math.max(1, height / 2);
+        int[] out = new int[outWidth * outHeight];
+        for (int y = 0; y < outHeight; y++) {
+            int row0 = Math.min(2 * y, height - 1) * width;
+            int row1 = Math.min(2 * y + 1, height - 1) * width;
+            for (int x = 0; x < outWidth; x++) {
+                int x0 = Math.min(2 * x, width - 1), x1 = Math.min(2 * x + 1, width - 1);
+                int p0 = pixels[row0 + x0], p1 = pixels[row0 + x1], p2 = pixels[row1 + x0], p3 = pixels[row1 + x1];
+                int a0 = p0 >>> 24, a1 = p1 >>> 24, a2 = p2 >>> 24, a3 = p3 >>> 24;
+                int alpha = a0 + a1 + a2 + a3;
+                int pixel = 0;
+                if (alpha > 0) {
+                    int half = alpha / 2; // Round to nearest
+                    int r = (((p0 >> 16) & 0xff) * a0 + ((p1 >> 16) & 0xff) * a1 + ((p2 >> 16) & 0xff) * a2 + ((p3 >> 16) & 0xff) * a3 + half) / alpha;
+                    int g = (((p0 >> 8) & 0xff) * a0 + ((p1 >> 8) & 0xff) * a1 + ((p2 >> 8) & 0xff) * a2 + ((p3 >> 8) & 0xff) * a3 + half) / alpha;
+                    int b = ((p0 & 0xff) * a0 + (p1 & 0xff) * a1 + (p2 & 0xff) * a2 + (p3 & 0xff) * a3 + half) / alpha;
+                    pixel = ((alpha + 2) / 4) << 24 | r << 16 | g << 8 | b;
+                }
+                out[y * outWidth + x] = pixel;
+            }
+        }
+        return out;
+    }
+
+    private static int[] readSize(Path source) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+            ImageReader reader = readerFor(in, source);
+            try {
+                return new int[] { reader.getWidth(0), reader.getHeight(0) };
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage read(Path source, int subsample) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+            ImageReader reader = readerFor(in, source);
+            try {
+                ImageReadParam param = reader.getDefaultReadParam();
+                if (subsample > 1) param.setSourceSubsampling(subsample, subsample, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static ImageReader readerFor(ImageInputStream in, Path source) throws IOException {
+        if (in == null) throw new IOException("Cannot open " + source);
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+        if (!readers.hasNext()) throw new IOException("No image reader for " + source);
+        ImageReader reader = readers.next();
+        reader.setInput(in, true, true);
+        return reader;
+    }
+
+    // Writes through a temp file so a failed encode never leaves a truncated tier behind
+    private static void write(int[] pixels, int width, int height, Path outPath) throws IOException {
+        boolean opaque = true;
+        for (int pixel : pixels) {
+            if ((pixel >>> 24) != 0xff) { opaque = false; break; }
+        }
+        BufferedImage image = new BufferedImage(width, height, opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(0, 0, width, height, pixels, 0, width);
+        if (outPath.getParent() != null) Files.createDirectories(outPath.getParent());
+        Path tmp = outPath.resolveSibling(outPath.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            if (!ImageIO.write(image, "png", out)) throw new IOException("No PNG writer available");
+        }
+        Files.move(tmp, outPath, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Writes tiers for every PNG under {@code imageDir} into the matching place under
+     * {@code outDir}, then the manifest at {@code outDir/tiers.properties}.
+     * @param resourcePrefix Classpath path of {@code imageDir}, e.g. "/com/leave/engine/images".
+     */
+    public static void compileDirectory(Path imageDir, Path outDir, String resourcePrefix) throws IOException {
+        Map<String, String> previous = readManifest(outDir);
+        Map<String, String> manifest = new TreeMap<>();
+        int scanned = 0, compiled = 0, upToDate = 0, tierCount = 0;
+        long sourceBytes = 0, tierBytes = 0;
+        for (Path source : listImages(imageDir)) {
+            scanned++;
+            int[] size = readSize(source); // Header only
+            List<Integer> levels = tierLevels(size[0], size[1]);
+            if (levels.isEmpty()) continue;
+
+            String relative = imageDir.relativize(source).toString().replace('\\', '/');
+            String resourcePath = resourcePrefix + "/" + relative;
+            String entry = previous.get(resourcePath);
+            int[][] tiers;
+            if (entry != null && isUpToDate(source, outDir, relative, ImageTiers.parseEntry(entry))) {
+                tiers = ImageTiers.parseEntry(entry).tiers;
+                upToDate++;
+            } else {
+                tiers = compileImage(source, size, levels, outDir, relative);
+                compiled++;
+            }
+            manifest.put(resourcePath, ImageTiers.formatEntry(size[0], size[1], tiers));
+            sourceBytes += Files.size(source);
+            for (int[] tier : tiers) tierBytes += Files.size(outDir.resolve(ImageTiers.tierPath(relative, tier[0], tier[1])));
+            tierCount += tiers.length;
+        }
+        writeManifest(outDir, manifest);
+        System.out.println("ImageTierCompiler: " + scanned + " images scanned, " + manifest.size() + " oversized (" + compiled +
+                           " compiled, " + upToDate + " up to date); " + sourceBytes + " bytes of originals -> " +
+                           tierCount + " tiers, " + tierBytes + " bytes");
+    }
+
+    private static boolean isUpToDate(Path source, Path outDir, String relative, ImageTiers.Entry entry) throws IOException {
+        for (int[] tier : entry.tiers) {
+            Path tierFile = outDir.resolve(ImageTiers.tierPath(relative, tier[0], tier[1]));
+            if (!Files.exists(tierFile) || Files.getLastModifiedTime(tierFile).compareTo(Files.getLastModifiedTime(source)) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<Path> listImages(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile)
+                        .filter(p -> p.getFileName().toString().toLowerCase().endsWith(".png"))
+                        .filter(p -> !p.getFileName().toString().contains("@")) // Our own tiers
+                        .sorted()
+                        .collect(Collectors.toList());
+        }
+    }
+
+    private static Map<String, String> readManifest(Path outDir) throws IOException {
+        Path file = outDir.resolve(manifestName());
+        if (!Files.exists(file)) return Collections.emptyMap();
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        }
+        Map<String, String> entries = new TreeMap<>();
+        for (String key : properties.stringPropertyNames()) entries.put(key, properties.getProperty(key));
+        return entries;
+    }
+
+    private static void writeManifest(Path outDir, Map<String, String> manifest) throws IOException {
+        Files.createDirectories(outDir);
+        Properties properties = new Properties();
+        properties.putAll(manifest);
+        Path file = outDir.resolve(manifestName());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            properties.store(out, "Generated by ImageTierCompiler: source size; tier sizes, largest first");
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static String manifestName() {
+        return ImageTiers.MANIFEST_PATH.substring(ImageTiers.MANIFEST_PATH.lastIndexOf('/') + 1);
+    }
+
+    /**
+     * Compares decoding each tiered image at full size with decoding the tier a 1920x1080
+     * display would use: time and decoded pixel memory.
+     */
+    static void benchmark(Path outDir, String resourcePrefix, int iterations) throws IOException {
+        Map<String, String> manifest = readManifest(outDir);
+        long fullNs = 0, tierNs = 0, fullBytes = 0, tierBytes = 0;
+        for (Map.Entry<String, String> e : manifest.entrySet()) {
+            String relative = e.getKey().substring(resourcePrefix.length() + 1);
+            ImageTiers tiers = new ImageTiers(Collections.singletonMap(e.getKey(), ImageTiers.parseEntry(e.getValue())));
+            ImageTiers.Choice choice = tiers.choose(e.getKey(), 1920, 1080);
+            Path full = outDir.resolve(relative);
+            Path tier = outDir.resolve(choice.getResourcePath().substring(resourcePrefix.length() + 1));
+            for (int i = -1; i < iterations; i++) { // One warmup pass
+                long t0 = System.nanoTime();
+                BufferedImage fullImage = ImageIO.read(full.toFile());
+                long t1 = System.nanoTime();
+                BufferedImage tierImage = ImageIO.read(tier.toFile());
+                long t2 = System.nanoTime();
+                if (i < 0) continue;
+                fullNs += t1 - t0;
+                tierNs += t2 - t1;
+                if (i == 0) {
+                    fullBytes += 4L * fullImage.getWidth() * fullImage.getHeight();
+                    tierBytes += 4L * choice.getWidth() * choice.getHeight();
+                }
+            }
+            System.out.println("  " + relative + ": 1920x1080 uses " + tier.getFileName() + " decoded at " +
+                               choice.getWidth() + "x" + choice.getHeight());
+        }
+        System.out.println("ImageTierCompiler benchmark (" + iterations + " iterations, 1920x1080 display):");
+        System.out.printf("  decode:         original %.1f ms | tier %.1f ms (all tiered images, avg)%n",
+                          fullNs / 1e6 / iterations, tierNs / 1e6 / iterations);
+        System.out.printf("  decoded pixels: original %,d bytes | display-sized %,d bytes%n", fullBytes, tierBytes);
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length >= 3 && "--bench".equals(args[0])) {
+            int iterations = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+            benchmark(Paths.get(args[1]), args[2], iterations);
+            return;
+        }
+        if (args.length != 3) {
+            System.err.println("Usage: ImageTierCompiler <image dir> <out dir> <resource prefix>");
+            System.err.println("       ImageTierCompiler --bench <out dir> <resource prefix> [iterations]");
+            System.exit(2);
+        }
+        compileDirectory(Paths.get(args[0]), Paths.get(args[1]), args[2]);
+    }
+}
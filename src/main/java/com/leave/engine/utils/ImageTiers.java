@@ -0,0 +1,198 @@
+package com.leave.engine.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Downscaled variants of oversized images, as listed in the manifest written by
+ * {@link ImageTierCompiler}.
+ *
+ * Each manifest entry maps an image's resource path to its source size and the sizes of its
+ * tiers, e.g. {@code /com/leave/engine/images/backgrounds/3door.png=16000x9600;4000x2400,2000x1200}.
+ * A tier lives next to its source as {@code name@WxH.png}. Images without an entry only exist
+ * at their original size.
+ */
+public final class ImageTiers {
+
+    /** Manifest location on the classpath. */
+    public static final String MANIFEST_PATH = "/com/leave/engine/images/tiers.properties";
+
+    /** Source size and available tiers of one image, tiers ordered largest first. */
+    public static final class Entry {
+        final int width;
+        final int height;
+        final int[][] tiers; // {width, height}
+
+        Entry(int width, int height, int[][] tiers) {
+            this.width = width;
+            this.height = height;
+            this.tiers = tiers;
+        }
+
+        public int getWidth() { return width; }
+        public int getHeight() { return height; }
+        public int getTierCount() { return tiers.length; }
+    }
+
+    /** The file and decode size chosen for one request. */
+    public static final class Choice {
+        final String resourcePath; // Original or tier
+        final int width;           // Requested decode size, 0 for the file's own size
+        final int height;
+
+        Choice(String resourcePath, int width, int height) {
+            this.resourcePath = resourcePath;
+            this.width = width;
+            this.height = height;
+        }
+
+        public String getResourcePath() { return resourcePath; }
+        public int getWidth() { return width; }
+        public int getHeight() { return height; }
+    }
+
+    private static ImageTiers classpathTiers;
+
+    private final Map<String, Entry> entries;
+
+    ImageTiers(Map<String, Entry> entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * Tiers listed in the manifest on the classpath and in each {@link ContentPacks} pack,
+     * read once; a pack's entries override the jar's for the same image. Empty if the build did
+     * not produce a manifest (e.g., when running from an IDE without the process-classes step).
+     */
+    public static synchronized ImageTiers getClasspathTiers() {
+        if (classpathTiers == null) {
+            classpathTiers = fromManifests();
+            if (classpathTiers.size() > 0) System.out.println("ImageTiers: " + classpathTiers.size() + " images with downscaled tiers.");
+        }
+        return classpathTiers;
+    }
+
+    /**
+     * Merges the jar's manifest with each pack's, in mount order. An entry is dropped when a
+     * pack replaces its image without listing tiers of its own: the tiers were cut from the
+     * image that was replaced.
+     */
+    static ImageTiers fromManifests() {
+        ContentPacks packs = ContentPacks.getInstance();
+        Map<String, Entry> entries = new HashMap<>();
+        Map<String, FileSystem> listedBy = new HashMap<>(); // Image -> pack whose manifest won, absent for the jar's
+        URL base = ContentPacks.class.getResource(MANIFEST_PATH);
+        if (base != null) {
+            try (InputStream in = base.openStream()) {
+                entries.putAll(parse(in));
+            } catch (IOException | IllegalArgumentException e) {
+                System.err.println("ImageTiers: Could not read " + base + ", using original images: " + e.getMessage());
+            }
+        }
+        for (Path manifest : packs.findAllInPacks(MANIFEST_PATH)) {
+            try (InputStream in = Files.newInputStream(manifest)) {
+                Map<String, Entry> packEntries = parse(in);
+                entries.putAll(packEntries);
+                for (String path : packEntries.keySet()) listedBy.put(path, manifest.getFileSystem());
+            } catch (IOException | IllegalArgumentException e) {
+                System.err.println("ImageTiers: Could not read " + manifest.toUri() + ", using original images: " + e.getMessage());
+            }
+        }
+        entries.keySet().removeIf(path -> {
+            Path image = packs.findInPacks(path);
+            return image != null && image.getFileSystem() != listedBy.get(path);
+        });
+        return new ImageTiers(entries);
+    }
+
+    static Map<String, Entry> parse(InputStream in) throws IOException {
+        Properties properties = new Properties();
+        properties.load(in);
+        Map<String, Entry> entries = new HashMap<>();
+        for (String path : properties.stringPropertyNames()) {
+            entries.put(path, parseEntry(properties.getProperty(path)));
+        }
+        return entries;
+    }
+
+    static Entry parseEntry(String value) {
+        String[] parts = value.trim().split(";", -1);
+        if (parts.length != 2) throw new IllegalArgumentException("Malformed tier entry: " + value);
+        int[] source = parseSize(parts[0]);
+        String[] tierSizes = parts[1].isEmpty() ? new String[0] : parts[1].split(",");
+        int[][] tiers = new int[tierSizes.length][];
+        for (int i = 0; i < tierSizes.length; i++) tiers[i] = parseSize(tierSizes[i]);
+        return new Entry(source[0], source[1], tiers);
+    }
+
+    static String formatEntry(int width, int height, int[][] tiers) {
+        StringBuilder sb = new StringBuilder().append(width).append('x').append(height).append(';');
+        for (int i = 0; i < tiers.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(tiers[i][0]).append('x').append(tiers[i][1]);
+        }
+        return sb.toString();
+    }
+
+    private static int[] parseSize(String size) {
+        int x = size.indexOf('x');
+        if (x <= 0) throw new IllegalArgumentException("Malformed size: " + size);
+        return new int[] { Integer.parseInt(size.substring(0, x).trim()), Integer.parseInt(size.substring(x + 1).trim()) };
+    }
+
+    /** Resource path of a tier: {@code dir/name.png} becomes {@code dir/name@WxH.png}. */
+    public static String tierPath(String resourcePath, int width, int height) {
+        int slash = resourcePath.lastIndexOf('/');
+        int dot = resourcePath.lastIndexOf('.');
+        String suffix = "@" + width + "x" + height;
+        if (dot <= slash) return resourcePath + suffix;
+        return resourcePath.substring(0, dot) + suffix + resourcePath.substring(dot);
+    }
+
+    public Entry get(String resourcePath) {
+        return entries.get(resourcePath);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /** A copy without the tiers of one image, e.g. because its source changed since the build. */
+    public ImageTiers without(String resourcePath) {
+        if (!entries.containsKey(resourcePath)) return this;
+        Map<String, Entry> remaining = new HashMap<>(entries);
+        remaining.remove(resourcePath);
+        return new ImageTiers(remaining);
+    }
+
+    /**
+     * Picks the smallest tier that still covers the target box at the image's aspect ratio,
+     * plus the size to decode it at. Never upscales: if the original is already no bigger than
+     * needed, or the image has no tiers, the original path is returned with size 0.
+     *
+     * @param targetWidth  Width to cover, in device pixels.
+     * @param targetHeight Height to cover, in device pixels.
+     */
+    public Choice choose(String resourcePath, double targetWidth, double targetHeight) {
+        Entry entry = entries.get(resourcePath);
+        if (entry == null || targetWidth <= 0 || targetHeight <= 0) return new Choice(resourcePath, 0, 0);
+        double scale = Math.max(targetWidth / entry.width, targetHeight / entry.height);
+        if (scale >= 1.0) return new Choice(resourcePath, 0, 0);
+        int needWidth = (int) Math.ceil(entry.width * scale);
+        int needHeight = (int) Math.ceil(entry.height * scale);
+
+        String path = resourcePath;
+        for (int[] tier : entry.tiers) { // Largest first, so the last covering one is the smallest
+            if (tier[0] < needWidth || tier[1] < needHeight) break;
+            path = tierPath(resourcePath, tier[0], tier[1]);
+        }
+        return new Choice(path, needWidth, needHeight);
+    }
+}
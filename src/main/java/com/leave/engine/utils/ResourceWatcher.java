@@ -0,0 +1,163 @@
+package com.leave.engine.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches a resource directory tree (e.g. {@code src/main/resources}) and reports changed
+ * files by classpath resource path, such as {@code /com/leave/engine/data/sao.json}.
+ *
+ * Editors often write a file in several steps (truncate, write, rename over), so events are
+ * collected until the tree has been quiet for {@value #QUIET_MILLIS} ms and then delivered as
+ * one batch, each path once. Editor temp and backup files are ignored. The listener runs on
+ * the watcher's daemon thread.
+ */
+public final class ResourceWatcher implements Closeable {
+
+    /** Receives each batch of changed (created, modified or deleted) resource paths. */
+    public interface Listener {
+        void onChanged(List<String> resourcePaths);
+    }
+
+    static final long QUIET_MILLIS = 120;
+
+    private final Path root;
+    private final Listener listener;
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+    private WatchService watchService;
+    private Thread thread;
+
+    public ResourceWatcher(Path root, Listener listener) {
+        this.root = root.toAbsolutePath().normalize();
+        this.listener = listener;
+    }
+
+    public Path getRoot() { return root; }
+
+    /** Registers every directory under the root and starts the watcher thread. */
+    public synchronized void start() throws IOException {
+        if (thread != null) return;
+        if (!Files.isDirectory(root)) throw new IOException("Not a directory: " + root);
+        watchService = FileSystems.getDefault().newWatchService();
+        WatchService service = watchService;
+        registerTree(service, root);
+        thread = new Thread(() -> run(service), "resource-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        System.out.println("ResourceWatcher: Watching " + directories.size() + " directories under " + root);
+    }
+
+    private void registerTree(WatchService service, Path start) throws IOException {
+        Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                WatchKey key = dir.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                synchronized (directories) {
+                    directories.put(key, dir);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void run(WatchService service) {
+        try {
+            while (true) {
+                Set<String> batch = new LinkedHashSet<>();
+                drain(service, service.take(), batch);
+                WatchKey next;
+                while ((next = service.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    drain(service, next, batch); // Keep collecting until the editor is done writing
+                }
+                if (batch.isEmpty()) continue;
+                try {
+                    listener.onChanged(new ArrayList<>(batch));
+                } catch (RuntimeException e) {
+                    System.err.println("ResourceWatcher: Listener failed for " + batch + ": " + e);
+                    e.printStackTrace();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closed
+        }
+    }
+
+    private void drain(WatchService service, WatchKey key, Set<String> batch) {
+        Path dir;
+        synchronized (directories) {
+            dir = directories.get(key);
+        }
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                System.err.println("ResourceWatcher: Missed some file events; save the file again to reload it.");
+                continue;
+            }
+            if (dir == null) continue;
+            Path file = dir.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(file)) {
+                try {
+                    registerTree(service, file);
+                } catch (IOException e) {
+                    System.err.println("ResourceWatcher: Cannot watch new directory " + file + ": " + e.getMessage());
+                }
+                continue;
+            }
+            if (!isTempFile(file.getFileName().toString()) && !Files.isDirectory(file)) {
+                batch.add(toResourcePath(file));
+            }
+        }
+        if (!key.reset()) {
+            synchronized (directories) {
+                directories.remove(key); // Directory deleted
+            }
+        }
+    }
+
+    /** Classpath resource path of a file under the root. */
+    public String toResourcePath(Path file) {
+        return "/" + root.relativize(file.toAbsolutePath().normalize()).toString().replace('\\', '/');
+    }
+
+    /** File under the root for a resource path. */
+    public Path toFile(String resourcePath) {
+        return root.resolve(resourcePath.startsWith("/") ? resourcePath.substring(1) : resourcePath);
+    }
+
+    // Swap files, backups, atomic-save temp files and vim's "4913" write probe
+    static boolean isTempFile(String name) {
+        return name.endsWith("~") || name.endsWith(".tmp") || name.endsWith(".swp") || name.endsWith(".swx") ||
+               name.startsWith(".#") || name.startsWith("#") || name.equals("4913");
+    }
+
+    @Override
+    public synchronized void close() {
+        if (watchService == null) return;
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            System.err.println("ResourceWatcher: Error closing watch service: " + e.getMessage());
+        }
+        if (thread != null) thread.interrupt();
+        watchService = null;
+        thread = null;
+    }
+}
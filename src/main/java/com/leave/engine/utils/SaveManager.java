@@ -0,0 +1,215 @@
+package com.leave.engine.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Writes and reads save slots on disk, off the FX thread.
+ *
+ * Slots are files named {@code <slot>.sav} in the save directory
+ * ({@code ~/.leave/saves}, or {@code -Dleave.save.dir}). A write goes to a temp file in the
+ * same directory, is forced to disk and then renamed over the slot, so a crash mid-write
+ * leaves the previous save intact rather than a truncated one.
+ *
+ * Writes run in order on one daemon thread (slots must not be renamed over by an older
+ * write). Callers pass an encoder rather than bytes, so encoding also happens on that
+ * thread. If several writes to a slot queue up while one is in progress (e.g. autosave on
+ * every scene change), only the newest is written.
+ */
+public final class SaveManager {
+
+    /** System property overriding the save directory. */
+    public static final String DIR_PROPERTY = "leave.save.dir";
+    public static final String EXTENSION = ".sav";
+    private static final Pattern SLOT_NAME = Pattern.compile("[A-Za-z0-9_-]+");
+
+    private static SaveManager instance;
+
+    private final Path directory;
+    private final ExecutorService writer;
+    private final Map<String, AssetIO.IOTask<byte[]>> pending = new LinkedHashMap<>(); // Newest encoder per slot
+    private final Map<String, CompletableFuture<Void>> pendingFutures = new LinkedHashMap<>();
+
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong totalWriteNanos = new AtomicLong();
+
+    private SaveManager(Path directory) {
+        this.directory = directory;
+        this.writer = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "save-writer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public static synchronized SaveManager getInstance() {
+        if (instance == null) {
+            String dir = System.getProperty(DIR_PROPERTY);
+            instance = new SaveManager(dir != null && !dir.trim().isEmpty()
+                                       ? Paths.get(dir)
+                                       : Paths.get(System.getProperty("user.home"), ".leave", "saves"));
+        }
+        return instance;
+    }
+
+    /** A manager for another directory, e.g. in tests. */
+    public static SaveManager forDirectory(Path directory) {
+        return new SaveManager(directory);
+    }
+
+    public Path getDirectory() { return directory; }
+
+    public Path slotPath(String slot) {
+        if (slot == null || slot.isEmpty() || !SLOT_NAME.matcher(slot).matches()) {
+            throw new IllegalArgumentException("Invalid save slot name: " + slot);
+        }
+        return directory.resolve(slot + EXTENSION);
+    }
+
+    /**
+     * Queues a write of a slot. If a write of the same slot is already queued and has not
+     * started, it is replaced and both callers get the same future.
+     *
+     * @param encoder Produces the bytes to write; runs on the save thread.
+     * @return Completes once the slot is on disk, or exceptionally if the write failed.
+     */
+    public CompletableFuture<Void> save(String slot, AssetIO.IOTask<byte[]> encoder) {
+        Path target = slotPath(slot);
+        synchronized (pending) {
+            CompletableFuture<Void> queued = pendingFutures.get(slot);
+            if (queued != null) {
+                pending.put(slot, encoder); // Not started yet; write the newer state instead
+                coalesced.incrementAndGet();
+                return queued;
+            }
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            pending.put(slot, encoder);
+            pendingFutures.put(slot, future);
+            try {
+                writer.execute(() -> writeSlot(slot, target));
+            } catch (RejectedExecutionException e) {
+                pending.remove(slot);
+                pendingFutures.remove(slot);
+                future.completeExceptionally(new CompletionException(e));
+            }
+            return future;
+        }
+    }
+
+    private void writeSlot(String slot, Path target) {
+        AssetIO.IOTask<byte[]> encoder;
+        CompletableFuture<Void> future;
+        synchronized (pending) {
+            encoder = pending.remove(slot);
+            future = pendingFutures.remove(slot);
+        }
+        if (encoder == null || future == null) return;
+        long start = System.nanoTime();
+        try {
+            writeAtomically(target, encoder.call());
+            writes.incrementAndGet();
+            totalWriteNanos.addAndGet(System.nanoTime() - start);
+            future.complete(null);
+        } catch (Throwable e) {
+            failures.incrementAndGet();
+            System.err.println("SaveManager: Failed to write " + target + ": " + e);
+            future.completeExceptionally(e instanceof CompletionException ? e : new CompletionException(e));
+        }
+    }
+
+    // Temp file in the same directory, fsync, then rename over the target
+    static void writeAtomically(Path target, byte[] data) throws IOException {
+        Path dir = target.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path temp = Files.createTempFile(dir, target.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(data);
+                while (buffer.hasRemaining()) channel.write(buffer);
+                channel.force(true);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp); // Only still there if something failed
+        }
+    }
+
+    /**
+     * Reads a slot. Small enough to call on the FX thread; use {@link AssetIO} to do it in
+     * the background.
+     * @return The slot's bytes, or null if it does not exist.
+     */
+    public byte[] read(String slot) throws IOException {
+        Path path = slotPath(slot);
+        if (!Files.isRegularFile(path)) return null;
+        return Files.readAllBytes(path);
+    }
+
+    public boolean exists(String slot) {
+        return Files.isRegularFile(slotPath(slot));
+    }
+
+    public boolean delete(String slot) throws IOException {
+        return Files.deleteIfExists(slotPath(slot));
+    }
+
+    /** Waits until every queued write has finished. */
+    public void flush(long timeout, TimeUnit unit) throws InterruptedException {
+        CompletableFuture<?>[] futures;
+        synchronized (pending) {
+            futures = pendingFutures.values().toArray(new CompletableFuture<?>[0]);
+        }
+        try {
+            CompletableFuture.allOf(futures).get(timeout, unit);
+        } catch (ExecutionException | TimeoutException e) {
+            System.err.println("SaveManager: Flush did not complete cleanly: " + e);
+        }
+    }
+
+    public long getWriteCount() { return writes.get(); }
+    public long getCoalescedCount() { return coalesced.get(); }
+    public long getFailureCount() { return failures.get(); }
+
+    public String getStatsSummary() {
+        long n = writes.get();
+        return String.format("SaveManager{writes=%d, coalesced=%d, failures=%d, avgWriteMs=%.2f}",
+                n, coalesced.get(), failures.get(), n == 0 ? 0.0 : totalWriteNanos.get() / 1e6 / n);
+    }
+
+    /** Writes whatever is queued, then stops the save thread. */
+    public void shutdown() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(2, TimeUnit.SECONDS)) {
+                System.err.println("SaveManager: Pending saves did not finish before shutdown.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.leave.engine.utils;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * Software mixer for sound effects, playing through one {@link SourceDataLine}.
+ *
+ * Effects are decoded once into 16-bit stereo PCM at {@link #SAMPLE_RATE} and kept in memory.
+ * A fixed pool of voices mixes any number of them, including several overlapping copies of
+ * the same effect, each with its own gain. Play requests go through a lock-free queue and are
+ * picked up at the next block boundary, so a burst of effects costs the caller one queue
+ * insert each and latency stays at about one block plus the line buffer. When every voice is
+ * busy the oldest one is reused.
+ *
+ * The mixer thread keeps writing (silence when idle) so the line never has to restart.
+ * It also renders the {@link TextBlipVoice}, which has its own trigger ring instead of
+ * taking a voice from the pool.
+ */
+public class SfxMixer {
+
+    public static final float SAMPLE_RATE = 44100f;
+    public static final int CHANNELS = 2;
+    public static final int DEFAULT_VOICES = 8;
+    static final int BLOCK_FRAMES = 256;               // ~5.8 ms per mix block
+    private static final int LINE_BUFFER_BLOCKS = 4;   // ~23 ms queued in the line
+
+    static final AudioFormat OUTPUT_FORMAT = new AudioFormat(SAMPLE_RATE, 16, CHANNELS, true, false);
+
+    /** A decoded effect: interleaved stereo samples at the mixer rate. */
+    static final class Sound {
+        final short[] samples;
+        Sound(short[] samples) { this.samples = samples; }
+    }
+
+    private static final class PlayRequest {
+        final Sound sound;
+        final float gain;
+        PlayRequest(Sound sound, float gain) { this.sound = sound; this.gain = gain; }
+    }
+
+    private static final class Voice {
+        short[] samples;     // Null when free
+        int position;        // Next sample index
+        float gain;
+        long startedBlock;
+    }
+
+    private final Map<String, Sound> sounds = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<PlayRequest> requests = new ConcurrentLinkedQueue<>();
+    private final Voice[] voices;
+    private final TextBlipVoice textBlip = new TextBlipVoice();
+    private final float[] mixBuffer = new float[BLOCK_FRAMES * CHANNELS];
+    private final byte[] outBuffer = new byte[BLOCK_FRAMES * CHANNELS * 2];
+    private volatile float masterGain = 1.0f;
+
+    private SourceDataLine line;
+    private Thread mixerThread;
+    private volatile boolean running = false;
+
+    // Mixer-thread stats
+    private long blocksMixed = 0;
+    private volatile long voicesStolen = 0;
+    private volatile int peakVoices = 0;
+
+    public SfxMixer() {
+        this(DEFAULT_VOICES);
+    }
+
+    public SfxMixer(int voiceCount) {
+        voices = new Voice[Math.max(1, voiceCount)];
+        for (int i = 0; i < voices.length; i++) voices[i] = new Voice();
+    }
+
+    /**
+     * Opens the output line and starts the mixer thread.
+     * @return false if no suitable line is available (e.g., no audio device).
+     */
+    public synchronized boolean start() {
+        if (running) return true;
+        try {
+            line = AudioSystem.getSourceDataLine(OUTPUT_FORMAT);
+            line.open(OUTPUT_FORMAT, outBuffer.length * LINE_BUFFER_BLOCKS);
+            line.start();
+        } catch (LineUnavailableException | IllegalArgumentException | SecurityException e) {
+            System.err.println("SfxMixer: Output line unavailable, SFX mixing disabled: " + e.getMessage());
+            line = null;
+            return false;
+        }
+        running = true;
+        mixerThread = new Thread(this::runMixer, "sfx-mixer");
+        mixerThread.setDaemon(true);
+        mixerThread.setPriority(Thread.MAX_PRIORITY); // Underruns are audible, keep it fed
+        mixerThread.start();
+        System.out.println("SfxMixer: Started with " + voices.length + " voices, line buffer " + line.getBufferSize() + " bytes.");
+        return true;
+    }
+
+    public boolean isRunning() { return running; }
+
+    private void runMixer() {
+        while (running) {
+            mixBlock();
+            line.write(outBuffer, 0, outBuffer.length); // Blocks while the line is full, pacing the loop
+        }
+    }
+
+    /**
+     * Queues an already loaded effect.
+     * @return false if the effect has not been loaded yet or the mixer is not running.
+     */
+    public boolean play(String resourcePath, float gain) {
+        Sound sound = sounds.get(resourcePath);
+        if (sound == null || !running) return false;
+        requests.offer(new PlayRequest(sound, Math.max(0f, gain)));
+        return true;
+    }
+
+    public boolean isLoaded(String resourcePath) {
+        return sounds.containsKey(resourcePath);
+    }
+
+    /**
+     * Decodes an effect into the mixer's format and keeps it under the given path. Call off the FX thread.
+     * @param resourcePath Key later passed to {@link #play(String, float)}.
+     * @param url          Where to read the audio file from.
+     */
+    public void load(String resourcePath, URL url) throws IOException, UnsupportedAudioFileException {
+        if (sounds.containsKey(resourcePath)) return;
+        if (url == null) throw new IOException("SFX file not found: " + resourcePath);
+        try (AudioInputStream source = CompressedAudio.open(url)) {
+            sounds.putIfAbsent(resourcePath, decode(source));
+        }
+    }
+
+    /**
+     * Decodes the text blip and builds its pitch variants. Call off the FX thread.
+     */
+    public void loadTextBlip(URL url) throws IOException, UnsupportedAudioFileException {
+        if (url == null) throw new IOException("Text blip sound not found.");
+        try (AudioInputStream source = CompressedAudio.open(url)) {
+            textBlip.setSound(decode(source).samples);
+        }
+    }
+
+    public TextBlipVoice getTextBlipVoice() { return textBlip; }
+
+    /** Drops a decoded effect. Voices already playing it finish normally. */
+    public void unload(String resourcePath) {
+        sounds.remove(resourcePath);
+    }
+
+    static Sound decode(AudioInputStream source) throws IOException {
+        AudioFormat sourceFormat = source.getFormat();
+        int channels = sourceFormat.getChannels();
+        float rate = sourceFormat.getSampleRate();
+        AudioFormat pcm16 = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, rate, 16, channels, channels * 2, rate, false);
+        AudioInputStream pcmStream = sourceFormat.matches(pcm16) ? source : AudioSystem.getAudioInputStream(pcm16, source);
+        byte[] bytes = pcmStream.readAllBytes();
+
+        int sourceFrames = bytes.length / (channels * 2);
+        double step = rate / SAMPLE_RATE; // Source frames per output frame
+        int outFrames = (int) Math.floor(sourceFrames / step);
+        short[] out = new short[outFrames * CHANNELS];
+        for (int f = 0; f < outFrames; f++) {
+            // Linear interpolation between neighbouring source frames
+            double srcPos = f * step;
+            int i0 = (int) srcPos;
+            int i1 = Math.min(i0 + 1, sourceFrames - 1);
+            double frac = srcPos - i0;
+            for (int c = 0; c < CHANNELS; c++) {
+                int srcChannel = Math.min(c, channels - 1); // Mono is copied to both sides
+                double s0 = sampleAt(bytes, i0, srcChannel, channels);
+                double s1 = sampleAt(bytes, i1, srcChannel, channels);
+                out[f * CHANNELS + c] = (short) Math.round(s0 + (s1 - s0) * frac);
+            }
+        }
+        return new Sound(out);
+    }
+
+    private static short sampleAt(byte[] pcm, int frame, int channel, int channels) {
+        int index = (frame * channels + channel) * 2;
+        return (short) ((pcm[index] & 0xff) | (pcm[index + 1] << 8));
+    }
+
+    /**
+     * Mixes one block of every active voice into {@link #outBuffer}. Runs on the mixer thread
+     * (package-private so tests can drive it without an audio device).
+     */
+    void mixBlock() {
+        PlayRequest request;
+        while ((request = requests.poll()) != null) {
+            Voice voice = freeOrOldestVoice();
+            voice.samples = request.sound.samples;
+            voice.position = 0;
+            voice.gain = request.gain;
+            voice.startedBlock = blocksMixed;
+        }
+
+        Arrays.fill(mixBuffer, 0f);
+        int active = 0;
+        for (Voice voice : voices) {
+            short[] samples = voice.samples;
+            if (samples == null) continue;
+            active++;
+            int count = Math.min(mixBuffer.length, samples.length - voice.position);
+            float gain = voice.gain;
+            int pos = voice.position;
+            for (int i = 0; i < count; i++) {
+                mixBuffer[i] += samples[pos + i] * gain;
+            }
+            voice.position = pos + count;
+            if (voice.position >= samples.length) voice.samples = null; // Finished
+        }
+        if (active > peakVoices) peakVoices = active;
+        textBlip.mixInto(mixBuffer, BLOCK_FRAMES);
+
+        float master = masterGain;
+        for (int i = 0; i < mixBuffer.length; i++) {
+            int s = (int) (mixBuffer[i] * master);
+            if (s > Short.MAX_VALUE) s = Short.MAX_VALUE;       // Hard clip the sum
+            else if (s < Short.MIN_VALUE) s = Short.MIN_VALUE;
+            outBuffer[i * 2] = (byte) s;
+            outBuffer[i * 2 + 1] = (byte) (s >> 8);
+        }
+        blocksMixed++;
+    }
+
+    private Voice freeOrOldestVoice() {
+        Voice oldest = voices[0];
+        for (Voice voice : voices) {
+            if (voice.samples == null) return voice;
+            if (voice.startedBlock < oldest.startedBlock) oldest = voice;
+        }
+        voicesStolen++;
+        return oldest;
+    }
+
+    // Test hooks: queue a decoded effect without a line, and read the block mixBlock() produced
+    byte[] lastBlock() { return outBuffer; }
+
+    void play(Sound sound, float gain) {
+        requests.offer(new PlayRequest(sound, Math.max(0f, gain)));
+    }
+
+    /** Gain applied to the whole mix, 0.0 to 1.0. */
+    public void setMasterGain(float gain) {
+        masterGain = Math.max(0f, Math.min(1f, gain));
+    }
+
+    public float getMasterGain() { return masterGain; }
+
+    public int getVoiceCount() { return voices.length; }
+    public long getVoicesStolen() { return voicesStolen; }
+    public int getPeakVoices() { return peakVoices; }
+
+    public String getStatsSummary() {
+        return "SfxMixer: " + sounds.size() + " effects loaded, " + voices.length + " voices, peak " +
+               peakVoices + " active, " + voicesStolen + " stolen; text blip " + textBlip.getPlayedCount() +
+               " played of " + textBlip.getTriggerCount() + " triggers";
+    }
+
+    /** Stops the mixer thread and closes the line. */
+    public synchronized void shutdown() {
+        running = false;
+        if (mixerThread != null) {
+            mixerThread.interrupt();
+            try {
+                mixerThread.join(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            mixerThread = null;
+        }
+        if (line != null) {
+            line.stop();
+            line.flush();
+            line.close();
+            line = null;
+        }
+        requests.clear();
+    }
+}
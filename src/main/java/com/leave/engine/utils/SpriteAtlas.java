@@ -0,0 +1,213 @@
+package com.leave.engine.utils;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javafx.geometry.Rectangle2D;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelReader;
+import javafx.scene.image.WritableImage;
+
+/**
+ * Frame layout of a sprite sheet, computed once and shared by every animator that plays it.
+ * Holds one viewport {@link Rectangle2D} per frame, so showing a frame is a field lookup
+ * instead of a row/column calculation and a new rectangle per tick.
+ *
+ * A pre-sliced atlas also copies each frame into its own {@link WritableImage} and drops its
+ * reference to the sheet. An ImageView playing it then only holds the current frame, which
+ * matters for sheets where the animation uses a small part of a large image.
+ *
+ * Atlases are shared through {@link #get}, keyed by sheet path and frame geometry.
+ */
+public class SpriteAtlas {
+
+    private static final int MAX_SHARED_ATLASES = 32;
+
+    // Most recently used last; guarded by itself
+    private static final Map<String, SpriteAtlas> shared = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final String sheetPath;
+    private final Image sheet;               // Null once the frames are sliced out
+    private final int frameWidth;
+    private final int frameHeight;
+    private final int frameCount;
+    private final Rectangle2D[] viewports;
+    private final WritableImage[] frames;    // Null unless pre-sliced
+
+    private SpriteAtlas(String sheetPath, Image image, int frameWidth, int frameHeight, int numColsInSheet,
+                        int totalFrames, Boolean preSlice) {
+        if (frameWidth <= 0 || frameHeight <= 0 || numColsInSheet <= 0 || totalFrames <= 0) {
+            throw new IllegalArgumentException("Frame dimensions, columns and total frames must be positive.");
+        }
+        if (image.getWidth() < frameWidth || image.getHeight() < frameHeight) {
+            throw new IllegalArgumentException("Sprite sheet dimensions (" + image.getWidth() + "x" + image.getHeight() +
+                                               ") are smaller than a single frame's dimensions (" + frameWidth + "x" + frameHeight + "). " +
+                                               "Path: " + sheetPath);
+        }
+
+        // Ensure total frames doesn't exceed what's possible with the sheet dimensions
+        int maxPossibleFrames = (int) (image.getWidth() / frameWidth) * (int) (image.getHeight() / frameHeight);
+        if (totalFrames > maxPossibleFrames) {
+            System.err.println("SpriteAtlas Warning: totalFrames (" + totalFrames + ") exceeds max possible frames (" +
+                               maxPossibleFrames + ") for the given sheet and frame dimensions. Path: " + sheetPath +
+                               ". Clamping totalFrames.");
+            totalFrames = maxPossibleFrames;
+        }
+
+        this.sheetPath = sheetPath;
+        this.frameWidth = frameWidth;
+        this.frameHeight = frameHeight;
+
+        Rectangle2D[] rects = new Rectangle2D[totalFrames];
+        int valid = 0;
+        for (int i = 0; i < totalFrames; i++) {
+            double x = (i % numColsInSheet) * (double) frameWidth;
+            double y = (i / numColsInSheet) * (double) frameHeight;
+            if (x + frameWidth > image.getWidth() + 0.001 || y + frameHeight > image.getHeight() + 0.001) {
+                // A column count wider than the sheet; later frames would be out of bounds too
+                System.err.println("SpriteAtlas Warning: Frame " + i + " at x:" + x + ", y:" + y +
+                                   " is outside the sheet (" + image.getWidth() + "x" + image.getHeight() + "). " +
+                                   "Check cols and frame dimensions. Path: " + sheetPath + ". Stopping at " + i + " frames.");
+                break;
+            }
+            rects[i] = new Rectangle2D(x, y, frameWidth, frameHeight);
+            valid++;
+        }
+        if (valid == 0) {
+            throw new IllegalArgumentException("Sprite sheet has no frames inside its bounds: " + sheetPath);
+        }
+        this.frameCount = valid;
+        this.viewports = (valid == rects.length) ? rects : Arrays.copyOf(rects, valid);
+
+        boolean slice = (preSlice != null) ? preSlice : worthSlicing(image, frameWidth, frameHeight, valid);
+        PixelReader reader = slice ? image.getPixelReader() : null;
+        if (reader != null) {
+            frames = new WritableImage[valid];
+            for (int i = 0; i < valid; i++) {
+                Rectangle2D r = viewports[i];
+                frames[i] = new WritableImage(reader, (int) r.getMinX(), (int) r.getMinY(), frameWidth, frameHeight);
+            }
+            this.sheet = null; // ImageCache can evict the sheet now that nothing here pins it
+        } else {
+            if (slice) System.err.println("SpriteAtlas Warning: No pixel reader for " + sheetPath + ", using viewports.");
+            frames = null;
+            this.sheet = image;
+        }
+    }
+
+    // Slicing only pays off when the frames cover a small part of the sheet; otherwise it
+    // just duplicates the pixels
+    private static boolean worthSlicing(Image image, int frameWidth, int frameHeight, int frameCount) {
+        double framePixels = (double) frameWidth * frameHeight * frameCount;
+        return framePixels * 4 <= image.getWidth() * image.getHeight();
+    }
+
+    /**
+     * Returns the shared atlas for a sheet and frame layout, building it on first use.
+     * Frames are pre-sliced automatically when the animation uses at most a quarter of the sheet.
+     *
+     * @throws IllegalArgumentException if the sheet cannot be loaded or the layout is invalid.
+     */
+    public static SpriteAtlas get(String sheetPath, int frameWidth, int frameHeight,
+                                  int numColsInSheet, int totalFrames) {
+        return get(sheetPath, frameWidth, frameHeight, numColsInSheet, totalFrames, null);
+    }
+
+    /**
+     * Same as {@link #get(String, int, int, int, int)} but with an explicit slicing choice.
+     * @param preSlice true to copy frames into their own images, false to use viewports on the sheet.
+     */
+    public static SpriteAtlas get(String sheetPath, int frameWidth, int frameHeight,
+                                  int numColsInSheet, int totalFrames, Boolean preSlice) {
+        String key = sheetPath + '|' + frameWidth + 'x' + frameHeight + '|' + numColsInSheet + '|' +
+                     totalFrames + '|' + (preSlice == null ? "auto" : preSlice);
+        synchronized (shared) {
+            SpriteAtlas atlas = shared.get(key);
+            if (atlas != null) return atlas;
+        }
+        if (sheetPath == null || sheetPath.trim().isEmpty()) {
+            throw new IllegalArgumentException("Sprite sheet path cannot be null or empty.");
+        }
+        // Built outside the lock; if two threads race, the first one stored wins.
+        // The sheet comes from the shared cache, so replaying an animation does not decode the PNG again
+        Image image = ImageCache.getInstance().getImage(sheetPath);
+        if (image == null) {
+            throw new IllegalArgumentException("Sprite sheet resource not found at: " + sheetPath);
+        }
+        if (image.isError()) {
+            throw new IllegalArgumentException("Error loading sprite sheet image: " + sheetPath, image.getException());
+        }
+        SpriteAtlas built = new SpriteAtlas(sheetPath, image, frameWidth, frameHeight, numColsInSheet, totalFrames, preSlice);
+        synchronized (shared) {
+            SpriteAtlas existing = shared.putIfAbsent(key, built);
+            if (existing != null) return existing;
+            while (shared.size() > MAX_SHARED_ATLASES) {
+                shared.remove(shared.keySet().iterator().next());
+            }
+            return built;
+        }
+    }
+
+    /**
+     * Builds an unshared atlas over an image that is already in memory, e.g. one generated at
+     * runtime or a sheet decoded elsewhere. Needs no classpath resource and no image decode.
+     * @param name Used as the sheet path in messages and {@link #getSheetPath()}.
+     * @throws IllegalArgumentException if the layout is invalid for the image.
+     */
+    public static SpriteAtlas fromImage(String name, Image sheet, int frameWidth, int frameHeight,
+                                        int numColsInSheet, int totalFrames, Boolean preSlice) {
+        if (sheet == null) {
+            throw new IllegalArgumentException("Sprite sheet image cannot be null.");
+        }
+        return new SpriteAtlas(name, sheet, frameWidth, frameHeight, numColsInSheet, totalFrames, preSlice);
+    }
+
+    /** Drops the shared atlases of one sheet, e.g. after its file changed. */
+    public static void invalidate(String sheetPath) {
+        synchronized (shared) {
+            shared.keySet().removeIf(key -> key.startsWith(sheetPath + '|'));
+        }
+    }
+
+    /** Drops every shared atlas, e.g. after the image cache is cleared. */
+    public static void clearShared() {
+        synchronized (shared) {
+            shared.clear();
+        }
+    }
+
+    /**
+     * Prepares an ImageView to show this atlas. Sheet-backed atlases bind the sheet once here so
+     * {@link #showFrame} only has to move the viewport.
+     */
+    public void attach(ImageView imageView) {
+        if (frames == null) {
+            imageView.setImage(sheet);
+        } else {
+            imageView.setViewport(null);
+        }
+    }
+
+    /**
+     * Shows a frame on an ImageView previously passed to {@link #attach}. Allocates nothing.
+     * @param frameIndex Frame to show, 0 to {@link #getFrameCount()} - 1.
+     */
+    public void showFrame(ImageView imageView, int frameIndex) {
+        if (frames != null) {
+            imageView.setImage(frames[frameIndex]);
+        } else {
+            imageView.setViewport(viewports[frameIndex]);
+        }
+    }
+
+    public String getSheetPath() { return sheetPath; }
+    public int getFrameWidth() { return frameWidth; }
+    public int getFrameHeight() { return frameHeight; }
+    public int getFrameCount() { return frameCount; }
+    public boolean isPreSliced() { return frames != null; }
+
+    /** Viewport of a frame on the sheet. */
+    public Rectangle2D getViewport(int frameIndex) { return viewports[frameIndex]; }
+}
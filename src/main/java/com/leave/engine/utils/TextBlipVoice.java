@@ -0,0 +1,222 @@
+package com.leave.engine.utils;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The text blip as a dedicated voice of {@link SfxMixer}, rendered on the mixer's audio thread.
+ *
+ * Typing only writes a variant number into a small ring buffer ({@link #trigger(int)}); it
+ * never touches a line, so revealing text can't stall on audio. The mixer thread drains the
+ * ring every block and coalesces triggers: at most one blip starts per
+ * 1/{@link #setMaxRate(double) max rate} seconds, and triggers arriving in between collapse
+ * into one pending blip that starts when the gap has passed. A new blip takes over from the
+ * old one with a short fade so the cut doesn't click.
+ *
+ * Variants are the blip resampled to other pitches. Speakers or dialogue styles are mapped
+ * to a variant with {@link #setVoicePitch(String, float)}; unmapped keys get a stable pitch
+ * from {@link #DEFAULT_PITCHES} so each speaker keeps sounding the same.
+ */
+public final class TextBlipVoice {
+
+    /** Pitch ratios handed out to unmapped keys; index 0 is the unmodified blip. */
+    public static final float[] DEFAULT_PITCHES = { 1.0f, 0.89f, 1.12f, 0.79f, 1.26f }; // 0, -2, +2, -4, +4 semitones
+
+    private static final int RING_SIZE = 64;         // Power of two
+    private static final int FADE_FRAMES = 96;       // ~2 ms handover between blips
+
+    // Triggers, written by the FX thread and read by the mixer thread only
+    private final int[] ring = new int[RING_SIZE];
+    private volatile long ringHead = 0;              // Next slot to write
+    private volatile long ringTail = 0;              // Next slot to read
+
+    private volatile short[][] variants = new short[0][];
+    private final Map<String, Integer> keyVariants = new ConcurrentHashMap<>();
+    private final Object variantLock = new Object();
+    private float[] variantPitches = new float[0];   // Guarded by variantLock
+    private short[] baseSamples;                     // Guarded by variantLock
+
+    private volatile float gain = 0.3f;
+    private volatile long minGapFrames = (long) (SfxMixer.SAMPLE_RATE / 20.0);
+    private volatile boolean muted = false;
+
+    // Mixer-thread state
+    private short[] current;
+    private int currentPos;
+    private short[] tail;                            // Previous blip fading out
+    private int tailPos;
+    private int tailFadeLeft;
+    private int pendingVariant = -1;
+    private long framesSinceStart = Long.MAX_VALUE / 2;
+
+    // Stats
+    private volatile long triggers = 0;
+    private volatile long played = 0;
+    private volatile long dropped = 0;               // Ring was full
+
+    TextBlipVoice() {
+        synchronized (variantLock) {
+            variantPitches = DEFAULT_PITCHES.clone();
+        }
+    }
+
+    /**
+     * Sets the blip sound and builds every pitch variant. Call off the FX thread.
+     * @param stereoSamples Interleaved stereo samples at {@link SfxMixer#SAMPLE_RATE}.
+     */
+    void setSound(short[] stereoSamples) {
+        synchronized (variantLock) {
+            baseSamples = stereoSamples;
+            short[][] built = new short[variantPitches.length][];
+            for (int i = 0; i < built.length; i++) {
+                built[i] = pitchShift(stereoSamples, variantPitches[i]);
+            }
+            variants = built;
+        }
+    }
+
+    public boolean hasSound() {
+        return variants.length > 0;
+    }
+
+    /**
+     * Gives a speaker or dialogue style its own blip pitch.
+     * @param key   Speaker name or style, as passed to {@link #variantFor(String)}.
+     * @param pitch Playback rate ratio; 1.0 is the original blip, 2.0 an octave up.
+     */
+    public void setVoicePitch(String key, float pitch) {
+        if (key == null || pitch <= 0) return;
+        synchronized (variantLock) {
+            int index = -1;
+            for (int i = 0; i < variantPitches.length; i++) {
+                if (variantPitches[i] == pitch) { index = i; break; }
+            }
+            if (index < 0) {
+                index = variantPitches.length;
+                variantPitches = Arrays.copyOf(variantPitches, index + 1);
+                variantPitches[index] = pitch;
+                if (baseSamples != null) {
+                    short[][] grown = Arrays.copyOf(variants, index + 1);
+                    grown[index] = pitchShift(baseSamples, pitch);
+                    variants = grown;
+                }
+            }
+            keyVariants.put(key, index);
+        }
+    }
+
+    /**
+     * Variant for a speaker or style. Null or blank keys get the unmodified blip.
+     */
+    public int variantFor(String key) {
+        if (key == null || key.trim().isEmpty()) return 0;
+        Integer assigned = keyVariants.get(key);
+        if (assigned != null) return assigned;
+        return Math.floorMod(key.hashCode(), DEFAULT_PITCHES.length);
+    }
+
+    /**
+     * Requests a blip. Never blocks; when the ring is full the trigger is dropped, which only
+     * happens if the mixer thread has stalled. Call from the FX thread.
+     * @return false if the trigger was dropped.
+     */
+    public boolean trigger(int variant) {
+        triggers++;
+        long head = ringHead;
+        if (head - ringTail >= RING_SIZE) {
+            dropped++;
+            return false;
+        }
+        ring[(int) (head & (RING_SIZE - 1))] = variant;
+        ringHead = head + 1; // Volatile write publishes the slot
+        return true;
+    }
+
+    /**
+     * Caps how many blips can start per second. 0 or less mutes the blip.
+     */
+    public void setMaxRate(double blipsPerSecond) {
+        muted = blipsPerSecond <= 0;
+        if (!muted) minGapFrames = Math.max(1, (long) (SfxMixer.SAMPLE_RATE / blipsPerSecond));
+    }
+
+    public double getMaxRate() {
+        return muted ? 0.0 : SfxMixer.SAMPLE_RATE / (double) minGapFrames;
+    }
+
+    /** Blip volume, 0.0 to 1.0, before the mixer's master gain. */
+    public void setGain(float gain) {
+        this.gain = Math.max(0f, Math.min(1f, gain));
+    }
+
+    // Mixer thread: drain triggers, start a blip if due, and add this block of it to mix
+    void mixInto(float[] mix, int frames) {
+        long head = ringHead;
+        long tailIndex = ringTail;
+        if (head != tailIndex) {
+            pendingVariant = ring[(int) ((head - 1) & (RING_SIZE - 1))]; // Only the newest matters
+            ringTail = head;
+        }
+        short[][] available = variants;
+        if (muted || available.length == 0) {
+            pendingVariant = -1;
+        } else if (pendingVariant >= 0 && framesSinceStart >= minGapFrames) {
+            int variant = pendingVariant < available.length ? pendingVariant : 0;
+            if (current != null) {
+                tail = current;
+                tailPos = currentPos;
+                tailFadeLeft = FADE_FRAMES;
+            }
+            current = available[variant];
+            currentPos = 0;
+            pendingVariant = -1;
+            framesSinceStart = 0;
+            played++;
+        }
+        framesSinceStart += frames;
+
+        float g = gain;
+        int samples = frames * SfxMixer.CHANNELS;
+        if (tail != null) {
+            int count = Math.min(Math.min(samples, tail.length - tailPos), tailFadeLeft * SfxMixer.CHANNELS);
+            for (int i = 0; i < count; i++) {
+                float fade = (tailFadeLeft - i / SfxMixer.CHANNELS) / (float) FADE_FRAMES;
+                mix[i] += tail[tailPos + i] * g * fade;
+            }
+            tail = null; // FADE_FRAMES is shorter than a block, so the tail ends here
+        }
+        if (current != null) {
+            int count = Math.min(samples, current.length - currentPos);
+            for (int i = 0; i < count; i++) {
+                mix[i] += current[currentPos + i] * g;
+            }
+            currentPos += count;
+            if (currentPos >= current.length) current = null;
+        }
+    }
+
+    // Resamples interleaved stereo so it plays back at the given pitch ratio
+    static short[] pitchShift(short[] stereo, float pitch) {
+        if (pitch == 1.0f) return stereo;
+        int sourceFrames = stereo.length / SfxMixer.CHANNELS;
+        int outFrames = (int) (sourceFrames / pitch);
+        short[] out = new short[outFrames * SfxMixer.CHANNELS];
+        for (int f = 0; f < outFrames; f++) {
+            double srcPos = f * (double) pitch;
+            int i0 = (int) srcPos;
+            int i1 = Math.min(i0 + 1, sourceFrames - 1);
+            double frac = srcPos - i0;
+            for (int c = 0; c < SfxMixer.CHANNELS; c++) {
+                double s0 = stereo[i0 * SfxMixer.CHANNELS + c];
+                double s1 = stereo[i1 * SfxMixer.CHANNELS + c];
+                out[f * SfxMixer.CHANNELS + c] = (short) Math.round(s0 + (s1 - s0) * frac);
+            }
+        }
+        return out;
+    }
+
+    public long getTriggerCount() { return triggers; }
+    public long getPlayedCount() { return played; }
+    public long getDroppedCount() { return dropped; }
+}
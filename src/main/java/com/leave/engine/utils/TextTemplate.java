@@ -0,0 +1,113 @@
+package com.leave.engine.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A story text (dialogue line, speaker, choice, outcome message) split once into literal and
+ * variable segments, so displaying it is a single append pass instead of a search-and-replace
+ * per variable.
+ *
+ * Variables are written {@code {name}}; names may contain letters, digits and {@code _ . : -}
+ * (e.g. {@code {playerName}}, {@code {item:key}}). The story's own player-name placeholder is
+ * also recognised when it does not follow that syntax. A variable the resolver does not know
+ * is written back as it appeared, so text that merely contains braces is left alone.
+ */
+public final class TextTemplate {
+
+    /** Supplies variable values while rendering. */
+    @FunctionalInterface
+    public interface Resolver {
+        /**
+         * Appends the value of a variable.
+         * @return false if the variable is unknown (nothing must have been appended).
+         */
+        boolean append(String name, StringBuilder out);
+    }
+
+    private final String source;
+    private final String[] literals;  // literals[i] comes before variables[i]; one more literal than variables
+    private final String[] variables;
+
+    private TextTemplate(String source, String[] literals, String[] variables) {
+        this.source = source;
+        this.literals = literals;
+        this.variables = variables;
+    }
+
+    /** Compiles text with only the {@code {name}} syntax. */
+    public static TextTemplate compile(String text) {
+        return compile(text, null, null);
+    }
+
+    /**
+     * Compiles text, also treating every occurrence of {@code alias} as the variable
+     * {@code aliasVariable} (for the story's configurable player-name placeholder).
+     */
+    public static TextTemplate compile(String text, String alias, String aliasVariable) {
+        if (text == null) text = "";
+        boolean useAlias = alias != null && !alias.isEmpty() && aliasVariable != null;
+        List<String> literals = new ArrayList<>();
+        List<String> variables = new ArrayList<>();
+        int literalStart = 0;
+        int i = 0;
+        while (i < text.length()) {
+            if (useAlias && text.startsWith(alias, i)) {
+                literals.add(text.substring(literalStart, i));
+                variables.add(aliasVariable);
+                i += alias.length();
+                literalStart = i;
+                continue;
+            }
+            if (text.charAt(i) == '{') {
+                int end = variableEnd(text, i + 1);
+                if (end > 0) {
+                    literals.add(text.substring(literalStart, i));
+                    variables.add(text.substring(i + 1, end));
+                    i = end + 1;
+                    literalStart = i;
+                    continue;
+                }
+            }
+            i++;
+        }
+        literals.add(text.substring(literalStart));
+        return new TextTemplate(text, literals.toArray(new String[0]), variables.toArray(new String[0]));
+    }
+
+    // Index of the '}' closing a well-formed variable name starting at 'start', or -1
+    private static int variableEnd(String text, int start) {
+        for (int i = start; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '}') return i > start ? i : -1;
+            if (!Character.isLetterOrDigit(c) && c != '_' && c != '.' && c != ':' && c != '-') return -1;
+        }
+        return -1;
+    }
+
+    public String getSource() { return source; }
+
+    /** True if the text has no variables, so rendering would just return the source. */
+    public boolean isLiteral() { return variables.length == 0; }
+
+    public int getVariableCount() { return variables.length; }
+
+    /** Appends the rendered text to {@code out}. */
+    public void renderTo(StringBuilder out, Resolver resolver) {
+        for (int i = 0; i < variables.length; i++) {
+            out.append(literals[i]);
+            if (!resolver.append(variables[i], out)) {
+                out.append('{').append(variables[i]).append('}');
+            }
+        }
+        out.append(literals[variables.length]);
+    }
+
+    /** Renders into a new string; returns the source itself when there is nothing to substitute. */
+    public String render(Resolver resolver) {
+        if (isLiteral()) return source;
+        StringBuilder out = new StringBuilder(source.length() + 16);
+        renderTo(out, resolver);
+        return out.toString();
+    }
+}
@@ -0,0 +1,234 @@
+package com.leave.engine.utils;
+
+import java.util.Arrays;
+
+import javafx.beans.InvalidationListener;
+import javafx.geometry.Bounds;
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.control.Label;
+import javafx.scene.shape.LineTo;
+import javafx.scene.shape.MoveTo;
+import javafx.scene.shape.PathElement;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.text.Text;
+
+/**
+ * Typewriter reveal of a label's text, driven by the shared {@link AnimationScheduler}.
+ *
+ * The full line is set on the label once, so it is laid out (and wrapped) a single time.
+ * Glyphs are then revealed by clipping the label with two rectangles: one covering every
+ * finished line and one covering the current line up to the next caret. (The label is clipped
+ * rather than its text node because the label skin resets the text node's clip on layout.)
+ * Caret positions are measured once per layout, so a tick only moves two rectangles; it
+ * builds no strings and triggers no text layout.
+ *
+ * Characters that became due since the last pulse are revealed together when the frame rate
+ * drops. A pulse that reveals anything but whitespace triggers one text blip in the line's
+ * blip voice; the {@link TextBlipVoice} coalesces them to its maximum rate. If the label has no text node yet (not in a scene) or shows a truncated
+ * version of the line, the reveal falls back to setting the visible substring.
+ */
+public final class TypewriterText implements AnimationScheduler.Tickable {
+
+    private final Label label;
+    private final String fullText;
+    private final long charDelayNs;
+    private final Runnable onFinished;
+    private final int blipVariant;
+
+    private long startNs = -1;
+    private int shown = 0;
+    private boolean done = false;
+
+    // Clip geometry, measured from the label's text node
+    private Text textNode;
+    private boolean useClip = false;
+    private boolean geometryDirty = true;
+    private double[] caretX;      // Caret x before each character index (0..length)
+    private int[] caretLine;      // Line of that caret
+    private double[] lineTop;
+    private double[] lineBottom;
+    private double clipMinX;
+    private double clipWidth;
+    private double offsetX;       // Text node position inside the label
+    private double offsetY;
+    private Node previousClip;
+    private final Rectangle finishedLines = new Rectangle();
+    private final Rectangle currentLine = new Rectangle();
+    private final Group clip = new Group(finishedLines, currentLine);
+    private final InvalidationListener relayoutListener = obs -> geometryDirty = true;
+
+    TypewriterText(Label label, String fullText, int charDelayMs, int blipVariant, Runnable onFinished) {
+        this.label = label;
+        this.fullText = fullText;
+        this.charDelayNs = Math.max(1, charDelayMs) * 1_000_000L;
+        this.blipVariant = blipVariant;
+        this.onFinished = onFinished;
+    }
+
+    /**
+     * Caps how often the text blip may play while text is revealed. 0 or less mutes blips.
+     */
+    public static void setMaxBlipsPerSecond(double blipsPerSecond) {
+        AudioManager.getInstance().setMaxTextBlipsPerSecond(blipsPerSecond);
+    }
+
+    public static double getMaxBlipsPerSecond() {
+        return AudioManager.getInstance().getMaxTextBlipsPerSecond();
+    }
+
+    // Sets the whole line and hides it; called once before the first tick
+    void begin() {
+        label.setText(fullText);
+        attachClip();
+        if (!useClip) label.setText("");
+    }
+
+    private void attachClip() {
+        // Force the skin to exist and lay the line out so its text node can be measured
+        label.applyCss();
+        label.layout();
+        Node node = label.lookup(".text");
+        if (node instanceof Text && fullText.equals(((Text) node).getText())) {
+            textNode = (Text) node;
+            textNode.boundsInParentProperty().addListener(relayoutListener);
+            geometryDirty = true;
+            useClip = measure();
+            if (useClip) {
+                updateClip();
+                previousClip = label.getClip();
+                label.setClip(clip);
+            } else {
+                detachClip();
+            }
+        }
+    }
+
+    // Records caret positions for every character index; false if the text node can't provide them
+    private boolean measure() {
+        int length = fullText.length();
+        if (caretX == null || caretX.length != length + 1) {
+            caretX = new double[length + 1];
+            caretLine = new int[length + 1];
+        }
+        double[] tops = new double[8];
+        double[] bottoms = new double[8];
+        int lines = 0;
+        for (int i = 0; i <= length; i++) {
+            PathElement[] caret = textNode.caretShape(i, true);
+            if (caret.length < 2 || !(caret[0] instanceof MoveTo) || !(caret[1] instanceof LineTo)) return false;
+            MoveTo top = (MoveTo) caret[0];
+            LineTo bottom = (LineTo) caret[1];
+            if (lines == 0 || top.getY() >= bottoms[lines - 1] - 0.5) { // Caret moved down to a new line
+                if (lines == tops.length) {
+                    tops = Arrays.copyOf(tops, lines * 2);
+                    bottoms = Arrays.copyOf(bottoms, lines * 2);
+                }
+                tops[lines] = top.getY();
+                bottoms[lines] = bottom.getY();
+                lines++;
+            }
+            caretX[i] = top.getX();
+            caretLine[i] = lines - 1;
+        }
+        lineTop = tops;
+        lineBottom = bottoms;
+        Bounds bounds = textNode.getLayoutBounds();
+        clipMinX = bounds.getMinX() - 2;
+        clipWidth = bounds.getWidth() + 4; // Slack for glyphs overhanging the caret
+        offsetX = textNode.getLayoutX() + textNode.getTranslateX();
+        offsetY = textNode.getLayoutY() + textNode.getTranslateY();
+        geometryDirty = false;
+        return true;
+    }
+
+    private void updateClip() {
+        int line = caretLine[shown];
+        // Everything above the current caret's line is fully visible
+        finishedLines.setX(offsetX + clipMinX);
+        finishedLines.setY(offsetY + lineTop[0] - 2);
+        finishedLines.setWidth(clipWidth);
+        finishedLines.setHeight(line == 0 ? 0 : lineTop[line] - lineTop[0] + 2);
+        // The current line up to the caret
+        currentLine.setX(offsetX + clipMinX);
+        currentLine.setY(offsetY + lineTop[line]);
+        currentLine.setWidth(Math.max(0, caretX[shown] - clipMinX));
+        currentLine.setHeight(lineBottom[line] - lineTop[line]);
+    }
+
+    private void detachClip() {
+        if (textNode != null) {
+            textNode.boundsInParentProperty().removeListener(relayoutListener);
+            textNode = null;
+        }
+        if (label.getClip() == clip) label.setClip(previousClip);
+        previousClip = null;
+        useClip = false;
+    }
+
+    @Override
+    public void tick(long nowNanos) {
+        if (done) return;
+        if (startNs < 0) startNs = nowNanos;
+
+        if (useClip && label.getText() != fullText) {
+            // Someone replaced the text; their text wins and this reveal is abandoned
+            finish(false);
+            return;
+        }
+
+        // First character appears after one delay
+        int due = (int) Math.min(fullText.length(), (nowNanos - startNs) / charDelayNs);
+        if (due > shown) {
+            boolean anyVisible = false;
+            for (int i = shown; i < due; i++) {
+                if (!Character.isWhitespace(fullText.charAt(i))) { anyVisible = true; break; }
+            }
+            shown = due;
+            if (useClip) {
+                if (geometryDirty && !measure()) {
+                    detachClip();
+                    label.setText(fullText.substring(0, shown));
+                } else {
+                    updateClip();
+                }
+            } else {
+                label.setText(fullText.substring(0, shown)); // Fallback: no measurable text node
+            }
+            if (anyVisible) AudioManager.getInstance().playTextBlip(blipVariant);
+        }
+
+        if (shown >= fullText.length()) {
+            finish(true);
+        }
+    }
+
+    /**
+     * Stops revealing. With {@code runCallback} the line is complete and onFinished runs.
+     */
+    void finish(boolean runCallback) {
+        if (done) return;
+        done = true;
+        AnimationScheduler.getInstance().unregister(this);
+        detachClip();
+        if (label.getProperties().get(AnimationUtils.TEXT_ANIMATION_KEY) == this) {
+            label.getProperties().remove(AnimationUtils.TEXT_ANIMATION_KEY); // Clean up
+        }
+        if (runCallback && onFinished != null) {
+            onFinished.run();
+        }
+    }
+
+    /**
+     * Stops where the reveal is, leaving only the revealed part of the line on the label.
+     */
+    void freeze() {
+        if (done) return;
+        boolean clipped = useClip && label.getText() == fullText;
+        finish(false);
+        if (clipped) label.setText(fullText.substring(0, shown));
+    }
+
+    /** Characters revealed so far. */
+    public int getRevealedCount() { return shown; }
+}
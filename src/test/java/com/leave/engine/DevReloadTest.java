@@ -0,0 +1,113 @@
+package com.leave.engine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.leave.engine.utils.ResourceWatcher;
+
+class DevReloadTest {
+
+    private static final String STORY = "/com/leave/engine/data/sao.json";
+    private final StoryLoader loader = new StoryLoader();
+
+    private JsonNode storyTree() throws IOException {
+        try (InputStream in = DevReloadTest.class.getResourceAsStream(STORY)) {
+            return loader.readStoryTree(in.readAllBytes(), STORY);
+        }
+    }
+
+    // A headless game in the start scene with a flag and an item
+    private GameManager startedGame() throws IOException {
+        GameManager gm = GameManager.headless(loader.storyFromTree(storyTree()));
+        gm.startGame();
+        gm.setFlag("MET_GUARD");
+        gm.addItemToInventory("KEY");
+        return gm;
+    }
+
+    @Test
+    void diffFindsEditedScenesOnly() throws IOException {
+        JsonNode before = storyTree();
+        JsonNode after = before.deepCopy();
+        String startScene = before.get("startScene").asText();
+        ((ObjectNode) after.get("scenes").get(startScene)).put("backgroundMusic", "/edited.wav");
+
+        DevReloader.StoryDiff diff = DevReloader.StoryDiff.between(before, after);
+        assertEquals(List.of(startScene), List.copyOf(diff.changed));
+        assertTrue(diff.isSceneEditOnly());
+        assertTrue(DevReloader.StoryDiff.between(before, before.deepCopy()).isEmpty());
+
+        ((ObjectNode) after.get("scenes")).set("new_scene", after.get("scenes").get(startScene).deepCopy());
+        ((ObjectNode) after).put("gameTitle", "Renamed");
+        diff = DevReloader.StoryDiff.between(before, after);
+        assertEquals(List.of("new_scene"), List.copyOf(diff.added));
+        assertEquals(List.of("gameTitle"), List.copyOf(diff.headerFields));
+        assertFalse(diff.isSceneEditOnly());
+    }
+
+    @Test
+    void editedScenesAreSwappedInPlace() throws IOException {
+        GameManager gm = startedGame();
+        String sceneId = gm.getCurrentSceneId();
+        long fingerprint = gm.getSceneGraph().getFingerprint();
+        SceneGraph.SceneNode node = gm.getCurrentSceneNode();
+
+        ObjectNode edited = (ObjectNode) storyTree().get("scenes").get(sceneId).deepCopy();
+        edited.put("backgroundMusic", "/edited.wav");
+        assertTrue(gm.replaceScenes(Map.of(sceneId, loader.sceneFromTree(edited))));
+
+        assertEquals("/edited.wav", gm.getCurrentSceneData().getBackgroundMusic());
+        assertSame(node, gm.getCurrentSceneNode());
+        assertEquals(fingerprint, gm.getSceneGraph().getFingerprint());
+        assertTrue(gm.checkFlag("MET_GUARD"));
+        assertThrows(IllegalStateException.class, () -> gm.replaceScenes(Map.of("no_such_scene", new SceneData())));
+    }
+
+    @Test
+    void structuralReloadKeepsThePlaythrough() throws IOException {
+        GameManager gm = startedGame();
+        String sceneId = gm.getCurrentSceneId();
+        JsonNode tree = storyTree();
+        ((ObjectNode) tree.get("scenes")).set("added_scene", tree.get("scenes").get(sceneId).deepCopy());
+
+        assertTrue(gm.reloadStory(loader.storyFromTree(tree)));
+        assertEquals(sceneId, gm.getCurrentSceneId());
+        assertEquals(sceneId, gm.getCurrentSceneNode().getSceneId());
+        assertNotNull(gm.getSceneGraph().getSceneNode("added_scene"));
+        assertTrue(gm.checkFlag("MET_GUARD"));
+        assertTrue(gm.hasItem("KEY"));
+
+        ((ObjectNode) tree.get("scenes")).remove(sceneId);
+        ((ObjectNode) tree).put("startScene", "added_scene");
+        assertFalse(gm.reloadStory(loader.storyFromTree(tree)));
+        assertEquals("added_scene", gm.getCurrentSceneId());
+    }
+
+    @Test
+    void watcherReportsChangedResources(@TempDir Path root) throws Exception {
+        Path dir = Files.createDirectories(root.resolve("com/leave/engine/data"));
+        BlockingQueue<List<String>> batches = new ArrayBlockingQueue<>(8);
+        try (ResourceWatcher watcher = new ResourceWatcher(root, batches::add)) {
+            watcher.start();
+            Files.writeString(dir.resolve("story.json"), "{}");
+            Files.writeString(dir.resolve("story.json~"), "{}"); // Editor backup, ignored
+            List<String> batch = batches.poll(10, TimeUnit.SECONDS);
+            assertEquals(List.of("/com/leave/engine/data/story.json"), batch);
+            assertEquals(dir.resolve("story.json"), watcher.toFile(batch.get(0)));
+        }
+    }
+}
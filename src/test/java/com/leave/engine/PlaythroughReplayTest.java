@@ -0,0 +1,153 @@
+package com.leave.engine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class PlaythroughReplayTest {
+
+    private static GameStory story() throws IOException {
+        return new StoryLoader().loadStory("/com/leave/engine/data/sao.json");
+    }
+
+    // Plays a seeded random walk through the story while recording it
+    private static byte[] recordRandomWalk(GameStory story, long seed, int steps) throws IOException {
+        GameManager gm = GameManager.headless(story);
+        gm.setCurrentPlayerCharacterName("Kirito");
+        gm.startGame();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        gm.startRecording(out);
+        Random random = new Random(seed);
+        for (int step = 0; step < steps; step++) {
+            if (gm.isGameOver()) {
+                if (gm.getCurrentOutcomeData() != null && gm.getCurrentOutcomeData().getNextSceneId() != null) {
+                    gm.followOutcomeTransition();
+                } else {
+                    gm.resetGameOver();
+                    gm.startGame();
+                }
+                continue;
+            }
+            SceneData scene = gm.getCurrentSceneData();
+            gm.recordDialogueAdvance(0);
+            List<ChoiceData> choices = scene.getChoices();
+            if (choices != null && !choices.isEmpty()) {
+                ChoiceData choice = choices.get(random.nextInt(choices.size()));
+                if (gm.isChoiceAvailable(choice)) gm.makeChoice(choice);
+                else gm.setFlag("TRIED_LOCKED_CHOICE");
+            } else if (scene.getAutoTransitionTo() != null) {
+                gm.followAutoTransition();
+            } else if (scene.getOutcome() != null) {
+                gm.setGameOver(scene.getOutcome());
+            } else {
+                gm.advanceToScene(gm.getSceneGraph().getStartScene());
+            }
+        }
+        gm.stopRecording();
+        return out.toByteArray();
+    }
+
+    @Test
+    void replaysReachTheRecordedState() throws IOException {
+        GameStory story = story();
+        byte[] bytes = recordRandomWalk(story, 42, 200);
+        PlaythroughLog log = PlaythroughLog.parse(bytes);
+        assertFalse(log.isTruncated());
+        assertEquals(PlaythroughLog.SNAPSHOT, log.getType(0));
+        assertEquals(PlaythroughLog.CHECKPOINT, log.getType(log.size() - 1));
+        assertTrue(log.count(PlaythroughLog.CHECKPOINT) > 5);
+
+        PlaythroughReplayer replayer = new PlaythroughReplayer(story);
+        PlaythroughReplayer.Result first = replayer.replay(log);
+        PlaythroughReplayer.Result second = replayer.replay(log);
+        assertEquals(log.getValue(log.size() - 1), first.getDigest());
+        assertEquals(first.getDigest(), second.getDigest());
+        assertEquals(log.count(PlaythroughLog.CHECKPOINT), first.getCheckpoints());
+
+        // A fresh replayer over a separately loaded copy of the story agrees too
+        assertEquals(first.getDigest(), new PlaythroughReplayer(story()).replay(log).getDigest());
+    }
+
+    @Test
+    void reportsWhereAReplayDiverges() throws IOException {
+        GameStory story = story();
+        byte[] bytes = recordRandomWalk(story, 7, 100);
+        PlaythroughReplayer replayer = new PlaythroughReplayer(story);
+        replayer.getGameManager().setFlag("NOT_IN_THE_RECORDING");
+        replayer.replay(PlaythroughLog.parse(bytes)); // The opening snapshot replaces whatever state was there
+        assertFalse(replayer.getGameManager().checkFlag("NOT_IN_THE_RECORDING"));
+
+        byte[] tampered = Arrays.copyOf(bytes, bytes.length);
+        tampered[tampered.length - 1] ^= 1; // Last byte of the final checkpoint digest
+        PlaythroughReplayer.DivergenceException e = assertThrows(PlaythroughReplayer.DivergenceException.class,
+                () -> replayer.replay(PlaythroughLog.parse(tampered)));
+        assertEquals(PlaythroughLog.parse(bytes).size() - 1, e.getRecord());
+    }
+
+    @Test
+    void recordsChoicesMadeAfterALazySceneWasEvicted() throws IOException {
+        StoryLoader loader = new StoryLoader();
+        loader.setMaxResidentScenes(1);
+        GameStory story = loader.loadStreamingStory(("{'startScene': 'a', 'scenes': {" +
+                " 'a': {'choices': [{'nextSceneId': 'b', 'action': 'SET_FLAG_KEY'}, {'nextSceneId': 'c'}]}," +
+                " 'b': {'outcome': 'END'}, 'c': {'autoTransitionTo': 'a'}}," +
+                " 'outcomes': {'END': {'message': 'e'}}}").replace('\'', '"').getBytes(StandardCharsets.UTF_8), "test");
+        GameManager gm = GameManager.headless(story);
+        gm.startGame();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        gm.startRecording(out);
+
+        ChoiceData choice = gm.getCurrentSceneData().getChoices().get(0);
+        assertNotNull(story.getScenes().get("c")); // Evicts 'a'; its choices are parsed again on the next lookup
+        assertNotSame(choice, gm.getCurrentSceneData().getChoices().get(0));
+        gm.makeChoice(choice);
+        assertEquals("b", gm.getCurrentSceneId());
+        assertTrue(gm.checkFlag("KEY"));
+        assertTrue(gm.isGameOver());
+        gm.stopRecording();
+
+        PlaythroughLog log = PlaythroughLog.parse(out.toByteArray());
+        assertEquals(1, log.count(PlaythroughLog.ACTION));
+        assertEquals(1, log.count(PlaythroughLog.ADVANCE));
+        assertEquals(log.getValue(log.size() - 1), new PlaythroughReplayer(story).replay(log).getDigest());
+    }
+
+    @Test
+    void theStartScenesActionRunsOnStartAndReplay() throws IOException {
+        StoryLoader loader = new StoryLoader();
+        GameStory story = loader.storyFromTree(loader.readStoryTree(("{'startScene': 'dark', 'scenes': {" +
+                " 'dark': {'action': 'SET_FLAG_LIT', 'choices': [{'nextSceneId': 'lit', 'requiredFlag': 'LIT'}]}," +
+                " 'lit': {'outcome': 'END'}}, 'outcomes': {'END': {'message': 'e'}}}")
+                .replace('\'', '"').getBytes(StandardCharsets.UTF_8), "test"));
+        GameManager gm = GameManager.headless(story);
+        gm.startGame();
+        assertTrue(gm.checkFlag("LIT"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        gm.startRecording(out);
+        gm.startGame(); // Recorded as START, which the replay runs through startGame() again
+        assertTrue(gm.isChoiceAvailable(gm.getCurrentSceneData().getChoices().get(0)));
+        gm.stopRecording();
+
+        PlaythroughReplayer replayer = new PlaythroughReplayer(story);
+        PlaythroughLog log = PlaythroughLog.parse(out.toByteArray());
+        assertEquals(1, log.count(PlaythroughLog.START));
+        assertEquals(log.getValue(log.size() - 1), replayer.replay(log).getDigest());
+        assertTrue(replayer.getGameManager().checkFlag("LIT"));
+    }
+
+    @Test
+    void keepsRecordsBeforeATruncatedTail() throws IOException {
+        byte[] bytes = recordRandomWalk(story(), 3, 50);
+        PlaythroughLog whole = PlaythroughLog.parse(bytes);
+        PlaythroughLog cut = PlaythroughLog.parse(Arrays.copyOf(bytes, bytes.length - 3));
+        assertTrue(cut.isTruncated());
+        assertEquals(whole.size() - 1, cut.size());
+    }
+}
@@ -0,0 +1,65 @@
+package com.leave.engine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.leave.engine.utils.SaveManager;
+
+class SaveGameTest {
+
+    private static SaveGame sampleSave() throws IOException {
+        SceneGraph graph = SceneGraph.build(new StoryLoader().loadStory("/com/leave/engine/data/sao.json"));
+        StoryState state = new StoryState(graph.getSymbols());
+        state.apply(graph.getSymbols().action("ADD_ITEM_KEY,ADD_ITEM_KEY,SET_FLAG_MET_ASUNA"));
+        return SaveGame.capture(graph, graph.getSceneNode(3), null, false, "Kirito", null, state);
+    }
+
+    @Test
+    void roundTripsThroughBytes() throws IOException {
+        SaveGame save = sampleSave();
+        byte[] bytes = save.toBytes();
+        assertTrue(bytes.length < 128, "save is " + bytes.length + " bytes");
+
+        SaveGame read = SaveGame.fromBytes(bytes);
+        assertEquals(save.getStoryFingerprint(), read.getStoryFingerprint());
+        assertEquals(3, read.getSceneIndex());
+        assertEquals(-1, read.getOutcomeIndex());
+        assertEquals("Kirito", read.getPlayerName());
+        assertNull(read.getPortraitPath());
+        assertEquals(List.of("MET_ASUNA"), read.getFlags());
+        assertEquals(List.of("KEY"), read.getItems());
+        assertEquals(2, read.getItemCount(0));
+    }
+
+    @Test
+    void rejectsCorruptData() throws IOException {
+        byte[] bytes = sampleSave().toBytes();
+        bytes[12] ^= 1;
+        assertThrows(IOException.class, () -> SaveGame.fromBytes(bytes));
+        assertThrows(IOException.class, () -> SaveGame.fromBytes(new byte[3]));
+    }
+
+    @Test
+    void writesSlotsAtomicallyOffThread(@TempDir Path dir) throws Exception {
+        SaveManager saves = SaveManager.forDirectory(dir);
+        byte[] bytes = sampleSave().toBytes();
+        CompletableFuture<Void> written = saves.save("slot1", () -> bytes);
+        written.get(5, TimeUnit.SECONDS);
+        assertArrayEquals(bytes, saves.read("slot1"));
+        try (var files = Files.list(dir)) {
+            assertEquals(1, files.count()); // No temp file left behind
+        }
+        assertNull(saves.read("missing"));
+        assertThrows(IllegalArgumentException.class, () -> saves.slotPath("../escape"));
+        saves.shutdown();
+    }
+}
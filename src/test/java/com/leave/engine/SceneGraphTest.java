@@ -0,0 +1,131 @@
+package com.leave.engine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class SceneGraphTest {
+
+    // Scene IDs deliberately out of alphabetical order; 'c' links to a scene and an outcome that do not exist
+    private static final String STORY =
+            "{'startScene': 'start', 'scenes': {" +
+            " 'start': {'choices': [{'text': 'left', 'nextSceneId': 'b'}, {'text': 'give up', 'outcome': 'LOST'}]," +
+            "           'action': 'SET_FLAG_STARTED'}," +
+            " 'b': {'autoTransitionTo': 'c'}," +
+            " 'c': {'choices': [{'text': 'lost', 'nextSceneId': 'nowhere'}, {'text': 'odd', 'outcome': 'NONE'}]," +
+            "       'autoTransitionTo': 'gone'}," +
+            " 'a': {'outcome': 'WON'}" +
+            "}, 'outcomes': {'WON': {'message': 'w'}, 'LOST': {'message': 'l', 'nextSceneId': 'start'}}}";
+
+    private static byte[] bytes(String json) {
+        return json.replace('\'', '"').getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static GameStory story(String json) throws IOException {
+        StoryLoader loader = new StoryLoader();
+        return loader.storyFromTree(loader.readStoryTree(bytes(json), "test"));
+    }
+
+    private static GameStory lazyStory(String json, int maxResidentScenes) throws IOException {
+        StoryLoader loader = new StoryLoader();
+        loader.setMaxResidentScenes(maxResidentScenes);
+        return loader.loadStreamingStory(bytes(json), "test");
+    }
+
+    private static List<String> sceneIds(SceneGraph graph) {
+        String[] ids = new String[graph.getSceneCount()];
+        for (int i = 0; i < ids.length; i++) ids[i] = graph.getSceneNode(i).getSceneId();
+        return List.of(ids);
+    }
+
+    @Test
+    void indexesScenesAndOutcomesInStoryOrder() throws IOException {
+        SceneGraph graph = SceneGraph.build(story(STORY));
+        assertEquals(List.of("start", "b", "c", "a"), sceneIds(graph));
+        assertEquals(2, graph.getOutcomeCount());
+
+        for (int i = 0; i < graph.getSceneCount(); i++) {
+            SceneGraph.SceneNode node = graph.getSceneNode(i);
+            assertEquals(i, node.getIndex());
+            assertSame(node, graph.getSceneNode(node.getSceneId()));
+        }
+        SceneGraph.OutcomeNode won = graph.getOutcomeNode("WON");
+        assertSame(won, graph.getOutcomeNode(won.getIndex()));
+        assertSame(graph.getSceneNode("start"), graph.getStartScene());
+        assertSame(graph.getSceneNode("start"), graph.getOutcomeNode("LOST").getNext());
+        assertNull(won.getNext());
+
+        assertNull(graph.getSceneNode("missing"));
+        assertNull(graph.getSceneNode((String) null));
+        assertNull(graph.getOutcomeNode("missing"));
+    }
+
+    @Test
+    void resolvesChoiceLinksByIndex() throws IOException {
+        SceneGraph graph = SceneGraph.build(story(STORY));
+        SceneGraph.SceneNode start = graph.getStartScene();
+        List<ChoiceData> choices = start.getData().getChoices();
+
+        assertEquals(0, start.indexOfChoice(choices.get(0)));
+        assertEquals(1, start.indexOfChoice(choices.get(1)));
+        assertEquals(-1, start.indexOfChoice(null));
+        assertEquals(-1, graph.getSceneNode("b").indexOfChoice(choices.get(0)));
+
+        assertSame(graph.getSceneNode("b"), start.getChoiceTarget(0));
+        assertNull(start.getChoiceOutcome(0));
+        assertNull(start.getChoiceTarget(1));
+        assertSame(graph.getOutcomeNode("LOST"), start.getChoiceOutcome(1));
+        assertNull(start.getChoiceTarget(-1));
+        assertNull(start.getChoiceOutcome(2));
+
+        assertSame(graph.getSceneNode("c"), graph.getSceneNode("b").getAutoTransition());
+        assertSame(graph.getOutcomeNode("WON"), graph.getSceneNode("a").getOutcome());
+        assertNull(start.getAutoTransition());
+    }
+
+    @Test
+    void brokenLinksResolveToNull() throws IOException {
+        SceneGraph graph = SceneGraph.build(story(STORY));
+        SceneGraph.SceneNode c = graph.getSceneNode("c");
+        assertEquals("nowhere", c.getData().getChoices().get(0).getNextSceneId());
+        assertNull(c.getChoiceTarget(0));
+        assertEquals("NONE", c.getData().getChoices().get(1).getOutcome());
+        assertNull(c.getChoiceOutcome(1));
+        assertEquals("gone", c.getData().getAutoTransitionTo());
+        assertNull(c.getAutoTransition());
+
+        SceneGraph noStart = SceneGraph.build(story("{'startScene': 'missing', 'scenes': {'a': {}}}"));
+        assertNull(noStart.getStartScene());
+    }
+
+    @Test
+    void lazyStoriesKeepStoryOrderAndNodeIdentity() throws IOException {
+        GameStory eager = story(STORY);
+        GameStory lazy = lazyStory(STORY, 1);
+        assertTrue(lazy.getScenes() instanceof LazySceneMap);
+
+        SceneGraph graph = SceneGraph.build(lazy);
+        assertEquals(sceneIds(SceneGraph.build(eager)), sceneIds(graph));
+        assertEquals(SceneGraph.build(eager).getFingerprint(), graph.getFingerprint());
+
+        // Nodes are shared however often their scenes are parsed again
+        SceneGraph.SceneNode start = graph.getStartScene();
+        assertSame(graph.getSceneNode("b"), start.getChoiceTarget(0));
+        assertSame(graph.getSceneNode("c"), graph.getSceneNode("b").getAutoTransition());
+        assertSame(graph.getSceneNode("b"), start.getChoiceTarget(0));
+
+        // Scene data is whatever copy is resident: the map's while it stays, a fresh parse after eviction
+        SceneData resident = start.getData();
+        assertSame(resident, lazy.getScenes().get("start"));
+        ChoiceData left = resident.getChoices().get(0);
+        assertEquals(0, start.indexOfChoice(left));
+        assertNotNull(graph.getSceneNode("a").getData()); // Evicts 'start'
+        assertNotSame(resident, start.getData());
+        assertEquals(-1, start.indexOfChoice(left));
+        assertEquals("b", start.getData().getChoices().get(0).getNextSceneId());
+    }
+}
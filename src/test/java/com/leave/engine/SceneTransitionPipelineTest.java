@@ -0,0 +1,81 @@
+package com.leave.engine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class SceneTransitionPipelineTest {
+
+    // Records what reaches the screen; the FX-thread stages run only when the test drains them
+    private static final class RecordingView implements SceneTransitionPipeline.SceneView {
+        final List<String> calls = new ArrayList<>();
+        final List<Runnable> fxQueue = new ArrayList<>();
+
+        @Override
+        public void commitScene(SceneData scene) { calls.add("commit " + scene.getId()); }
+
+        @Override
+        public void startScene(SceneData scene) { calls.add("start " + scene.getId()); }
+
+        void drainFxQueue() {
+            while (!fxQueue.isEmpty()) fxQueue.remove(0).run();
+        }
+    }
+
+    private static SceneData scene(String id, String backgroundImage) {
+        SceneData scene = new SceneData();
+        scene.setId(id);
+        scene.setBackgroundImage(backgroundImage);
+        return scene;
+    }
+
+    // A background that is never cached, so the transition always has a load stage
+    private static SceneData slowScene(String id) {
+        return scene(id, "/com/leave/engine/images/backgrounds/not_there_" + id + ".png");
+    }
+
+    @Test
+    void aNewerBeginSupersedesTheOneInFlight() {
+        RecordingView view = new RecordingView();
+        SceneTransitionPipeline pipeline = new SceneTransitionPipeline(view, view.fxQueue::add);
+
+        SceneTransitionPipeline.Transition stale = pipeline.begin(slowScene("stale"), "stale");
+        SceneTransitionPipeline.Transition fresh = pipeline.begin(scene("fresh", null), "fresh"); // Nothing to load
+        assertTrue(stale.isCancelled());
+        assertFalse(fresh.isCancelled());
+        assertEquals(List.of("commit fresh", "start fresh"), view.calls);
+
+        stale.whenLoaded().join();
+        view.drainFxQueue();
+        assertEquals(List.of("commit fresh", "start fresh"), view.calls);
+    }
+
+    @Test
+    void aLoadThatFinishedStillNeverCommitsOnceSuperseded() {
+        RecordingView view = new RecordingView();
+        SceneTransitionPipeline pipeline = new SceneTransitionPipeline(view, view.fxQueue::add);
+
+        SceneTransitionPipeline.Transition stale = pipeline.begin(slowScene("waiting"), "waiting");
+        stale.whenLoaded().join(); // Its commit is queued on the FX thread...
+        SceneTransitionPipeline.Transition fresh = pipeline.begin(slowScene("newer"), "newer"); // ...when this one begins
+        fresh.whenLoaded().join();
+        view.drainFxQueue();
+        assertEquals(List.of("commit newer", "start newer"), view.calls);
+    }
+
+    @Test
+    void cancelInFlightDropsTheTransition() {
+        RecordingView view = new RecordingView();
+        SceneTransitionPipeline pipeline = new SceneTransitionPipeline(view, view.fxQueue::add);
+
+        SceneTransitionPipeline.Transition cancelled = pipeline.begin(slowScene("cancelled"), "cancelled");
+        pipeline.cancelInFlight();
+        assertTrue(cancelled.isCancelled());
+        cancelled.whenLoaded().join();
+        view.drainFxQueue();
+        assertEquals(List.of(), view.calls);
+    }
+}
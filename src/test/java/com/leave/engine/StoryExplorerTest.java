@@ -0,0 +1,101 @@
+package com.leave.engine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class StoryExplorerTest {
+
+    private static GameStory story(String json) throws IOException {
+        StoryLoader loader = new StoryLoader();
+        return loader.storyFromTree(loader.readStoryTree(json.replace('\'', '"').getBytes(StandardCharsets.UTF_8), "test"));
+    }
+
+    // Taking the key opens the win; c has a broken link and locked_room can never be left
+    private static final String BRANCHING =
+            "{'startScene': 'a', 'scenes': {" +
+            " 'a': {'choices': [{'nextSceneId': 'b', 'action': 'SET_FLAG_KEY'}, {'nextSceneId': 'c'}, {'nextSceneId': 'locked_room'}]}," +
+            " 'b': {'choices': [{'nextSceneId': 'd'}, {'nextSceneId': 'd'}]}," +
+            " 'c': {'choices': [{'nextSceneId': 'd'}, {'nextSceneId': 'missing'}]}," +
+            " 'd': {'choices': [{'nextSceneId': 'win', 'requiredFlag': 'KEY'}, {'nextSceneId': 'e'}]}," +
+            " 'e': {'outcome': 'LOST'}," +
+            " 'win': {'outcome': 'WON'}," +
+            " 'locked_room': {'choices': [{'nextSceneId': 'a', 'requiredFlag': 'KEY'}]}," +
+            " 'orphan': {'autoTransitionTo': 'a'}" +
+            "}, 'outcomes': {'WON': {'message': 'w'}, 'LOST': {'message': 'l'}, 'UNUSED': {'message': 'u'}}}";
+
+    @Test
+    void countsEveryRouteAndHowItEnds() throws IOException {
+        StoryExplorer.Report report = new StoryExplorer(story(BRANCHING), 4).explore();
+
+        assertEquals(7, report.getPaths());
+        assertEquals(Map.of("WON", 2L, "LOST", 3L), report.getEndings());
+        assertEquals(Map.of("c", 1L), report.getBrokenLinks());
+        assertEquals(Map.of("locked_room", 1L), report.getLockedScenes());
+        assertEquals(Map.of("a", 7L, "b", 4L, "c", 2L, "d", 5L, "e", 3L, "win", 2L, "locked_room", 1L), report.getSceneVisits());
+        assertEquals(List.of("orphan"), report.getUnreachedScenes());
+        assertEquals(List.of("UNUSED"), report.getUnreachedOutcomes());
+        assertEquals(List.of("a", "b", "d", "win", "WON"), report.getLongestRoute());
+        assertFalse(report.isTruncated());
+
+        StoryExplorer.Report single = new StoryExplorer(story(BRANCHING), 1).explore();
+        assertEquals(report.getStates(), single.getStates());
+        assertEquals(report.getSceneVisits(), single.getSceneVisits());
+    }
+
+    @Test
+    void loopsAreCountedOncePerWayOut() throws IOException {
+        // OUT continues to a scene that does not exist
+        GameStory looping = story("{'startScene': 'a', 'scenes': {" +
+                " 'a': {'autoTransitionTo': 'b'}," +
+                " 'b': {'choices': [{'nextSceneId': 'a'}, {'nextSceneId': 'end'}]}," +
+                " 'end': {'outcome': 'OUT'}}, 'outcomes': {'OUT': {'message': 'o', 'nextSceneId': 'stuck'}}}");
+        StoryExplorer.Report report = new StoryExplorer(looping, 2).explore();
+        assertEquals(1, report.getPaths());
+        assertEquals(Map.of("OUT", 1L), report.getBrokenLinks());
+        assertEquals(0, report.getTrappedPaths());
+
+        GameStory trap = story("{'startScene': 'a', 'scenes': {" +
+                " 'a': {'autoTransitionTo': 'b'}, 'b': {'autoTransitionTo': 'a'}}}");
+        report = new StoryExplorer(trap, 2).explore();
+        assertEquals(1, report.getPaths());
+        assertEquals(1, report.getTrappedPaths());
+        assertEquals(2, report.getStates());
+    }
+
+    @Test
+    void startsAfterTheStartScenesAction() throws IOException {
+        GameStory lit = story("{'startScene': 'dark', 'scenes': {" +
+                " 'dark': {'action': 'SET_FLAG_LIT', 'choices': [{'nextSceneId': 'end', 'requiredFlag': 'LIT'}]}," +
+                " 'end': {'outcome': 'OUT'}}, 'outcomes': {'OUT': {'message': 'o'}}}");
+        StoryExplorer.Report report = new StoryExplorer(lit, 2).explore();
+        assertEquals(Map.of("OUT", 1L), report.getEndings());
+        assertEquals(Map.of(), report.getLockedScenes());
+
+        GameStory over = story("{'startScene': 'a', 'scenes': {'a': {'outcome': 'OUT'}}, 'outcomes': {'OUT': {'message': 'o'}}}");
+        assertEquals(Map.of("OUT", 1L), new StoryExplorer(over, 1).explore().getEndings());
+    }
+
+    @Test
+    void reachesEverySceneOfTheShippedStory() throws IOException {
+        StoryExplorer explorer = new StoryExplorer(new StoryLoader().loadStory("/com/leave/engine/data/sao.json"));
+        StoryExplorer.Report report = explorer.explore();
+        assertEquals(List.of(), report.getUnreachedScenes());
+        assertEquals(List.of(), report.getUnreachedOutcomes());
+        assertTrue(report.getBrokenLinks().isEmpty());
+        long ended = 0;
+        for (long paths : report.getEndings().values()) ended += paths;
+        for (long paths : report.getDeadEnds().values()) ended += paths;
+        assertEquals(report.getPaths(), ended);
+
+        explorer.setMaxStates(5);
+        StoryExplorer.Report cut = explorer.explore();
+        assertTrue(cut.isTruncated());
+        assertTrue(cut.getUnexploredPaths() > 0);
+    }
+}
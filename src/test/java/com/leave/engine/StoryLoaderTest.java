@@ -0,0 +1,103 @@
+package com.leave.engine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class StoryLoaderTest {
+
+    private static final String STORY_JSON_PATH = "/com/leave/engine/data/sao.json";
+
+    private static byte[] storyBytes() throws Exception {
+        try (InputStream in = StoryLoaderTest.class.getResourceAsStream(STORY_JSON_PATH)) {
+            assertNotNull(in, "sao.json should be on the test classpath");
+            return in.readAllBytes();
+        }
+    }
+
+    // Re-serializing both stories is the simplest deep comparison of the POJO graphs
+    private static void assertSameStory(GameStory expected, GameStory actual) throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        assertEquals(mapper.writeValueAsString(expected), mapper.writeValueAsString(actual));
+    }
+
+    @Test
+    void testStreamingStory_matchesFullJsonLoad() throws Exception {
+        StoryLoader loader = new StoryLoader();
+        GameStory full = loader.loadStory(STORY_JSON_PATH);
+
+        loader.setMaxResidentScenes(2); // Force evictions while walking every scene
+        GameStory streamed = loader.loadStreamingStory(storyBytes(), STORY_JSON_PATH);
+
+        assertEquals(full.getScenes().size(), streamed.getScenes().size());
+        assertTrue(streamed.getScenes().containsKey(full.getStartScene()));
+        assertSameStory(full, streamed);
+    }
+
+    @Test
+    void testStreamingStory_unknownSceneIsNull() throws Exception {
+        GameStory streamed = new StoryLoader().loadStreamingStory(storyBytes(), STORY_JSON_PATH);
+        assertNull(streamed.getScenes().get("no_such_scene"));
+        assertFalse(streamed.getScenes().containsKey("no_such_scene"));
+    }
+
+    @Test
+    void testStreamingStory_duplicateSceneKeyReplacesTheEarlierScene() throws Exception {
+        byte[] json = ("{'startScene': 'a', 'scenes': {" +
+                " 'a': {'autoTransitionTo': 'b'}, 'b': {'backgroundImage': '/old.png'}, 'b': {'backgroundImage': '/new.png'}}}")
+                .replace('\'', '"').getBytes(StandardCharsets.UTF_8);
+        StoryLoader loader = new StoryLoader();
+        GameStory full = loader.storyFromTree(loader.readStoryTree(json, "duplicate"));
+        GameStory streamed = loader.loadStreamingStory(json, "duplicate");
+
+        assertEquals(2, streamed.getScenes().size());
+        assertEquals(full.getScenes().keySet(), streamed.getScenes().keySet());
+        assertEquals("/new.png", streamed.getScenes().get("b").getBackgroundImage());
+        assertSameStory(full, streamed);
+
+        GameManager gm = GameManager.headless(streamed);
+        gm.startGame();
+        gm.followAutoTransition();
+        assertEquals("/new.png", gm.getCurrentSceneData().getBackgroundImage());
+    }
+
+    @Test
+    void testStreamingStory_textTemplatesStayBounded() throws Exception {
+        StoryLoader loader = new StoryLoader();
+        loader.setMaxResidentScenes(1);
+        GameManager gm = GameManager.headless(loader.loadStreamingStory(storyBytes(), STORY_JSON_PATH));
+        gm.setCurrentPlayerCharacterName("Kirito");
+        for (int i = 0; i < 3 * GameManager.TEXT_TEMPLATES_PER_RESIDENT_SCENE; i++) {
+            assertEquals("Line " + i + " for Kirito", gm.processText("Line " + i + " for {playerName}"));
+        }
+        assertEquals(GameManager.TEXT_TEMPLATES_PER_RESIDENT_SCENE, gm.getTextTemplateCount());
+
+        GameManager full = GameManager.headless(loader.loadStory(STORY_JSON_PATH));
+        for (int i = 0; i < 3 * GameManager.TEXT_TEMPLATES_PER_RESIDENT_SCENE; i++) full.processText("Line " + i);
+        assertEquals(3 * GameManager.TEXT_TEMPLATES_PER_RESIDENT_SCENE, full.getTextTemplateCount());
+    }
+
+    @Test
+    void testCompiledStory_roundTripsJson(@TempDir Path tempDir) throws Exception {
+        StoryLoader loader = new StoryLoader();
+        GameStory full = loader.loadStory(STORY_JSON_PATH);
+
+        ByteArrayOutputStream compiled = new ByteArrayOutputStream();
+        new StoryCompiler().compile(full, compiled);
+        Path storyFile = tempDir.resolve("sao" + StoryLoader.COMPILED_STORY_EXTENSION);
+        Files.write(storyFile, compiled.toByteArray());
+
+        GameStory loaded = loader.loadCompiledStory(storyFile);
+        assertEquals(full.getStartScene(), loaded.getStartScene());
+        assertSameStory(full, loaded);
+    }
+}
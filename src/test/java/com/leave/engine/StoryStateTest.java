@@ -0,0 +1,72 @@
+package com.leave.engine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class StoryStateTest {
+
+    @Test
+    void actionsAreCompiledOnceAndApplied() {
+        StorySymbols symbols = new StorySymbols();
+        StorySymbols.Action action = symbols.action("ADD_ITEM_KEY, ADD_ITEM_KEY; SET_FLAG_door_open");
+        assertSame(action, symbols.action("ADD_ITEM_KEY, ADD_ITEM_KEY; SET_FLAG_door_open"));
+
+        StoryState state = new StoryState(symbols);
+        state.apply(action);
+        assertEquals(2, state.getItemCount("key"));
+        assertTrue(state.isFlagSet("DOOR_OPEN"));
+
+        state.apply(symbols.action("REMOVE_ITEM_KEY;REMOVE_ITEM_KEY;REMOVE_ITEM_KEY;CLEAR_FLAG_DOOR_OPEN"));
+        assertEquals(0, state.getItemCount("KEY"));
+        assertFalse(state.hasItem("KEY"));
+        assertFalse(state.isFlagSet("DOOR_OPEN"));
+    }
+
+    @Test
+    void conditionsTestOneBit() {
+        StorySymbols symbols = new StorySymbols();
+        StoryState state = new StoryState(symbols);
+        int needsFlag = symbols.flagCondition("SAW_GHOST");
+        int lacksFlag = symbols.flagCondition("!SAW_GHOST");
+        int needsShovel = symbols.itemCondition("shovel");
+        assertTrue(state.test(StorySymbols.ALWAYS));
+        assertEquals(StorySymbols.ALWAYS, symbols.flagCondition("  "));
+
+        assertFalse(state.test(needsFlag));
+        assertTrue(state.test(lacksFlag));
+        assertFalse(state.test(needsShovel));
+
+        state.apply(symbols.action("SET_FLAG_SAW_GHOST,ADD_ITEM_SHOVEL"));
+        assertTrue(state.test(needsFlag));
+        assertFalse(state.test(lacksFlag));
+        assertTrue(state.test(needsShovel));
+
+        StoryState copy = new StoryState(state);
+        assertEquals(state, copy);
+        state.reset();
+        assertFalse(state.test(needsShovel));
+        assertTrue(copy.test(needsShovel));
+    }
+
+    @Test
+    void sceneGraphCompilesChoiceActions() throws Exception {
+        SceneGraph graph = SceneGraph.build(new StoryLoader().loadStory("/com/leave/engine/data/sao.json"));
+        StorySymbols symbols = graph.getSymbols();
+        assertTrue(symbols.findItem("SHOVEL") >= 0); // Interned from sao.json while building
+        assertTrue(symbols.findItem("KEY") >= 0);
+
+        StoryState state = new StoryState(symbols);
+        for (int i = 0; i < graph.getSceneCount(); i++) {
+            SceneGraph.SceneNode node = graph.getSceneNode(i);
+            SceneData scene = node.getData();
+            if (scene.getChoices() == null) continue;
+            for (int c = 0; c < scene.getChoices().size(); c++) {
+                assertTrue(state.test(node.getChoiceCondition(c)));
+                state.apply(node.getChoiceAction(c));
+            }
+        }
+        assertTrue(state.hasItem("shovel"));
+        assertEquals(1, state.getItemCount("KEY"));
+    }
+}
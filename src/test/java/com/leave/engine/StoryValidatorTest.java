@@ -0,0 +1,113 @@
+package com.leave.engine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class StoryValidatorTest {
+
+    private static GameStory story(String json) throws IOException {
+        StoryLoader loader = new StoryLoader();
+        return loader.storyFromTree(loader.readStoryTree(json.replace('\'', '"').getBytes(StandardCharsets.UTF_8), "test"));
+    }
+
+    private static StoryValidator.Report validate(String json) throws IOException {
+        return new StoryValidator(path -> !path.contains("missing")).validate(story(json));
+    }
+
+    // "scene: message" for every issue of a category, in report order
+    private static List<String> issues(StoryValidator.Report report, StoryValidator.Category category) {
+        List<String> found = new ArrayList<>();
+        for (StoryValidator.Issue issue : report.getIssues()) {
+            if (issue.getCategory() == category) found.add(issue.getSceneId() + ": " + issue.getMessage());
+        }
+        return found;
+    }
+
+    @Test
+    void reportsDanglingReferences() throws IOException {
+        StoryValidator.Report report = validate("{'startScene': 'a', 'scenes': {" +
+                " 'a': {'choices': [{'text': 'go', 'nextSceneId': 'nowhere'}, {'text': 'lose', 'outcome': 'NONE'}," +
+                "                   {'text': 'stuck'}, {'text': 'win', 'outcome': 'WON'}]," +
+                "       'autoTransitionTo': 'gone', 'nextSceneIdIfNameSet': 'unnamed'}}," +
+                " 'outcomes': {'WON': {'message': 'w', 'nextSceneId': 'after'}}}");
+
+        assertEquals(List.of(
+                "a: Choice 'go' nextSceneId points to unknown scene 'nowhere'.",
+                "a: Choice 'lose' outcome points to unknown outcome 'NONE'.",
+                "a: Choice 'stuck' has neither nextSceneId nor outcome.",
+                "a: autoTransitionTo points to unknown scene 'gone'.",
+                "a: nextSceneIdIfNameSet points to unknown scene 'unnamed'.",
+                "null: Outcome 'WON' continues to unknown scene 'after'."),
+                sorted(issues(report, StoryValidator.Category.DANGLING_REFERENCE)));
+        assertTrue(report.hasErrors());
+        assertEquals(StoryValidator.Severity.ERROR, report.getIssues().get(0).getSeverity());
+    }
+
+    @Test
+    void reportsAMissingStartScene() throws IOException {
+        StoryValidator.Report report = validate("{'startScene': 'intro', 'scenes': {'a': {'outcome': 'END'}}," +
+                " 'outcomes': {'END': {'message': 'e'}}}");
+        assertEquals(List.of("null: startScene 'intro' does not exist."),
+                     issues(report, StoryValidator.Category.DANGLING_REFERENCE));
+        assertEquals(0, report.getReachableCount());
+        assertEquals(List.of("a: Scene cannot be reached from startScene."),
+                     issues(report, StoryValidator.Category.UNREACHABLE_SCENE));
+    }
+
+    @Test
+    void reportsUnreachableScenesAsWarnings() throws IOException {
+        StoryValidator.Report report = validate("{'startScene': 'a', 'scenes': {" +
+                " 'a': {'choices': [{'nextSceneId': 'b'}, {'outcome': 'OUT'}]}, 'b': {'outcome': 'END'}," +
+                " 'c': {'autoTransitionTo': 'a'}, 'd': {'autoTransitionTo': 'c'}, 'e': {'outcome': 'END'}}," +
+                " 'outcomes': {'END': {'message': 'e'}, 'OUT': {'message': 'o', 'nextSceneId': 'e'}}}");
+        assertEquals(5, report.getSceneCount());
+        assertEquals(3, report.getReachableCount());
+        assertEquals(List.of("c: Scene cannot be reached from startScene.", "d: Scene cannot be reached from startScene."),
+                     issues(report, StoryValidator.Category.UNREACHABLE_SCENE));
+        assertFalse(report.hasErrors());
+        assertEquals(2, report.count(StoryValidator.Severity.WARNING));
+    }
+
+    @Test
+    void reportsLoopsWithNoWayOut() throws IOException {
+        StoryValidator.Report report = validate("{'startScene': 'a', 'scenes': {" +
+                " 'a': {'choices': [{'nextSceneId': 'b'}, {'nextSceneId': 'x'}]}," +
+                " 'b': {'autoTransitionTo': 'c'}, 'c': {'choices': [{'nextSceneId': 'b'}]}," +
+                " 'x': {'choices': [{'nextSceneId': 'x'}, {'outcome': 'END'}]}}," + // Loops, but can end
+                " 'outcomes': {'END': {'message': 'e'}}}");
+        assertEquals(List.of("b: Scenes [b, c] loop with no exit, choice or ending leading out."),
+                     issues(report, StoryValidator.Category.TRAP_CYCLE));
+    }
+
+    @Test
+    void reportsMissingAssetsExceptThePlayersPortrait() throws IOException {
+        StoryValidator.Report report = validate("{'startScene': 'a', 'playerNamePlaceholder': '{PLAYER}', 'scenes': {" +
+                " 'a': {'backgroundImage': '/bg/missing.png', 'backgroundMusic': '/audio/theme.wav'," +
+                "       'dialogue': [{'speaker': '{PLAYER}', 'portraitPath': '/missing_player.png'}," +
+                "                    {'speaker': 'Guard', 'portraitPath': '/missing_guard.png'}]," +
+                "       'outcome': 'END'}}, 'outcomes': {'END': {'message': 'e'}}}");
+        assertEquals(List.of("a: backgroundImage not found: /bg/missing.png", "a: portraitPath not found: /missing_guard.png"),
+                     sorted(issues(report, StoryValidator.Category.MISSING_ASSET)));
+        assertFalse(report.hasErrors());
+    }
+
+    @Test
+    void theShippedStoryHasNoErrors() throws IOException {
+        StoryValidator.Report report = new StoryValidator(path -> true)
+                .validate(new StoryLoader().loadStory("/com/leave/engine/data/sao.json"));
+        assertEquals(List.of(), report.getIssues());
+        assertEquals(report.getSceneCount(), report.getReachableCount());
+    }
+
+    private static List<String> sorted(List<String> list) {
+        List<String> copy = new ArrayList<>(list);
+        copy.sort(null);
+        return copy;
+    }
+}
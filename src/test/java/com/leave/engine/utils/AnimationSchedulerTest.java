@@ -0,0 +1,105 @@
+package com.leave.engine.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AnimationSchedulerTest {
+
+    private static final long MS = 1_000_000L;
+
+    private final AnimationScheduler scheduler = AnimationScheduler.getInstance();
+    private final List<AnimationScheduler.Tickable> toUnregister = new ArrayList<>();
+
+    @BeforeEach
+    void driveByHand() {
+        scheduler.setExternalPulse(true); // No FX toolkit needed
+    }
+
+    @AfterEach
+    void reset() {
+        for (AnimationScheduler.Tickable tickable : toUnregister) scheduler.unregister(tickable);
+        scheduler.resume();
+        scheduler.setFixedStepRate(0);
+        scheduler.setExternalPulse(false);
+    }
+
+    private void register(AnimationScheduler.Tickable tickable) {
+        toUnregister.add(tickable);
+        scheduler.register(tickable);
+    }
+
+    @Test
+    void fixedStepsCatchUpButNeverPastTheCap() {
+        scheduler.setFixedStepRate(100); // 10 ms steps
+        List<Long> ticks = new ArrayList<>();
+        register(ticks::add);
+        long start = scheduler.now();
+
+        scheduler.pulse(0); // The first pulse only sets the reference time
+        assertEquals(0, ticks.size());
+        scheduler.pulse(25 * MS);
+        assertEquals(List.of(start + 10 * MS, start + 20 * MS), ticks);
+        scheduler.pulse(35 * MS); // 5 ms left over + 10 ms
+        assertEquals(3, ticks.size());
+
+        ticks.clear();
+        scheduler.pulse(1035 * MS); // A one-second stall
+        assertEquals(AnimationScheduler.MAX_CATCH_UP_STEPS, ticks.size());
+        scheduler.pulse(1040 * MS); // The dropped backlog does not come back
+        assertEquals(AnimationScheduler.MAX_CATCH_UP_STEPS, ticks.size());
+        scheduler.pulse(1045 * MS);
+        assertEquals(AnimationScheduler.MAX_CATCH_UP_STEPS + 1, ticks.size());
+    }
+
+    @Test
+    void pausedTimeIsSkippedByTheClock() {
+        List<Long> ticks = new ArrayList<>();
+        register(ticks::add);
+        long start = scheduler.now();
+
+        scheduler.pulse(0);
+        scheduler.pulse(10 * MS);
+        assertEquals(List.of(start, start + 10 * MS), ticks);
+
+        scheduler.pause();
+        assertTrue(scheduler.isPaused());
+        scheduler.pulse(50 * MS);
+        assertEquals(2, ticks.size());
+
+        scheduler.resume();
+        scheduler.pulse(100 * MS); // Like a restarted timer, this does not advance the clock
+        scheduler.pulse(105 * MS);
+        assertEquals(List.of(start, start + 10 * MS, start + 10 * MS, start + 15 * MS), ticks);
+    }
+
+    @Test
+    void unregisteredTickablesAreNotTickedAgainInTheSamePulse() {
+        List<String> ticks = new ArrayList<>();
+        AnimationScheduler.Tickable[] finishing = new AnimationScheduler.Tickable[1];
+        // Completes on its first tick and removes itself, as an animation's completion callback does
+        finishing[0] = now -> {
+            ticks.add("finishing");
+            scheduler.unregister(finishing[0]);
+        };
+        AnimationScheduler.Tickable stopped = now -> ticks.add("stopped");
+        register(now -> {
+            ticks.add("first");
+            scheduler.unregister(stopped); // Removed by an earlier tickable in the same pass
+        });
+        register(stopped);
+        register(finishing[0]);
+
+        scheduler.setFixedStepRate(100);
+        scheduler.pulse(0);
+        scheduler.pulse(30 * MS); // Three catch-up steps in one pulse
+        assertEquals(List.of("first", "finishing", "first", "first"), ticks);
+        assertFalse(scheduler.isRegistered(stopped));
+        assertFalse(scheduler.isRegistered(finishing[0]));
+    }
+}
@@ -0,0 +1,47 @@
+package com.leave.engine.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class AssetIOTest {
+
+    @Test
+    void readsClasspathResources() {
+        byte[] story = AssetIO.getInstance().readResource("/com/leave/engine/data/sao.json").join();
+        assertTrue(story.length > 0);
+        assertEquals('{', (char) story[0]);
+    }
+
+    @Test
+    void missingResourceFailsTheFuture() {
+        CompletionException error = assertThrows(CompletionException.class,
+                () -> AssetIO.getInstance().readResource("/com/leave/engine/data/missing.json").join());
+        assertTrue(error.getCause() instanceof IOException);
+    }
+
+    @Test
+    void blockingLoadsRunConcurrently() throws Exception {
+        // Every task waits for all the others, so this only finishes if they are in flight together
+        int tasks = 4;
+        CountDownLatch allStarted = new CountDownLatch(tasks);
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        for (int i = 0; i < tasks; i++) {
+            futures.add(AssetIO.getInstance().submit(() -> {
+                allStarted.countDown();
+                return allStarted.await(5, TimeUnit.SECONDS);
+            }));
+        }
+        for (CompletableFuture<Boolean> future : futures) {
+            assertTrue(future.get(10, TimeUnit.SECONDS));
+        }
+    }
+}
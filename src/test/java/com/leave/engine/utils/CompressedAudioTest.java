@@ -0,0 +1,79 @@
+package com.leave.engine.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+
+import org.junit.jupiter.api.Test;
+
+class CompressedAudioTest {
+
+    private static short[] sine(int frames, int channels) {
+        short[] samples = new short[frames * channels];
+        for (int f = 0; f < frames; f++) {
+            for (int c = 0; c < channels; c++) {
+                samples[f * channels + c] = (short) (12000 * Math.sin(2 * Math.PI * (440 + 110 * c) * f / 44100.0));
+            }
+        }
+        return samples;
+    }
+
+    private static AudioInputStream pcm(short[] samples, int channels) {
+        byte[] bytes = new byte[samples.length * 2];
+        for (int i = 0; i < samples.length; i++) {
+            bytes[i * 2] = (byte) samples[i];
+            bytes[i * 2 + 1] = (byte) (samples[i] >> 8);
+        }
+        return new AudioInputStream(new ByteArrayInputStream(bytes), new AudioFormat(44100f, 16, channels, true, false),
+                                    samples.length / channels);
+    }
+
+    private static short[] roundTrip(short[] samples, int channels) throws IOException {
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        int frames = CompressedAudio.encode(pcm(samples, channels), encoded);
+        assertEquals(samples.length / channels, frames);
+        if (frames > CompressedAudio.BLOCK_FRAMES * 20) { // Short clips are dominated by padding
+            assertTrue(encoded.size() < samples.length * 2 * 0.3, "Roughly a quarter of the PCM size: " + encoded.size());
+        }
+
+        try (AudioInputStream decoded = CompressedAudio.decode(new ByteArrayInputStream(encoded.toByteArray()))) {
+            assertEquals(channels, decoded.getFormat().getChannels());
+            assertEquals(frames, decoded.getFrameLength());
+            byte[] bytes = decoded.readAllBytes();
+            short[] out = new short[bytes.length / 2];
+            for (int i = 0; i < out.length; i++) out[i] = (short) ((bytes[i * 2] & 0xff) | (bytes[i * 2 + 1] << 8));
+            return out;
+        }
+    }
+
+    @Test
+    void stereoRoundTripKeepsLengthAndQuality() throws IOException {
+        short[] source = sine(CompressedAudio.BLOCK_FRAMES * 30 + 17, 2); // Partial last block
+        short[] decoded = roundTrip(source, 2);
+        assertEquals(source.length, decoded.length);
+
+        double signal = 0, noise = 0;
+        for (int i = 0; i < source.length; i++) {
+            signal += (double) source[i] * source[i];
+            noise += (double) (source[i] - decoded[i]) * (source[i] - decoded[i]);
+        }
+        double snrDb = 10 * Math.log10(signal / noise);
+        assertTrue(snrDb > 25, "SNR too low: " + snrDb + " dB");
+    }
+
+    @Test
+    void monoRoundTrip() throws IOException {
+        short[] source = sine(500, 1);
+        assertEquals(source.length, roundTrip(source, 1).length);
+    }
+
+    @Test
+    void rejectsOtherStreams() {
+        assertThrows(IOException.class, () -> CompressedAudio.decode(new ByteArrayInputStream(new byte[32])));
+    }
+}
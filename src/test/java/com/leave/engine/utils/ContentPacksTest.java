@@ -0,0 +1,147 @@
+package com.leave.engine.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.leave.engine.GameStory;
+import com.leave.engine.StoryCompiler;
+import com.leave.engine.StoryLoader;
+
+class ContentPacksTest {
+
+    private static final String BASE_STORY = "/com/leave/engine/data/sao.json";
+    private final ContentPacks packs = ContentPacks.getInstance();
+
+    @AfterEach
+    void unmount() {
+        packs.unmountAll();
+    }
+
+    private static Path writePack(Path file, Map<String, byte[]> entries) throws IOException {
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(file))) {
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                zip.putNextEntry(new ZipEntry(entry.getKey()));
+                zip.write(entry.getValue());
+                zip.closeEntry();
+            }
+        }
+        return file;
+    }
+
+    private static byte[] utf8(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String read(InputStream stream) throws IOException {
+        try (InputStream in = stream) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    void laterPacksWinAndTheJarIsTheFallback(@TempDir Path dir) throws IOException {
+        Path first = writePack(dir.resolve("a.zip"), Map.of(
+                "com/leave/engine/data/notes.txt", utf8("first"),
+                "com/leave/engine/images/tiers.properties", utf8("/one.png=400x200;200x100\n")));
+        Path second = writePack(dir.resolve("b.zip"), Map.of(
+                "com/leave/engine/data/notes.txt", utf8("second"),
+                "com/leave/engine/data/audio/extra/deep/file.txt", utf8("deep")));
+        Path broken = Files.write(dir.resolve("broken.zip"), utf8("not a zip"));
+
+        assertEquals(2, packs.mount(List.of(first, broken, second)));
+        assertEquals(List.of(first, second), packs.getMountedArchives());
+        assertEquals(3, packs.getIndexedCount());
+
+        assertEquals("second", read(packs.openStream("/com/leave/engine/data/notes.txt")));
+        URL url = packs.getResource("com/leave/engine/data/notes.txt");
+        assertEquals("jar", url.getProtocol());
+        assertEquals("second", read(url.openStream()));
+        assertEquals("deep", new String(AssetIO.getInstance().readResource("/com/leave/engine/data/audio/extra/deep/file.txt").join(),
+                                        StandardCharsets.UTF_8));
+        assertEquals(2, packs.getAllResources("/com/leave/engine/data/notes.txt").size());
+
+        // Anything the packs don't have still comes from the jar
+        assertTrue(packs.exists(BASE_STORY));
+        assertNull(packs.findInPacks(BASE_STORY));
+        assertNull(packs.openStream("/com/leave/engine/data/missing.txt"));
+
+        packs.unmountAll();
+        assertNull(packs.getResource("/com/leave/engine/data/notes.txt"));
+    }
+
+    @Test
+    void loadsStoriesFromAPack(@TempDir Path dir) throws IOException {
+        StoryLoader loader = new StoryLoader();
+        GameStory base = loader.loadStory(BASE_STORY);
+        ByteArrayOutputStream compiled = new ByteArrayOutputStream();
+        new StoryCompiler().compile(base, compiled);
+        byte[] json;
+        try (InputStream in = ContentPacksTest.class.getResourceAsStream(BASE_STORY)) {
+            json = in.readAllBytes();
+        }
+        packs.mount(writePack(dir.resolve("story.zip"), Map.of(
+                "packs/test/story.story", compiled.toByteArray(),
+                "packs/test/story.json", json)));
+
+        GameStory fromCompiled = loader.loadStory("/packs/test/story.story");
+        assertEquals(base.getStartScene(), fromCompiled.getStartScene());
+        assertEquals(base.getScenes().keySet(), fromCompiled.getScenes().keySet());
+
+        loader.setStreamingThresholdBytes(0); // Scenes parsed on first lookup
+        GameStory streamed = loader.loadStory("/packs/test/story.json");
+        assertEquals(base.getScenes().get(base.getStartScene()).getBackgroundImage(),
+                     streamed.getScenes().get(base.getStartScene()).getBackgroundImage());
+    }
+
+    @Test
+    void aPackWavReplacesTheJarsCompressedAudio(@TempDir Path dir) throws IOException {
+        String wav = "/com/leave/engine/data/audio/blip.wav";
+        String compressed = "/com/leave/engine/data/audio/blip" + CompressedAudio.EXTENSION;
+        assertEquals(ContentPacks.class.getResource(compressed), CompressedAudio.findResource(wav));
+
+        packs.mount(writePack(dir.resolve("audio.zip"), Map.of(wav.substring(1), utf8("RIFF"))));
+        URL replaced = CompressedAudio.findResource(wav);
+        assertEquals("jar", replaced.getProtocol());
+        assertTrue(replaced.getPath().endsWith(wav));
+        assertEquals("RIFF", read(replaced.openStream()));
+
+        // A compressed copy in a pack wins over the pack's own .wav
+        packs.mount(writePack(dir.resolve("compressed.zip"), Map.of(compressed.substring(1), utf8("LVAU"))));
+        assertEquals("LVAU", read(CompressedAudio.findResource(wav).openStream()));
+    }
+
+    @Test
+    void replacedImagesLoseTheJarsTiers(@TempDir Path dir) throws IOException {
+        String background = "/com/leave/engine/images/backgrounds/3door.png";
+        String portrait = "/com/leave/engine/images/characters/portraits/maskGuy.png";
+        assertNotNull(ImageTiers.fromManifests().get(background));
+        assertNotNull(ImageTiers.fromManifests().get(portrait));
+
+        packs.mount(writePack(dir.resolve("background.zip"), Map.of(background.substring(1), utf8("png"))));
+        assertNull(ImageTiers.fromManifests().get(background));
+        assertNotNull(ImageTiers.fromManifests().get(portrait));
+
+        // A pack that lists tiers for its own copy keeps them, until a later pack replaces the image again
+        packs.mount(writePack(dir.resolve("portrait.zip"), Map.of(
+                portrait.substring(1), utf8("png"),
+                ImageTiers.MANIFEST_PATH.substring(1), utf8(portrait + "=800x600;400x300\n"))));
+        assertEquals(800, ImageTiers.fromManifests().get(portrait).getWidth());
+        packs.mount(writePack(dir.resolve("later.zip"), Map.of(portrait.substring(1), utf8("png"))));
+        assertNull(ImageTiers.fromManifests().get(portrait));
+    }
+}
@@ -0,0 +1,73 @@
+package com.leave.engine.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.URL;
+
+import org.junit.jupiter.api.Test;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.WritableImage;
+
+class ImageCacheTest {
+
+    private static final String DIR = "/com/leave/engine/images/backgrounds/";
+    private static final long TEN_BY_TEN = 10 * 10 * 4;
+
+    // A cache of its own whose "decode" needs no FX toolkit: every image comes out 10x10
+    private static ImageCache cache(long maxBytes) {
+        ImageCache cache = new ImageCache() {
+            @Override
+            Image decode(URL url, ImageTiers.Choice choice) {
+                return new WritableImage(10, 10);
+            }
+        };
+        cache.setMaxBytes(maxBytes);
+        return cache;
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedImagesOverThePixelBudget() {
+        ImageCache cache = cache(2 * TEN_BY_TEN); // Room for two
+        String a = DIR + "3door.png", b = DIR + "bedroom.png", c = DIR + "brickroom.png";
+
+        Image first = cache.getImage(a);
+        cache.getImage(b);
+        assertSame(first, cache.getImage(a)); // Hit; b is now the least recently used
+        cache.getImage(c);
+
+        assertTrue(cache.contains(a));
+        assertFalse(cache.contains(b));
+        assertTrue(cache.contains(c));
+        assertEquals(2, cache.size());
+        assertEquals(2 * TEN_BY_TEN, cache.getCurrentBytes());
+        assertEquals(1, cache.getHits());
+        assertEquals(3, cache.getMisses());
+        assertEquals(1, cache.getEvictions());
+
+        // Shrinking the budget evicts right away, oldest first
+        cache.setMaxBytes(TEN_BY_TEN);
+        assertFalse(cache.contains(a));
+        assertTrue(cache.contains(c));
+        assertEquals(TEN_BY_TEN, cache.getCurrentBytes());
+        assertEquals(2, cache.getEvictions());
+    }
+
+    @Test
+    void keepsTheNewestImageEvenOverBudget() {
+        ImageCache cache = cache(TEN_BY_TEN / 2);
+        cache.getImage(DIR + "3door.png");
+        cache.getImage(DIR + "bedroom.png");
+        assertEquals(1, cache.size());
+        assertTrue(cache.contains(DIR + "bedroom.png"));
+        assertEquals(1, cache.getEvictions());
+
+        assertNull(cache.getImage(DIR + "not_there.png"));
+        assertEquals(3, cache.getMisses());
+        assertEquals(1, cache.size());
+
+        cache.invalidate(DIR + "bedroom.png");
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getCurrentBytes());
+    }
+}
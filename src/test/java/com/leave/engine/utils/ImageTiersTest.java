@@ -0,0 +1,110 @@
+package com.leave.engine.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ImageTiersTest {
+
+    private static final String BG = "/com/leave/engine/images/backgrounds/big.png";
+
+    private static ImageTiers tiersFor(String path, int width, int height, int[][] tiers) {
+        return new ImageTiers(Collections.singletonMap(path, ImageTiers.parseEntry(ImageTiers.formatEntry(width, height, tiers))));
+    }
+
+    @Test
+    void choosesSmallestTierThatCoversTheDisplay() {
+        ImageTiers tiers = tiersFor(BG, 16000, 9600, new int[][] { { 4000, 2400 }, { 2000, 1200 }, { 1000, 600 } });
+
+        ImageTiers.Choice hd = tiers.choose(BG, 1920, 1080);
+        assertEquals("/com/leave/engine/images/backgrounds/big@2000x1200.png", hd.getResourcePath());
+        assertEquals(1920, hd.getWidth());   // Cover at 5:3 is width-bound on a 16:9 screen
+        assertEquals(1152, hd.getHeight());
+
+        assertEquals("/com/leave/engine/images/backgrounds/big@1000x600.png", tiers.choose(BG, 1000, 500).getResourcePath());
+        assertEquals("/com/leave/engine/images/backgrounds/big@4000x2400.png", tiers.choose(BG, 3840, 2160).getResourcePath());
+
+        ImageTiers.Choice huge = tiers.choose(BG, 8000, 4000); // Bigger than every tier: original, still downscaled
+        assertEquals(BG, huge.getResourcePath());
+        assertEquals(8000, huge.getWidth());
+    }
+
+    @Test
+    void neverUpscalesAndIgnoresUnknownImages() {
+        ImageTiers tiers = tiersFor(BG, 1600, 900, new int[0][]);
+        ImageTiers.Choice choice = tiers.choose(BG, 1920, 1080);
+        assertEquals(BG, choice.getResourcePath());
+        assertEquals(0, choice.getWidth());
+        assertEquals(0, tiers.choose("/other.png", 100, 100).getWidth());
+        assertEquals(0, tiers.choose(BG, 0, 0).getWidth()); // Display size not known yet
+    }
+
+    @Test
+    void manifestRoundTripsThroughProperties() throws IOException {
+        String manifest = "/com/leave/engine/images/backgrounds/with\\ space.png=3000x2000;1500x1000\n";
+        Map<String, ImageTiers.Entry> entries;
+        try (InputStream in = new ByteArrayInputStream(manifest.getBytes(StandardCharsets.ISO_8859_1))) {
+            entries = ImageTiers.parse(in);
+        }
+        ImageTiers.Entry entry = entries.get("/com/leave/engine/images/backgrounds/with space.png");
+        assertNotNull(entry);
+        assertEquals(3000, entry.getWidth());
+        assertEquals(1, entry.getTierCount());
+        assertEquals("a/b@10x20.png", ImageTiers.tierPath("a/b.png", 10, 20));
+    }
+
+    @Test
+    void tierLevelsSkipSpriteStripsAndTinyImages() {
+        assertEquals(3, ImageTierCompiler.tierLevels(16000, 9600).size());   // 4000, 2000 and 1000 wide
+        assertTrue(ImageTierCompiler.tierLevels(34560, 560).isEmpty());     // Frames are only 560 tall
+        assertTrue(ImageTierCompiler.tierLevels(1600, 900).isEmpty());
+    }
+
+    @Test
+    void halvingWeightsColourByAlpha() {
+        int red = 0xffff0000, clear = 0x000000ff; // Transparent blue must not tint the result
+        int[] half = ImageTierCompiler.halve(new int[] { red, clear, clear, clear }, 2, 2);
+        assertEquals(1, half.length);
+        assertEquals(0x40ff0000, half[0]);
+    }
+
+    @Test
+    void compilesTiersAndManifest(@TempDir Path dir) throws IOException {
+        Path src = dir.resolve("src/backgrounds");
+        Files.createDirectories(src);
+        BufferedImage image = new BufferedImage(2400, 1600, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < 1600; y++) for (int x = 0; x < 2400; x++) image.setRGB(x, y, (x / 2) % 2 == 0 ? 0x202020 : 0xa0a0a0);
+        ImageIO.write(image, "png", src.resolve("big.png").toFile());
+        ImageIO.write(new BufferedImage(400, 300, BufferedImage.TYPE_INT_RGB), "png", src.resolve("small.png").toFile());
+
+        Path out = dir.resolve("out");
+        ImageTierCompiler.compileDirectory(dir.resolve("src"), out, "/img");
+
+        Path tier = out.resolve("backgrounds/big@1200x800.png");
+        assertTrue(Files.exists(tier));
+        BufferedImage read = ImageIO.read(tier.toFile());
+        assertEquals(1200, read.getWidth());
+        assertEquals(0x202020, read.getRGB(0, 0) & 0xffffff); // Stripes are two pixels wide, so they survive one halving
+        assertEquals(0xa0a0a0, read.getRGB(1, 0) & 0xffffff);
+
+        Map<String, ImageTiers.Entry> manifest;
+        try (InputStream in = Files.newInputStream(out.resolve("tiers.properties"))) {
+            manifest = ImageTiers.parse(in);
+        }
+        assertEquals(1, manifest.size());
+        assertEquals(2400, manifest.get("/img/backgrounds/big.png").getWidth());
+    }
+}
@@ -0,0 +1,100 @@
+package com.leave.engine.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+
+import org.junit.jupiter.api.Test;
+
+// Drives the mixer directly through mixBlock(), so no audio device is needed
+class SfxMixerTest {
+
+    private static AudioInputStream pcmStream(float rate, int channels, short... samples) {
+        byte[] bytes = new byte[samples.length * 2];
+        for (int i = 0; i < samples.length; i++) {
+            bytes[i * 2] = (byte) samples[i];
+            bytes[i * 2 + 1] = (byte) (samples[i] >> 8);
+        }
+        AudioFormat format = new AudioFormat(rate, 16, channels, true, false);
+        return new AudioInputStream(new ByteArrayInputStream(bytes), format, samples.length / channels);
+    }
+
+    private static short sampleAt(byte[] block, int index) {
+        return (short) ((block[index * 2] & 0xff) | (block[index * 2 + 1] << 8));
+    }
+
+    private static SfxMixer.Sound constant(short value, int frames) {
+        short[] samples = new short[frames * SfxMixer.CHANNELS];
+        Arrays.fill(samples, value);
+        return new SfxMixer.Sound(samples);
+    }
+
+    @Test
+    void decodeResamplesMonoToStereoAtMixerRate() throws Exception {
+        SfxMixer.Sound sound = SfxMixer.decode(pcmStream(22050f, 1, (short) 0, (short) 1000, (short) 2000, (short) 3000));
+        assertEquals(8 * SfxMixer.CHANNELS, sound.samples.length, "Half-rate mono should double in frames and become stereo");
+        assertEquals(500, sound.samples[2], "Interpolated frame between 0 and 1000");
+        assertEquals(sound.samples[2], sound.samples[3], "Mono is copied to both channels");
+    }
+
+    @Test
+    void overlappingPlaysOfOneEffectAreSummed() {
+        SfxMixer mixer = new SfxMixer(4);
+        SfxMixer.Sound sound = constant((short) 1000, SfxMixer.BLOCK_FRAMES);
+        mixer.play(sound, 1.0f);
+        mixer.play(sound, 0.5f);
+        mixer.mixBlock();
+        assertEquals(1500, sampleAt(mixer.lastBlock(), 0));
+        assertEquals(2, mixer.getPeakVoices());
+
+        mixer.mixBlock();
+        assertEquals(0, sampleAt(mixer.lastBlock(), 0), "Both voices finished after one block");
+    }
+
+    @Test
+    void sumIsClippedAndOldestVoiceIsStolen() {
+        SfxMixer mixer = new SfxMixer(2);
+        SfxMixer.Sound loud = constant((short) 30000, SfxMixer.BLOCK_FRAMES * 4);
+        mixer.play(loud, 1.0f);
+        mixer.play(loud, 1.0f);
+        mixer.mixBlock();
+        assertEquals(Short.MAX_VALUE, sampleAt(mixer.lastBlock(), 0));
+
+        mixer.play(loud, 1.0f);
+        mixer.mixBlock();
+        assertEquals(1, mixer.getVoicesStolen());
+        assertEquals(2, mixer.getPeakVoices());
+    }
+
+    @Test
+    void textBlipTriggersAreCoalescedToTheMaxRate() {
+        TextBlipVoice blip = new TextBlipVoice();
+        blip.setSound(constant((short) 1000, SfxMixer.BLOCK_FRAMES * 8).samples);
+        blip.setMaxRate(SfxMixer.SAMPLE_RATE / (SfxMixer.BLOCK_FRAMES * 4.0)); // One blip per four blocks
+        float[] mix = new float[SfxMixer.BLOCK_FRAMES * SfxMixer.CHANNELS];
+
+        for (int i = 0; i < 5; i++) blip.trigger(0);
+        blip.mixInto(mix, SfxMixer.BLOCK_FRAMES);
+        assertEquals(1, blip.getPlayedCount(), "A burst of triggers starts one blip");
+
+        blip.trigger(0);
+        for (int block = 1; block < 4; block++) blip.mixInto(mix, SfxMixer.BLOCK_FRAMES);
+        assertEquals(1, blip.getPlayedCount(), "Triggers inside the gap wait");
+        blip.mixInto(mix, SfxMixer.BLOCK_FRAMES);
+        assertEquals(2, blip.getPlayedCount(), "The pending trigger plays once the gap has passed");
+        assertEquals(6, blip.getTriggerCount());
+    }
+
+    @Test
+    void textBlipVariantsAreStablePerKey() {
+        TextBlipVoice blip = new TextBlipVoice();
+        assertEquals(0, blip.variantFor(null));
+        assertEquals(blip.variantFor("Guard"), blip.variantFor("Guard"));
+        blip.setVoicePitch("muttered_scared", 1.5f);
+        assertEquals(TextBlipVoice.DEFAULT_PITCHES.length, blip.variantFor("muttered_scared"));
+    }
+}
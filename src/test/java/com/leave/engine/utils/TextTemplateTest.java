@@ -0,0 +1,38 @@
+package com.leave.engine.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class TextTemplateTest {
+
+    private static final TextTemplate.Resolver VARIABLES = (name, out) -> {
+        String value = Map.of("playerName", "Kirito", "item:key", "3").get(name);
+        if (value == null) return false;
+        out.append(value);
+        return true;
+    };
+
+    @Test
+    void substitutesVariablesInOnePass() {
+        TextTemplate template = TextTemplate.compile("{playerName} has {item:key} keys, {playerName}.");
+        assertEquals(3, template.getVariableCount());
+        assertEquals("Kirito has 3 keys, Kirito.", template.render(VARIABLES));
+    }
+
+    @Test
+    void leavesUnknownVariablesAndStrayBracesAlone() {
+        assertEquals("{mood} {not a var} {} {", TextTemplate.compile("{mood} {not a var} {} {").render(VARIABLES));
+        TextTemplate plain = TextTemplate.compile("No variables here.");
+        assertTrue(plain.isLiteral());
+        assertSame(plain.getSource(), plain.render(VARIABLES));
+    }
+
+    @Test
+    void recognisesTheStoryPlaceholderAlias() {
+        TextTemplate template = TextTemplate.compile("Hello [PLAYER], {playerName}!", "[PLAYER]", "playerName");
+        assertEquals("Hello Kirito, Kirito!", template.render(VARIABLES));
+    }
+}